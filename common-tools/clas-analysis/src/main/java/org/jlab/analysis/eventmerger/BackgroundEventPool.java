@@ -0,0 +1,166 @@
+package org.jlab.analysis.eventmerger;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataSource;
+import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.io.hipo.HipoDataSource;
+
+/**
+ * Bounded pool of background events, filled ahead of time by a dedicated
+ * reader thread, so that the threads merging background into signal events
+ * only wait when the reader falls behind.
+ *
+ * The background files are read in order, each one closed when exhausted,
+ * and the list is restarted from the first file if events are to be reused.
+ * The pool is meant to be shared by several consumer threads, none of which
+ * holds a lock while waiting, so the events returned by one call to take
+ * are not necessarily consecutive in the files.
+ */
+class BackgroundEventPool {
+
+    private static final Logger LOGGER = Logger.getLogger(BackgroundEventPool.class.getName());
+
+    // marks the end of the background events:
+    private static final DataEvent END = new HipoDataEvent(new Event());
+
+    private final List<String> fileNames;
+    private final Supplier<DataSource> sources;
+    private final boolean reuse;
+    private final BlockingQueue<DataEvent> events;
+    private final Thread reader;
+
+    private volatile boolean closed = false;
+
+    /**
+     * @param fileNames background files
+     * @param reuse whether to restart from the first file when all are exhausted
+     * @param capacity maximum number of events read ahead
+     */
+    public BackgroundEventPool(List<String> fileNames, boolean reuse, int capacity) {
+        this(fileNames, reuse, capacity, HipoDataSource::new);
+    }
+
+    /**
+     * @param fileNames background files
+     * @param reuse whether to restart from the first file when all are exhausted
+     * @param capacity maximum number of events read ahead
+     * @param sources creates the data source to read each file
+     */
+    BackgroundEventPool(List<String> fileNames, boolean reuse, int capacity, Supplier<DataSource> sources) {
+        this.fileNames = new ArrayList<>(fileNames);
+        this.sources = sources;
+        this.reuse = reuse;
+        this.events = new ArrayBlockingQueue<>(capacity);
+        this.reader = new Thread(this::read, "BackgroundEventPool");
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    private void read() {
+        try {
+            this.readFiles();
+        }
+        catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "Error reading background events", e);
+        }
+        finally {
+            this.putEnd();
+        }
+    }
+
+    private void putEnd() {
+        while (true) {
+            try {
+                if (closed) {
+                    // the remaining events are dropped, to leave room for the marker:
+                    events.clear();
+                    events.offer(END);
+                }
+                else {
+                    events.put(END);
+                }
+                return;
+            }
+            catch (InterruptedException e) {
+                // interrupted by close, retry
+            }
+        }
+    }
+
+    private void readFiles() {
+        DataSource source = null;
+        int fileIndex = 0;
+        try {
+            while (!closed) {
+                if (source==null || !source.hasEvent()) {
+                    if (source!=null) source.close();
+                    source = null;
+                    if (fileIndex == fileNames.size()) {
+                        if (reuse && !fileNames.isEmpty()) {
+                            LOGGER.info("Reopening previously used background file");
+                            fileIndex = 0;
+                        }
+                        else {
+                            LOGGER.info("Ran out of background events");
+                            break;
+                        }
+                    }
+                    source = sources.get();
+                    source.open(fileNames.get(fileIndex));
+                    fileIndex++;
+                    // an empty file is skipped to the next:
+                    continue;
+                }
+                events.put(source.getNextEvent());
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            if (source!=null) source.close();
+        }
+    }
+
+    /**
+     * Take the next background events, waiting for the reader if necessary.
+     * @param n number of events
+     * @return the events, or null if there are not enough left
+     */
+    public List<DataEvent> take(int n) {
+        List<DataEvent> taken = new ArrayList<>(n);
+        try {
+            for (int i=0; i<n; i++) {
+                if (closed) return null;
+                DataEvent event = events.take();
+                if (event == END) {
+                    // leave the marker for the other consumers:
+                    events.offer(END);
+                    return null;
+                }
+                taken.add(event);
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        return taken;
+    }
+
+    /**
+     * Stop the reader thread, the following calls to take return null.
+     */
+    public void close() {
+        closed = true;
+        reader.interrupt();
+    }
+}
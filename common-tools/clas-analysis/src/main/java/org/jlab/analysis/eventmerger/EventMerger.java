@@ -44,8 +44,10 @@ public class EventMerger {
     private List<String> bgFileNames;
     private boolean reuseBgEvents = false;
     private int bgScale = 1;
-    private int bgFileIndex = 0;
-    private HipoDataSource bgReader;
+    private volatile BackgroundEventPool bgPool;
+
+    // background events read ahead, per signal event that can be merged concurrently:
+    private static final int BG_PREFETCH = 2;
     
     public EventMerger() {
         detectors = this.getDetectors(DetectorType.DC.getName(), DetectorType.FTOF.getName());
@@ -113,7 +115,7 @@ public class EventMerger {
         return null;
     }
     
-    public boolean setBgFiles(List<String> filenames, int scale, boolean reuse) {
+    synchronized public boolean setBgFiles(List<String> filenames, int scale, boolean reuse) {
         bgFileNames = new ArrayList<>();
         for (String filename : filenames) {
             File f = new File(filename);
@@ -126,36 +128,22 @@ public class EventMerger {
         }        
         if(scale>0) bgScale = scale;
         reuseBgEvents = reuse;
+        if(bgPool!=null) bgPool.close();
+        int capacity = 2 * bgScale * BG_PREFETCH * Runtime.getRuntime().availableProcessors();
+        bgPool = new BackgroundEventPool(bgFileNames, reuseBgEvents, capacity);
         return true;
     } 
     
-    private boolean openNextFile() {
-        if(bgFileIndex == bgFileNames.size()) {
-            if (reuseBgEvents) {
-                Logger.getLogger(EventMerger.class.getName()).info("Reopening previously used background file");
-                bgFileIndex = 0;
-            }
-            else {
-                Logger.getLogger(EventMerger.class.getName()).info("Ran out of background events");
-                return false;
-            }
-        }
-        bgReader = new HipoDataSource();
-        bgReader.open(bgFileNames.get(bgFileIndex));
-        bgFileIndex++;
-        return true;
-    }
-
-    synchronized public List<DataEvent> getBackgroundEvents(int n) {
-        List<DataEvent> events = new ArrayList<>();
-        for(int i=0; i<n; i++) {
-            if (bgReader==null || !bgReader.hasEvent()) {
-                if(!openNextFile())
-                    return null;
-            }
-            events.add(bgReader.getNextEvent());
-        }
-        return events;
+    /**
+     * Get the next background events, read ahead of time by a dedicated thread
+     * 
+     * @param n number of events
+     * @return the events, or null if there are no more background events
+     */
+    public List<DataEvent> getBackgroundEvents(int n) {
+        BackgroundEventPool pool = bgPool;
+        if(pool==null) return null;
+        return pool.take(n);
     }
     
     private void printConfiguration() {
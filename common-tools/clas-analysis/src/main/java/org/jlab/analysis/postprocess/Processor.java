@@ -62,9 +62,11 @@ public class Processor {
             conman = new ConstantsManager();
             conman.init(CCDB_TABLES);
             schemaFactory = r.getSchemaFactory();
-            helicitySequence = Util.getHelicity(preloadFiles, schemaFactory, restream, conman);
+            // read the tag-1 records of all files at once, in parallel:
+            List<Tag1Index> tag1 = restream && rebuild ? null : Tag1Index.read(preloadFiles);
+            helicitySequence = Util.getHelicity(preloadFiles, tag1, schemaFactory, restream, conman);
             if (rebuild) chargeSequence = DaqScalersSequence.rebuildSequence(1, conman, preloadFiles);
-            else chargeSequence = DaqScalersSequence.readSequence(preloadFiles);
+            else chargeSequence = Tag1Index.getScalerSequence(tag1, schemaFactory);
             r.close();
         }
     }
@@ -0,0 +1,340 @@
+package org.jlab.analysis.postprocess;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.jnp.hipo4.io.HipoReader;
+
+import org.jlab.detector.helicity.HelicitySequence;
+import org.jlab.detector.helicity.HelicityState;
+import org.jlab.detector.scalers.DaqScalers;
+import org.jlab.detector.scalers.DaqScalersSequence;
+
+/**
+ * The tag-1 records needed to postprocess one HIPO file, i.e. the helicity
+ * states from HEL::flip and the beam charge and livetime from RUN::scaler,
+ * collected in a single pass over the file's tag-1 events.
+ *
+ * The records can also be written to a small index file in a cache directory,
+ * which is used instead of reading the HIPO file again as long as the latter's
+ * path, size and modification time have not changed.  The cache directory is
+ * taken from the TAG1_INDEX environment variable or system property, if set,
+ * else no index is read or written.
+ */
+class Tag1Index {
+
+    static final Logger logger = Logger.getLogger(Tag1Index.class.getName());
+
+    public static final String SUFFIX = ".tag1";
+
+    private static final int MAGIC = 0x54414731;
+    private static final int VERSION = 2;
+
+    private final String filename;
+
+    // whether the records were read from the index instead of the HIPO file:
+    private boolean indexed = false;
+
+    // HEL::flip, one entry per tag-1 event with the bank:
+    private final List<int[]> flipIds = new ArrayList<>();       // run, event
+    private final List<Long> flipTimestamps = new ArrayList<>();
+    private final List<byte[]> flipBits = new ArrayList<>();     // status, helicity, helicityRaw, pair, pattern
+
+    // RUN::scaler, one entry per tag-1 event with the bank:
+    private final List<Long> scalerTimestamps = new ArrayList<>();
+    private final List<float[]> scalerValues = new ArrayList<>(); // livetime, fcup, fcupgated
+
+    private Tag1Index(String filename) {
+        this.filename = filename;
+    }
+
+    /**
+     * @return the default cache directory of the index files, or null if not set
+     */
+    public static String getIndexEnvironment() {
+        String env = System.getenv("TAG1_INDEX");
+        if (env != null) return env;
+        return System.getProperty("TAG1_INDEX");
+    }
+
+    /**
+     * @param directory cache directory of the index files
+     * @param filename name of the HIPO file
+     * @return name of its index file
+     */
+    public static String getIndexFilename(String directory, String filename) {
+        return new File(directory, new File(filename).getName() + SUFFIX).getPath();
+    }
+
+    /**
+     * Get the tag-1 records of one HIPO file, from its index if it is up to
+     * date, else by reading the HIPO file and then (re)writing the index.
+     * @param filename name of the HIPO file
+     * @param directory cache directory of the index files, or null to not use an index
+     * @return the file's tag-1 records
+     */
+    public static Tag1Index read(String filename, String directory) {
+        Tag1Index index = new Tag1Index(filename);
+        if (directory == null) {
+            index.scan();
+        }
+        else if (index.load(directory)) {
+            index.indexed = true;
+        }
+        else {
+            index.scan();
+            index.save(directory);
+        }
+        return index;
+    }
+
+    /**
+     * Get the tag-1 records of all files, reading them in parallel, with the
+     * index files in the default cache directory, see {@link #getIndexEnvironment}.
+     * @param filenames names of the HIPO files
+     * @return the files' tag-1 records, in the same order as the files
+     */
+    public static List<Tag1Index> read(List<String> filenames) {
+        return read(filenames, getIndexEnvironment());
+    }
+
+    /**
+     * Get the tag-1 records of all files, reading them in parallel.
+     * @param filenames names of the HIPO files
+     * @param directory cache directory of the index files, or null to not use an index
+     * @return the files' tag-1 records, in the same order as the files
+     */
+    public static List<Tag1Index> read(List<String> filenames, String directory) {
+        List<Tag1Index> indices = new ArrayList<>();
+        if (filenames.isEmpty()) return indices;
+        final int threads = Math.min(filenames.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Tag1Index>> futures = new ArrayList<>();
+            for (String filename : filenames) {
+                futures.add(pool.submit(() -> read(filename, directory)));
+            }
+            for (Future<Tag1Index> future : futures) {
+                indices.add(future.get());
+            }
+        }
+        catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Tag1Index:  error reading tag-1 events", e);
+        }
+        finally {
+            pool.shutdown();
+        }
+        return indices;
+    }
+
+    /**
+     * Read the HEL::flip and RUN::scaler banks from all tag-1 events.
+     */
+    private void scan() {
+        HipoReader reader = new HipoReader();
+        reader.setTags(1);
+        reader.open(filename);
+        SchemaFactory schema = reader.getSchemaFactory();
+        Event event = new Event();
+        Bank flipBank = schema.hasSchema("HEL::flip") ? new Bank(schema.getSchema("HEL::flip")) : null;
+        Bank scalerBank = schema.hasSchema("RUN::scaler") ? new Bank(schema.getSchema("RUN::scaler")) : null;
+        Bank configBank = new Bank(schema.getSchema("RUN::config"));
+        while (reader.hasNext()) {
+            reader.nextEvent(event);
+            if (flipBank != null) event.read(flipBank);
+            if (scalerBank != null) event.read(scalerBank);
+            event.read(configBank);
+            if (flipBank != null && flipBank.getRows()>0) {
+                flipIds.add(new int[]{flipBank.getInt("run",0), flipBank.getInt("event",0)});
+                flipTimestamps.add(flipBank.getLong("timestamp",0));
+                flipBits.add(new byte[]{
+                    flipBank.getByte("status",0),
+                    flipBank.getByte("helicity",0),
+                    flipBank.getByte("helicityRaw",0),
+                    flipBank.getByte("pair",0),
+                    flipBank.getByte("pattern",0)});
+            }
+            if (scalerBank != null && scalerBank.getRows()>0) {
+                scalerTimestamps.add(configBank.getRows()>0 ? configBank.getLong("timestamp",0) : 0);
+                scalerValues.add(new float[]{
+                    scalerBank.getFloat("livetime",0),
+                    scalerBank.getFloat("fcup",0),
+                    scalerBank.getFloat("fcupgated",0)});
+            }
+        }
+        reader.close();
+    }
+
+    /**
+     * @return whether the records were read from the index instead of the HIPO file
+     */
+    boolean isIndexed() {
+        return this.indexed;
+    }
+
+    /**
+     * Read the records from the index, if it exists and matches the HIPO file.
+     * @param directory cache directory of the index files
+     * @return whether the records were read
+     */
+    private boolean load(String directory) {
+        File hipo = new File(filename);
+        File indexFile = new File(getIndexFilename(directory, filename));
+        if (!indexFile.isFile()) return false;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) return false;
+            if (!in.readUTF().equals(hipo.getAbsolutePath())) return false;
+            if (in.readLong() != hipo.length() || in.readLong() != hipo.lastModified()) return false;
+            final int nflips = in.readInt();
+            for (int i=0; i<nflips; i++) {
+                flipIds.add(new int[]{in.readInt(), in.readInt()});
+                flipTimestamps.add(in.readLong());
+                byte[] bits = new byte[5];
+                in.readFully(bits);
+                flipBits.add(bits);
+            }
+            final int nscalers = in.readInt();
+            for (int i=0; i<nscalers; i++) {
+                scalerTimestamps.add(in.readLong());
+                scalerValues.add(new float[]{in.readFloat(), in.readFloat(), in.readFloat()});
+            }
+            return true;
+        }
+        catch (IOException e) {
+            logger.log(Level.WARNING, "Tag1Index:  ignoring unreadable index {0}", indexFile);
+            flipIds.clear();
+            flipTimestamps.clear();
+            flipBits.clear();
+            scalerTimestamps.clear();
+            scalerValues.clear();
+            return false;
+        }
+    }
+
+    /**
+     * Write the records to the index, via a temporary file so that a partially
+     * written index is never used.
+     * @param directory cache directory of the index files, created if needed
+     */
+    private void save(String directory) {
+        File hipo = new File(filename);
+        File indexFile = new File(getIndexFilename(directory, filename));
+        File tmp = new File(indexFile.getPath() + ".tmp" + Thread.currentThread().getId());
+        indexFile.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeUTF(hipo.getAbsolutePath());
+            out.writeLong(hipo.length());
+            out.writeLong(hipo.lastModified());
+            out.writeInt(flipIds.size());
+            for (int i=0; i<flipIds.size(); i++) {
+                out.writeInt(flipIds.get(i)[0]);
+                out.writeInt(flipIds.get(i)[1]);
+                out.writeLong(flipTimestamps.get(i));
+                out.write(flipBits.get(i));
+            }
+            out.writeInt(scalerTimestamps.size());
+            for (int i=0; i<scalerTimestamps.size(); i++) {
+                out.writeLong(scalerTimestamps.get(i));
+                for (float f : scalerValues.get(i)) out.writeFloat(f);
+            }
+        }
+        catch (IOException e) {
+            logger.log(Level.WARNING, "Tag1Index:  cannot write index {0}", indexFile);
+            tmp.delete();
+            return;
+        }
+        if (!tmp.renameTo(indexFile)) {
+            logger.log(Level.WARNING, "Tag1Index:  cannot write index {0}", indexFile);
+            tmp.delete();
+        }
+    }
+
+    /**
+     * @param schema schema with the HEL::flip bank
+     * @return the helicity states, in file order
+     */
+    public List<HelicityState> getHelicityStates(SchemaFactory schema) {
+        List<HelicityState> states = new ArrayList<>();
+        if (flipIds.isEmpty()) return states;
+        Bank flipBank = new Bank(schema.getSchema("HEL::flip"), 1);
+        for (int i=0; i<flipIds.size(); i++) {
+            flipBank.putInt("run", 0, flipIds.get(i)[0]);
+            flipBank.putInt("event", 0, flipIds.get(i)[1]);
+            flipBank.putLong("timestamp", 0, flipTimestamps.get(i));
+            flipBank.putByte("status", 0, flipBits.get(i)[0]);
+            flipBank.putByte("helicity", 0, flipBits.get(i)[1]);
+            flipBank.putByte("helicityRaw", 0, flipBits.get(i)[2]);
+            flipBank.putByte("pair", 0, flipBits.get(i)[3]);
+            flipBank.putByte("pattern", 0, flipBits.get(i)[4]);
+            states.add(HelicityState.createFromFlipBank(flipBank));
+        }
+        return states;
+    }
+
+    /**
+     * @param schema schema with the RUN::scaler bank
+     * @return the scaler readouts, in file order
+     */
+    public List<DaqScalers> getScalers(SchemaFactory schema) {
+        List<DaqScalers> scalers = new ArrayList<>();
+        if (scalerTimestamps.isEmpty()) return scalers;
+        Bank scalerBank = new Bank(schema.getSchema("RUN::scaler"), 1);
+        for (int i=0; i<scalerTimestamps.size(); i++) {
+            scalerBank.putFloat("livetime", 0, scalerValues.get(i)[0]);
+            scalerBank.putFloat("fcup", 0, scalerValues.get(i)[1]);
+            scalerBank.putFloat("fcupgated", 0, scalerValues.get(i)[2]);
+            scalers.add(DaqScalers.create(scalerBank).setTimestamp(scalerTimestamps.get(i)));
+        }
+        return scalers;
+    }
+
+    /**
+     * Add the helicity states of all files to a sequence, in the same order
+     * as {@link HelicitySequence#initialize(List)}.
+     * @param seq the sequence to initialize
+     * @param indices the files' tag-1 records
+     * @param schema schema with the HEL::flip bank
+     */
+    public static void initialize(HelicitySequence seq, List<Tag1Index> indices, SchemaFactory schema) {
+        for (Tag1Index index : indices) {
+            for (HelicityState state : index.getHelicityStates(schema)) {
+                seq.addState(state);
+            }
+        }
+    }
+
+    /**
+     * Create the scaler sequence of all files, the same as
+     * {@link DaqScalersSequence#readSequence(List)}.
+     * @param indices the files' tag-1 records
+     * @param schema schema with the RUN::config and RUN::scaler banks
+     * @return the sequence
+     */
+    public static DaqScalersSequence getScalerSequence(List<Tag1Index> indices, SchemaFactory schema) {
+        List<DaqScalers> scalers = new ArrayList<>();
+        for (Tag1Index index : indices) {
+            scalers.addAll(index.getScalers(schema));
+        }
+        return DaqScalersSequence.create(schema, scalers);
+    }
+
+}
@@ -1,5 +1,6 @@
 package org.jlab.analysis.postprocess;
 
+import java.util.List;
 import java.util.logging.Logger;
 import org.jlab.clas.reco.ReconstructionEngine;
 import org.jlab.detector.calib.utils.ConstantsManager;
@@ -42,6 +43,7 @@ public class Tag1ToEvent {
         parser.addOption("-q","0","do beam charge and livetime (0/1=false/true)");
         parser.addOption("-d","0","do delayed helicity (0/1=false/true)");
         parser.addOption("-f","0","rebuild the HEL::flip banks (0/1=false/true)");
+        parser.addOption("-i","","cache directory of the tag-1 index files (default from $TAG1_INDEX, none if unset)");
         parser.addRequired("-o","output.hipo");
         parser.parse(args);
         if (parser.getInputList().isEmpty()) {
@@ -52,6 +54,8 @@ public class Tag1ToEvent {
         final boolean doHelicityDelay = parser.getOption("-d").intValue() != 0;
         final boolean doBeamCharge = parser.getOption("-q").intValue() != 0;
         final boolean doRebuildFlips = parser.getOption("-f").intValue() != 0;
+        final String indexDir = parser.getOption("-i").stringValue().isEmpty() ?
+                Tag1Index.getIndexEnvironment() : parser.getOption("-i").stringValue();
         if (!doHelicityDelay && !doBeamCharge && !doRebuildFlips) {
             parser.printUsage();
             LOGGER.severe("At least one of -q/-d/-f is required.");
@@ -86,9 +90,13 @@ public class Tag1ToEvent {
             final int run = Util.getRunNumber(parser.getInputList().get(0));
             IndexedTable helTable = conman.getConstants(run, "/runcontrol/helicity");
  
+            // Read the tag-1 events of all files at once, in parallel, or their indices:
+            LOGGER.info("\n>>> Reading tag-1 events ...\n");
+            List<Tag1Index> tag1 = Tag1Index.read(parser.getInputList(), indexDir);
+
             // Initialize the scaler sequence from tag-1 events:
             LOGGER.info("\n>>> Initializing scaler sequence from RUN/HEL::scaler ...\n");
-            DaqScalersSequence chargeSeq = DaqScalersSequence.readSequence(parser.getInputList());
+            DaqScalersSequence chargeSeq = Tag1Index.getScalerSequence(tag1, schema);
 
             // Initialize the helicity sequence:
             HelicitySequenceDelayed helSeq = new HelicitySequenceDelayed(helTable);
@@ -100,7 +108,7 @@ public class Tag1ToEvent {
             else {
                 // Just read the helicity sequence from existing HEL::flip banks in tag-1 events:
                 LOGGER.info("\n>>> Initializing helicity sequence from HEL::flip ...\n");
-                helSeq.initialize(parser.getInputList());
+                Tag1Index.initialize(helSeq, tag1, schema);
             }
 
             // Loop over the input HIPO files:
@@ -100,6 +100,18 @@ class Util {
      * @return delayd helicity sequnece
      */
     public static HelicitySequenceDelayed getHelicity(List<String> filenames, SchemaFactory schema, boolean restream, ConstantsManager conman) {
+        return getHelicity(filenames, null, schema, restream, conman);
+    }
+
+    /**
+     * @param filenames
+     * @param tag1 the files' tag-1 records, or null to read them from the files
+     * @param schema
+     * @param restream whether to ignore tag-1 banks and rebuild the stream of helicity states from FADC
+     * @param conman
+     * @return delayd helicity sequnece
+     */
+    public static HelicitySequenceDelayed getHelicity(List<String> filenames, List<Tag1Index> tag1, SchemaFactory schema, boolean restream, ConstantsManager conman) {
         final int run = getRunNumber(filenames);
         IndexedTable helTable = conman.getConstants(run, "/runcontrol/helicity");
         HelicitySequenceDelayed seq = null;
@@ -109,7 +121,7 @@ class Util {
         else {
             seq = new HelicitySequenceDelayed(helTable);
             if (restream) seq.addStream(schema, conman, filenames);
-            else          seq.initialize(filenames);
+            else          Tag1Index.initialize(seq, tag1!=null ? tag1 : Tag1Index.read(filenames), schema);
         }
         return seq;
     }
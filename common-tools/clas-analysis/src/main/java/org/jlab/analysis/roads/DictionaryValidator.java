@@ -23,7 +23,7 @@ import org.jlab.utils.options.OptionParser;
 
 public class DictionaryValidator {
 
-    private Dictionary             dictionary = null;
+    private RoadTable              roads      = null;
     private Map<String, DataGroup> dataGroups = new LinkedHashMap<>();
     private EmbeddedCanvasTabbed   canvas     = null;
             
@@ -167,14 +167,12 @@ public class DictionaryValidator {
                 wiresCopy.add((byte) (wires.get(10) + k10));
                 wiresCopy.add((byte) 0); //htcc
                 wiresCopy.add((byte) (wires.get(12)));
-                if(this.dictionary.containsKey(wiresCopy)) {
-                    foundRoad=this.dictionary.get(wiresCopy);
-                    break;
-                }
+                foundRoad=this.roads.get(wiresCopy);
+                if(foundRoad!=null) break;
             }}}}}}}}}}
         }
         else {
-            if(this.dictionary.containsKey(wires)) foundRoad=this.dictionary.get(wires);
+            foundRoad=this.roads.get(wires);
         } 
         return foundRoad;
     }
@@ -184,8 +182,11 @@ public class DictionaryValidator {
     }
 
     public void init(String filename, TestMode mode, int wireBin, int stripBin, int sectorDependence, int maxRoads) {
-        this.dictionary = new Dictionary();
-        this.dictionary.readDictionary(filename, mode, wireBin, stripBin, sectorDependence, maxRoads);
+        this.init(filename, mode, wireBin, stripBin, sectorDependence, maxRoads, false);
+    }
+
+    public void init(String filename, TestMode mode, int wireBin, int stripBin, int sectorDependence, int maxRoads, boolean cache) {
+        this.roads = RoadTable.read(filename, mode, wireBin, stripBin, sectorDependence, maxRoads, cache);
         this.createHistos(mode, wireBin, stripBin, sectorDependence);
         this.plotRoads();
     }
@@ -230,12 +231,11 @@ public class DictionaryValidator {
     }
     
     public void plotRoads() {
-        for(ArrayList<Byte> key : this.dictionary.keySet()) {
-            Road road = this.dictionary.getRoad(key);
+        this.roads.forEachRoad(road -> {
             int icharge = 0;
             if(road.getParticle().charge()>0) icharge = 1;
             this.fillHistos("Dictionary", charges[icharge], road);
-        }
+        });
     }
     
     /**
@@ -279,10 +279,8 @@ public class DictionaryValidator {
                 int ichPart   = (part.getParticle().charge()+1)/2;
                 Road road = null;
                 for(ArrayList<Byte> key : part.getKeys(mode, smearing)) {
-                    if(this.dictionary.containsKey(key)) {
-                        road = this.dictionary.getRoad(key);
-                        break;
-                    }
+                    road = this.roads.getRoad(key);
+                    if(road != null) break;
                 }
                 if(road != null) {
                     int ichRoad = (road.getParticle().charge()+1)/2;
@@ -322,6 +320,7 @@ public class DictionaryValidator {
         parser.addOption("-vzmax"  ,  "10", "maximum vz (cm)");
         parser.addOption("-n"        ,"-1", "maximum number of events to process for validation");
         parser.addOption("-r"        ,"-1", "maximum number of roads to use for validation");
+        parser.addOption("-cache"    , "0", "cache the dictionary roads in a binary file, 0=false, 1=true");
         parser.parse(args);
         
         String dictionaryFileName = null;
@@ -364,6 +363,7 @@ public class DictionaryValidator {
         }
         int maxEvents  = parser.getOption("-n").intValue();
         int maxRoads   = parser.getOption("-r").intValue();
+        boolean cache  = parser.getOption("-cache").intValue()!=0;
         
         double thrs    = parser.getOption("-threshold").doubleValue();
         double vzmin   = parser.getOption("-vzmin").doubleValue();
@@ -384,9 +384,10 @@ public class DictionaryValidator {
         System.out.println("Test mode set to:                               " + mode);
         System.out.println("Maximum number of events to process set to:     " + maxEvents);
         System.out.println("Maximum number of roads to use set to:          " + maxRoads);
+        System.out.println("Dictionary cache set to:                        " + cache);
         
         DictionaryValidator validator = new DictionaryValidator();
-        validator.init(dictionaryFileName, mode, wireBin, stripBin, sector, maxRoads);                
+        validator.init(dictionaryFileName, mode, wireBin, stripBin, sector, maxRoads, cache);                
     //        tm.printDictionary();
         validator.processFile(testFileName,wireBin,stripBin,sector,smear,mode,maxEvents,pid,charge,thrs, vzmin, vzmax);
         validator.plotHistos();
@@ -0,0 +1,372 @@
+package org.jlab.analysis.roads;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import org.jlab.analysis.roads.Dictionary.TestMode;
+import org.jlab.clas.physics.Particle;
+
+/**
+ * Read-only table of roads for fast matching, with the 13-byte road keys packed
+ * in two longs and the particles stored in primitive columns, hashed with open
+ * addressing and linear probing.
+ *
+ * The table can be written to a binary file and memory-mapped from it, so
+ * that large dictionaries are loaded without parsing and without keeping the
+ * roads on the heap.  The file can be used as a cache of a text dictionary,
+ * and records the options the road keys were built with and the size and
+ * modification time of the text file, so that it is rebuilt when any of them
+ * changes.
+ */
+public class RoadTable {
+
+    public static final String SUFFIX = ".roads";
+
+    private static final int MAGIC   = 0x524F4144;
+    private static final int VERSION = 1;
+    private static final int HEADER  = 64;
+
+    private static final int KEYSIZE = 13;
+    private static final long USED   = 1L << 63;
+    private static final int  MAXCAPACITY = 1 << 27;
+
+    private static final String[] ECALE = {"ECALe1", "ECALe4", "ECALe7"};
+
+    private final int capacity;
+    private final int size;
+
+    // keys, bytes 0-7 and 8-12 (with the USED bit set for occupied slots):
+    private final LongBuffer keysHi;
+    private final LongBuffer keysLo;
+    // particles:
+    private final IntBuffer    pids;
+    private final IntBuffer    charges;
+    private final DoubleBuffer masses;
+    private final DoubleBuffer[] momenta  = new DoubleBuffer[3];
+    private final DoubleBuffer[] vertices = new DoubleBuffer[3];
+    private final DoubleBuffer[] energies = new DoubleBuffer[3];
+
+    private RoadTable(int capacity, int size) {
+        this.capacity = capacity;
+        this.size     = size;
+        this.keysHi   = LongBuffer.allocate(capacity);
+        this.keysLo   = LongBuffer.allocate(capacity);
+        this.pids     = IntBuffer.allocate(capacity);
+        this.charges  = IntBuffer.allocate(capacity);
+        this.masses   = DoubleBuffer.allocate(capacity);
+        for(int i=0; i<3; i++) {
+            this.momenta[i]  = DoubleBuffer.allocate(capacity);
+            this.vertices[i] = DoubleBuffer.allocate(capacity);
+            this.energies[i] = DoubleBuffer.allocate(capacity);
+        }
+    }
+
+    private RoadTable(FileChannel channel, int capacity, int size) throws IOException {
+        this.capacity = capacity;
+        this.size     = size;
+        long offset = HEADER;
+        this.keysHi = map(channel, offset, 8*capacity).asLongBuffer();
+        offset += 8L*capacity;
+        this.keysLo = map(channel, offset, 8*capacity).asLongBuffer();
+        offset += 8L*capacity;
+        this.masses = map(channel, offset, 8*capacity).asDoubleBuffer();
+        offset += 8L*capacity;
+        for(DoubleBuffer[] columns : new DoubleBuffer[][]{momenta, vertices, energies}) {
+            for(int i=0; i<3; i++) {
+                columns[i] = map(channel, offset, 8*capacity).asDoubleBuffer();
+                offset += 8L*capacity;
+            }
+        }
+        this.pids = map(channel, offset, 4*capacity).asIntBuffer();
+        offset += 4L*capacity;
+        this.charges = map(channel, offset, 4*capacity).asIntBuffer();
+    }
+
+    private static MappedByteBuffer map(FileChannel channel, long offset, int length) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+    }
+
+    /**
+     * Create the table from the roads of a dictionary
+     * @param dictionary
+     * @return the table
+     */
+    public static RoadTable create(Map<ArrayList<Byte>, Particle> dictionary) {
+        int capacity = 16;
+        while(capacity < dictionary.size() + dictionary.size()/2) capacity *= 2;
+        if(capacity > MAXCAPACITY)
+            throw new IllegalArgumentException("RoadTable: too many roads " + dictionary.size());
+        RoadTable table = new RoadTable(capacity, dictionary.size());
+        for(Map.Entry<ArrayList<Byte>, Particle> entry : dictionary.entrySet()) {
+            ArrayList<Byte> key = entry.getKey();
+            if(key.size()!=KEYSIZE)
+                throw new IllegalArgumentException("RoadTable: invalid road key length " + key.size());
+            long hi = getHi(key);
+            long lo = getLo(key);
+            int slot = table.getSlot(hi, lo);
+            table.keysHi.put(slot, hi);
+            table.keysLo.put(slot, lo);
+            table.setParticle(slot, entry.getValue());
+        }
+        return table;
+    }
+
+    private void setParticle(int slot, Particle particle) {
+        pids.put(slot, particle.pid());
+        charges.put(slot, particle.charge());
+        masses.put(slot, particle.mass());
+        momenta[0].put(slot, particle.px());
+        momenta[1].put(slot, particle.py());
+        momenta[2].put(slot, particle.pz());
+        vertices[0].put(slot, particle.vx());
+        vertices[1].put(slot, particle.vy());
+        vertices[2].put(slot, particle.vz());
+        for(int i=0; i<3; i++) {
+            energies[i].put(slot, particle.hasProperty(ECALE[i]) ? particle.getProperty(ECALE[i]) : Double.NaN);
+        }
+    }
+
+    private Particle getParticle(int slot) {
+        Particle particle = new Particle(pids.get(slot), masses.get(slot), (byte) charges.get(slot),
+                                         momenta[0].get(slot),  momenta[1].get(slot),  momenta[2].get(slot),
+                                         vertices[0].get(slot), vertices[1].get(slot), vertices[2].get(slot));
+        for(int i=0; i<3; i++) {
+            if(!Double.isNaN(energies[i].get(slot))) particle.setProperty(ECALE[i], energies[i].get(slot));
+        }
+        return particle;
+    }
+
+    private static long getHi(List<Byte> key) {
+        long hi = 0;
+        for(int i=0; i<8; i++) hi = (hi << 8) | (key.get(i) & 0xFF);
+        return hi;
+    }
+
+    private static long getLo(List<Byte> key) {
+        long lo = 0;
+        for(int i=8; i<KEYSIZE; i++) lo = (lo << 8) | (key.get(i) & 0xFF);
+        return lo | USED;
+    }
+
+    private static ArrayList<Byte> getKey(long hi, long lo) {
+        ArrayList<Byte> key = new ArrayList<>(KEYSIZE);
+        for(int i=7; i>=0; i--)  key.add((byte) (hi >>> (8*i)));
+        for(int i=4; i>=0; i--)  key.add((byte) (lo >>> (8*i)));
+        return key;
+    }
+
+    /**
+     * @return the first slot probed for the key, in a table of the given capacity
+     */
+    static int getHomeSlot(ArrayList<Byte> key, int capacity) {
+        return getHomeSlot(getHi(key), getLo(key), capacity);
+    }
+
+    private static int getHomeSlot(long hi, long lo, int capacity) {
+        long h = (hi ^ (lo * 0x9E3779B97F4A7C15L)) * 0xC2B2AE3D27D4EB4FL;
+        return (int) (h >>> 33) & (capacity-1);
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it belongs
+     */
+    private int getSlot(long hi, long lo) {
+        int slot = getHomeSlot(hi, lo, capacity);
+        while(true) {
+            long used = keysLo.get(slot);
+            if(used == 0 || (used == lo && keysHi.get(slot) == hi)) return slot;
+            slot = (slot+1) & (capacity-1);
+        }
+    }
+
+    private int find(ArrayList<Byte> key) {
+        if(key.size()!=KEYSIZE) return -1;
+        long lo = getLo(key);
+        int slot = this.getSlot(getHi(key), lo);
+        return keysLo.get(slot) == lo ? slot : -1;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    public boolean containsKey(ArrayList<Byte> key) {
+        return this.find(key) >= 0;
+    }
+
+    /**
+     * @param key road key
+     * @return the road particle, or null if the road is not in the table
+     */
+    public Particle get(ArrayList<Byte> key) {
+        int slot = this.find(key);
+        return slot<0 ? null : this.getParticle(slot);
+    }
+
+    /**
+     * @param key road key
+     * @return the road, or null if it is not in the table
+     */
+    public Road getRoad(ArrayList<Byte> key) {
+        int slot = this.find(key);
+        return slot<0 ? null : new Road(key, this.getParticle(slot));
+    }
+
+    /**
+     * Loop over all roads in the table
+     * @param action
+     */
+    public void forEachRoad(Consumer<Road> action) {
+        for(int slot=0; slot<capacity; slot++) {
+            if(keysLo.get(slot)==0) continue;
+            action.accept(new Road(getKey(keysHi.get(slot), keysLo.get(slot)), this.getParticle(slot)));
+        }
+    }
+
+    /**
+     * Write the table to file
+     * @param filename output file name
+     * @param options options used to build the road keys
+     * @param source text dictionary the table was built from
+     * @throws IOException
+     */
+    void write(String filename, int[] options, File source) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for(int option : options) out.writeInt(option);
+            out.writeLong(source.length());
+            out.writeLong(source.lastModified());
+            out.writeInt(capacity);
+            out.writeInt(size);
+            out.write(new byte[HEADER - 8 - 4*options.length - 16 - 8]);
+            for(int i=0; i<capacity; i++) out.writeLong(keysHi.get(i));
+            for(int i=0; i<capacity; i++) out.writeLong(keysLo.get(i));
+            for(int i=0; i<capacity; i++) out.writeDouble(masses.get(i));
+            for(DoubleBuffer[] columns : new DoubleBuffer[][]{momenta, vertices, energies}) {
+                for(DoubleBuffer column : columns) {
+                    for(int i=0; i<capacity; i++) out.writeDouble(column.get(i));
+                }
+            }
+            for(int i=0; i<capacity; i++) out.writeInt(pids.get(i));
+            for(int i=0; i<capacity; i++) out.writeInt(charges.get(i));
+        }
+    }
+
+    /**
+     * Memory-map the table from file, if it was built from the given text
+     * dictionary with the same options
+     * @return the table, or null if the file is missing or out of date
+     */
+    static RoadTable open(String filename, int[] options, File source) {
+        File file = new File(filename);
+        if(!file.isFile()) return null;
+        int capacity, size;
+        try (DataInputStream in = new DataInputStream(new FileInputStream(file))) {
+            if(in.readInt()!=MAGIC || in.readInt()!=VERSION) return null;
+            for(int option : options) {
+                if(in.readInt()!=option) return null;
+            }
+            if(in.readLong()!=source.length() || in.readLong()!=source.lastModified()) return null;
+            capacity = in.readInt();
+            size     = in.readInt();
+        }
+        catch (IOException e) {
+            return null;
+        }
+        if(capacity<=0 || capacity>MAXCAPACITY || Integer.bitCount(capacity)!=1) return null;
+        if(file.length() != HEADER + 104L*capacity) return null;
+        // the mapping stays valid after the channel is closed:
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r"); FileChannel channel = raf.getChannel()) {
+            return new RoadTable(channel, capacity, size);
+        }
+        catch (IOException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    /**
+     * Get the road table of a text dictionary, by reading the text dictionary
+     * without using the binary cache
+     * @param fileName text dictionary file name
+     * @param mode test mode used for the road keys
+     * @param wireBinning dc wire binning
+     * @param stripBinning pcal strip binning
+     * @param sectorDependence sector-dependence mode (0=false, 1=true)
+     * @param maxRoads maximum number of roads to read
+     * @return the table
+     */
+    public static RoadTable read(String fileName, TestMode mode, int wireBinning, int stripBinning, int sectorDependence, int maxRoads) {
+        return read(fileName, mode, wireBinning, stripBinning, sectorDependence, maxRoads, false);
+    }
+
+    /**
+     * Get the road table of a text dictionary, memory-mapped from its binary
+     * cache if that is enabled and up to date, or else by reading the text
+     * dictionary and then (re)writing the cache if enabled.  The cache has the
+     * name of the text dictionary with the {@link #SUFFIX} suffix, and is never
+     * written if the text dictionary does not exist.
+     *
+     * @param fileName text dictionary file name
+     * @param mode test mode used for the road keys
+     * @param wireBinning dc wire binning
+     * @param stripBinning pcal strip binning
+     * @param sectorDependence sector-dependence mode (0=false, 1=true)
+     * @param maxRoads maximum number of roads to read
+     * @param cache whether to use the binary cache
+     * @return the table
+     */
+    public static RoadTable read(String fileName, TestMode mode, int wireBinning, int stripBinning, int sectorDependence, int maxRoads, boolean cache) {
+        File source = new File(fileName);
+        String cacheName = fileName + SUFFIX;
+        int[] options = {mode.getMode(), wireBinning, stripBinning, sectorDependence, maxRoads};
+        if(!source.isFile()) {
+            System.out.println("WARNING: dictionary file " + fileName + " not found");
+            cache = false;
+        }
+
+        RoadTable table = cache ? open(cacheName, options, source) : null;
+        if(table != null) {
+            System.out.println("\nReading dictionary from file " + cacheName);
+            System.out.println("\nNumber of roads: " + table.size());
+            return table;
+        }
+
+        Dictionary dictionary = new Dictionary();
+        dictionary.readDictionary(fileName, mode, wireBinning, stripBinning, sectorDependence, maxRoads);
+        table = create(dictionary);
+        if(!cache) return table;
+        File tmp = new File(cacheName + ".tmp");
+        try {
+            table.write(tmp.getPath(), options, source);
+            if(!tmp.renameTo(new File(cacheName))) {
+                System.out.println("WARNING: cannot write dictionary cache " + cacheName);
+                tmp.delete();
+            }
+        }
+        catch (IOException e) {
+            System.out.println("WARNING: cannot write dictionary cache " + cacheName);
+            tmp.delete();
+        }
+        return table;
+    }
+}
@@ -0,0 +1,137 @@
+package org.jlab.analysis.eventmerger;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataEventList;
+import org.jlab.io.base.DataSource;
+import org.jlab.io.base.DataSourceType;
+import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.jnp.hipo4.data.Event;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class BackgroundEventPoolTest {
+
+    // label of each event created by the sources, e.g. "a1" for the second event of file "a:3"
+    private final Map<DataEvent,String> labels = new IdentityHashMap<>();
+    private final AtomicInteger nRead   = new AtomicInteger();
+    private final AtomicInteger nOpened = new AtomicInteger();
+    private final AtomicInteger nClosed = new AtomicInteger();
+
+    /**
+     * In-memory source, the file name "a:3" gives 3 events labelled a0 to a2,
+     * and reading from the file "error:n" throws an Error
+     */
+    private class MemorySource implements DataSource {
+        private String name;
+        private int size;
+        private int index;
+        @Override public void open(String filename) {
+            String[] f = filename.split(":");
+            name = f[0];
+            size = Integer.parseInt(f[1]);
+            index = 0;
+            nOpened.incrementAndGet();
+        }
+        @Override public boolean hasEvent() { return index < size; }
+        @Override public DataEvent getNextEvent() {
+            if (name.equals("error")) throw new Error("read error");
+            DataEvent event = new HipoDataEvent(new Event());
+            synchronized (labels) { labels.put(event, name + index++); }
+            nRead.incrementAndGet();
+            return event;
+        }
+        @Override public void close() { nClosed.incrementAndGet(); }
+        @Override public void open(File file) { throw new UnsupportedOperationException(); }
+        @Override public void open(ByteBuffer buff) { throw new UnsupportedOperationException(); }
+        @Override public int getSize() { return size; }
+        @Override public void waitForEvents() { }
+        @Override public DataEventList getEventList(int start, int stop) { throw new UnsupportedOperationException(); }
+        @Override public DataEventList getEventList(int nrecords) { throw new UnsupportedOperationException(); }
+        @Override public DataEvent getPreviousEvent() { throw new UnsupportedOperationException(); }
+        @Override public DataEvent gotoEvent(int index) { throw new UnsupportedOperationException(); }
+        @Override public void reset() { index = 0; }
+        @Override public int getCurrentIndex() { return index; }
+        @Override public DataSourceType getType() { return DataSourceType.FILE; }
+    }
+
+    private BackgroundEventPool createPool(boolean reuse, int capacity, String... files) {
+        return new BackgroundEventPool(Arrays.asList(files), reuse, capacity, MemorySource::new);
+    }
+
+    private List<String> take(BackgroundEventPool pool, int n) {
+        List<DataEvent> events = pool.take(n);
+        if (events == null) return null;
+        List<String> taken = new ArrayList<>();
+        synchronized (labels) {
+            for (DataEvent event : events) taken.add(labels.get(event));
+        }
+        return taken;
+    }
+
+    @Test
+    public void testPrefetch() throws InterruptedException {
+        BackgroundEventPool pool = createPool(false, 4, "a:10");
+        for (int i = 0; i < 500 && nRead.get() < 4; i++) Thread.sleep(10);
+        // the queue is full, the reader can hold at most one more event
+        assertTrue(nRead.get() >= 4);
+        assertTrue(nRead.get() <= 5);
+        assertEquals(Arrays.asList("a0", "a1", "a2"), take(pool, 3));
+        for (int i = 0; i < 500 && nRead.get() < 7; i++) Thread.sleep(10);
+        assertTrue(nRead.get() >= 7);
+        pool.close();
+        assertNull(pool.take(1));
+    }
+
+    @Test
+    public void testEnd() throws InterruptedException {
+        BackgroundEventPool pool = createPool(false, 2, "a:3", "b:0", "c:2");
+        assertEquals(Arrays.asList("a0", "a1"), take(pool, 2));
+        assertEquals(Arrays.asList("a2", "c0"), take(pool, 2));
+        assertNull(take(pool, 2));
+
+        // every consumer waiting on the pool gets the end marker
+        AtomicInteger nEnded = new AtomicInteger();
+        List<Thread> consumers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Thread consumer = new Thread(() -> {
+                if (pool.take(1) == null) nEnded.incrementAndGet();
+            });
+            consumer.start();
+            consumers.add(consumer);
+        }
+        for (Thread consumer : consumers) consumer.join(5000);
+        assertEquals(4, nEnded.get());
+        assertNull(pool.take(1));
+        assertEquals(3, nOpened.get());
+        assertEquals(3, nClosed.get());
+    }
+
+    @Test
+    public void testReadError() {
+        BackgroundEventPool pool = createPool(true, 2, "a:1", "error:1");
+        assertEquals(Arrays.asList("a0"), take(pool, 1));
+        assertNull(take(pool, 1));
+        assertNull(take(pool, 1));
+        assertEquals(2, nClosed.get());
+    }
+
+    @Test
+    public void testReuse() {
+        BackgroundEventPool pool = createPool(true, 3, "a:2", "b:1");
+        assertEquals(Arrays.asList("a0", "a1", "b0", "a0", "a1"), take(pool, 5));
+        assertEquals(Arrays.asList("b0", "a0"), take(pool, 2));
+        assertTrue(nOpened.get() >= 5);
+        // the files are closed when exhausted, before being reopened
+        assertTrue(nClosed.get() >= nOpened.get() - 1);
+        pool.close();
+        assertNull(pool.take(1));
+    }
+}
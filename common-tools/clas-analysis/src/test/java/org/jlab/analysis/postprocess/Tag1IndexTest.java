@@ -0,0 +1,166 @@
+package org.jlab.analysis.postprocess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import org.jlab.detector.helicity.HelicityBit;
+import org.jlab.detector.helicity.HelicityState;
+import org.jlab.detector.scalers.DaqScalers;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.jnp.hipo4.io.HipoWriterSorted;
+import org.jlab.utils.system.ClasUtilsFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class Tag1IndexTest {
+
+    private static String getBankDirectory() {
+        System.setProperty("CLAS12DIR", "../../");
+        return ClasUtilsFile.getResourceDir("CLAS12DIR", "etc/bankdefs/hipo4");
+    }
+
+    private static SchemaFactory createFactory() {
+        SchemaFactory factory = new SchemaFactory();
+        factory.initFromDirectory(getBankDirectory());
+        return factory;
+    }
+
+    private static File createDirectory() throws IOException {
+        File directory = Files.createTempDirectory("tag1").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    // HIPO file with n tag-1 events with HEL::flip, RUN::config and RUN::scaler,
+    // the n-th event has the timestamp t0+1000*n
+    private static String writeFile(File directory, int n, long t0) {
+        File file = new File(directory, "run.hipo");
+        file.deleteOnExit();
+        HipoWriterSorted writer = new HipoWriterSorted();
+        SchemaFactory schema = writer.getSchemaFactory();
+        schema.initFromDirectory(getBankDirectory());
+        writer.open(file.getPath());
+        Event event = new Event();
+        for (int i = 0; i < n; i++) {
+            Bank flip = new Bank(schema.getSchema("HEL::flip"), 1);
+            flip.putInt("run", 0, 11);
+            flip.putInt("event", 0, i);
+            flip.putLong("timestamp", 0, t0+1000*i);
+            flip.putByte("helicity", 0, (byte) (i%2 == 0 ? 1 : -1));
+            flip.putByte("helicityRaw", 0, (byte) (i%2 == 0 ? 1 : -1));
+            flip.putByte("pair", 0, (byte) 1);
+            flip.putByte("pattern", 0, (byte) -1);
+            Bank config = new Bank(schema.getSchema("RUN::config"), 1);
+            config.putLong("timestamp", 0, t0+1000*i);
+            Bank scaler = new Bank(schema.getSchema("RUN::scaler"), 1);
+            scaler.putFloat("livetime", 0, i/100f);
+            scaler.putFloat("fcup", 0, i);
+            scaler.putFloat("fcupgated", 0, i/2f);
+            event.reset();
+            event.write(flip);
+            event.write(config);
+            event.write(scaler);
+            writer.addEvent(event, 1);
+        }
+        writer.close();
+        return file.getPath();
+    }
+
+    private static void checkRecords(Tag1Index index, SchemaFactory schema, int n, long t0) {
+        List<HelicityState> states = index.getHelicityStates(schema);
+        List<DaqScalers> scalers = index.getScalers(schema);
+        assertEquals(n, states.size());
+        assertEquals(n, scalers.size());
+        for (int i = 0; i < n; i++) {
+            assertEquals(11, states.get(i).getRun());
+            assertEquals(i, states.get(i).getEvent());
+            assertEquals(t0+1000*i, states.get(i).getTimestamp());
+            assertEquals(i%2 == 0 ? HelicityBit.PLUS : HelicityBit.MINUS, states.get(i).getHelicity());
+            assertEquals(HelicityBit.MINUS, states.get(i).getPatternSync());
+            assertEquals(t0+1000*i, scalers.get(i).getTimestamp());
+            assertEquals(i/100f, scalers.get(i).dsc2.getLivetime(), 0);
+            assertEquals(i, scalers.get(i).dsc2.getBeamCharge(), 0);
+            assertEquals(i/2f, scalers.get(i).dsc2.getBeamChargeGated(), 0);
+        }
+    }
+
+    @Test
+    public void testNoIndex() throws IOException {
+        SchemaFactory schema = createFactory();
+        File directory = createDirectory();
+        String filename = writeFile(directory, 5, 100);
+        for (int i = 0; i < 2; i++) {
+            Tag1Index index = Tag1Index.read(filename, null);
+            assertFalse(index.isIndexed());
+            checkRecords(index, schema, 5, 100);
+        }
+        // nothing is written next to the file
+        assertEquals(1, directory.listFiles().length);
+    }
+
+    @Test
+    public void testIndex() throws IOException {
+        SchemaFactory schema = createFactory();
+        File directory = createDirectory();
+        String cache = new File(createDirectory(), "cache").getPath();
+        String filename = writeFile(directory, 5, 100);
+        File indexFile = new File(Tag1Index.getIndexFilename(cache, filename));
+        indexFile.deleteOnExit();
+
+        // built from the file, in the cache directory only
+        Tag1Index index = Tag1Index.read(filename, cache);
+        assertFalse(index.isIndexed());
+        checkRecords(index, schema, 5, 100);
+        assertTrue(indexFile.isFile());
+        assertEquals(1, directory.listFiles().length);
+        assertEquals(1, indexFile.getParentFile().listFiles().length);
+
+        // reused
+        index = Tag1Index.read(filename, cache);
+        assertTrue(index.isIndexed());
+        checkRecords(index, schema, 5, 100);
+
+        // rebuilt once the file changes
+        writeFile(directory, 7, 200);
+        new File(filename).setLastModified(new File(filename).lastModified()+2000);
+        index = Tag1Index.read(filename, cache);
+        assertFalse(index.isIndexed());
+        checkRecords(index, schema, 7, 200);
+        index = Tag1Index.read(filename, cache);
+        assertTrue(index.isIndexed());
+        checkRecords(index, schema, 7, 200);
+
+        // or if the index is truncated
+        try (RandomAccessFile f = new RandomAccessFile(indexFile, "rw")) {
+            f.setLength(f.length()-3);
+        }
+        index = Tag1Index.read(filename, cache);
+        assertFalse(index.isIndexed());
+        checkRecords(index, schema, 7, 200);
+    }
+
+    @Test
+    public void testIndexOfOtherFile() throws IOException {
+        SchemaFactory schema = createFactory();
+        String cache = createDirectory().getPath();
+        // same file name in two directories, with the same size and time
+        String file1 = writeFile(createDirectory(), 5, 100);
+        String file2 = writeFile(createDirectory(), 5, 300);
+        new File(file2).setLastModified(new File(file1).lastModified());
+        new File(Tag1Index.getIndexFilename(cache, file1)).deleteOnExit();
+
+        List<Tag1Index> indices = Tag1Index.read(Arrays.asList(file1), cache);
+        assertFalse(indices.get(0).isIndexed());
+        indices = Tag1Index.read(Arrays.asList(file2), cache);
+        assertFalse(indices.get(0).isIndexed());
+        checkRecords(indices.get(0), schema, 5, 300);
+        indices = Tag1Index.read(Arrays.asList(file2), cache);
+        assertTrue(indices.get(0).isIndexed());
+        checkRecords(indices.get(0), schema, 5, 300);
+    }
+}
@@ -0,0 +1,187 @@
+package org.jlab.analysis.roads;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import org.jlab.analysis.roads.Dictionary.TestMode;
+import org.jlab.clas.physics.Particle;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class RoadTableTest {
+
+    private static final int[] OPTIONS = {2, 1, 1, 0, -1};
+
+    private static ArrayList<Byte> createKey(int seed) {
+        ArrayList<Byte> key = new ArrayList<>();
+        for (int i = 0; i < 13; i++) key.add((byte) (seed*(i+7) + i));
+        return key;
+    }
+
+    // key with the same first probed slot as the given one, in a table of the given capacity
+    private static ArrayList<Byte> createCollidingKey(ArrayList<Byte> key, int capacity, int after) {
+        for (int seed = after+1; ; seed++) {
+            ArrayList<Byte> other = createKey(seed);
+            if (RoadTable.getHomeSlot(other, capacity) == RoadTable.getHomeSlot(key, capacity)) return other;
+        }
+    }
+
+    private static Particle createParticle(int n) {
+        Particle particle = new Particle(11, 0.000511, (byte) -1, n, 2*n, 3*n, 0.1*n, 0.2*n, 0.3*n);
+        if (n%2 == 0) particle.setProperty("ECALe1", 0.5*n);
+        return particle;
+    }
+
+    private static void assertParticle(Particle expected, Particle actual) {
+        assertNotNull(actual);
+        assertEquals(expected.pid(), actual.pid());
+        assertEquals(expected.charge(), actual.charge());
+        assertEquals(expected.mass(), actual.mass(), 0);
+        assertEquals(expected.px(), actual.px(), 0);
+        assertEquals(expected.py(), actual.py(), 0);
+        assertEquals(expected.pz(), actual.pz(), 0);
+        assertEquals(expected.vx(), actual.vx(), 0);
+        assertEquals(expected.vy(), actual.vy(), 0);
+        assertEquals(expected.vz(), actual.vz(), 0);
+        assertEquals(expected.hasProperty("ECALe1"), actual.hasProperty("ECALe1"));
+        if (expected.hasProperty("ECALe1")) {
+            assertEquals(expected.getProperty("ECALe1"), actual.getProperty("ECALe1"), 0);
+        }
+        assertFalse(actual.hasProperty("ECALe4"));
+    }
+
+    /**
+     * Table of three roads in 16 slots, two of them with the same first
+     * probed slot, and a missing road with that slot too
+     */
+    private static class Fixture {
+        final Map<ArrayList<Byte>, Particle> roads = new HashMap<>();
+        final ArrayList<Byte> missing;
+        Fixture() {
+            ArrayList<Byte> key1 = createKey(0);
+            ArrayList<Byte> key2 = createCollidingKey(key1, 16, 0);
+            roads.put(key1, createParticle(1));
+            roads.put(key2, createParticle(2));
+            roads.put(createKey(1000), createParticle(3));
+            missing = createCollidingKey(key1, 16, 1000);
+        }
+        void check(RoadTable table) {
+            assertEquals(3, table.size());
+            assertEquals(16, table.capacity());
+            for (Map.Entry<ArrayList<Byte>, Particle> road : roads.entrySet()) {
+                assertTrue(table.containsKey(road.getKey()));
+                assertParticle(road.getValue(), table.get(road.getKey()));
+                assertParticle(road.getValue(), table.getRoad(road.getKey()).getParticle());
+            }
+            assertFalse(table.containsKey(missing));
+            assertNull(table.get(missing));
+            assertNull(table.getRoad(createKey(2000)));
+            // the particle momenta are 1, 2 and 3 GeV along x
+            Set<Double> px = new HashSet<>();
+            table.forEachRoad(road -> {
+                assertParticle(createParticle((int) road.getParticle().px()), road.getParticle());
+                px.add(road.getParticle().px());
+            });
+            assertEquals(new HashSet<>(Arrays.asList(1.0, 2.0, 3.0)), px);
+        }
+    }
+
+    private static File createDirectory() throws IOException {
+        File directory = Files.createTempDirectory("roads").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static File createFile(File directory, String name, String content) throws IOException {
+        File file = new File(directory, name);
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write(content);
+        }
+        return file;
+    }
+
+    @Test
+    public void testCollision() {
+        Fixture fixture = new Fixture();
+        fixture.check(RoadTable.create(fixture.roads));
+    }
+
+    @Test
+    public void testWriteOpen() throws IOException {
+        Fixture fixture = new Fixture();
+        File directory = createDirectory();
+        File source = createFile(directory, "dict.txt", "roads\n");
+        File cache = new File(directory, "dict.txt" + RoadTable.SUFFIX);
+        cache.deleteOnExit();
+        RoadTable.create(fixture.roads).write(cache.getPath(), OPTIONS, source);
+        fixture.check(RoadTable.open(cache.getPath(), OPTIONS, source));
+    }
+
+    @Test
+    public void testStaleHeader() throws IOException {
+        Fixture fixture = new Fixture();
+        File directory = createDirectory();
+        File source = createFile(directory, "dict.txt", "roads\n");
+        File cache = new File(directory, "dict.txt" + RoadTable.SUFFIX);
+        cache.deleteOnExit();
+        assertNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+        RoadTable.create(fixture.roads).write(cache.getPath(), OPTIONS, source);
+
+        // other options
+        for (int i = 0; i < OPTIONS.length; i++) {
+            int[] options = OPTIONS.clone();
+            options[i]++;
+            assertNull(RoadTable.open(cache.getPath(), options, source));
+        }
+        assertNotNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+
+        // modified source
+        final long time = source.lastModified();
+        assertTrue(source.setLastModified(time + 2000));
+        assertNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+        createFile(directory, "dict.txt", "more roads\n");
+        assertTrue(source.setLastModified(time));
+        assertNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+        createFile(directory, "dict.txt", "roads\n");
+        assertTrue(source.setLastModified(time));
+        assertNotNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+
+        // truncated table
+        try (RandomAccessFile f = new RandomAccessFile(cache, "rw")) {
+            f.setLength(f.length()-4);
+        }
+        assertNull(RoadTable.open(cache.getPath(), OPTIONS, source));
+    }
+
+    @Test
+    public void testRead() throws IOException {
+        File directory = createDirectory();
+        File source = createFile(directory, "dict.txt", "");
+        File cache = new File(directory, "dict.txt" + RoadTable.SUFFIX);
+        cache.deleteOnExit();
+
+        // no cache by default or for a missing dictionary
+        assertEquals(0, RoadTable.read(source.getPath(), TestMode.DC, 1, 1, 0, -1).size());
+        assertFalse(cache.exists());
+        File missing = new File(directory, "missing.txt");
+        assertEquals(0, RoadTable.read(missing.getPath(), TestMode.DC, 1, 1, 0, -1, true).size());
+        assertFalse(new File(missing.getPath() + RoadTable.SUFFIX).exists());
+        assertEquals(1, directory.listFiles().length);
+
+        // else written and then reused
+        assertEquals(0, RoadTable.read(source.getPath(), TestMode.DC, 1, 1, 0, -1, true).size());
+        assertTrue(cache.isFile());
+        int[] options = {TestMode.DC.getMode(), 1, 1, 0, -1};
+        assertNotNull(RoadTable.open(cache.getPath(), options, source));
+        assertEquals(0, RoadTable.read(source.getPath(), TestMode.DC, 1, 1, 0, -1, true).size());
+    }
+}
@@ -0,0 +1,73 @@
+package org.jlab.clas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.rec.dc.cluster.Cluster;
+import org.jlab.rec.dc.cluster.ClusterCleanerUtilities;
+import org.jlab.rec.dc.cluster.ClusterFinder;
+import org.jlab.rec.dc.cluster.ClusterFitter;
+import org.jlab.rec.dc.cluster.FittedCluster;
+import org.jlab.rec.dc.hit.Hit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DC hit-based clustering of synthetic events: the clump finding, and the
+ * pruning, local fits and splitting of ClusterFinder.FindLocalClusters.  The
+ * refit of the clusters in the sector frame is not included, it needs the
+ * wire positions of DCGeant4Factory, built from the /geometry/dc CCDB tables.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DCClusteringBenchmark {
+
+    private static final int NEVENTS   = 64;
+    private static final int NSEGMENTS = 36;
+    private static final int NNOISE    = 200;
+
+    private final ClusterFinder           finder  = new ClusterFinder();
+    private final ClusterCleanerUtilities cleaner = new ClusterCleanerUtilities();
+    private final ClusterFitter           fitter  = new ClusterFitter();
+
+    private List<List<Hit>> events;
+
+    private int event;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        events = Fixtures.createDCHits(NEVENTS, NSEGMENTS, NNOISE);
+    }
+
+    // a copy of the hits of the next event, the cluster finder modifies the list
+    private List<Hit> next() {
+        event = (event+1) % NEVENTS;
+        return new ArrayList<>(events.get(event));
+    }
+
+    @Benchmark
+    public List<Cluster> findClumps() {
+        List<Hit> hits = next();
+        finder.fillHitArray(hits, 0);
+        return finder.findClumps(hits, cleaner);
+    }
+
+    @Benchmark
+    public List<FittedCluster> findLocalClusters() {
+        return finder.FindLocalClusters(next(), cleaner, fitter);
+    }
+}
@@ -0,0 +1,201 @@
+package org.jlab.clas.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import cnuphys.magfield.MagneticFields;
+import cnuphys.magfield.StandardSolenoid;
+import org.jlab.io.hipo.SchemaRegistry;
+import org.jlab.rec.dc.Constants;
+import org.jlab.rec.dc.hit.Hit;
+import org.jlab.utils.groups.IndexedTable;
+
+/**
+ * Synthetic inputs shared by the benchmarks, so that they run offline without
+ * field maps, CCDB or data files.  Everything is generated from fixed seeds,
+ * so that successive runs measure the same work.
+ */
+public class Fixtures {
+
+    public static final long SEED = 12345L;
+
+    // solenoid map grid, cylindrical with cm and kG units as the real map
+    private static final int   NRHO   = 151;
+    private static final int   NZ     = 301;
+    private static final float RHOMAX = 300f;
+    private static final float ZMIN   = -300f;
+    private static final float ZMAX   = 300f;
+    private static final float BZMAX  = 50f;
+
+    // DC wire plane distances (cm) and maximum drift times (ns) by superlayer
+    private static final double[] DCWPDIST = {0.386160, 0.404220, 0.621906, 0.658597, 0.935140, 0.977982};
+    private static final double[] DCTMAX   = {160, 170, 440, 480, 680, 720};
+
+    private Fixtures() {}
+
+    /**
+     * @return a new random generator with the fixed seed
+     */
+    public static Random random() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Find the bank definitions: the benchmark.bankdefs property if set, then
+     * CLAS12DIR, then etc/bankdefs/hipo4 in the source tree.
+     * @return the bank definitions directory
+     */
+    public static String getBankDefinitions() {
+        String dir = System.getProperty("benchmark.bankdefs");
+        if(dir!=null) return dir;
+        if(System.getenv("CLAS12DIR")!=null) return SchemaRegistry.getDefaultDirectory();
+        for(File f = new File("").getAbsoluteFile(); f!=null; f = f.getParentFile()) {
+            File defs = new File(f, "etc/bankdefs/hipo4");
+            if(defs.isDirectory()) return defs.getPath();
+        }
+        throw new IllegalStateException("cannot find the bank definitions, set -Dbenchmark.bankdefs");
+    }
+
+    /**
+     * Create a smooth, solenoid-like field map, with the same grid layout as
+     * the real solenoid map, and make it the active field.
+     * @return the solenoid
+     */
+    public static StandardSolenoid createSolenoid() {
+        try {
+            File file = File.createTempFile("benchmark-solenoid", ".dat");
+            file.deleteOnExit();
+            try (DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                MagneticFields.writeHeader(dos, 0, 0, 0, 0, 0, 0f, 360f, 1, 0f, RHOMAX, NRHO, ZMIN, ZMAX, NZ);
+                for(int ir = 0; ir < NRHO; ir++) {
+                    double rho = ir*RHOMAX/(NRHO-1);
+                    for(int iz = 0; iz < NZ; iz++) {
+                        double z = ZMIN + iz*(ZMAX-ZMIN)/(NZ-1);
+                        double fz = 1/(1+Math.pow(z/150, 4));
+                        double fr = 1/(1+Math.pow(rho/100, 4));
+                        // divergence-free to first order: Brho = -rho/2 dBz/dz
+                        double dfz = -4*Math.pow(z/150, 3)/150*fz*fz;
+                        dos.writeFloat(0f);
+                        dos.writeFloat((float) (-0.5*rho*BZMAX*fr*dfz));
+                        dos.writeFloat((float) (BZMAX*fr*fz));
+                    }
+                }
+            }
+            StandardSolenoid solenoid = StandardSolenoid.fromBinaryFile(file);
+            MagneticFields.getInstance().setSolenoid(solenoid);
+            MagneticFields.getInstance().setActiveField(solenoid);
+            return solenoid;
+        }
+        catch(IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Create FADC-like waveforms, a pedestal with noise and a single pulse at
+     * a random position in about half of them.
+     * @param nwaveforms number of waveforms
+     * @param nsamples number of samples per waveform
+     * @param pedestal pedestal
+     * @param amplitude maximum pulse amplitude above the pedestal
+     * @return the waveforms
+     */
+    public static short[][] createWaveforms(int nwaveforms, int nsamples, int pedestal, int amplitude) {
+        Random rand = random();
+        short[][] waveforms = new short[nwaveforms][nsamples];
+        for(int i = 0; i < nwaveforms; i++) {
+            boolean pulse = rand.nextBoolean();
+            double t0     = rand.nextDouble()*nsamples*0.6;
+            double height = amplitude*(0.2+0.8*rand.nextDouble());
+            double width  = Math.max(1, nsamples/20.0);
+            for(int j = 0; j < nsamples; j++) {
+                double value = pedestal + 3*rand.nextGaussian();
+                if(pulse && j>=t0) {
+                    double x = (j-t0)/width;
+                    value += height*x*x*Math.exp(2-2*x);
+                }
+                waveforms[i][j] = (short) Math.max(0, Math.min(4095, Math.round(value)));
+            }
+        }
+        return waveforms;
+    }
+
+    /**
+     * Set the DC wire plane distances, which the time-to-distance table
+     * loader reads from the DC constants otherwise filled from the geometry.
+     */
+    public static void setDCWirePlaneDistances() {
+        System.arraycopy(DCWPDIST, 0, Constants.getInstance().wpdist, 0, DCWPDIST.length);
+    }
+
+    /**
+     * Create a DC time-to-distance table with the columns of the CCDB t2d
+     * table, for sectors and superlayers 1 to 6, with typical parameters of
+     * the polynomial function varied by 2%.
+     * @return the table, indexed by sector, superlayer and 0
+     */
+    public static IndexedTable createT2DTable() {
+        Random rand = random();
+        IndexedTable t2d = new IndexedTable(3, "delta_T0/D:c1/D:deltanm/D:v0/D:c2/D:delta_bfield_coefficient/D:b1/D:b2/D:b3/D:b4/D:tmax/D");
+        for(int s = 1; s <= 6; s++) {
+            for(int r = 1; r <= 6; r++) {
+                t2d.addEntry(s, r, 0);
+                t2d.setDoubleValue(0.0,                                          "delta_T0", s, r, 0);
+                t2d.setDoubleValue(0.2*(1+0.02*rand.nextGaussian()),             "c1", s, r, 0);
+                t2d.setDoubleValue(1.5,                                          "deltanm", s, r, 0);
+                t2d.setDoubleValue(0.0053*(1+0.02*rand.nextGaussian()),          "v0", s, r, 0);
+                t2d.setDoubleValue(0.0036*(1+0.02*rand.nextGaussian()),          "c2", s, r, 0);
+                t2d.setDoubleValue(0.15,                                         "delta_bfield_coefficient", s, r, 0);
+                t2d.setDoubleValue(0.4,                                          "b1", s, r, 0);
+                t2d.setDoubleValue(-2.0,                                         "b2", s, r, 0);
+                t2d.setDoubleValue(10.0,                                         "b3", s, r, 0);
+                t2d.setDoubleValue(-6.5,                                         "b4", s, r, 0);
+                t2d.setDoubleValue(DCTMAX[r-1]*(1+0.02*rand.nextGaussian()),     "tmax", s, r, 0);
+            }
+        }
+        return t2d;
+    }
+
+    /**
+     * Create events of DC hits: track segments crossing the six layers of a
+     * superlayer, with a 5% inefficiency per layer, and noise hits.
+     * @param nevents number of events
+     * @param nsegments number of segments per event
+     * @param nnoise number of noise hits per event
+     * @return the hits of each event
+     */
+    public static List<List<Hit>> createDCHits(int nevents, int nsegments, int nnoise) {
+        Random rand = random();
+        List<List<Hit>> events = new ArrayList<>();
+        for(int i = 0; i < nevents; i++) {
+            List<Hit> hits = new ArrayList<>();
+            for(int j = 0; j < nsegments; j++) {
+                int sector     = 1 + rand.nextInt(6);
+                int superlayer = 1 + rand.nextInt(6);
+                double wire0   = 10 + 90*rand.nextDouble();
+                double slope   = -0.6 + 1.2*rand.nextDouble();
+                for(int layer = 1; layer <= 6; layer++) {
+                    if(rand.nextDouble() < 0.05) continue;
+                    // staggered layers, every other one is shifted by half a cell
+                    int wire = (int) Math.floor(wire0 + slope*(layer-1) + 0.5*(layer%2));
+                    int tdc  = (int) (DCTMAX[superlayer-1]*rand.nextDouble());
+                    hits.add(new Hit(sector, superlayer, layer, wire, tdc, 0, hits.size()+1));
+                }
+            }
+            for(int j = 0; j < nnoise; j++) {
+                int superlayer = 1 + rand.nextInt(6);
+                hits.add(new Hit(1 + rand.nextInt(6), superlayer, 1 + rand.nextInt(6), 1 + rand.nextInt(112),
+                                 (int) (DCTMAX[superlayer-1]*rand.nextDouble()), 0, hits.size()+1));
+            }
+            events.add(hits);
+        }
+        return events;
+    }
+}
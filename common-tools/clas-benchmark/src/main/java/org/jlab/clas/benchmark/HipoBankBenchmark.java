@@ -0,0 +1,107 @@
+package org.jlab.clas.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.io.base.DataBank;
+import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.io.hipo.SchemaRegistry;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Writing banks to and reading banks from a HIPO event, directly and through
+ * the DataEvent interface used by the reconstruction engines.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class HipoBankBenchmark {
+
+    private static final int NADC = 50;
+    private static final int NTDC = 500;
+
+    private SchemaFactory schema;
+    private Bank  adc;
+    private Bank  tdc;
+    private Event event;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        schema = SchemaRegistry.get(Fixtures.getBankDefinitions());
+        Random rand = Fixtures.random();
+        adc = new Bank(schema.getSchema("FTOF::adc"), NADC);
+        for(int i = 0; i < NADC; i++) {
+            adc.putByte("sector",     i, (byte) (1 + rand.nextInt(6)));
+            adc.putByte("layer",      i, (byte) (1 + rand.nextInt(3)));
+            adc.putShort("component", i, (short) (1 + rand.nextInt(62)));
+            adc.putByte("order",      i, (byte) rand.nextInt(2));
+            adc.putInt("ADC",         i, rand.nextInt(8000));
+            adc.putFloat("time",      i, 200*rand.nextFloat());
+            adc.putShort("ped",       i, (short) (200 + rand.nextInt(20)));
+        }
+        tdc = new Bank(schema.getSchema("DC::tdc"), NTDC);
+        for(int i = 0; i < NTDC; i++) {
+            tdc.putByte("sector",     i, (byte) (1 + rand.nextInt(6)));
+            tdc.putByte("layer",      i, (byte) (1 + rand.nextInt(36)));
+            tdc.putShort("component", i, (short) (1 + rand.nextInt(112)));
+            tdc.putByte("order",      i, (byte) 0);
+            tdc.putInt("TDC",         i, rand.nextInt(1000));
+        }
+        event = this.write();
+    }
+
+    @Benchmark
+    public Event write() {
+        Event e = new Event();
+        e.write(adc);
+        e.write(tdc);
+        return e;
+    }
+
+    @Benchmark
+    public long read() {
+        Bank a = new Bank(schema.getSchema("FTOF::adc"));
+        Bank t = new Bank(schema.getSchema("DC::tdc"));
+        event.read(a);
+        event.read(t);
+        long sum = 0;
+        for(int i = 0; i < a.getRows(); i++) {
+            sum += a.getByte("sector", i) + a.getShort("component", i) + a.getInt("ADC", i);
+        }
+        for(int i = 0; i < t.getRows(); i++) {
+            sum += t.getByte("layer", i) + t.getShort("component", i) + t.getInt("TDC", i);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readDataEvent() {
+        HipoDataEvent de = new HipoDataEvent(event, schema);
+        DataBank a = de.getBank("FTOF::adc");
+        DataBank t = de.getBank("DC::tdc");
+        long sum = 0;
+        for(int i = 0; i < a.rows(); i++) {
+            sum += a.getByte("sector", i) + a.getShort("component", i) + a.getInt("ADC", i);
+        }
+        for(int i = 0; i < t.rows(); i++) {
+            sum += t.getByte("layer", i) + t.getShort("component", i) + t.getInt("TDC", i);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,121 @@
+package org.jlab.clas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.clas.tracking.kalmanfilter.Surface;
+import org.jlab.clas.tracking.kalmanfilter.Units;
+import org.jlab.clas.tracking.kalmanfilter.straight.KFitter;
+import org.jlab.clas.tracking.objects.Strip;
+import org.jlab.clas.tracking.utilities.MatrixOps.Libr;
+import org.jlab.geom.prim.Line3D;
+import org.jlab.geom.prim.Plane3D;
+import org.jlab.geom.prim.Point3D;
+import org.jlab.geom.prim.Vector3D;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Kalman filter fit of straight tracks crossing a stack of planes with
+ * alternating strip orientations, similar to the cosmic tracks fit in CVT,
+ * i.e. the filter, transport and smoothing steps without the swimmer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KalmanFilterBenchmark {
+
+    private static final int    NTRACKS     = 64;
+    private static final int    NPLANES     = 6;
+    private static final double PLANESTEP   = 30;   // mm
+    private static final double RESOLUTION  = 0.03; // mm
+    private static final double[][] COV = new double[][]{
+                                                         { 20,  0, 0,    0,    0},
+                                                         {  0, 20, 0,    0,    0},
+                                                         {  0,  0, 0.01, 0,    0},
+                                                         {  0,  0, 0,    0.01, 0},
+                                                         {  0,  0, 0,    0,    1}
+                                                        };
+
+    @Param({"EJML", "JAMA"})
+    public String library;
+
+    private KFitter kf;
+
+    private final double[][] seeds = new double[NTRACKS][];
+    private final List<List<Surface>> tracks = new ArrayList<>();
+
+    private int track;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        kf = new KFitter(true, 5, 1, Libr.valueOf(library));
+        Random rand = Fixtures.random();
+        for(int i = 0; i < NTRACKS; i++) {
+            double x0 = -20 + 40*rand.nextDouble();
+            double z0 = -50 + 100*rand.nextDouble();
+            double tx = -0.3 + 0.6*rand.nextDouble();
+            double tz = -0.3 + 0.6*rand.nextDouble();
+            // seed smeared around the true track
+            seeds[i]  = new double[]{x0+rand.nextGaussian(), z0+rand.nextGaussian(),
+                                     tx+0.01*rand.nextGaussian(), tz+0.01*rand.nextGaussian()};
+            tracks.add(createSurfaces(rand, x0, z0, tx, tz));
+        }
+    }
+
+    private static List<Surface> createSurfaces(Random rand, double x0, double z0, double tx, double tz) {
+        List<Surface> surfaces = new ArrayList<>();
+        Surface reference = new Surface(new Plane3D(new Point3D(0,0,0), new Vector3D(0,1,0)),
+                                        new Point3D(0,0,0), new Point3D(-300,0,0), new Point3D(300,0,0), 1);
+        reference.setIndex(0);
+        reference.setError(1);
+        reference.hemisphere = 1;
+        reference.passive = true;
+        surfaces.add(reference);
+        int index = 1;
+        for(int hemisphere = -1; hemisphere <= 1; hemisphere += 2) {
+            for(int ip = 1; ip <= NPLANES; ip++) {
+                double y = hemisphere*ip*PLANESTEP;
+                double x = x0 + tx*y + RESOLUTION*rand.nextGaussian();
+                double z = z0 + tz*y + RESOLUTION*rand.nextGaussian();
+                Line3D line = ip%2==0 ? new Line3D(x, y, -200, x, y, 200)
+                                      : new Line3D(-200, y, z, 200, y, z);
+                Surface surface = new Surface(new Plane3D(new Point3D(0,y,0), new Vector3D(0,1,0)),
+                                              new Strip(ip, 0, line),
+                                              new Point3D(-200,y,-200), new Point3D(200,y,200), 1e-3);
+                surface.setIndex(index++);
+                surface.setLayer(ip);
+                surface.setSector(1);
+                surface.setError(RESOLUTION);
+                surface.hemisphere = hemisphere;
+                surface.passive = false;
+                surfaces.add(surface);
+            }
+        }
+        return surfaces;
+    }
+
+    @Benchmark
+    public KFitter fit() {
+        track = (track+1) % NTRACKS;
+        double[] seed = seeds[track];
+        kf.init(seed[0], seed[1], seed[2], seed[3], Units.MM, COV, tracks.get(track));
+        kf.runFitter();
+        return kf;
+    }
+}
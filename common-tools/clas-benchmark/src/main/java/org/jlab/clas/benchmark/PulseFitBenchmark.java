@@ -0,0 +1,131 @@
+package org.jlab.clas.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.detector.decode.ExtendedFADCFitter;
+import org.jlab.detector.decode.MVTFitter;
+import org.jlab.detector.pulse.Mode7;
+import org.jlab.detector.pulse.ModeAHDC;
+import org.jlab.detector.pulse.Pulse;
+import org.jlab.io.hipo.SchemaRegistry;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Pulse fitting of synthetic waveforms, with the fitters used by the decoder:
+ * the FADC fitter, the micromegas fitter and the waveform extractors, the
+ * latter also on a full AHDC::wf bank as in CLASDecoder4.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PulseFitBenchmark {
+
+    private static final int NWAVEFORMS = 1024;
+    private static final int NFADC      = 100;
+    private static final int NMVT       = 16;
+    private static final int NAHDC      = 6;
+    private static final int AHDCROWS   = 200;
+
+    private final ExtendedFADCFitter fadcFitter = new ExtendedFADCFitter();
+    private final MVTFitter          mvtFitter  = new MVTFitter();
+    private final Mode7              mode7      = new Mode7();
+    private final ModeAHDC           modeAHDC   = new ModeAHDC();
+
+    private short[][] fadc;
+    private short[][] mode7fadc;
+    private short[][] mvt;
+    private short[]   mvtBatch;
+    private final List<Pulse> pulses = new ArrayList<>();
+    private SchemaFactory schema;
+    private Event ahdcEvent;
+
+    private int waveform;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        fadc      = Fixtures.createWaveforms(NWAVEFORMS, NFADC, 200, 2000);
+        mode7fadc = Fixtures.createWaveforms(NWAVEFORMS, NFADC, 2000, 2090);
+        mvt       = Fixtures.createWaveforms(NWAVEFORMS, NMVT, 250, 1500);
+        mvtBatch  = new short[NWAVEFORMS*NMVT];
+        for(int i = 0; i < NWAVEFORMS; i++) System.arraycopy(mvt[i], 0, mvtBatch, i*NMVT, NMVT);
+        schema    = SchemaRegistry.get(Fixtures.getBankDefinitions());
+
+        short[][] ahdc = Fixtures.createWaveforms(AHDCROWS, NAHDC, 250, 1500);
+        Bank wf = new Bank(schema.getSchema("AHDC::wf"), AHDCROWS);
+        for(int i = 0; i < AHDCROWS; i++) {
+            wf.putByte("sector",     i, (byte) 1);
+            wf.putByte("layer",      i, (byte) (11 + i%8));
+            wf.putShort("component", i, (short) (1 + i/8));
+            wf.putByte("order",      i, (byte) 0);
+            wf.putLong("timestamp",  i, 0L);
+            for(int j = 0; j < NAHDC; j++) {
+                wf.putShort(String.format("s%d",j+1), i, ahdc[i][j]);
+            }
+        }
+        ahdcEvent = new Event();
+        ahdcEvent.write(wf);
+    }
+
+    private int next() {
+        waveform = (waveform+1) % NWAVEFORMS;
+        return waveform;
+    }
+
+    @Benchmark
+    public int fitFADC() {
+        fadcFitter.fit(15, 5, 20, 0, fadc[next()]);
+        return fadcFitter.adc;
+    }
+
+    @Benchmark
+    public double fitMVT() {
+        mvtFitter.fit((short) 250, 8, 40, mvt[next()], 0, 0);
+        return mvtFitter.timeMax;
+    }
+
+    @Benchmark
+    public List<Pulse> extractMode7() {
+        int i = next();
+        return mode7.extract(null, i, mode7fadc[i]);
+    }
+
+    @Benchmark
+    public List<Pulse> extractAHDC() {
+        int i = next();
+        return modeAHDC.extract(null, i, mvt[i]);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Pulse> extractAHDCBatch() {
+        pulses.clear();
+        modeAHDC.extract(mvtBatch, NMVT, pulses);
+        return pulses;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public void updateAHDCBank(Blackhole bh) {
+        modeAHDC.update(NAHDC, null, ahdcEvent, schema, "AHDC::wf", "AHDC::adc");
+        bh.consume(ahdcEvent);
+    }
+}
@@ -0,0 +1,106 @@
+package org.jlab.clas.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import cnuphys.adaptiveSwim.AdaptiveSwimException;
+import cnuphys.adaptiveSwim.AdaptiveSwimResult;
+import cnuphys.adaptiveSwim.AdaptiveSwimmer;
+import cnuphys.magfield.FieldProbe;
+import cnuphys.magfield.StandardSolenoid;
+import cnuphys.swim.SwimTrajectory;
+import cnuphys.swim.Swimmer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Swimming of tracks from the target through a synthetic solenoid field, with
+ * the fixed step and the adaptive step integrators, and the field lookup by
+ * itself.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SwimmerBenchmark {
+
+    private static final int NTRACKS = 64;
+    private static final int NPOINTS = 4096;
+
+    private Swimmer         swimmer;
+    private AdaptiveSwimmer adaptiveSwimmer;
+    private FieldProbe      probe;
+
+    private final int[]    charge   = new int[NTRACKS];
+    private final double[] momentum = new double[NTRACKS];
+    private final double[] theta    = new double[NTRACKS];
+    private final double[] phi      = new double[NTRACKS];
+    private final float[]  points   = new float[3*NPOINTS];
+    private final float[]  field    = new float[3];
+
+    private int track;
+    private int point;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        StandardSolenoid solenoid = Fixtures.createSolenoid();
+        swimmer         = new Swimmer(solenoid);
+        adaptiveSwimmer = new AdaptiveSwimmer(solenoid);
+        probe           = FieldProbe.factory(solenoid);
+        Random rand = Fixtures.random();
+        for(int i = 0; i < NTRACKS; i++) {
+            charge[i]   = rand.nextBoolean() ? 1 : -1;
+            momentum[i] = 0.3 + 2.7*rand.nextDouble();
+            theta[i]    = 30 + 100*rand.nextDouble();
+            phi[i]      = 360*rand.nextDouble();
+        }
+        for(int i = 0; i < NPOINTS; i++) {
+            double rho = 100*rand.nextDouble();
+            double ang = 2*Math.PI*rand.nextDouble();
+            points[3*i]   = (float) (rho*Math.cos(ang));
+            points[3*i+1] = (float) (rho*Math.sin(ang));
+            points[3*i+2] = (float) (-150 + 300*rand.nextDouble());
+        }
+    }
+
+    private int next() {
+        track = (track+1) % NTRACKS;
+        return track;
+    }
+
+    @Benchmark
+    public SwimTrajectory swimFixedStep() {
+        int i = next();
+        // swim to 0.5 m in radius, 5 mm steps
+        return swimmer.swim(charge[i], 0, 0, 0, momentum[i], theta[i], phi[i], 0.5, 2, 5e-3, 1e-2);
+    }
+
+    @Benchmark
+    public AdaptiveSwimResult swimAdaptive() throws AdaptiveSwimException {
+        int i = next();
+        AdaptiveSwimResult result = new AdaptiveSwimResult(false);
+        adaptiveSwimmer.swim(charge[i], 0, 0, 0, momentum[i], theta[i], phi[i], 1, 1e-3, 1e-6, result);
+        return result;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void probeField(Blackhole bh) {
+        point = (point+1) % NPOINTS;
+        int i = 3*point;
+        probe.field(points[i], points[i+1], points[i+2], field);
+        bh.consume(field);
+    }
+}
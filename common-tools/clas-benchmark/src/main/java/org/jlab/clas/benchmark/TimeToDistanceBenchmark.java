@@ -0,0 +1,66 @@
+package org.jlab.clas.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.jlab.rec.dc.timetodistance.TableLoader;
+import org.jlab.rec.dc.timetodistance.TimeToDistanceEstimator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * DC time-to-distance conversion, interpolated in field, local angle and
+ * time on the grid that TableLoader fills from a synthetic t2d table.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TimeToDistanceBenchmark {
+
+    private static final int    NPOINTS = 1024;
+    private static final double BMAX    = 2.6; // T
+    private static final double TMAX    = 700; // ns
+
+    private final TimeToDistanceEstimator tde = new TimeToDistanceEstimator();
+
+    private final double[] bfield     = new double[NPOINTS];
+    private final double[] alpha      = new double[NPOINTS];
+    private final double[] time       = new double[NPOINTS];
+    private final int[]    sector     = new int[NPOINTS];
+    private final int[]    superlayer = new int[NPOINTS];
+
+    private int point;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Fixtures.setDCWirePlaneDistances();
+        TableLoader.Fill(Fixtures.createT2DTable());
+        Random rand = Fixtures.random();
+        for(int i = 0; i < NPOINTS; i++) {
+            bfield[i]     = BMAX*rand.nextDouble();
+            alpha[i]      = 30*rand.nextDouble();
+            sector[i]     = rand.nextInt(6);
+            superlayer[i] = rand.nextInt(6);
+            // the inner superlayers have shorter drift times
+            time[i]       = TMAX*(superlayer[i]+1)/6*rand.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public double interpolateOnGrid() {
+        point = (point+1) % NPOINTS;
+        return tde.interpolateOnGrid(bfield[point], alpha[point], time[point], sector[point], superlayer[point]);
+    }
+}
@@ -0,0 +1,228 @@
+package org.jlab.detector.base;
+
+import java.util.Arrays;
+
+/**
+ * Seed-and-grow clustering kernel on a fixed channel adjacency table.
+ *
+ * The hits of an event are identified by their index, starting from 0, and
+ * given by their channel. The kernel indexes the hits by channel, keeps track
+ * of the hits that are still available with a bitset, and provides the seeds
+ * by decreasing weight and the hits in the channels adjacent to a hit, so
+ * that the clustering costs in proportion to the number of hits. Any other
+ * clustering requirement, e.g. on time, is left to the caller.
+ *
+ * The adjacency table is meant to be built once per detector, an instance is
+ * reused from event to event but is not thread safe.
+ */
+public class ChannelClusterer {
+
+    // channels adjacent to channel c, from adjacency[adjacencyStart[c]]
+    // to adjacency[adjacencyStart[c+1]-1]
+    private final int[] adjacencyStart;
+    private final int[] adjacency;
+
+    // first hit in each channel, -1 if none, and next hit in the same channel
+    private final int[] channelFirst;
+    private int[] hitNext    = new int[16];
+    private int[] hitChannel = new int[16];
+    private int   nHits;
+
+    // bitset of the hits that are still available
+    private long[] available = new long[1];
+
+    // hits by decreasing weight, and the weight of each hit
+    private int[]    seeds   = new int[16];
+    private double[] weights = new double[16];
+    private int      nSeeds;
+    private int      nextSeed;
+
+    // hits found by the last neighbour search
+    private int[] found = new int[16];
+    private int[] sortBuffer = new int[16];
+
+    /**
+     * @param neighbours the channels adjacent to each channel, channels are
+     * numbered from 0 to neighbours.length-1
+     */
+    public ChannelClusterer(int[][] neighbours) {
+        int nChannels = neighbours.length;
+        this.adjacencyStart = new int[nChannels+1];
+        for (int c = 0; c < nChannels; c++) {
+            this.adjacencyStart[c+1] = this.adjacencyStart[c] + neighbours[c].length;
+        }
+        this.adjacency = new int[this.adjacencyStart[nChannels]];
+        for (int c = 0; c < nChannels; c++) {
+            System.arraycopy(neighbours[c], 0, this.adjacency, this.adjacencyStart[c], neighbours[c].length);
+        }
+        this.channelFirst = new int[nChannels];
+        Arrays.fill(this.channelFirst, -1);
+    }
+
+    /**
+     * @param clusterer an instance to share the adjacency table with, e.g.
+     * to have one instance per thread
+     */
+    public ChannelClusterer(ChannelClusterer clusterer) {
+        this.adjacencyStart = clusterer.adjacencyStart;
+        this.adjacency = clusterer.adjacency;
+        this.channelFirst = new int[clusterer.channelFirst.length];
+        Arrays.fill(this.channelFirst, -1);
+    }
+
+    public int getNChannels() {
+        return this.channelFirst.length;
+    }
+
+    public int getNHits() {
+        return this.nHits;
+    }
+
+    /**
+     * Set the hits of a new event, all available.
+     *
+     * @param n number of hits
+     * @param channels channel of each hit, a hit with a channel outside of the
+     * adjacency table has no neighbours
+     */
+    public void setHits(int n, int[] channels) {
+        // forget the channels of the previous event
+        for (int i = 0; i < this.nHits; i++) {
+            if (this.hitChannel[i] >= 0) this.channelFirst[this.hitChannel[i]] = -1;
+        }
+        if (n > this.hitChannel.length) {
+            int size = Math.max(n, 2*this.hitChannel.length);
+            this.hitChannel = new int[size];
+            this.hitNext    = new int[size];
+            this.weights    = new double[size];
+            this.seeds      = new int[size];
+            this.sortBuffer = new int[size];
+        }
+        this.nHits = n;
+        // link the hits of each channel by increasing index
+        for (int i = n-1; i >= 0; i--) {
+            int c = channels[i];
+            if (c < 0 || c >= this.channelFirst.length) {
+                this.hitChannel[i] = -1;
+                continue;
+            }
+            this.hitChannel[i] = c;
+            this.hitNext[i] = this.channelFirst[c];
+            this.channelFirst[c] = i;
+        }
+        int nWords = (n+63) >>> 6;
+        if (nWords > this.available.length) this.available = new long[nWords];
+        Arrays.fill(this.available, 0, nWords, -1L);
+        if ((n & 63) != 0) this.available[nWords-1] = (1L << (n & 63)) - 1;
+        this.nSeeds   = 0;
+        this.nextSeed = 0;
+    }
+
+    /**
+     * Set the weights of the hits to order the seeds, by decreasing weight as
+     * in {@link Double#compare}, and by increasing index for equal weights.
+     *
+     * @param weights the weight of each hit
+     */
+    public void setSeedWeights(double[] weights) {
+        for (int i = 0; i < this.nHits; i++) {
+            this.weights[i] = weights[i];
+            this.seeds[i] = i;
+        }
+        this.nSeeds   = this.nHits;
+        this.nextSeed = 0;
+        this.sortSeeds(0, this.nSeeds);
+    }
+
+    /**
+     * Remove and return the available hit with the largest weight, see
+     * {@link #setSeedWeights}.
+     *
+     * @param min minimum weight of the seed
+     * @return the seed hit, or -1 if no available hit has a weight of at least min
+     */
+    public int nextSeed(double min) {
+        for (; this.nextSeed < this.nSeeds; this.nextSeed++) {
+            int hit = this.seeds[this.nextSeed];
+            if (this.isAvailable(hit)) {
+                if (this.weights[hit] < min) return -1;
+                this.remove(hit);
+                this.nextSeed++;
+                return hit;
+            }
+        }
+        return -1;
+    }
+
+    public boolean isAvailable(int hit) {
+        return (this.available[hit >>> 6] & (1L << hit)) != 0;
+    }
+
+    public void remove(int hit) {
+        this.available[hit >>> 6] &= ~(1L << hit);
+    }
+
+    /**
+     * Find the available hits in the channels adjacent to the channel of a
+     * hit, see {@link #getNeighbour}.
+     *
+     * @param hit the hit index
+     * @return the number of hits found
+     */
+    public int neighbours(int hit) {
+        return this.findNeighbours(hit, true);
+    }
+
+    /**
+     * Find the hits already removed in the channels adjacent to the channel
+     * of a hit, see {@link #getNeighbour}.
+     *
+     * @param hit the hit index
+     * @return the number of hits found
+     */
+    public int removedNeighbours(int hit) {
+        return this.findNeighbours(hit, false);
+    }
+
+    /**
+     * @param i index of the hit found, from 0 to the number of hits found
+     * @return the hit found by the last neighbour search, by increasing index
+     */
+    public int getNeighbour(int i) {
+        return this.found[i];
+    }
+
+    private int findNeighbours(int hit, boolean isAvailable) {
+        int c = this.hitChannel[hit];
+        if (c < 0) return 0;
+        int n = 0;
+        for (int k = this.adjacencyStart[c]; k < this.adjacencyStart[c+1]; k++) {
+            for (int h = this.channelFirst[this.adjacency[k]]; h >= 0; h = this.hitNext[h]) {
+                if (h != hit && this.isAvailable(h) == isAvailable) {
+                    if (n == this.found.length) this.found = Arrays.copyOf(this.found, 2*n);
+                    this.found[n++] = h;
+                }
+            }
+        }
+        Arrays.sort(this.found, 0, n);
+        return n;
+    }
+
+    // stable merge sort of the seeds by decreasing weight
+    private void sortSeeds(int from, int to) {
+        if (to - from < 2) return;
+        int mid = (from + to) >>> 1;
+        this.sortSeeds(from, mid);
+        this.sortSeeds(mid, to);
+        if (Double.compare(this.weights[this.seeds[mid-1]], this.weights[this.seeds[mid]]) >= 0) return;
+        System.arraycopy(this.seeds, from, this.sortBuffer, from, to - from);
+        int i = from, j = mid;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < mid && Double.compare(this.weights[this.sortBuffer[i]], this.weights[this.sortBuffer[j]]) >= 0)) {
+                this.seeds[k] = this.sortBuffer[i++];
+            } else {
+                this.seeds[k] = this.sortBuffer[j++];
+            }
+        }
+    }
+}
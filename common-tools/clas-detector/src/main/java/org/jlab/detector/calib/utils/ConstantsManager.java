@@ -1,5 +1,6 @@
 package org.jlab.detector.calib.utils;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -8,6 +9,10 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -30,6 +35,8 @@ public class ConstantsManager {
     private String timeStamp = "";
     private int requestStatus = 0;
     private int maxRequests = 2;
+    private int loadThreads = 1;
+    private String snapshotDirectory = getSnapshotEnvironment();
 
     public ConstantsManager() {
 
@@ -51,6 +58,40 @@ public class ConstantsManager {
         this.timeStamp = timestamp;
     }
 
+    /**
+     * Set the number of database connections used to load the tables of a
+     * run concurrently, 1 (the default) to load them one after the other.
+     * @param threads number of connections
+     */
+    public void setLoadThreads(int threads) {
+        this.loadThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Set the directory of the local snapshot of the database tables, from
+     * which tables are read instead of the database if they were already
+     * loaded for the same database connection, variation, timestamp and run,
+     * and to which tables loaded from the database are saved.  The snapshot
+     * is only used with a timestamp, see {@link #setTimeStamp}, since the
+     * latest constants can change at any time.  The RCDB conditions are still
+     * read from RCDB.  The default is taken from the CCDB_SNAPSHOT environment
+     * variable or system property, if set, else the snapshot is not used.
+     * @param directory snapshot directory, or null to not use the snapshot
+     */
+    public void setSnapshotDirectory(String directory) {
+        this.snapshotDirectory = directory;
+    }
+
+    public String getSnapshotDirectory() {
+        return this.snapshotDirectory;
+    }
+
+    private static String getSnapshotEnvironment() {
+        String env = System.getenv("CCDB_SNAPSHOT");
+        if (env != null) return env;
+        return System.getProperty("CCDB_SNAPSHOT");
+    }
+
     public synchronized void init(String... tables) {
         this.defaultDescriptor.addTables(tables);
     }
@@ -120,17 +161,87 @@ public class ConstantsManager {
 
         LOGGER.log(Level.INFO, "[ConstantsManager] --->  loading table for run = " + run);
         DatabaseConstantsDescriptor desc = defaultDescriptor.getCopy(run);
-        DatabaseConstantProvider provider = new DatabaseConstantProvider(run, this.databaseVariation, this.timeStamp);
 
         List<String> tn = new ArrayList<String>(desc.getTableNames());
         List<String> tk = new ArrayList<String>(desc.getTableKeys());
+        List<Integer> ti = desc.getTableIndices();
+
+        // tables from the local snapshot, and the others from the database:
+        TableSnapshot[] tables = new TableSnapshot[tn.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < tn.size(); i++) {
+            File file = this.getSnapshotFile(run, tn.get(i), ti.get(i));
+            if (file != null) {
+                tables[i] = TableSnapshot.read(file);
+            }
+            if (tables[i] == null) missing.add(i);
+        }
+        if (!missing.isEmpty()) {
+            if (this.loadThreads > 1 && missing.size() > 1) {
+                this.readTablesConcurrently(run, tn, ti, missing, tables);
+            } else {
+                this.readTables(run, tn, ti, missing, tables);
+            }
+        }
+
+        for (int i = 0; i < tn.size(); i++) {
+            if (tables[i] == null) continue;
+            desc.getMap().put(tk.get(i), tables[i].toIndexedTable());
+            LOGGER.log(Level.INFO, String.format("***** >>> adding : %14s / table = %s", tk.get(i), tn.get(i)));
+        }
+        this.runConstants.put(run, desc);
+
+        if (this.rcdbConstants.containsKey(run) == false) {
+            this.rcdbConstants.put(run, this.readRcdbConstants(run));
+        }
+    }
 
-        for (int i = 0; i < desc.getTableNames().size(); i++) {
-            String tableName = tn.get(i);
+    RCDBConstants readRcdbConstants(int run) {
+        RCDBProvider rcdbpro = new RCDBProvider();
+        RCDBConstants constants = rcdbpro.getConstants(run);
+        rcdbpro.disconnect();
+        return constants;
+    }
+
+    /**
+     * @return the snapshot file of a table, or null if not to be snapshot
+     */
+    private File getSnapshotFile(int run, String table, int nindex) {
+        if (this.snapshotDirectory == null) return null;
+        return TableSnapshot.getFile(this.snapshotDirectory, DatabaseConstantProvider.getDefaultAddress(),
+                this.databaseVariation, this.timeStamp, run, table, nindex);
+    }
+
+    /**
+     * Open a database connection to read the tables of a run.
+     */
+    TableSnapshot.Reader openReader(int run) {
+        DatabaseConstantProvider provider = new DatabaseConstantProvider(run, this.databaseVariation, this.timeStamp);
+        return new TableSnapshot.Reader() {
+            @Override
+            public TableSnapshot read(String table, int nindex) {
+                return provider.readSnapshot(table, nindex);
+            }
+            @Override
+            public void close() {
+                provider.disconnect();
+            }
+        };
+    }
+
+    /**
+     * Read the given tables from the database, with one connection.
+     */
+    private void readTables(int run, List<String> names, List<Integer> indices, List<Integer> selected, TableSnapshot[] tables) {
+        TableSnapshot.Reader reader = this.openReader(run);
+        for (int i : selected) {
+            String tableName = names.get(i);
             try {
-                IndexedTable  table = provider.readTable(tableName, desc.getTableIndices().get(i));
-                desc.getMap().put(tk.get(i), table);
-                LOGGER.log(Level.INFO, String.format("***** >>> adding : %14s / table = %s", tk.get(i), tableName));
+                tables[i] = reader.read(tableName, indices.get(i));
+                File file = this.getSnapshotFile(run, tableName, indices.get(i));
+                if (file != null) {
+                    tables[i].write(file);
+                }
             } catch (Exception e) {
                 LOGGER.log(Level.SEVERE, e.getMessage());
                 LOGGER.log(Level.SEVERE, "[ConstantsManager] ---> error reading table : " + tableName);
@@ -139,13 +250,33 @@ public class ConstantsManager {
                 requestStatus = -1;
             }
         }
-        provider.disconnect();
-        this.runConstants.put(run, desc);
+        reader.close();
+    }
 
-        if (this.rcdbConstants.containsKey(run) == false) {
-            RCDBProvider rcdbpro = new RCDBProvider();
-            this.rcdbConstants.put(run, rcdbpro.getConstants(run));
-            rcdbpro.disconnect();
+    /**
+     * Read the given tables from the database, sharing them among several
+     * connections that are read concurrently.
+     */
+    private void readTablesConcurrently(int run, List<String> names, List<Integer> indices, List<Integer> selected, TableSnapshot[] tables) {
+        final int nthreads = Math.min(this.loadThreads, selected.size());
+        ExecutorService pool = Executors.newFixedThreadPool(nthreads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int ithread = 0; ithread < nthreads; ithread++) {
+                List<Integer> share = new ArrayList<>();
+                for (int j = ithread; j < selected.size(); j += nthreads) {
+                    share.add(selected.get(j));
+                }
+                futures.add(pool.submit(() -> this.readTables(run, names, indices, share, tables)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            LOGGER.log(Level.SEVERE, "[ConstantsManager] ---> error reading tables for run = " + run, e);
+            requestStatus = -1;
+        } finally {
+            pool.shutdown();
         }
     }
 
@@ -93,7 +93,16 @@ public class DatabaseConstantProvider implements ConstantProvider {
         return entries;
     }
     
-    private String getEnvironment(){
+    /**
+     * @return the database address used by the constructors without address,
+     * from the environment if set, else the default one
+     */
+    static String getDefaultAddress(){
+        String envAddress = getEnvironment();
+        return envAddress!=null ? envAddress : DEFAULT_ADDRESS;
+    }
+    
+    private static String getEnvironment(){
         
         String envCCDB   = System.getenv("CCDB_DATABASE");
         String envCLAS12 = System.getenv("CLAS12DIR");
@@ -231,25 +240,29 @@ public class DatabaseConstantProvider implements ConstantProvider {
     }
     
     public IndexedTable  readTable(String table_name,int nindex){
+        return this.readSnapshot(table_name, nindex).toIndexedTable();
+    }
+    
+    /**
+     * Reads the content of given table in the database.
+     * @param table_name
+     * @param nindex
+     * @return 
+     */
+    TableSnapshot  readSnapshot(String table_name,int nindex){
 
         Assignment asgmt = provider.getData(table_name);
         int ncolumns = asgmt.getColumnCount();
         Vector<TypeTableColumn> typecolumn = asgmt.getTypeTable().getColumns();
         
-        String[] format = new String[ncolumns-nindex];
-
-        for(int loop = nindex; loop < ncolumns; loop++){
-            if(typecolumn.get(loop).getCellType().name().compareTo("DOUBLE")==0){
-                format[loop-nindex] = typecolumn.get(loop).getName() + "/D";
-            } else {
-                format[loop-nindex] = typecolumn.get(loop).getName() + "/I";
-            }
+        String[]  names   = new String[ncolumns];
+        boolean[] doubles = new boolean[ncolumns];
+        for(int loop = 0; loop < ncolumns; loop++){
+            names[loop]   = typecolumn.get(loop).getName();
+            doubles[loop] = typecolumn.get(loop).getCellType().name().compareTo("DOUBLE")==0;
         }
         
-        IndexedTable  table = new IndexedTable(nindex,format);
-        for(int i = 0; i < nindex; i++){
-            table.setIndexName(i, typecolumn.get(i).getName());
-        }
+        TableSnapshot  table = new TableSnapshot(nindex, names, doubles);
         
         List< Vector<String> >  tableRows = new ArrayList< Vector<String> >();
         
@@ -266,7 +279,7 @@ public class DatabaseConstantProvider implements ConstantProvider {
             for(int nc = 0; nc < ncolumns; nc++){
                 values[nc] = tableRows.get(nc).get(nr);
             }
-            table.addEntryFromString(values);
+            table.addRow(values);
         }
         return table;        
     }
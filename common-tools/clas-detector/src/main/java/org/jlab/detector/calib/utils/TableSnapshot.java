@@ -0,0 +1,172 @@
+package org.jlab.detector.calib.utils;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jlab.utils.groups.IndexedTable;
+
+/**
+ * The content of one CCDB table as read from the database, i.e. the column
+ * names and types and the values as strings, from which the IndexedTable is
+ * built.  It can be saved to and read back from a local snapshot file, so
+ * that the same table is not fetched again from the database.
+ *
+ * Snapshot files are stored in a directory tree by database connection,
+ * variation, timestamp, run number and table name.  Only the constants of a
+ * given timestamp are snapshot, the latest constants can change at any time.
+ */
+class TableSnapshot {
+
+    static final Logger LOGGER = Logger.getLogger(TableSnapshot.class.getName());
+
+    private static final int MAGIC   = 0x43434442;
+    private static final int VERSION = 1;
+
+    private final int      nindex;
+    private final String[] names;
+    private final boolean[] doubles;
+    private final List<String[]> rows = new ArrayList<>();
+
+    TableSnapshot(int nindex, String[] names, boolean[] doubles) {
+        this.nindex  = nindex;
+        this.names   = names;
+        this.doubles = doubles;
+    }
+
+    /**
+     * A connection to read tables from the database
+     */
+    interface Reader {
+        TableSnapshot read(String table, int nindex);
+        void close();
+    }
+
+    void addRow(String[] values) {
+        this.rows.add(values);
+    }
+
+    /**
+     * Create the table, the same as DatabaseConstantProvider.readTable
+     * @return the table
+     */
+    IndexedTable toIndexedTable() {
+        String[] format = new String[names.length-nindex];
+        for(int loop = nindex; loop < names.length; loop++){
+            format[loop-nindex] = names[loop] + (doubles[loop] ? "/D" : "/I");
+        }
+        IndexedTable  table = new IndexedTable(nindex,format);
+        for(int i = 0; i < nindex; i++){
+            table.setIndexName(i, names[i]);
+        }
+        for(String[] values : rows){
+            table.addEntryFromString(values);
+        }
+        return table;
+    }
+
+    /**
+     * @param timestamp database timestamp
+     * @return whether the timestamp is used by the database, see
+     * {@link DatabaseConstantProvider#DatabaseConstantProvider(int, String, String)}
+     */
+    static boolean isPinned(String timestamp) {
+        return timestamp!=null && timestamp.length()>8;
+    }
+
+    /**
+     * @param directory snapshot directory
+     * @param connection database connection string
+     * @param variation database variation
+     * @param timestamp database timestamp
+     * @param run run number
+     * @param table table name
+     * @param nindex number of indices
+     * @return the snapshot file of the table, or null if the timestamp is not
+     * pinned, since the latest constants are not snapshot
+     */
+    static File getFile(String directory, String connection, String variation, String timestamp, int run, String table, int nindex) {
+        if(!isPinned(timestamp)) return null;
+        // readable, and unique thanks to the hash:
+        String database = connection.replaceAll("[^0-9A-Za-z]+", "_") + "_" + String.format("%08x", connection.hashCode());
+        String time = timestamp.replaceAll("[^0-9A-Za-z]", "_");
+        String name = table.replaceAll("^/+", "");
+        return new File(directory, database + "/" + variation + "/" + time + "/" + run + "/" + name + "." + nindex);
+    }
+
+    /**
+     * Read a table from its snapshot file
+     * @param file snapshot file
+     * @return the table, or null if the file doesn't exist or is unreadable
+     */
+    static TableSnapshot read(File file) {
+        if(!file.isFile()) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if(in.readInt()!=MAGIC || in.readInt()!=VERSION) return null;
+            int nindex   = in.readInt();
+            int ncolumns = in.readInt();
+            String[]  names   = new String[ncolumns];
+            boolean[] doubles = new boolean[ncolumns];
+            for(int nc = 0; nc < ncolumns; nc++){
+                names[nc]   = in.readUTF();
+                doubles[nc] = in.readBoolean();
+            }
+            TableSnapshot snapshot = new TableSnapshot(nindex, names, doubles);
+            int nrows = in.readInt();
+            for(int nr = 0 ; nr < nrows; nr++){
+                String[] values = new String[ncolumns];
+                for(int nc = 0; nc < ncolumns; nc++){
+                    values[nc] = in.readUTF();
+                }
+                snapshot.addRow(values);
+            }
+            return snapshot;
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.WARNING, "[TableSnapshot] ---> ignoring unreadable snapshot : {0}", file);
+            return null;
+        }
+    }
+
+    /**
+     * Write the table to its snapshot file, via a temporary file so that a
+     * partially written snapshot is never read.
+     * @param file snapshot file
+     */
+    void write(File file) {
+        File tmp = new File(file.getPath() + ".tmp" + Thread.currentThread().getId());
+        file.getParentFile().mkdirs();
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(nindex);
+            out.writeInt(names.length);
+            for(int nc = 0; nc < names.length; nc++){
+                out.writeUTF(names[nc]);
+                out.writeBoolean(doubles[nc]);
+            }
+            out.writeInt(rows.size());
+            for(String[] values : rows){
+                for(String value : values) out.writeUTF(value);
+            }
+        }
+        catch (IOException e) {
+            LOGGER.log(Level.WARNING, "[TableSnapshot] ---> cannot write snapshot : {0}", file);
+            tmp.delete();
+            return;
+        }
+        if(!tmp.renameTo(file)) {
+            LOGGER.log(Level.WARNING, "[TableSnapshot] ---> cannot write snapshot : {0}", file);
+            tmp.delete();
+        }
+    }
+}
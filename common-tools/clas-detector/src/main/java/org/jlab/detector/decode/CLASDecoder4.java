@@ -2,11 +2,23 @@ package org.jlab.detector.decode;
 
 import org.jlab.detector.scalers.DaqScalers;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.TreeSet;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import org.jlab.detector.base.DetectorDescriptor;
 
 import org.jlab.detector.base.DetectorType;
@@ -749,6 +761,194 @@ public class CLASDecoder4 {
     }
     
     
+    /**
+     * An EVIO event decoded into the output events, with the helicity reading
+     * from the HEL::adc bank.
+     */
+    private static class DecodedEvent {
+        private final Event event;
+        private final Event scalerEvent;
+        private final HelicityState helicity;
+
+        private DecodedEvent(Event event, Event scalerEvent, HelicityState helicity) {
+            this.event       = event;
+            this.scalerEvent = scalerEvent;
+            this.helicity    = helicity;
+        }
+    }
+
+    /**
+     * Decodes an EVIO event into the output event, and the tag-1 event with
+     * the scaler and EPICS banks if it has any.
+     * @param event EVIO event
+     * @param header properties inherited from the previous event in the file,
+     * or null to use the ones of the event this decoder has decoded last
+     * @param nrun run number for the header bank, -1 to use the CODA run
+     * @param nevent event counter for the header bank
+     * @param torus torus scale for the header bank
+     * @param solenoid solenoid scale for the header bank
+     * @return the decoded event
+     */
+    private DecodedEvent decode(EvioDataEvent event, CodaEventDecoder.Header header,
+            int nrun, int nevent, float torus, float solenoid) {
+
+        if(header!=null) codaDecoder.setHeader(header);
+
+        Event  decodedEvent = this.getDataEvent(event);
+
+        Bank   headerBank = this.createHeaderBank( nrun, nevent, torus, solenoid);
+        if(headerBank!=null) decodedEvent.write(headerBank);
+        Bank   trigger = this.createTriggerBank();
+        if(trigger!=null) decodedEvent.write(trigger);
+        Bank onlineHelicity = this.createOnlineHelicityBank();
+        if(onlineHelicity!=null) decodedEvent.write(onlineHelicity);
+        Bank decodedHelicity = this.createHelicityDecoderBank(event);
+        if (decodedHelicity!=null) decodedEvent.write(decodedHelicity);
+
+        Bank epics = this.createEpicsBank();
+
+        Bank  rawScaler   = new Bank(schemaFactory.getSchema("RAW::scaler"));
+        Bank  rawRunConf  = new Bank(schemaFactory.getSchema("RUN::config"));
+        Bank  helicityAdc = new Bank(schemaFactory.getSchema("HEL::adc"));
+        decodedEvent.read(rawScaler);
+        decodedEvent.read(rawRunConf);
+        decodedEvent.read(helicityAdc);
+
+        this.extractPulses(decodedEvent);
+
+        HelicityState helicity = HelicityState.createFromFadcBank(helicityAdc, rawRunConf,
+            this.detectorDecoder.scalerManager);
+
+        Event scalerEvent = null;
+        if(rawScaler.getRows()>0 || epics!=null) {
+            scalerEvent = new Event();
+
+            if(rawScaler.getRows()>0) scalerEvent.write(rawScaler);
+            if(rawRunConf.getRows()>0) scalerEvent.write(rawRunConf);
+
+            for (Bank b : this.createReconScalerBanks(decodedEvent)) {
+                decodedEvent.write(b);
+                scalerEvent.write(b);
+            }
+
+            if (epics!=null) {
+                decodedEvent.write(epics);
+                scalerEvent.write(epics);
+            }
+        }
+        return new DecodedEvent(decodedEvent, scalerEvent, helicity);
+    }
+
+    /**
+     * Reads the input files in order and creates the decoding task of each
+     * event, with the properties it inherits from the previous events.
+     */
+    private static class DecodingTasks implements Iterator<Callable<DecodedEvent>> {
+        private final Iterator<String> inputFiles;
+        private final int nevents;
+        private final ThreadLocal<CLASDecoder4> decoders;
+        private final int nrun;
+        private final float torus;
+        private final float solenoid;
+        private final CodaEventDecoder headerDecoder = new CodaEventDecoder();
+        private EvioSource source;
+        private int nread;
+
+        private DecodingTasks(List<String> inputFiles, int nevents, ThreadLocal<CLASDecoder4> decoders,
+                int nrun, float torus, float solenoid) {
+            this.inputFiles = inputFiles.iterator();
+            this.nevents    = nevents;
+            this.decoders   = decoders;
+            this.nrun       = nrun;
+            this.torus      = torus;
+            this.solenoid   = solenoid;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if(nevents>0 && nread>=nevents) return false;
+            while(source==null || source.hasEvent()==false) {
+                this.close();
+                if(!inputFiles.hasNext()) return false;
+                source = new EvioSource();
+                source.open(inputFiles.next());
+            }
+            return true;
+        }
+
+        @Override
+        public Callable<DecodedEvent> next() {
+            if(!this.hasNext()) throw new NoSuchElementException();
+            EvioDataEvent event = (EvioDataEvent) source.getNextEvent();
+            CodaEventDecoder.Header header = headerDecoder.getHeader();
+            headerDecoder.readHeader(event);
+            final int nevent = nread++;
+            return () -> decoders.get().decode(event, header, nrun, nevent, torus, solenoid);
+        }
+
+        /**
+         * Closes the current input file.
+         */
+        public void close() {
+            if(source!=null) {
+                source.close();
+                source = null;
+            }
+        }
+    }
+
+    /**
+     * Runs the tasks on the given number of threads and passes their results
+     * to the output in the order of the tasks. A reader thread takes the
+     * tasks from the iterator, up to 4 per thread ahead of the output.
+     * @param tasks the tasks, in order
+     * @param threads number of threads running the tasks
+     * @param output consumer of the results, called from the calling thread
+     * @throws InterruptedException if interrupted while waiting for a result
+     * @throws ExecutionException if a task or the iterator failed
+     */
+    static <T> void runInOrder(Iterator<Callable<T>> tasks, int threads, Consumer<T> output)
+            throws InterruptedException, ExecutionException {
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        BlockingQueue<Future<T>> queue = new ArrayBlockingQueue<>(4*threads);
+        Thread reader = new Thread(() -> {
+            // the last entry of the queue, a null result that ends the input,
+            // or the failure of the reader:
+            CompletableFuture<T> last = new CompletableFuture<>();
+            try {
+                while(tasks.hasNext()) {
+                    queue.put(workers.submit(tasks.next()));
+                }
+            }
+            catch (Throwable e) {
+                if(e instanceof InterruptedException) Thread.currentThread().interrupt();
+                last.completeExceptionally(e);
+            }
+            finally {
+                last.complete(null);
+                try {
+                    queue.put(last);
+                }
+                catch (InterruptedException e) {
+                    // the output stopped, nobody waits for the end
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "decoder-reader");
+        reader.start();
+
+        try {
+            for(T next = queue.take().get(); next!=null; next = queue.take().get()) {
+                output.accept(next);
+            }
+        }
+        finally {
+            reader.interrupt();
+            reader.join();
+            workers.shutdownNow();
+        }
+    }
+
     public static void main(String[] args){
 
         OptionParser parser = new OptionParser("decoder");
@@ -759,6 +959,7 @@ public class CLASDecoder4 {
         parser.addOption("-d", "0","debug mode, set >0 for more verbose output");
         parser.addOption("-m", "run","translation tables source (use -m devel for development tables)");
         parser.addOption("-b", "16","record buffer size in MB");
+        parser.addOption("-j", "1","number of decoding threads");
         parser.addRequired("-o","output.hipo");
 
 
@@ -795,23 +996,32 @@ public class CLASDecoder4 {
         int compression = parser.getOption("-c").intValue();
         int  recordsize = parser.getOption("-b").intValue();
         int debug = parser.getOption("-d").intValue();
-
-        CLASDecoder4 decoder = new CLASDecoder4(developmentMode);
-
-        decoder.setDebugMode(debug);
+        int threads = Math.max(1, parser.getOption("-j").intValue());
 
         HipoWriterSorted writer = new HipoWriterSorted();
         writer.setCompressionType(compression);
         writer.getSchemaFactory().initFromDirectory(ClasUtilsFile.getResourceDir("CLAS12DIR", "etc/bankdefs/hipo4"));
 
-        Bank  rawScaler   = new Bank(writer.getSchemaFactory().getSchema("RAW::scaler"));
-        Bank  rawRunConf  = new Bank(writer.getSchemaFactory().getSchema("RUN::config"));
-        Bank  helicityAdc = new Bank(writer.getSchemaFactory().getSchema("HEL::adc"));
-        Event scalerEvent = new Event();
-
         int nrun = parser.getOption("-r").intValue();
-        double torus = parser.getOption("-t").doubleValue();
-        double solenoid = parser.getOption("-s").doubleValue();
+        float torus = (float) parser.getOption("-t").doubleValue();
+        float solenoid = (float) parser.getOption("-s").doubleValue();
+        String timestamp = parser.getOption("-x").getValue() != null ? parser.getOption("-x").stringValue() : null;
+        String variation = parser.getOption("-v").getValue() != null ? parser.getOption("-v").stringValue() : null;
+
+        // every decoding thread has its own decoder, with the same settings:
+        final boolean devel = developmentMode;
+        ThreadLocal<CLASDecoder4> decoders = ThreadLocal.withInitial(() -> {
+            CLASDecoder4 decoder = new CLASDecoder4(devel);
+            decoder.setDebugMode(debug);
+            if(nrun>0){
+                decoder.setRunNumber(nrun,true);
+            }
+            if (timestamp != null)
+                decoder.detectorDecoder.setTimestamp(timestamp);
+            if (variation != null)
+                decoder.detectorDecoder.setVariation(variation);
+            return decoder;
+        });
 
         writer.open(outputFile);
         ProgressPrintout progress = new ProgressPrintout();
@@ -819,78 +1029,54 @@ public class CLASDecoder4 {
         int nevents = parser.getOption("-n").intValue();
         int counter = 0;
 
-        if(nrun>0){
-            decoder.setRunNumber(nrun,true);
-        }
-
-        if (parser.getOption("-x").getValue() != null)
-            decoder.detectorDecoder.setTimestamp(parser.getOption("-x").stringValue());
-        if (parser.getOption("-v").getValue() != null)
-            decoder.detectorDecoder.setVariation(parser.getOption("-v").stringValue());
-
         // Store all helicity readings, ordered by timestamp:
         TreeSet<HelicityState> helicityReadings = new TreeSet<>();
 
-        for(String inputFile : inputList){
-            EvioSource reader = new EvioSource();
-            reader.open(inputFile);
-           
-            while(reader.hasEvent()==true){
-                EvioDataEvent event = (EvioDataEvent) reader.getNextEvent();
-                
-                Event  decodedEvent = decoder.getDataEvent(event);
-                
-                Bank   header = decoder.createHeaderBank( nrun, counter, (float) torus, (float) solenoid);
-                if(header!=null) decodedEvent.write(header);
-                Bank   trigger = decoder.createTriggerBank();
-                if(trigger!=null) decodedEvent.write(trigger);
-                Bank onlineHelicity = decoder.createOnlineHelicityBank();
-                if(onlineHelicity!=null) decodedEvent.write(onlineHelicity);
-                Bank decodedHelicity = decoder.createHelicityDecoderBank(event);
-                if (decodedHelicity!=null) decodedEvent.write(decodedHelicity);
-                
-                Bank epics = decoder.createEpicsBank();
-                
-                decodedEvent.read(rawScaler);
-                decodedEvent.read(rawRunConf);
-                decodedEvent.read(helicityAdc);
-
-                decoder.extractPulses(decodedEvent);
+        if(threads==1) {
+            CLASDecoder4 decoder = decoders.get();
+            for(String inputFile : inputList){
+                EvioSource reader = new EvioSource();
+                reader.open(inputFile);
 
-                helicityReadings.add(HelicityState.createFromFadcBank(helicityAdc, rawRunConf,
-                    decoder.detectorDecoder.scalerManager));
+                while(reader.hasEvent()==true){
+                    EvioDataEvent event = (EvioDataEvent) reader.getNextEvent();
 
-                if(rawScaler.getRows()>0 || epics!=null) {
-                    scalerEvent.reset();
-                    
-                    if(rawScaler.getRows()>0) scalerEvent.write(rawScaler);
-                    if(rawRunConf.getRows()>0) scalerEvent.write(rawRunConf);
+                    DecodedEvent decoded = decoder.decode(event, null, nrun, counter, torus, solenoid);
+                    write(writer, decoded, helicityReadings);
 
-                    for (Bank b : decoder.createReconScalerBanks(decodedEvent)) {
-                        decodedEvent.write(b);
-                        scalerEvent.write(b);
+                    counter++;
+                    progress.updateStatus();
+                    if(counter%25000==0){
+                        System.gc();
                     }
-
-                    if (epics!=null) {
-                        decodedEvent.write(epics);
-                        scalerEvent.write(epics);
+                    if(nevents>0){
+                        if(counter>=nevents) break;
                     }
-
-                    writer.addEvent(scalerEvent, 1);
-                }
-                
-                writer.addEvent(decodedEvent,0);
-                
-                counter++;
-                progress.updateStatus();
-                if(counter%25000==0){
-                    System.gc();
-                }
-                if(nevents>0){
-                    if(counter>=nevents) break;
                 }
+                reader.close();
+            }
+        }
+        else {
+            // The events are read in order and decoded by the worker threads,
+            // the properties an event inherits from the previous ones are
+            // tracked by the reader and handed to the decoding task.
+            AtomicInteger nwritten = new AtomicInteger();
+            DecodingTasks tasks = new DecodingTasks(inputList, nevents, decoders, nrun, torus, solenoid);
+            try {
+                runInOrder(tasks, threads, decoded -> {
+                    write(writer, decoded, helicityReadings);
+                    progress.updateStatus();
+                    if(nwritten.incrementAndGet()%25000==0){
+                        System.gc();
+                    }
+                });
+            }
+            catch (InterruptedException | ExecutionException e) {
+                throw new RuntimeException(e);
+            }
+            finally {
+                tasks.close();
             }
-
         }
 
         // add the helicity flips into new tag-1 events:
@@ -899,4 +1085,10 @@ public class CLASDecoder4 {
         writer.close();
     }
 
+    private static void write(HipoWriterSorted writer, DecodedEvent decoded, TreeSet<HelicityState> helicityReadings) {
+        helicityReadings.add(decoded.helicity);
+        if(decoded.scalerEvent!=null) writer.addEvent(decoded.scalerEvent, 1);
+        writer.addEvent(decoded.event, 0);
+    }
+
 }
@@ -239,14 +239,8 @@ public class CodaEventDecoder {
         EvioTreeBranch cbranch = this.getEventBranch(branches, crate);
         if(cbranch == null ) return null;
 
-        for (EvioNode node : cbranch.getNodes()) {
-            if (node.getTag() == 57615) {
-                //  This is regular integrated pulse mode, used for FTOF
-                // FTCAL and EC/PCAL
-                this.tiMaster = crate;
-                this.readHeaderBank(crate, node, event);
-            }
-        }
+        this.readHeaderBanks(crate, cbranch, event);
+
         for(EvioNode node : cbranch.getNodes()){
 
             if(node.getTag()==57617){
@@ -334,6 +328,76 @@ public class CodaEventDecoder {
         return null;
     }
 
+    private void readHeaderBanks(Integer crate, EvioTreeBranch cbranch, EvioDataEvent event){
+        for (EvioNode node : cbranch.getNodes()) {
+            if (node.getTag() == 57615) {
+                //  This is regular integrated pulse mode, used for FTOF
+                // FTCAL and EC/PCAL
+                this.tiMaster = crate;
+                this.readHeaderBank(crate, node, event);
+            }
+        }
+    }
+
+    /**
+     * Reads only the HEAD and TI banks of the event, updating the properties
+     * which later events inherit when they have no such banks, i.e. the same
+     * state updates {@link #getDataEntries(EvioDataEvent)} does for them.
+     * @param event
+     */
+    public void readHeader(EvioDataEvent event){
+        if(event.getHandler().getStructure()==null) return;
+        this.getDataEntries_TI(event);
+        List<EvioTreeBranch> branches = this.getEventBranches(event);
+        for(EvioTreeBranch branch : branches){
+            EvioTreeBranch cbranch = this.getEventBranch(branches, branch.getTag());
+            this.readHeaderBanks(branch.getTag(), cbranch, event);
+        }
+    }
+
+    /**
+     * @return the event properties inherited by the next event
+     */
+    public Header getHeader(){
+        return new Header(this);
+    }
+
+    /**
+     * Sets the event properties inherited from the previous event, to decode
+     * an event out of the file sequence.
+     * @param header
+     */
+    public void setHeader(Header header){
+        this.runNumber      = header.runNumber;
+        this.eventNumber    = header.eventNumber;
+        this.unixTime       = header.unixTime;
+        this.helicityLevel3 = header.helicityLevel3;
+        this.tiMaster       = header.tiMaster;
+        this.triggerWords   = new ArrayList<>(header.triggerWords);
+    }
+
+    /**
+     * Snapshot of the event properties that are carried over from one event
+     * to the next by the decoder.
+     */
+    public static class Header {
+        private final int  runNumber;
+        private final int  eventNumber;
+        private final int  unixTime;
+        private final byte helicityLevel3;
+        private final int  tiMaster;
+        private final List<Integer> triggerWords;
+
+        private Header(CodaEventDecoder decoder){
+            this.runNumber      = decoder.runNumber;
+            this.eventNumber    = decoder.eventNumber;
+            this.unixTime       = decoder.unixTime;
+            this.helicityLevel3 = decoder.helicityLevel3;
+            this.tiMaster       = decoder.tiMaster;
+            this.triggerWords   = new ArrayList<>(decoder.triggerWords);
+        }
+    }
+
     public void readHeaderBank(Integer crate, EvioNode node, EvioDataEvent event){
 
         if(node.getDataTypeObj()==DataType.INT32||node.getDataTypeObj()==DataType.UINT32){
@@ -5,7 +5,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -62,6 +64,16 @@ public class HelicitySequence {
     protected final HelicityGenerator generator=new HelicityGenerator();
     protected final List<HelicityState> states=new ArrayList<>();
 
+    // timestamps of the states, to reject duplicates, and whether the states
+    // were added in timestamp order:
+    private final Set<Long> stateTimestamps=new HashSet<>();
+    private boolean sorted=true;
+
+    // columns of the analyzed states, for searches by timestamp and state count:
+    private long[] timestamps=new long[0];
+    private HelicityBit[] helicities=new HelicityBit[0];
+    private int[] swStatuses=new int[0];
+
     public HelicitySequence(){}
 
     public boolean getHalfWavePlate() {
@@ -76,9 +88,9 @@ public class HelicitySequence {
 
     /**
      * Add a state to the sequence, unless the same timestamp already exists
-     * or it has undefined bits, and keep them ordered by timestamp.  Note,
-     * these {@link HelicityState}s do not have to be added in order, as they
-     * will be automatically ordered by timestamp upon insertion.
+     * or it has undefined bits.  Note, these {@link HelicityState}s do not
+     * have to be added in order, as they are sorted by timestamp once, before
+     * the sequence is analyzed or accessed by index.
      * @param state the state to add
      * @return whether the state was added
      */
@@ -88,41 +100,33 @@ public class HelicitySequence {
         
         LOGGER.log(Level.FINE, "HelicitySequence:  adding state:  {0}", state);
 
-        // ignore states from other run numbers:
-        for (HelicityState hs : this.states) {
-            if (hs.getRun() != state.getRun()) {
-                LOGGER.log(Level.WARNING, "HelicitySequence:  run number mismatch (OLD/NEW = {0},{1}), ignoring state", new Object[]{hs.getRun(), state.getRun()});
-                return false;
-            }
+        // ignore states from other run numbers (all existing states
+        // have the same run number, so comparing with one is enough):
+        if (!this.states.isEmpty() && this.states.get(0).getRun() != state.getRun()) {
+            LOGGER.log(Level.WARNING, "HelicitySequence:  run number mismatch (OLD/NEW = {0},{1}), ignoring state", new Object[]{this.states.get(0).getRun(), state.getRun()});
+            return false;
         }
 
+        // ignore duplicate timestamps:
+        if (!this.stateTimestamps.add(state.getTimestamp())) return false;
+
         // mark that we'll need to redo the analysis:
         this.analyzed=false;
 
-        // FIXME:  should we be using a SortedSet instead?
-        // Looks like SortedList doesn't exist until java 10,
-        // and SortedSet doesn't give easy access by index?
-        // Meanwhile, we manually enforce the insertion order here.
-        if (this.states.isEmpty()) {
-            this.states.add(state);
-            return true;
+        if (!this.states.isEmpty() && state.compareTo(this.states.get(this.states.size()-1)) < 0) {
+            this.sorted=false;
         }
-        else {
-            final int index=Collections.binarySearch(this.states,state,new HelicityState());
-            if (index==this.states.size()) {
-                // its timestamp is later than the existing sequence:
-                this.states.add(state);
-                return true;
-            }
-            else if (index<0) {
-                // it's a unique timestamp, insert it:
-                this.states.add(-index-1,state);
-                return true;
-            }
-            else {
-                // it's a duplicate timestamp, ignore it:
-                return false;
-            }
+        this.states.add(state);
+        return true;
+    }
+
+    /**
+     * Sort the states by timestamp, if they were not added in order.
+     */
+    private void sortStates() {
+        if (!this.sorted) {
+            Collections.sort(this.states);
+            this.sorted=true;
         }
     }
 
@@ -148,13 +152,10 @@ public class HelicitySequence {
      */
     protected final int searchIndex(long timestamp) {
         if (!this.analyzed) this.analyze();
-        if (this.size() == 0) return -1;
-        if (timestamp < this.getTimestamp(0)) return -1;
-        if (timestamp > this.getTimestamp(this.size()-1)) return -1;
-        // make a fake state for timestamp search:
-        HelicityState state=new HelicityState();
-        state.setTimestamp(timestamp);
-        final int index=Collections.binarySearch(this.states,state,new HelicityState());
+        if (this.timestamps.length == 0) return -1;
+        if (timestamp < this.timestamps[0]) return -1;
+        if (timestamp > this.timestamps[this.timestamps.length-1]) return -1;
+        final int index=Arrays.binarySearch(this.timestamps,timestamp);
         final int n = index<0 ? -index-2 : index;
         return n;
     }
@@ -203,9 +204,20 @@ public class HelicitySequence {
      * @return the helicity state, HelicityBit.UDF if outside the mesaured range
      */
     protected HelicityBit get(int n) {
-        HelicityState state = this.getState(n);
-        if (state==null) return HelicityBit.UDF;
-        else return state.getHelicity();
+        if (!this.analyzed) this.analyze();
+        if (n < 0 || n>this.helicities.length-1) return HelicityBit.UDF;
+        return this.helicities[n];
+    }
+
+    /**
+     * Get the software status of the nth state in the measured sequence.
+     * @param n the index of the state, where 0 corresponds to the first state
+     * @return the status, zero if outside the measured range
+     */
+    protected int getSwStatus(int n) {
+        if (!this.analyzed) this.analyze();
+        if (n < 0 || n>this.swStatuses.length-1) return 0;
+        return this.swStatuses[n];
     }
 
     /**
@@ -226,7 +238,7 @@ public class HelicitySequence {
     public HelicityBit search(long timestamp,int offset) {
         final int index = this.searchIndex(timestamp)+offset;
         if (index < 0) return HelicityBit.UDF;
-        else return this.getState(index).getHelicity();
+        else return this.get(index);
     }
 
     /**
@@ -325,6 +337,7 @@ public class HelicitySequence {
      * @return the timestamp of the state
      */
     public long getTimestamp(int index) {
+        this.sortStates();
         return this.states.get(index).getTimestamp();
     }
 
@@ -337,34 +350,68 @@ public class HelicitySequence {
         // triggered by the first available readout and (usually) not
         // on an actual state change, so it's timestamp is invalid:
         if (!this.states.isEmpty()) {
-            this.states.remove(0);
+            this.stateTimestamps.remove(this.states.remove(0).getTimestamp());
+        }
+
+        // Walk the states as a linked list, dropping the false ones.  A rejection
+        // only changes the window starting at the previous state, so it's enough
+        // to step back one state instead of restarting from the first one:
+        final int n=this.states.size();
+        int[] next=new int[n];
+        int[] prev=new int[n];
+        boolean[] rejected=new boolean[n];
+        for (int ii=0; ii<n; ii++) {
+            next[ii]=ii+1;
+            prev[ii]=ii-1;
         }
         int nRejects=0;
-        while (true) {
-            boolean rejection=false;
-            for (int ii=0; ii<this.states.size()-3; ii++) {
-                final double dt01 = (this.getTimestamp(ii+1)-this.getTimestamp(ii+0))/TIMESTAMP_CLOCK;
-                final double dt12 = (this.getTimestamp(ii+2)-this.getTimestamp(ii+1))/TIMESTAMP_CLOCK;
-                if (Math.abs(dt01+dt12-1./this.helicityClock) < 0.3/this.helicityClock) {
-                    this.states.remove(ii+1);
-                    rejection=true;
-                    nRejects++;
-                    break;
+        int size=n;
+        int pos=0;
+        int ii=0;
+        while (pos < size-3) {
+            final int i1=next[ii];
+            final int i2=next[i1];
+            final double dt01 = (this.getTimestamp(i1)-this.getTimestamp(ii))/TIMESTAMP_CLOCK;
+            final double dt12 = (this.getTimestamp(i2)-this.getTimestamp(i1))/TIMESTAMP_CLOCK;
+            if (Math.abs(dt01+dt12-1./this.helicityClock) < 0.3/this.helicityClock) {
+                rejected[i1]=true;
+                next[ii]=i2;
+                prev[i2]=ii;
+                size--;
+                nRejects++;
+                if (pos > 0) {
+                    pos--;
+                    ii=prev[ii];
                 }
             }
-            if (!rejection) break;
+            else {
+                pos++;
+                ii=next[ii];
+            }
+        }
+        if (nRejects > 0) {
+            List<HelicityState> kept=new ArrayList<>(size);
+            for (int jj=0; jj<n; jj++) {
+                if (!rejected[jj]) kept.add(this.states.get(jj));
+                else this.stateTimestamps.remove(this.states.get(jj).getTimestamp());
+            }
+            this.states.clear();
+            this.states.addAll(kept);
         }
         return nRejects;
     }
     
     /**
-     * Analyze the sequence, prune false states, initialize the generator.
+     * Analyze the sequence:  sort the states, prune false states, flag their
+     * errors, fill the columns for the searches and initialize the generator.
      * @return sequence integrity
      */
     protected final boolean analyze() {
 
         LOGGER.finest("HelicitySequence:  Analyzing ....");
 
+        this.sortStates();
+
         final int nRejects=this.rejectFalseFlips();
         LOGGER.log(Level.FINEST, "HelicitySequence:  Rejected false flips:  {0}", nRejects);
 
@@ -375,6 +422,13 @@ public class HelicitySequence {
             LOGGER.log(Level.FINE, "HelicitySequnce:  HWP: {0}", this.halfWavePlate);
         }
 
+        for (int ii=1; ii<this.states.size(); ii++) {
+            final int mask=this.getErrorMask(ii);
+            if (mask != 0) this.states.get(ii).addSwStatusMask(mask);
+        }
+
+        this.fillColumns();
+
         this.analyzed=true;
 
         final boolean integrity=this.integrityCheck();
@@ -389,11 +443,52 @@ public class HelicitySequence {
     }
 
     /**
-     * Perform integrity checking on the sequence.
+     * Get the errors of a state with respect to the previous states in the
+     * sequence, which must be sorted.
+     * @param ii the index of the state, at least 1
+     * @return the {@link HelicityState.Mask} bits of the errors
+     */
+    private int getErrorMask(int ii) {
+
+        int mask=0;
+
+        // check if neighboring syncs are the same (they shouldn't be):
+        if (this.states.get(ii).getPairSync().value() == this.states.get(ii-1).getPairSync().value()) {
+            mask |= HelicityState.Mask.SYNC;
+        }
+
+        // check if quartet sequence is broken (should be 1minus + 3plus):
+        if (ii > 2) {
+            if (this.states.get(ii-0).getPatternSync().value()+
+                this.states.get(ii-1).getPatternSync().value()+
+                this.states.get(ii-2).getPatternSync().value()+
+                this.states.get(ii-3).getPatternSync().value() != 2) {
+                mask |= HelicityState.Mask.PATTERN;
+            }
+        }
+
+        // check timestamp deltas:
+        final double seconds = (this.states.get(ii).getTimestamp()-this.states.get(ii-1).getTimestamp())/TIMESTAMP_CLOCK;
+        if (seconds < (1.0-0.5)/this.helicityClock) {
+            mask |= HelicityState.Mask.SMALLGAP;
+        }
+        else if (seconds > (1.0+0.5)/this.helicityClock) {
+            mask |= HelicityState.Mask.BIGGAP;
+        }
+
+        return mask;
+    }
+
+    /**
+     * Perform integrity checking on the sequence.  This only counts and logs
+     * the errors, they are flagged in the states' software status by
+     * {@link #analyze}.
      * @return whether the integrity checking succeeded
      */
     public final boolean integrityCheck() {
 
+        this.sortStates();
+
         int hwpErrors=0;
         int syncErrors=0;
         int quartetErrors=0;
@@ -408,45 +503,29 @@ public class HelicitySequence {
                 hwpErrors++;
                 LOGGER.log(Level.FINE, "ERROR:  HelicitySequence HWP: {0}", ii);
             }
-            
-            // check if neighboring syncs are the same (they shouldn't be):
-            if (this.states.get(ii).getPairSync().value() == this.states.get(ii-1).getPairSync().value()) {
+
+            final int mask=this.getErrorMask(ii);
+            if ((mask & HelicityState.Mask.SYNC) != 0) {
                 syncErrors++;
-                this.states.get(ii).addSwStatusMask(HelicityState.Mask.SYNC);
                 LOGGER.log(Level.FINE, "ERROR: HelicitySequence SYNC: {0}", ii);
             }
-
-            // check if quartet sequence is broken (should be 1minus + 3plus):
-            if (ii > 2) {
-                if (this.states.get(ii-0).getPatternSync().value()+
-                    this.states.get(ii-1).getPatternSync().value()+
-                    this.states.get(ii-2).getPatternSync().value()+
-                    this.states.get(ii-3).getPatternSync().value() != 2) {
-                    quartetErrors++;
-                    this.states.get(ii).addSwStatusMask(HelicityState.Mask.PATTERN);
-                    LOGGER.log(Level.FINE, "ERROR:  HelicitySequence QUARTET: {0}", ii);
-                }
-            }
-
-            // check timestamp deltas:
-            final double seconds = (this.getTimestamp(ii)-this.getTimestamp(ii-1))/TIMESTAMP_CLOCK;
-            if (seconds < (1.0-0.5)/this.helicityClock) {
-                smallGapErrors++;
-                this.states.get(ii).addSwStatusMask(HelicityState.Mask.SMALLGAP);
-                LOGGER.log(Level.FINE, "ERROR:  HelicitySequence TIMESTAMP: {0} {1} {2} {3}s",
-                        new Object[]{ii, this.getTimestamp(ii), this.getTimestamp(ii-1), seconds});
+            if ((mask & HelicityState.Mask.PATTERN) != 0) {
+                quartetErrors++;
+                LOGGER.log(Level.FINE, "ERROR:  HelicitySequence QUARTET: {0}", ii);
             }
-            else if (seconds > (1.0+0.5)/this.helicityClock) {
-                bigGapErrors++;
-                this.states.get(ii).addSwStatusMask(HelicityState.Mask.BIGGAP);
+            if ((mask & (HelicityState.Mask.SMALLGAP|HelicityState.Mask.BIGGAP)) != 0) {
+                if ((mask & HelicityState.Mask.SMALLGAP) != 0) smallGapErrors++;
+                else bigGapErrors++;
                 LOGGER.log(Level.FINE, "ERROR:  HelicitySequence TIMESTAMP: {0} {1} {2} {3}s",
-                        new Object[]{ii, this.getTimestamp(ii), this.getTimestamp(ii-1), seconds});
+                        new Object[]{ii, this.getTimestamp(ii), this.getTimestamp(ii-1),
+                        (this.getTimestamp(ii)-this.getTimestamp(ii-1))/TIMESTAMP_CLOCK});
             }
         }
 
-        // compare with generator:
+        // compare with generator, only once the states were analyzed, since
+        // the generator's state count is relative to the analyzed sequence:
         int generatorErrors=0;
-        if (this.generator.initialized()) {
+        if (this.analyzed && this.generator.initialized()) {
             for (int ii=0; ii<this.states.size(); ii++) {
                 HelicityBit g=this.getGenerated(ii);
                 if (g!=null && g!=this.states.get(ii).getHelicity()) {
@@ -467,6 +546,22 @@ public class HelicitySequence {
         return (hwpErrors+syncErrors+quartetErrors+bigGapErrors+smallGapErrors+generatorErrors) == 0;
     }
 
+    /**
+     * Copy the timestamps, helicities and software statuses of the states
+     * into arrays, for binary search by timestamp and allocation-free lookups.
+     */
+    private void fillColumns() {
+        final int n=this.states.size();
+        this.timestamps=new long[n];
+        this.helicities=new HelicityBit[n];
+        this.swStatuses=new int[n];
+        for (int ii=0; ii<n; ii++) {
+            this.timestamps[ii]=this.states.get(ii).getTimestamp();
+            this.helicities[ii]=this.states.get(ii).getHelicity();
+            this.swStatuses[ii]=this.states.get(ii).getSwStatus();
+        }
+    }
+
     public void initialize(HipoReader reader) {
         SchemaFactory schema = reader.getSchemaFactory();
         while (reader.hasNext()) {
@@ -494,6 +589,7 @@ public class HelicitySequence {
     }
 
     public List<HelicityState> getStates() {
+        this.sortStates();
         return new ArrayList<>(this.states);
     } 
 
@@ -510,6 +606,7 @@ public class HelicitySequence {
      * @param states stream of states
      */
     public void addStream(TreeSet<HelicityState> states) {
+        this.sortStates();
         final long tmin = this.states.isEmpty() ? Long.MIN_VALUE : 
             this.states.get(this.states.size()-1).getTimestamp();
         for (HelicityState s : states) {
@@ -559,6 +656,7 @@ public class HelicitySequence {
      * @return list of HEL::flip banks
      */
     public List<Bank> getBanks(SchemaFactory schema) {
+        this.sortStates();
         List<Bank> banks = new ArrayList<>();
         for (HelicityState s : this.states) {
             banks.add(s.getFlipBank(schema));
@@ -573,6 +671,7 @@ public class HelicitySequence {
      * @param tag
      */
     public void writeFlips(HipoWriterSorted writer, int tag) {
+        this.sortStates();
         Event e = new Event();
         for (HelicityState s : this.states) {
             e.reset();
@@ -104,7 +104,7 @@ public final class HelicitySequenceDelayed extends HelicitySequence {
         if (n<0) return HelicityBit.UDF;
         for (int i=n+1; i<=n+delay && i<super.size(); i++) {
             // if any of the intermediate states have integrity issues:
-            if (super.getState(i).getSwStatus()!=0) {
+            if (super.getSwStatus(i)!=0) {
                 return HelicityBit.UDF;
             }
         }
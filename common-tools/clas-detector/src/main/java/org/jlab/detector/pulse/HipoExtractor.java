@@ -2,13 +2,19 @@
 package org.jlab.detector.pulse;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
+import org.jlab.io.hipo.HipoDataBank;
 import org.jlab.jnp.hipo4.data.Bank;
 import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.Schema;
 import org.jlab.jnp.hipo4.data.SchemaFactory;
 import org.jlab.utils.groups.IndexedTable;
+import org.jlab.utils.groups.NamedEntry;
 
 /**
  * For now, a place to store standard boilerplate for waveform/pulse HIPO
@@ -25,6 +31,41 @@ import org.jlab.utils.groups.IndexedTable;
  */
 public abstract class HipoExtractor implements IExtractor {
 
+    private static final String[] SAMPLE_NAMES = new String[256];
+    static {
+        for (int j=0; j<SAMPLE_NAMES.length; ++j)
+            SAMPLE_NAMES[j] = String.format("s%d",j+1);
+    }
+
+    // element index of sample j+1 in each waveform schema, -1 if missing:
+    private final Map<String,int[]> sampleColumns = new ConcurrentHashMap<>();
+
+    // per-thread buffers, reused for all rows and banks:
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+    private static class Buffers {
+        short[] samples = new short[0];
+        final List<Pulse> pulses = new ArrayList<>();
+        short[] getSamples(int n) {
+            if (samples.length != n) samples = new short[n];
+            return samples;
+        }
+    }
+
+    /**
+     * Extract the pulses of one waveform and add them to a list.  By default
+     * this calls {@link #extract(NamedEntry, int, short...)}, extractors can
+     * override it to avoid creating a new list for every waveform.
+     * @param pars CCDB row
+     * @param id link to row in source bank
+     * @param samples ADC samples
+     * @param pulses the list to add the extracted pulses to
+     */
+    protected void extract(NamedEntry pars, int id, short[] samples, List<Pulse> pulses) {
+        List<Pulse> p = extract(pars, id, samples);
+        if (p != null) pulses.addAll(p);
+    }
+
     /**
      * @param n number of samples in readout
      * @param it CCDB table containing extraction initialization parameters
@@ -123,38 +164,69 @@ public abstract class HipoExtractor implements IExtractor {
             bank.getShort("order", row)};
     }
 
+    private static String getSampleName(int j) {
+        return j < SAMPLE_NAMES.length ? SAMPLE_NAMES[j] : String.format("s%d",j+1);
+    }
+
+    private int[] getSampleColumns(Schema schema) {
+        return sampleColumns.computeIfAbsent(schema.getName(), k -> {
+            int[] columns = new int[schema.getElements()];
+            Arrays.fill(columns, -1);
+            for (int i=0; i<schema.getElements(); ++i) {
+                String name = schema.getElementName(i);
+                if (name.matches("s[0-9]+")) {
+                    int j = Integer.parseInt(name.substring(1)) - 1;
+                    if (j>=0 && j<columns.length) columns[j] = i;
+                }
+            }
+            return columns;
+        });
+    }
+
+    private static void getSamples(Bank bank, int[] columns, int row, short[] samples) {
+        for (int j=0; j<samples.length; ++j) {
+            if (j<columns.length && columns[j]>=0)
+                samples[j] = bank.getShort(columns[j], row);
+            else
+                samples[j] = bank.getShort(getSampleName(j), row);
+        }
+    }
+
+    /**
+     * The returned list is reused by the next call on the same thread.
+     */
     private List<Pulse> getPulses(int n, IndexedTable it, DataBank wfBank) {
-        List<Pulse> pulses = null;
-        short[] samples = new short[n];
+        Buffers b = buffers.get();
+        b.pulses.clear();
+        short[] samples = b.getSamples(n);
+        Bank bank = wfBank instanceof HipoDataBank ? ((HipoDataBank)wfBank).getBank() : null;
+        int[] columns = bank == null ? null : getSampleColumns(bank.getSchema());
         for (int i=0; i<wfBank.rows(); ++i) {
-            for (int j=0; j<n; ++j)
-                samples[j] = wfBank.getShort(String.format("s%d",j+1), i);
-            List<Pulse> p = it==null ? extract(null, i, samples) :
-                extract(it.getNamedEntry(getIndices(wfBank,i)), i, samples);
-            if (p!=null && !p.isEmpty()) {
-                if (pulses == null) pulses = new ArrayList<>();
-                pulses.addAll(p);
-            }
+            if (bank != null)
+                getSamples(bank, columns, i, samples);
+            else
+                for (int j=0; j<n; ++j)
+                    samples[j] = wfBank.getShort(getSampleName(j), i);
+            NamedEntry pars = it==null ? null : it.getNamedEntry(getIndices(wfBank,i));
+            extract(pars, i, samples, b.pulses);
         }
-        return pulses;
+        return b.pulses;
     }
 
+    /**
+     * The returned list is reused by the next call on the same thread.
+     */
     private List<Pulse> getPulses(int n, IndexedTable it, Bank wfBank) {
-        List<Pulse> pulses = null;
-        short[] samples = new short[n];
+        Buffers b = buffers.get();
+        b.pulses.clear();
+        short[] samples = b.getSamples(n);
+        int[] columns = getSampleColumns(wfBank.getSchema());
         for (int i=0; i<wfBank.getRows(); ++i) {
-            for (int j=0; j<n; ++j)
-                samples[j] = wfBank.getShort(String.format("s%d",j+1), i);
-                // FIXME:  Can speed this up (but looks like not for DataBank?):
-                //samples[j] = wfBank.getShort(String.format(5+j,j+1), i);
-            List p = it==null ? extract(null, i, samples) :
-                extract(it.getNamedEntry(getIndices(wfBank,i)), i, samples);
-            if (p!=null && !p.isEmpty()) {
-                if (pulses == null) pulses = new ArrayList<>();
-                pulses.addAll(p);
-            }
+            getSamples(wfBank, columns, i, samples);
+            NamedEntry pars = it==null ? null : it.getNamedEntry(getIndices(wfBank,i));
+            extract(pars, i, samples, b.pulses);
         }
-        return pulses;
+        return b.pulses;
     }
 
 }
\ No newline at end of file
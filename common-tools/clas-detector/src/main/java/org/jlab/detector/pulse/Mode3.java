@@ -25,8 +25,19 @@ public class Mode3 extends HipoExtractor {
      */
     @Override
     public List<Pulse> extract(NamedEntry pars, int id, short... samples) {
+        List<Pulse> pulses = new ArrayList<>();
+        extract(pars, id, samples, pulses);
+        return pulses.isEmpty() ? null : pulses;
+    }
 
-        List<Pulse> pulses = null;
+    /**
+     * @param pars CCDB row
+     * @param id link to row in source bank
+     * @param samples ADC samples
+     * @param pulses the list to add the extracted pulses to
+     */
+    @Override
+    protected void extract(NamedEntry pars, int id, short[] samples, List<Pulse> pulses) {
 
         /*
         // Retrive extraction parameters from a CCDB table:
@@ -53,13 +64,11 @@ public class Mode3 extends HipoExtractor {
                 Pulse p = new Pulse(integral, i, 0x0, id);
                 p.pedestal = (float)(ped);
                 // Add the new pulse to the list:
-                if (pulses == null) pulses = new ArrayList<>();
                 pulses.add(p);
                 // Add a holdoff time before next possible pulse:
                 i += nsa;
             }
         }
-        return pulses;
     }
 
 }
@@ -29,11 +29,13 @@ public class Mode7 extends Mode3 {
     }
 
     @Override
-    public List<Pulse> extract(NamedEntry pars, int id, short... samples) {
-        List<Pulse> pulses = super.extract(pars, id, samples);
-        for (Pulse p : pulses)
+    protected void extract(NamedEntry pars, int id, short[] samples, List<Pulse> pulses) {
+        int first = pulses.size();
+        super.extract(pars, id, samples, pulses);
+        for (int i=first; i<pulses.size(); ++i) {
+            Pulse p = pulses.get(i);
             p.time = calculateTime((int)p.time, p.pedestal, samples);
-        return pulses;
+        }
     }
 
 }
@@ -3,20 +3,50 @@ package org.jlab.detector.pulse;
 import java.util.List;
 import java.util.ArrayList;
 
-import net.jcip.annotations.GuardedBy;
 import org.jlab.utils.groups.NamedEntry;
 
 
 /**
  * A new extraction method dedicated to the AHDC signal waveform
- * 
+ *
  * Some blocks of code are inspired by MVTFitter.java
  *
+ * The waveform is corrected, and its maximum, integral and CFD signal are
+ * computed, in a single pass into per-thread buffers; the edges, the
+ * saturation plateau and the CFD zero crossing are then found by short scans
+ * starting from the maximum or from the CFD humps.
+ *
  * @author  ftouchte
  */
 public class ModeAHDC extends HipoExtractor  {
 
 	public static final short ADC_LIMIT = 4095; // 2^12-1
+
+	// Settings parameters (they can be initialised by a CCDB)
+	private static final float samplingTime = 0;
+	private static final int sparseSample = 0;
+	private static final short adcOffset = 0;
+	private static final long timeStamp = 0;
+	private static final float fineTimeStampResolution = 0;
+
+	private static final float amplitudeFractionCFA = 0;
+	private static final int binDelayCFD = 0;
+	private static final float fractionCFD = 0;
+
+	// per-thread buffers for the corrected waveform and the CFD signal
+	private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
+	private static class Buffers {
+		short[] samplesCorr = new short[0];
+		float[] signal = new float[0];
+		void ensureCapacity(int n) {
+			if (samplesCorr.length < n) {
+				samplesCorr = new short[n];
+				signal = new float[n];
+			}
+		}
+	}
+
 	/**
 	 * This method extracts relevant informations from the digitized signal
 	 * (the samples) and store them in a Pulse
@@ -27,226 +57,201 @@ public class ModeAHDC extends HipoExtractor  {
 	 */
 	@Override
 	public List<Pulse> extract(NamedEntry pars, int id, short... samples){
-		// Settings parameters (they can be initialised by a CCDB)
-		float samplingTime = 0;
-		int sparseSample = 0;
-		short adcOffset = 0;
-		long timeStamp = 0;
-		float fineTimeStampResolution = 0;
+		List<Pulse> output = new ArrayList<>();
+		extract(pars, id, samples, output);
+		return output;
+	}
 
-		float amplitudeFractionCFA = 0;
-		int binDelayCFD = 0;
-		float fractionCFD = 0;
+	/**
+	 * @param pars CCDB row
+	 * @param id link to row in source bank
+	 * @param samples ADC samples
+	 * @param pulses the list to add the extracted pulse to
+	 */
+	@Override
+	protected void extract(NamedEntry pars, int id, short[] samples, List<Pulse> pulses) {
+		Buffers b = buffers.get();
+		b.ensureCapacity(samples.length);
+		pulses.add(analyze(samples, 0, samples.length, b));
+	}
 
-		// Calculation intermediaries
-		int binMax = 0; //Bin of the max ADC over the pulse
-		int binOffset = 0; //Offset due to sparse sample
-		float adcMax = 0; //Max value of ADC over the pulse (fitted)
-		float timeMax =0; //Time of the max ADC over the pulse (fitted)
-		float integral = 0; //Sum of ADCs over the pulse (not fitted)
-		long timestamp = 0;
+	/**
+	 * Extract the pulses of a batch of waveforms with the same number of
+	 * samples, stored one after the other in a single array
+	 *
+	 * @param samples ADC samples of all the waveforms
+	 * @param nsamples number of samples per waveform
+	 * @param pulses the list to add the extracted pulses to, one per waveform
+	 */
+	public void extract(short[] samples, int nsamples, List<Pulse> pulses) {
+		Buffers b = buffers.get();
+		b.ensureCapacity(nsamples);
+		for (int offset = 0; offset + nsamples <= samples.length; offset += nsamples) {
+			pulses.add(analyze(samples, offset, nsamples, b));
+		}
+	}
+
+	/**
+	 * Analyze one waveform
+	 *
+	 * @param samples ADC samples
+	 * @param offset index of the first sample of the waveform
+	 * @param binNumber number of bins in the waveform
+	 * @param b buffers, with at least binNumber entries
+	 * @return the pulse
+	 */
+	private static Pulse analyze(short[] samples, int offset, int binNumber, Buffers b) {
 
-		short[] samplesCorr; //Waveform after offset (pedestal) correction
-		int binNumber = 0; //Number of bins in one waveform
+		short[] samplesCorr = b.samplesCorr; //Waveform after offset (pedestal) correction
+		float[] signal = b.signal; //CFD signal
 
-		float timeRiseCFA = 0; // moment when the signal reaches a Constant Fraction of its Amplitude uphill (fitted)
-		float timeFallCFA = 0; // moment when the signal reaches a Constant Fraction of its Amplitude downhill (fitted)
-		float timeOverThresholdCFA = 0; // is equal to (timeFallCFA - timeRiseCFA)
-		float timeCFD =0 ; // time extracted using the Constant Fraction Discriminator (CFD) algorithm (fitted)
 		/// /////////////////////////
-		// Begin waveform correction
+		// Single pass: waveform correction, max, integral and CFD signal
 		/// ////////////////////////
-		//waveformCorrection(samples,adcOffset,samplingTime,sparseSample, binMax, adcMax, integral, samplesCorr[], binOffset, timeMax);
-		/**
-		 * This method subtracts the pedestal (noise) from samples and stores it in : samplesCorr
-		 * It also computes a first value for : adcMax, binMax, timeMax and integral
-		 * This code is inspired by the one of MVTFitter.java
-		 * @param samples ADC samples
-		 * @param adcOffset pedestal or noise level
-		 * @param samplingTime time between two adc bins
-		 * @param sparseSample used to define binOffset
+		/*
+		 * The pedestal (noise) is subtracted from the samples, and a first
+		 * value is computed for adcMax, binMax and integral, as in MVTFitter.java.
+		 * The CFD signal is a fraction of the original signal, superimposed
+		 * to an advanced and inverted complementary fraction of it, and its
+		 * two humps are found on the fly: binHumpInf is the minimum before
+		 * the maximum binHumpSup.
 		 */
-		//private void waveformCorrection(short[] samples, short adcOffset, float samplingTime, int sparseSample, int binMax, int adcMax, int integral, short samplesCorr[], int binOffset, int timeMax){
-			binNumber = samples.length;
-			binMax = 0;
-			adcMax = (short) (samples[0] - adcOffset);
-			integral = 0;
-			samplesCorr = new short[binNumber];
-			for (int bin = 0; bin < binNumber; bin++){
-				samplesCorr[bin] = (short) (samples[bin] - adcOffset);
-				if (adcMax < samplesCorr[bin]){
-					adcMax = samplesCorr[bin];
-					binMax = bin;
-				}
-				integral += samplesCorr[bin];
+		int binMax = 0; //Bin of the max ADC over the pulse
+		float adcMax = (short) (samples[offset] - adcOffset); //Max value of ADC over the pulse (fitted)
+		float integral = 0; //Sum of ADCs over the pulse (not fitted)
+		int binHumpSup = 0;
+		int binHumpInf = 0;
+		int binMinBefore = 0; // minimum of the signal before the current bin
+		for (int bin = 0; bin < binNumber; bin++){
+			short corr = (short) (samples[offset + bin] - adcOffset);
+			samplesCorr[bin] = corr;
+			if (adcMax < corr){
+				adcMax = corr;
+				binMax = bin;
+			}
+			integral += corr;
+
+			float s = (1 - fractionCFD)*corr;
+			if (bin < binNumber - binDelayCFD)
+				s += -1*fractionCFD*(short) (samples[offset + bin + binDelayCFD] - adcOffset);
+			signal[bin] = s;
+			if (s > signal[binHumpSup]) {
+				binHumpSup = bin;
+				binHumpInf = binMinBefore;
 			}
-			/*
-			 * If adcMax + adcOffset == ADC_LIMIT, that means there is saturation
-			 * In that case, binMax is the middle of the first plateau
-			 * This convention can be changed
-			 */
-			if ((short) adcMax + adcOffset == ADC_LIMIT) {
-				int binMax2 = binMax;
-				for (int bin = binMax; bin < binNumber; bin++){
-					if (samplesCorr[bin] + adcOffset == ADC_LIMIT) {
-						binMax2 = bin;
-					}
-					else {
-						break;
-					}
-				}
-				binMax = (binMax + binMax2)/2;
+			if (s < signal[binMinBefore])
+				binMinBefore = bin;
+		}
+		/*
+		 * If adcMax + adcOffset == ADC_LIMIT, that means there is saturation
+		 * In that case, binMax is the middle of the first plateau
+		 * This convention can be changed
+		 */
+		if ((short) adcMax + adcOffset == ADC_LIMIT) {
+			int binMax2 = binMax;
+			for (int bin = binMax; bin < binNumber && samplesCorr[bin] + adcOffset == ADC_LIMIT; bin++){
+				binMax2 = bin;
 			}
-			binOffset = sparseSample*binMax;
-			timeMax = (binMax + binOffset)*samplingTime;
-		//}
+			binMax = (binMax + binMax2)/2;
+		}
+		int binOffset = sparseSample*binMax; //Offset due to sparse sample
+		float timeMax = (binMax + binOffset)*samplingTime; //Time of the max ADC over the pulse (fitted)
 
 		/// /////////////////////////
-		// Begin fit average
+		// Fit average
 		/// ////////////////////////
-
-		//fitAverage(samplingTime);
-		/**
-		 * This method gives a more precise value of the max of the waveform by computing the average of five points around the binMax
-		 * It is an alternative to fitParabolic()
-		 * The suitability of one of these fits can be the subject of a study
-		 * Remark : This method updates adcMax but doesn't change timeMax
-		 * @param samplingTime time between 2 ADC bins
+		/*
+		 * A more precise value of the max of the waveform, the average of five
+		 * points around the binMax; it updates adcMax but doesn't change timeMax
 		 */
-		//private void fitAverage(float samplingTime){
-			if ((binMax - 2 >= 0) && (binMax + 2 <= binNumber - 1)){
-				adcMax = 0;
-				for (int bin = binMax - 2; bin <= binMax + 2; bin++){
-					adcMax += samplesCorr[bin];
-				}
-				adcMax = adcMax/5;
+		if ((binMax - 2 >= 0) && (binMax + 2 <= binNumber - 1)){
+			adcMax = 0;
+			for (int bin = binMax - 2; bin <= binMax + 2; bin++){
+				adcMax += samplesCorr[bin];
 			}
-		//}
+			adcMax = adcMax/5;
+		}
 
 		/// /////////////////////////
-		// Begin computeTimeAtConstantFractionAmplitude
+		// Time at constant fraction amplitude
 		/// ////////////////////////
-		//computeTimeAtConstantFractionAmplitude(samplingTime,amplitudeFractionCFA);
-		/**
-		 * This method determines the moment when the signal reaches a Constant Fraction of its Amplitude (i.e fraction*adcMax)
-		 * It fills the attributs : timeRiseCFA, timeFallCFA, timeOverThresholdCFA
-		 * @param samplingTime time between 2 ADC bins
-		 * @param amplitudeFraction amplitude fraction between 0 and 1
+		/*
+		 * The moments when the signal reaches a Constant Fraction of its
+		 * Amplitude (i.e fraction*adcMax), uphill and downhill
 		 */
-		//private void computeTimeAtConstantFractionAmplitude(float samplingTime, float amplitudeFractionCFA){
-			float threshold = amplitudeFractionCFA*adcMax;
-			// timeRiseCFA
-			int binRise = 0;
-			for (int bin = 0; bin < binMax; bin++){
-				if (samplesCorr[bin] < threshold)
-					binRise = bin;  // last pass below threshold and before adcMax
-			} // at this stage : binRise < timeRiseCFA/samplingTime <= binRise + 1 // timeRiseCFA is determined by assuming a linear fit between binRise and binRise + 1
-			float slopeRise = 0;
-			if (binRise + 1 <= binNumber-1)
-				slopeRise = samplesCorr[binRise+1] - samplesCorr[binRise];
-			float fittedBinRise = (slopeRise == 0) ? binRise : binRise + (threshold - samplesCorr[binRise])/slopeRise;
-			timeRiseCFA = (fittedBinRise + binOffset)*samplingTime; // binOffset is determined in wavefromCorrection() // must be the same for all time ? // or must be defined using fittedBinRise*sparseSample
+		float threshold = amplitudeFractionCFA*adcMax;
+		// timeRiseCFA: last pass below threshold and before adcMax
+		int binRise = 0;
+		for (int bin = binMax - 1; bin > 0; bin--){
+			if (samplesCorr[bin] < threshold) {
+				binRise = bin;
+				break;
+			}
+		} // at this stage : binRise < timeRiseCFA/samplingTime <= binRise + 1 // timeRiseCFA is determined by assuming a linear fit between binRise and binRise + 1
+		float slopeRise = 0;
+		if (binRise + 1 <= binNumber-1)
+			slopeRise = samplesCorr[binRise+1] - samplesCorr[binRise];
+		float fittedBinRise = (slopeRise == 0) ? binRise : binRise + (threshold - samplesCorr[binRise])/slopeRise;
+		float timeRiseCFA = (fittedBinRise + binOffset)*samplingTime; // moment when the signal reaches a Constant Fraction of its Amplitude uphill (fitted)
+
+		// timeFallCFA: first pass below the threshold, after adcMax
+		int binFall = binMax;
+		while (binFall < binNumber - 1 && samplesCorr[binFall] > threshold) {
+			binFall++;
+		} // at this stage : binFall - 1 <= timeRiseCFA/samplingTime < binFall // timeFallCFA is determined by assuming a linear fit between binFall - 1 and binFall
+		float slopeFall = 0;
+		if (binFall - 1 >= 0)
+			slopeFall = samplesCorr[binFall] - samplesCorr[binFall-1];
+		float fittedBinFall = (slopeFall == 0) ? binFall : binFall-1 + (threshold - samplesCorr[binFall-1])/slopeFall;
+		float timeFallCFA = (fittedBinFall + binOffset)*samplingTime; // moment when the signal reaches a Constant Fraction of its Amplitude downhill (fitted)
 
-			// timeFallCFA
-			int binFall = binMax;
-			for (int bin = binMax; bin < binNumber; bin++){
-				if (samplesCorr[bin] > threshold){
-					binFall = bin;
-				}
-				else {
-					binFall = bin;
-					break; // first pass below the threshold
-				}
-			} // at this stage : binFall - 1 <= timeRiseCFA/samplingTime < binFall // timeFallCFA is determined by assuming a linear fit between binFall - 1 and binFall
-			float slopeFall = 0;
-			if (binFall - 1 >= 0)
-				slopeFall = samplesCorr[binFall] - samplesCorr[binFall-1];
-			float fittedBinFall = (slopeFall == 0) ? binFall : binFall-1 + (threshold - samplesCorr[binFall-1])/slopeFall;
-			timeFallCFA = (fittedBinFall + binOffset)*samplingTime;
+		float timeOverThresholdCFA = timeFallCFA - timeRiseCFA;
 
-			// timeOverThreshold
-			timeOverThresholdCFA = timeFallCFA - timeRiseCFA;
-		//}
 		/// /////////////////////////
-		// Begin computeTimeUsingConstantFractionDiscriminator
+		// Time using constant fraction discriminator
 		/// ////////////////////////
-		//computeTimeUsingConstantFractionDiscriminator(samplingTime,fractionCFD,binDelayCFD);
-		/**
-		 * This methods extracts a time using the Constant Fraction Discriminator (CFD) algorithm
-		 * It fills the attribut : timeCFD
-		 * @param samplingTime time between 2 ADC bins
-		 * @param fractionCFD CFD fraction parameter between 0 and 1
-		 * @param binDelayCFD CFD delay parameter
-		 */
-		//private void computeTimeUsingConstantFractionDiscriminator(float samplingTime, float fractionCFD, int binDelayCFD){
-			float[] signal = new float[binNumber];
-			// signal generation
-			for (int bin = 0; bin < binNumber; bin++){
-				signal[bin] = (1 - fractionCFD)*samplesCorr[bin]; // we fill it with a fraction of the original signal
-				if (bin < binNumber - binDelayCFD)
-					signal[bin] += -1*fractionCFD*samplesCorr[bin + binDelayCFD]; // we advance and invert a complementary fraction of the original signal and superimpose it to the previous signal
+		// research for zero: last pass below zero between the two humps
+		int binZero = 0;
+		for (int bin = binHumpSup; bin >= binHumpInf; bin--){
+			if (signal[bin] < 0) {
+				binZero = bin;
+				break;
 			}
-			// determine the two humps
-			int binHumpSup = 0;
-			int binHumpInf = 0;
-			for (int bin = 0; bin < binNumber; bin++){
-				if (signal[bin] > signal[binHumpSup])
-					binHumpSup = bin;
-			}
-			for (int bin = 0; bin < binHumpSup; bin++){ // this loop has been added to be sure : binHumpInf < binHumpSup
-				if (signal[bin] < signal[binHumpInf])
-					binHumpInf = bin;
-			}
-			// research for zero
-			int binZero = 0;
-			for (int bin = binHumpInf; bin <= binHumpSup; bin++){
-				if (signal[bin] < 0)
-					binZero = bin; // last pass below zero
-			} // at this stage : binZero < timeCFD/samplingTime <= binZero + 1 // timeCFD is determined by assuming a linear fit between binZero and binZero + 1
-			float slopeCFD = 0;
-			if (binZero + 1 <= binNumber)
-				slopeCFD = signal[binZero+1] - signal[binZero];
-			float fittedBinZero = (slopeCFD == 0) ? binZero : binZero + (0 - signal[binZero])/slopeCFD;
-			timeCFD = (fittedBinZero + binOffset)*samplingTime;
-
-		//}
+		} // at this stage : binZero < timeCFD/samplingTime <= binZero + 1 // timeCFD is determined by assuming a linear fit between binZero and binZero + 1
+		float slopeCFD = 0;
+		if (binZero + 1 <= binNumber - 1)
+			slopeCFD = signal[binZero+1] - signal[binZero];
+		float fittedBinZero = (slopeCFD == 0) ? binZero : binZero + (0 - signal[binZero])/slopeCFD;
+		float timeCFD = (fittedBinZero + binOffset)*samplingTime;
 
 		/// /////////////////////////
-		// Begin fineTimeStampCorrection
+		// Fine timestamp correction
 		/// ////////////////////////
-		//fineTimeStampCorrection(timeStamp,fineTimeStampResolution);
-		/**
+		/*
 		 * From MVTFitter.java
-		 * Make fine timestamp correction (using dream (=electronic chip) clock)
-		 * @param timeStamp timing informations (used to make fine corrections)
-		 * @param fineTimeStampResolution precision of dream clock (usually 8)
+		 * Make fine timestamp correction (using dream (=electronic chip) clock),
+		 * from the last 3 bits of the timestamp
 		 */
-		//private void fineTimeStampCorrection (long timeStamp, float fineTimeStampResolution) {
-			//this.timestamp = timeStamp;
-			String binaryTimeStamp = Long.toBinaryString(timeStamp); //get 64 bit timestamp in binary format
-			if (binaryTimeStamp.length()>=3){
-				byte fineTimeStamp = Byte.parseByte(binaryTimeStamp.substring(binaryTimeStamp.length()-3,binaryTimeStamp.length()),2); //fineTimeStamp : keep and convert last 3 bits of binary timestamp
-				timeMax += (float) ((fineTimeStamp+0.5) * fineTimeStampResolution); //fineTimeStampCorrection
-				// Question : I wonder if I have to do the same thing of all time quantities that the extract() methods compute.
-			}
-		//}
+		if (timeStamp < 0 || timeStamp >= 4){
+			byte fineTimeStamp = (byte) (timeStamp & 0x7);
+			timeMax += (float) ((fineTimeStamp+0.5) * fineTimeStampResolution); //fineTimeStampCorrection
+			// Question : I wonder if I have to do the same thing of all time quantities that the extract() methods compute.
+		}
+
 		// output
 		Pulse pulse = new Pulse();
 		pulse.adcMax = adcMax;
 		pulse.time = timeMax;
-		pulse.timestamp = timestamp;
+		pulse.timestamp = 0;
 		pulse.integral = integral;
 		pulse.timeRiseCFA = timeRiseCFA;
 		pulse.timeFallCFA = timeFallCFA;
 		pulse.timeOverThresholdCFA = timeOverThresholdCFA;
 		pulse.timeCFD = timeCFD;
-		//pulse.binMax = binMax;
-		//pulse.binOffset = binOffset;
 		pulse.pedestal = adcOffset;
-		List<Pulse> output = new ArrayList<>();
-		output.add(pulse);
-		return output;
+		return pulse;
 	}
+
 	/**
 	 * Fit the max of the pulse using parabolic fit, this method updates the timeMax and adcMax values
 	 * @param samplingTime time between 2 ADC bins
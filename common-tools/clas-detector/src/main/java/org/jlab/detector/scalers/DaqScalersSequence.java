@@ -234,6 +234,24 @@ public class DaqScalersSequence implements Comparator<DaqScalers> {
         return seq;
     }
    
+    /**
+     * Initializes a sequence from already decoded scaler readouts, e.g. from
+     * an index of tag=1 events, the same as {@link #readSequence(List)} would
+     * from the events the readouts came from.
+     * 
+     * @param schema schema with the RUN::config bank
+     * @param readouts scaler readouts, in file order
+     * @return sequence
+     */
+    public static DaqScalersSequence create(SchemaFactory schema, List<DaqScalers> readouts) {
+        DaqScalersSequence seq=new DaqScalersSequence();
+        seq.rcfgBank = new Bank(schema.getSchema("RUN::config"));
+        for (DaqScalers ds : readouts) {
+            seq.add(ds);
+        }
+        return seq;
+    }
+
     /**
      * 
      * @param tags
@@ -0,0 +1,57 @@
+package org.jlab.detector.base;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ChannelClustererTest {
+
+    // 10 channels in a row, each adjacent to the previous and next one
+    private static ChannelClusterer createClusterer() {
+        int[][] neighbours = new int[10][];
+        for (int c = 0; c < 10; c++) {
+            if (c == 0)      neighbours[c] = new int[]{1};
+            else if (c == 9) neighbours[c] = new int[]{8};
+            else             neighbours[c] = new int[]{c-1, c+1};
+        }
+        return new ChannelClusterer(neighbours);
+    }
+
+    @Test
+    public void testSeeds() {
+        ChannelClusterer clusterer = createClusterer();
+        clusterer.setHits(5, new int[]{0, 2, 4, 6, 8});
+        clusterer.setSeedWeights(new double[]{1, 5, 3, 5, 0.5});
+        assertEquals(1, clusterer.nextSeed(1));
+        assertEquals(3, clusterer.nextSeed(1));
+        clusterer.remove(2);
+        assertEquals(0, clusterer.nextSeed(1));
+        assertEquals(-1, clusterer.nextSeed(1));
+        assertTrue(clusterer.isAvailable(4));
+        assertEquals(4, clusterer.nextSeed(0));
+        assertFalse(clusterer.isAvailable(4));
+    }
+
+    @Test
+    public void testNeighbours() {
+        ChannelClusterer clusterer = createClusterer();
+        clusterer.setHits(6, new int[]{5, 4, 6, 6, 9, -1});
+        assertEquals(3, clusterer.neighbours(0));
+        assertEquals(1, clusterer.getNeighbour(0));
+        assertEquals(2, clusterer.getNeighbour(1));
+        assertEquals(3, clusterer.getNeighbour(2));
+        assertEquals(0, clusterer.neighbours(4));
+        assertEquals(0, clusterer.neighbours(5));
+
+        clusterer.remove(2);
+        assertEquals(2, clusterer.neighbours(0));
+        assertEquals(1, clusterer.removedNeighbours(0));
+        assertEquals(2, clusterer.getNeighbour(0));
+
+        // the channels of the previous event are forgotten
+        clusterer.setHits(2, new int[]{0, 9});
+        assertEquals(0, clusterer.neighbours(0));
+        clusterer.setHits(70, new int[70]);
+        assertEquals(0, clusterer.neighbours(69));
+        assertTrue(clusterer.isAvailable(69));
+    }
+}
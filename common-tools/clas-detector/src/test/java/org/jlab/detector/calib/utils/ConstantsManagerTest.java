@@ -0,0 +1,181 @@
+package org.jlab.detector.calib.utils;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jlab.utils.groups.IndexedTable;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class ConstantsManagerTest {
+
+    private static final String TIMESTAMP = "01/02/2024-03:04:05";
+
+    // table with sector/layer/component indices and one double and one int column
+    private static TableSnapshot createTable(String table, int run) {
+        TableSnapshot snapshot = new TableSnapshot(3,
+                new String[]{"sector", "layer", "component", "value", "status"},
+                new boolean[]{false, false, false, true, false});
+        for (int sector = 1; sector <= 6; sector++) {
+            double value = run + table.length() + sector/8.0;
+            snapshot.addRow(new String[]{""+sector, "1", "0", ""+value, ""+sector%2});
+        }
+        return snapshot;
+    }
+
+    /**
+     * Constants manager reading the tables from memory instead of the database
+     */
+    private static class TestManager extends ConstantsManager {
+        final AtomicInteger nReaders = new AtomicInteger();
+        final AtomicInteger nClosed  = new AtomicInteger();
+        final AtomicInteger nReads   = new AtomicInteger();
+        CountDownLatch concurrent;
+        @Override
+        TableSnapshot.Reader openReader(int run) {
+            nReaders.incrementAndGet();
+            return new TableSnapshot.Reader() {
+                boolean first = true;
+                @Override
+                public TableSnapshot read(String table, int nindex) {
+                    if (first && concurrent != null) {
+                        // wait for the other connections to be reading too
+                        concurrent.countDown();
+                        try {
+                            assertTrue(concurrent.await(10, TimeUnit.SECONDS));
+                        } catch (InterruptedException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                    first = false;
+                    nReads.incrementAndGet();
+                    return createTable(table, run);
+                }
+                @Override
+                public void close() {
+                    nClosed.incrementAndGet();
+                }
+            };
+        }
+        @Override
+        RCDBConstants readRcdbConstants(int run) {
+            return new RCDBConstants();
+        }
+    }
+
+    private static List<String> createTableNames(int n) {
+        List<String> tables = new ArrayList<>();
+        for (int i = 0; i < n; i++) tables.add("/test/table" + i);
+        return tables;
+    }
+
+    private static void checkTables(ConstantsManager manager, int run, List<String> tables) {
+        for (String table : tables) {
+            IndexedTable t = manager.getConstants(run, table);
+            assertNotNull(t);
+            IndexedTable expected = createTable(table, run).toIndexedTable();
+            for (int sector = 1; sector <= 6; sector++) {
+                assertEquals(expected.getDoubleValue("value", sector, 1, 0), t.getDoubleValue("value", sector, 1, 0), 0);
+                assertEquals(expected.getIntValue("status", sector, 1, 0), t.getIntValue("status", sector, 1, 0));
+            }
+        }
+    }
+
+    private static File createDirectory() throws IOException {
+        File directory = Files.createTempDirectory("snapshot").toFile();
+        directory.deleteOnExit();
+        return directory;
+    }
+
+    private static int countFiles(File directory) {
+        int n = 0;
+        File[] files = directory.listFiles();
+        if (files == null) return 0;
+        for (File file : files) {
+            n += file.isDirectory() ? countFiles(file) : 1;
+        }
+        return n;
+    }
+
+    @Test
+    public void testConcurrentLoad() {
+        List<String> tables = createTableNames(10);
+        TestManager manager = new TestManager();
+        manager.setSnapshotDirectory(null);
+        manager.setLoadThreads(4);
+        manager.concurrent = new CountDownLatch(4);
+        manager.init(tables);
+        checkTables(manager, 11, tables);
+        assertEquals(4, manager.nReaders.get());
+        assertEquals(4, manager.nClosed.get());
+        assertEquals(10, manager.nReads.get());
+        assertEquals(0, manager.getRequestStatus());
+    }
+
+    @Test
+    public void testSnapshot() throws IOException {
+        File directory = createDirectory();
+        List<String> tables = createTableNames(3);
+
+        TestManager manager = new TestManager();
+        manager.setSnapshotDirectory(directory.getPath());
+        manager.setTimeStamp(TIMESTAMP);
+        manager.init(tables);
+        checkTables(manager, 11, tables);
+        assertEquals(3, manager.nReads.get());
+        assertEquals(3, countFiles(directory));
+
+        // the same tables are read back from the snapshot
+        TestManager snapshot = new TestManager();
+        snapshot.setSnapshotDirectory(directory.getPath());
+        snapshot.setTimeStamp(TIMESTAMP);
+        snapshot.init(tables);
+        checkTables(snapshot, 11, tables);
+        assertEquals(0, snapshot.nReads.get());
+        assertEquals(0, snapshot.nReaders.get());
+
+        // but not for another run or timestamp
+        checkTables(snapshot, 12, tables);
+        assertEquals(3, snapshot.nReads.get());
+        TestManager other = new TestManager();
+        other.setSnapshotDirectory(directory.getPath());
+        other.setTimeStamp("01/02/2024-03:04:06");
+        other.init(tables);
+        checkTables(other, 11, tables);
+        assertEquals(3, other.nReads.get());
+    }
+
+    @Test
+    public void testNoSnapshotOfLatest() throws IOException {
+        File directory = createDirectory();
+        List<String> tables = createTableNames(2);
+        for (int i = 0; i < 2; i++) {
+            TestManager manager = new TestManager();
+            manager.setSnapshotDirectory(directory.getPath());
+            manager.init(tables);
+            checkTables(manager, 11, tables);
+            assertEquals(2, manager.nReads.get());
+        }
+        assertEquals(0, countFiles(directory));
+    }
+
+    @Test
+    public void testSnapshotFile() throws IOException {
+        File directory = createDirectory();
+        File file = TableSnapshot.getFile(directory.getPath(), "sqlite:///a/b", "default", TIMESTAMP, 11, "/test/table", 3);
+        assertNull(TableSnapshot.read(file));
+        TableSnapshot table = createTable("/test/table", 11);
+        table.write(file);
+        assertEquals(table.toIndexedTable().toString(), TableSnapshot.read(file).toIndexedTable().toString());
+
+        // keyed by connection, and never for the latest constants
+        assertNotEquals(file, TableSnapshot.getFile(directory.getPath(), "sqlite:///a_b", "default", TIMESTAMP, 11, "/test/table", 3));
+        assertNull(TableSnapshot.read(TableSnapshot.getFile(directory.getPath(), "sqlite:///a_b", "default", TIMESTAMP, 11, "/test/table", 3)));
+        assertNull(TableSnapshot.getFile(directory.getPath(), "sqlite:///a/b", "default", "", 11, "/test/table", 3));
+    }
+}
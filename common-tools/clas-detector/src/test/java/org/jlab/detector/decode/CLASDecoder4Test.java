@@ -0,0 +1,117 @@
+package org.jlab.detector.decode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class CLASDecoder4Test {
+
+    /**
+     * Tasks returning a value that depends on the state carried from task to
+     * task, as the event properties handed from the reader to the decoders,
+     * and taking a random time to run.
+     */
+    private static class Tasks implements Iterator<Callable<Long>> {
+        private final int ntasks;
+        private final int failAt;
+        private final Random random = new Random(7);
+        private long state = 1;
+        private int n;
+        Tasks(int ntasks, int failAt) {
+            this.ntasks = ntasks;
+            this.failAt = failAt;
+        }
+        @Override
+        public boolean hasNext() {
+            return ntasks<0 || n<ntasks;
+        }
+        @Override
+        public Callable<Long> next() {
+            if (n == failAt) throw new Error("read error");
+            final long value = state;
+            final int sleep = random.nextInt(3);
+            state = state*31 + n++;
+            return () -> {
+                if (sleep > 0) Thread.sleep(sleep);
+                return value;
+            };
+        }
+    }
+
+    private static List<Long> runSerial(int ntasks) throws Exception {
+        List<Long> output = new ArrayList<>();
+        for (Tasks tasks = new Tasks(ntasks, -1); tasks.hasNext(); ) {
+            output.add(tasks.next().call());
+        }
+        return output;
+    }
+
+    @Test(timeout = 60000)
+    public void testOrder() throws Exception {
+        List<Long> serial = runSerial(500);
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            List<Long> output = new ArrayList<>();
+            CLASDecoder4.runInOrder(new Tasks(500, -1), threads, output::add);
+            assertEquals(serial, output);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testReaderError() throws InterruptedException {
+        List<Long> output = new ArrayList<>();
+        try {
+            CLASDecoder4.runInOrder(new Tasks(500, 100), 4, output::add);
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof Error);
+        }
+        assertEquals(100, output.size());
+    }
+
+    @Test(timeout = 60000)
+    public void testTaskError() throws Exception {
+        Iterator<Callable<Long>> tasks = new Tasks(500, -1) {
+            private int n;
+            @Override
+            public Callable<Long> next() {
+                Callable<Long> task = super.next();
+                if (n++ == 50) {
+                    return () -> { throw new IllegalStateException("decode error"); };
+                }
+                return task;
+            }
+        };
+        List<Long> serial = runSerial(50);
+        List<Long> output = new ArrayList<>();
+        try {
+            CLASDecoder4.runInOrder(tasks, 4, output::add);
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+            assertEquals(serial, output);
+        }
+    }
+
+    @Test(timeout = 60000)
+    public void testOutputError() throws Exception {
+        // the reader of an endless input stops with the output
+        AtomicInteger nwritten = new AtomicInteger();
+        try {
+            CLASDecoder4.runInOrder(new Tasks(-1, -1), 4, value -> {
+                if (nwritten.incrementAndGet() == 200) throw new IllegalStateException("write error");
+            });
+            fail();
+        }
+        catch (IllegalStateException e) {
+            assertEquals(200, nwritten.get());
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package org.jlab.detector.helicity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HelicitySequenceTest {
+
+    private static final int N_STATES = 40;
+    private static final long T0 = 1000000;
+    private static final long STEP = (long) (HelicitySequence.TIMESTAMP_CLOCK/29.56);
+
+    // states of a quartet sequence, one per window, with a missing window
+    // before state gapAt if not negative
+    private static List<HelicityState> createStates(int gapAt) {
+        Random random = new Random(11);
+        List<HelicityState> states = new ArrayList<>();
+        HelicityBit first = HelicityBit.PLUS;
+        for (int i = 0; i < N_STATES; i++) {
+            if (i%4 == 0) first = random.nextBoolean() ? HelicityBit.PLUS : HelicityBit.MINUS;
+            HelicityState state = new HelicityState(
+                    HelicitySequence.getBitInQuartet(first, i%4),
+                    i%2 == 0 ? HelicityBit.MINUS : HelicityBit.PLUS,
+                    i%4 == 0 ? HelicityBit.MINUS : HelicityBit.PLUS);
+            state.setRun(11);
+            state.setTimestamp(T0 + STEP*i + (gapAt >= 0 && i >= gapAt ? STEP : 0));
+            states.add(state);
+        }
+        return states;
+    }
+
+    private static HelicitySequence createSequence(List<HelicityState> states) {
+        List<HelicityState> shuffled = new ArrayList<>(states);
+        Collections.shuffle(shuffled, new Random(3));
+        HelicitySequence sequence = new HelicitySequence();
+        for (HelicityState state : shuffled) {
+            assertTrue(sequence.addState(state));
+        }
+        return sequence;
+    }
+
+    @Test
+    public void testOrder() {
+        List<HelicityState> states = createStates(-1);
+        HelicitySequence sequence = createSequence(states);
+
+        // duplicate timestamps, undefined bits and other runs are ignored
+        HelicityState duplicate = new HelicityState(HelicityBit.PLUS, HelicityBit.PLUS, HelicityBit.PLUS);
+        duplicate.setRun(11);
+        duplicate.setTimestamp(states.get(7).getTimestamp());
+        assertFalse(sequence.addState(duplicate));
+        assertFalse(sequence.addState(new HelicityState()));
+        HelicityState other = new HelicityState(HelicityBit.PLUS, HelicityBit.PLUS, HelicityBit.PLUS);
+        other.setRun(12);
+        assertFalse(sequence.addState(other));
+
+        assertEquals(N_STATES, sequence.size());
+        for (int i = 0; i < N_STATES; i++) {
+            assertEquals(states.get(i).getTimestamp(), sequence.getTimestamp(i));
+        }
+        assertEquals(states, sequence.getStates());
+
+        // the first state is dropped by the analysis, the search covers the
+        // measured range from the second one
+        assertTrue(sequence.integrityCheck());
+        assertEquals(HelicityBit.UDF, sequence.search(states.get(0).getTimestamp()));
+        for (int i = 1; i < N_STATES; i++) {
+            assertEquals(states.get(i).getHelicity(), sequence.search(states.get(i).getTimestamp()));
+            if (i < N_STATES-1) {
+                assertEquals(states.get(i).getHelicity(), sequence.search(states.get(i).getTimestamp()+STEP/2));
+            }
+        }
+        assertEquals(HelicityBit.UDF, sequence.search(states.get(N_STATES-1).getTimestamp()+1));
+        assertEquals(N_STATES-1, sequence.size());
+
+        // the dropped state can be added back, out of order, and is dropped
+        // again when the sequence is reanalyzed
+        assertTrue(sequence.addState(states.get(0)));
+        assertEquals(states.get(0).getTimestamp(), sequence.getTimestamp(0));
+        assertEquals(states.get(1).getHelicity(), sequence.search(states.get(1).getTimestamp()));
+        assertEquals(HelicityBit.UDF, sequence.search(states.get(0).getTimestamp()));
+        assertEquals(N_STATES-1, sequence.size());
+    }
+
+    @Test
+    public void testIntegrityCheck() {
+        final int gapAt = 20;
+        List<HelicityState> states = createStates(gapAt);
+        HelicitySequence sequence = createSequence(states);
+
+        // checking does not flag the states
+        assertFalse(sequence.integrityCheck());
+        for (HelicityState state : states) {
+            assertEquals(0, state.getSwStatus());
+        }
+
+        // the analysis does
+        assertEquals(states.get(gapAt).getHelicity(), sequence.search(states.get(gapAt).getTimestamp()));
+        for (int i = 0; i < N_STATES; i++) {
+            assertEquals(i == gapAt ? HelicityState.Mask.BIGGAP : 0, states.get(i).getSwStatus());
+            if (i > 0) {
+                assertEquals(states.get(i).getSwStatus(), sequence.getSwStatus(i-1));
+            }
+        }
+
+        // and checking again leaves them unchanged
+        assertFalse(sequence.integrityCheck());
+        for (int i = 0; i < N_STATES; i++) {
+            assertEquals(i == gapAt ? HelicityState.Mask.BIGGAP : 0, states.get(i).getSwStatus());
+        }
+    }
+}
@@ -123,8 +123,10 @@ public class EvioSource implements DataSource {
 	}
 
 	public void close() {
-		// TODO Auto-generated method stub
-
+		if (evioReader != null) {
+			evioReader.close();
+			evioReader = null;
+		}
 	}
 
 	public int getSize() {
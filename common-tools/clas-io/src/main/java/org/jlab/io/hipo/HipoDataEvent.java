@@ -5,12 +5,16 @@
  */
 package org.jlab.io.hipo;
 
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataDictionary;
 import org.jlab.io.base.DataEvent;
@@ -26,8 +30,17 @@ import org.jlab.jnp.hipo4.data.Schema;
  */
 public class HipoDataEvent implements DataEvent {
     
+    private static final int EVENT_HEADER_SIZE = 16;
+    private static final int NODE_HEADER_SIZE  = 8;
+    
+    // (group,item) -> bank name indices of the dictionaries in use, shared by
+    // all events and only ever replaced as a whole, so that lookups take no lock:
+    private static volatile SchemaIndex[] schemaIndices = new SchemaIndex[0];
+    private static final int MAX_SCHEMA_INDICES = 16;
+    
     private Event hipoEvent = null;
     private SchemaFactory schemaFactory = null;
+    private SchemaIndex schemaIndex = null;
     
     private DataEventType eventType = DataEventType.EVENT_ACCUMULATE;
     
@@ -53,21 +66,159 @@ public class HipoDataEvent implements DataEvent {
         throw new UnsupportedOperationException("Not supported yet."); //To change body of generated methods, choose Tools | Templates.
     }
     
+    /**
+     * Packs a bank's group and item into a single key, as used by
+     * {@link #retainBanks(Set)}.
+     * @param group schema group
+     * @param item schema item
+     * @return the packed key
+     */
+    public static int schemaKey(int group, int item) {
+        return (group<<8) | (item&0xFF);
+    }
+    
+    public static int schemaKey(Schema schema) {
+        return schemaKey(schema.getGroup(), schema.getItem());
+    }
+    
+    /**
+     * Immutable (group,item) to bank name index of a dictionary.  The keys
+     * found in events but not in the dictionary are remembered, so that the
+     * index is rebuilt only when a new unknown key appears and the number of
+     * schemas in the dictionary has changed.
+     */
+    private static final class SchemaIndex {
+        
+        final WeakReference<SchemaFactory> factory;
+        final int nschemas;
+        final Map<Integer,String> names;
+        final Set<Integer> unknown;
+        
+        private SchemaIndex(WeakReference<SchemaFactory> factory, int nschemas, Map<Integer,String> names, Set<Integer> unknown) {
+            this.factory  = factory;
+            this.nschemas = nschemas;
+            this.names    = names;
+            this.unknown  = unknown;
+        }
+        
+        static SchemaIndex build(SchemaFactory factory, Set<Integer> unknown) {
+            List<Schema> schemas = factory.getSchemaList();
+            Map<Integer,String> names = new HashMap<>();
+            for(Schema schema : schemas) {
+                names.put(schemaKey(schema), schema.getName());
+            }
+            Set<Integer> stillUnknown = new HashSet<>(unknown);
+            stillUnknown.removeAll(names.keySet());
+            return new SchemaIndex(new WeakReference<>(factory), schemas.size(), names, stillUnknown);
+        }
+        
+        SchemaIndex withUnknown(int key) {
+            Set<Integer> moreUnknown = new HashSet<>(unknown);
+            moreUnknown.add(key);
+            return new SchemaIndex(factory, nschemas, names, moreUnknown);
+        }
+    }
+    
+    /**
+     * Replace the shared index of a dictionary, dropping those of the
+     * dictionaries no longer in use.
+     * @param factory the dictionary
+     * @param index its new index, or null to forget the current one
+     */
+    private static synchronized void publishSchemaIndex(SchemaFactory factory, SchemaIndex index) {
+        List<SchemaIndex> indices = new ArrayList<>();
+        if(index!=null) indices.add(index);
+        for(SchemaIndex other : schemaIndices) {
+            SchemaFactory f = other.factory.get();
+            if(f!=null && f!=factory && indices.size()<MAX_SCHEMA_INDICES) indices.add(other);
+        }
+        schemaIndices = indices.toArray(new SchemaIndex[indices.size()]);
+    }
+    
+    /**
+     * @return the (group,item) to bank name index of this event's dictionary
+     */
+    private SchemaIndex getSchemaIndex() {
+        if(schemaIndex==null) {
+            for(SchemaIndex index : schemaIndices) {
+                if(index.factory.get()==schemaFactory) {
+                    schemaIndex = index;
+                    return index;
+                }
+            }
+            schemaIndex = SchemaIndex.build(schemaFactory, Collections.emptySet());
+            publishSchemaIndex(schemaFactory, schemaIndex);
+        }
+        return schemaIndex;
+    }
+    
+    /**
+     * @param key packed (group,item) of a node found in the event
+     * @return the bank name for the node, or null if it is not in the dictionary
+     */
+    private String getSchemaName(int key) {
+        SchemaIndex index = getSchemaIndex();
+        String name = index.names.get(key);
+        if(name==null && !index.unknown.contains(key)) {
+            // a new unknown key, maybe of a schema added to the dictionary since:
+            if(schemaFactory.getSchemaList().size()!=index.nschemas) {
+                index = SchemaIndex.build(schemaFactory, index.unknown);
+                name = index.names.get(key);
+            }
+            if(name==null) index = index.withUnknown(key);
+            schemaIndex = index;
+            publishSchemaIndex(schemaFactory, index);
+        }
+        if(name!=null && !schemaFactory.hasSchema(name)) return null;
+        return name;
+    }
+    
+    /**
+     * Walks the event's node index once, so the cost is proportional to the
+     * number of banks present rather than the size of the dictionary.
+     * @return names of the banks present in the event, in event order
+     */
     @Override
     public String[] getBankList() {
-        List<Schema> schemaList = schemaFactory.getSchemaList();
-        List<String> existingBanks = new ArrayList<String>();
-        for(Schema schema : schemaList){
-            int group = schema.getGroup();
-            int item  = schema.getItem();
-            if(hipoEvent.scan(group, item)>0){
-                existingBanks.add(schema.getName());
+        ByteBuffer buffer = hipoEvent.getEventBuffer();
+        int size = buffer.getInt(4);
+        List<String> existingBanks = new ArrayList<>();
+        int position = EVENT_HEADER_SIZE;
+        while(position+NODE_HEADER_SIZE<=size) {
+            int group  = buffer.getShort(position)&0xFFFF;
+            int item   = buffer.get(position+2)&0xFF;
+            int length = buffer.getInt(position+4)&0x00FFFFFF;
+            String name = getSchemaName(schemaKey(group,item));
+            if(name!=null && !existingBanks.contains(name)) existingBanks.add(name);
+            position += NODE_HEADER_SIZE + length;
+        }
+        return existingBanks.toArray(new String[existingBanks.size()]);
+    }
+    
+    /**
+     * Removes, in a single in-place pass over the event buffer, all banks
+     * known to the dictionary whose key is not in the given set.  Nodes that
+     * are not in the dictionary are always kept.
+     * @param keys packed (group,item) keys of the banks to keep, see {@link #schemaKey}
+     */
+    public void retainBanks(Set<Integer> keys) {
+        ByteBuffer buffer = hipoEvent.getEventBuffer();
+        byte[] array = buffer.array();
+        int size = buffer.getInt(4);
+        int read = EVENT_HEADER_SIZE;
+        int write = EVENT_HEADER_SIZE;
+        while(read+NODE_HEADER_SIZE<=size) {
+            int group  = buffer.getShort(read)&0xFFFF;
+            int item   = buffer.get(read+2)&0xFF;
+            int length = NODE_HEADER_SIZE + (buffer.getInt(read+4)&0x00FFFFFF);
+            int key    = schemaKey(group,item);
+            if(keys.contains(key) || getSchemaName(key)==null) {
+                if(write!=read) System.arraycopy(array, read, array, write, length);
+                write += length;
             }
+            read += length;
         }
-        
-        String[] list = new String[existingBanks.size()];
-        for(int i = 0; i < list.length; i++) list[i] = existingBanks.get(i);
-        return list;
+        if(write!=read) buffer.putInt(4, write);
     }
 
     public String[] getColumnList(String bank_name) {
@@ -81,6 +232,9 @@ public class HipoDataEvent implements DataEvent {
     
     public void addSchema(Schema schema){
         schemaFactory.addSchema(schema);
+        // the dictionary changed, its index is rebuilt on the next lookup:
+        publishSchemaIndex(schemaFactory, null);
+        schemaIndex = null;
     }
     
     public void addSchemaList(List<Schema> schemaList){
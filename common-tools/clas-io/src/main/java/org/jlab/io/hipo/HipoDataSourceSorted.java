@@ -1,30 +1,49 @@
 package org.jlab.io.hipo;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.TreeMap;
 import java.util.logging.Logger;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
+import org.jlab.io.base.DataEventType;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
 
 /**
  * A wrapper on HipoDataSource to read one file sorted by CODA event number.
  *
+ * The ordering is built from the RUN::config bank alone, and the sorted events
+ * are read ahead in file order, so that each record is read once as long as
+ * the events are only slightly out of order, as they are in decoded files.
+ *
  * WARNING:  This is strictly for reading sorted events sequentially.  Methods
  * other than the overridden "open", "hasEvent", "getNextEvent", and "reset"
  * may not work as intended.
- * 
+ *
  * FIXME:  Events with no HEAD bank or negative event number are unreachable.
- * 
+ *
  * @author baltzell
  */
 public class HipoDataSourceSorted extends HipoDataSource {
-    
-    // Ordered map of CODA event number to EVIO event index:
-    private final TreeMap<Integer,Integer> map = new TreeMap<>();
 
-    // Ordered list of CODA event numbers (just for TreeMap lookup
-    // by key index without creating a new object every time): 
-    private final ArrayList<Integer> list = new ArrayList<>();
+    // Maximum distance in the file to read ahead for the next sorted event,
+    // and maximum number of events kept from the read-ahead:
+    private static final int READ_AHEAD = 4096;
+
+    // Ascending CODA event numbers, and the corresponding EVIO event indices:
+    private int[] codaNumbers = new int[0];
+    private int[] evioIndices = new int[0];
+
+    // Position in the sorted order of each EVIO event index, -1 if unsorted:
+    private int[] sortedIndices = new int[0];
+
+    // Events read ahead, by position in the sorted order:
+    private final Map<Integer,Event> readAhead = new HashMap<>();
+
+    // Next EVIO event index to read ahead:
+    private int nextRead = 0;
 
     // Current event index during sorted reading:
     private int index = 0;
@@ -34,45 +53,69 @@ public class HipoDataSourceSorted extends HipoDataSource {
     }
 
     public TreeMap<Integer, Integer> getMapping() {
-        return new TreeMap<>(this.map);
+        TreeMap<Integer,Integer> map = new TreeMap<>();
+        for (int i=0; i<this.codaNumbers.length; i++)
+            map.put(this.codaNumbers[i], this.evioIndices[i]);
+        return map;
     }
 
     /**
      * Read the file once and initialize the event ordering
-     * @param filename 
+     * @param filename
      */
     private void load(String filename, int maxEvents) {
         Logger.getLogger(this.getClass().getName()).info("Loading event ordering ...");
-        this.map.clear();
-        this.list.clear();
         super.open(filename);
-        while (super.hasEvent()) {
-            if (maxEvents>0 && this.map.keySet().size()>maxEvents) break;
-            DataEvent e = super.getNextEvent();
-            if (e.hasBank("RUN::config")) {
-                DataBank b = e.getBank("RUN::config");
-                if (b.rows() > 0) {
-                    int coda = b.getInt("event",0);
+        // (coda<<32 | evio) pairs, to sort by CODA and then EVIO event number:
+        long[] pairs = new long[Math.max(16, this.reader.getEventCount())];
+        int n = 0;
+        if (this.reader.getSchemaFactory().hasSchema("RUN::config")) {
+            Event event = new Event();
+            Bank bank = new Bank(this.reader.getSchemaFactory().getSchema("RUN::config"));
+            int evio = 0;
+            while (this.reader.hasNext()) {
+                if (maxEvents>0 && n>maxEvents) break;
+                this.reader.nextEvent(event);
+                event.read(bank);
+                if (bank.getRows() > 0) {
+                    int coda = bank.getInt("event",0);
                     if (coda > 0) {
-                        int evio = this.currentEventNumber-1;
-                        map.put(coda, evio);
+                        if (n == pairs.length) pairs = Arrays.copyOf(pairs, 2*n);
+                        pairs[n++] = ((long) coda << 32) | evio;
                     }
                 }
+                evio++;
             }
         }
         this.close();
-        this.list.addAll(new ArrayList(this.map.keySet()));
+        Arrays.sort(pairs, 0, n);
+        // keep the last event of repeated CODA event numbers:
+        int unique = 0;
+        for (int i=0; i<n; i++) {
+            if (i+1<n && (pairs[i+1]>>>32) == (pairs[i]>>>32)) continue;
+            pairs[unique++] = pairs[i];
+        }
+        this.codaNumbers = new int[unique];
+        this.evioIndices = new int[unique];
+        for (int i=0; i<unique; i++) {
+            this.codaNumbers[i] = (int) (pairs[i]>>>32);
+            this.evioIndices[i] = (int) pairs[i];
+        }
     }
 
     /**
      * Initialize the event ordering and (re)open the file
-     * @param filename 
+     * @param filename
      */
     @Override
     public void open(String filename) {
         this.load(filename, -1);
-        this.index = 0;
         super.open(filename);
+        this.sortedIndices = new int[this.reader.getEventCount()];
+        Arrays.fill(this.sortedIndices, -1);
+        for (int i=0; i<this.evioIndices.length; i++)
+            this.sortedIndices[this.evioIndices[i]] = i;
+        this.reset();
     }
 
     /**
@@ -80,17 +123,43 @@ public class HipoDataSourceSorted extends HipoDataSource {
      */
     @Override
     public boolean hasEvent() {
-        return this.index < this.list.size()-1;
+        return this.index < this.codaNumbers.length-1;
     }
-    
+
     /**
      * Retrieve the next event, as sorted by CODA event number
-     * @return event 
+     * @return event
      */
     @Override
     public DataEvent getNextEvent() {
-        int coda = this.list.get(this.index++);
-        return this.gotoEvent(this.map.get(coda));
+        int sorted = this.index++;
+        int evio = this.evioIndices[sorted];
+        Event event = this.readAhead.remove(sorted);
+        if (event == null) {
+            if (evio >= this.nextRead && evio-this.nextRead < READ_AHEAD) {
+                // read the file up to this event, keeping the ones sorted later:
+                for (; this.nextRead < evio; this.nextRead++) {
+                    int later = this.sortedIndices[this.nextRead];
+                    if (later > sorted && this.readAhead.size() < READ_AHEAD)
+                        this.readAhead.put(later, this.readEvent(this.nextRead));
+                }
+                this.nextRead = evio+1;
+            }
+            event = this.readEvent(evio);
+        }
+        HipoDataEvent  hipoEvent = new HipoDataEvent(event,this.reader.getSchemaFactory());
+        if (evio < this.reader.getEventCount()-1) {
+            hipoEvent.setType(DataEventType.EVENT_ACCUMULATE);
+        } else {
+            hipoEvent.setType(DataEventType.EVENT_STOP);
+        }
+        return hipoEvent;
+    }
+
+    private Event readEvent(int evio) {
+        Event event = new Event();
+        this.reader.getEvent(event, evio);
+        return event;
     }
 
     /**
@@ -99,8 +168,10 @@ public class HipoDataSourceSorted extends HipoDataSource {
     @Override
     public void reset() {
         this.index = 0;
+        this.nextRead = 0;
+        this.readAhead.clear();
     }
-    
+
     public static void main(String args[]) {
         HipoDataSource s = new HipoDataSourceSorted();
         s.open("/Users/baltzell/Software/coatjava/iss166-eventordering/x.hipo");
@@ -126,4 +197,4 @@ public class HipoDataSourceSorted extends HipoDataSource {
         }
     }
 
-}
\ No newline at end of file
+}
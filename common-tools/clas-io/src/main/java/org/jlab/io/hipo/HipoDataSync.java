@@ -1,6 +1,9 @@
 package org.jlab.io.hipo;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -17,6 +20,11 @@ import org.jlab.jnp.hipo4.io.HipoWriterSorted;
 
 
 /**
+ * In write-behind mode, see {@link #setWriteBehind(int)}, the events are
+ * copied and queued to a dedicated thread, which adds them to the writer, and
+ * so does the record compression and the file output, while the calling thread
+ * carries on.  The file content is the same as in the default, synchronous
+ * mode.
  *
  * @author gavalian
  */
@@ -25,12 +33,20 @@ public class HipoDataSync implements DataSync {
     public static Logger LOGGER = Logger.getLogger(HipoDataSync.class.getName());
     
     HipoWriterSorted writer = null;
+
+    // write-behind queue and thread, null in synchronous mode:
+    private int writeBehind = 0;
+    private BlockingQueue<Event> queue = null;
+    private Thread writerThread = null;
+    private volatile RuntimeException writerFailure = null;
+
+    // marks the end of the queued events:
+    private static final Event END_OF_QUEUE = new Event();
     
     public HipoDataSync(){
         this.writer = new HipoWriterSorted();
         this.writer.setCompressionType(2);
-        String env = System.getenv("CLAS12DIR");
-        writer.getSchemaFactory().initFromDirectory(env + "/etc/bankdefs/hipo4");
+        writer.getSchemaFactory().copy(SchemaRegistry.getDefault());
         LOGGER.log(Level.INFO,"[HipoDataSync] ---> dictionary size = " + writer.getSchemaFactory().getSchemaList().size());
         //this.writer.getSchemaFactory().initFromDirectory("CLAS12DIR", "etc/bankdefs/hipo");
         //this.writer.getSchemaFactory().show();
@@ -55,6 +71,62 @@ public class HipoDataSync implements DataSync {
             this.writer.addHeader(descString);
         }*/
         this.writer.open(file);
+        if(this.writeBehind>0) {
+            this.queue = new ArrayBlockingQueue<>(this.writeBehind);
+            this.writerThread = new Thread(this::writeQueue, "HipoDataSync-"+file);
+            this.writerThread.setDaemon(true);
+            this.writerThread.start();
+        }
+    }
+
+    /**
+     * Enable write-behind: the events are written by a separate thread, with
+     * at most the given number of events queued, i.e. waiting to be written.
+     * Must be called before {@link #open(String)}; 0 restores the synchronous
+     * writing.  In this mode, the writer from {@link #getWriter()} must not be
+     * used to add events.
+     * @param maxQueuedEvents maximum number of queued events
+     */
+    public void setWriteBehind(int maxQueuedEvents){
+        this.writeBehind = Math.max(0, maxQueuedEvents);
+    }
+
+    private void writeQueue() {
+        try {
+            for(Event event = queue.take(); event!=END_OF_QUEUE; event = queue.take()) {
+                this.writer.addEvent(event, event.getEventTag());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            LOGGER.log(Level.SEVERE, "[HipoDataSync] ---> write-behind failed", e);
+            this.writerFailure = e;
+            // keep draining, so that the producer can't block on a full queue:
+            try {
+                while(queue.take()!=END_OF_QUEUE);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void checkWriterFailure() {
+        if(this.writerFailure!=null)
+            throw new IllegalStateException("write-behind failed", this.writerFailure);
+    }
+
+    private void enqueue(Event event) {
+        this.checkWriterFailure();
+        this.put(event);
+    }
+
+    private void put(Event event) {
+        try {
+            this.queue.put(event);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while queueing an event", e);
+        }
     }
 
     public void addSchema(Schema schema){
@@ -71,13 +143,40 @@ public class HipoDataSync implements DataSync {
         if(event instanceof HipoDataEvent) {
             HipoDataEvent hipoEvent = (HipoDataEvent) event;
             
-            this.writer.addEvent(hipoEvent.getHipoEvent(),hipoEvent.getHipoEvent().getEventTag());
+            if(this.queue!=null) {
+                // the caller may reuse the event, so queue a copy:
+                Event original = hipoEvent.getHipoEvent();
+                int size = original.getEventBufferSize();
+                Event copy = new Event(size);
+                copy.initFrom(Arrays.copyOf(original.getEventBuffer().array(), size));
+                this.enqueue(copy);
+            }
+            else {
+                this.writer.addEvent(hipoEvent.getHipoEvent(),hipoEvent.getHipoEvent().getEventTag());
+            }
         }
     }
     public HipoWriterSorted getWriter(){ return writer;}
     
+    /**
+     * Close the file, after writing all the queued events in write-behind mode.
+     */
     public void close() {
-        this.writer.close();
+        if(this.queue!=null) {
+            this.put(END_OF_QUEUE);
+            try {
+                this.writerThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            this.queue = null;
+            this.writerThread = null;
+            this.writer.close();
+            this.checkWriterFailure();
+        }
+        else {
+            this.writer.close();
+        }
     }
     
     public void setCompressionType(int type){
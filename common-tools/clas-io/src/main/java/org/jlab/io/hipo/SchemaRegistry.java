@@ -0,0 +1,67 @@
+package org.jlab.io.hipo;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+
+/**
+ * Process-wide registry of bank schemas, so that the bank definitions in a
+ * directory are parsed only once and the resulting SchemaFactory is shared by
+ * all its users, e.g. all the engines of a reconstruction chain.
+ *
+ * The shared factories must be treated as read-only: users that need to add
+ * their own schemas should do it on a private copy, see {@link #copy(String)}.
+ */
+public class SchemaRegistry {
+
+    public static Logger LOGGER = Logger.getLogger(SchemaRegistry.class.getName());
+
+    private static final Map<String,SchemaFactory> factories = new ConcurrentHashMap<>();
+
+    private SchemaRegistry() {}
+
+    /**
+     * @return the default bank definitions directory, from CLAS12DIR
+     */
+    public static String getDefaultDirectory() {
+        String env = System.getenv("CLAS12DIR");
+        return env + "/etc/bankdefs/hipo4";
+    }
+
+    /**
+     * @return the shared schemas of the default bank definitions directory
+     */
+    public static SchemaFactory getDefault() {
+        return get(getDefaultDirectory());
+    }
+
+    /**
+     * Get the shared schemas of a bank definitions directory, parsing the
+     * directory on the first request.
+     * @param directory bank definitions directory
+     * @return the shared, read-only schemas
+     */
+    public static SchemaFactory get(String directory) {
+        return factories.computeIfAbsent(directory, dir -> {
+            SchemaFactory factory = new SchemaFactory();
+            factory.initFromDirectory(dir);
+            LOGGER.log(Level.INFO,"[SchemaRegistry] ---> loaded " + factory.getSchemaList().size() + " schemas from " + dir);
+            return factory;
+        });
+    }
+
+    /**
+     * Get a private copy of the schemas of a bank definitions directory, to
+     * be extended with other schemas.
+     * @param directory bank definitions directory
+     * @return a new factory with the same schemas
+     */
+    public static SchemaFactory copy(String directory) {
+        SchemaFactory factory = new SchemaFactory();
+        factory.copy(get(directory));
+        return factory;
+    }
+}
@@ -0,0 +1,111 @@
+package org.jlab.io.hipo;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import org.jlab.jnp.hipo4.data.Bank;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.utils.system.ClasUtilsFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class HipoDataEventTest {
+
+    private static SchemaFactory createFactory() {
+        System.setProperty("CLAS12DIR", "../../");
+        String dir = ClasUtilsFile.getResourceDir("CLAS12DIR", "etc/bankdefs/hipo4");
+        SchemaFactory factory = new SchemaFactory();
+        factory.initFromDirectory(dir);
+        return factory;
+    }
+
+    // event with RUN::config, DC::tdc and ECAL::adc banks, in this order
+    private static Event createEvent(SchemaFactory factory) {
+        return createEvent(factory, true);
+    }
+
+    private static Event createEvent(SchemaFactory factory, boolean withTdc) {
+        Event event = new Event();
+        Bank config = new Bank(factory.getSchema("RUN::config"), 1);
+        config.putInt("run", 0, 11);
+        config.putInt("event", 0, 7);
+        event.write(config);
+        Bank tdc = new Bank(factory.getSchema("DC::tdc"), 3);
+        for (int i = 0; i < 3; i++) {
+            tdc.putByte("sector", i, (byte) 1);
+            tdc.putShort("component", i, (short) (10+i));
+            tdc.putInt("TDC", i, 100*i);
+        }
+        if (withTdc) event.write(tdc);
+        Bank adc = new Bank(factory.getSchema("ECAL::adc"), 2);
+        for (int i = 0; i < 2; i++) {
+            adc.putShort("component", i, (short) (20+i));
+            adc.putInt("ADC", i, 1000+i);
+        }
+        event.write(adc);
+        return event;
+    }
+
+    // a dictionary without ECAL::adc
+    private static SchemaFactory createReducedFactory(SchemaFactory factory) {
+        SchemaFactory reduced = new SchemaFactory();
+        reduced.addSchema(factory.getSchema("RUN::config"));
+        reduced.addSchema(factory.getSchema("DC::tdc"));
+        return reduced;
+    }
+
+    @Test
+    public void testBankList() {
+        SchemaFactory factory = createFactory();
+        SchemaFactory reduced = createReducedFactory(factory);
+        Event event = createEvent(factory);
+        assertEquals(Arrays.asList("RUN::config", "DC::tdc", "ECAL::adc"),
+                Arrays.asList(new HipoDataEvent(event, factory).getBankList()));
+        // unknown nodes are skipped, also when seen again in the next events
+        for (int i = 0; i < 3; i++) {
+            assertEquals(Arrays.asList("RUN::config", "DC::tdc"),
+                    Arrays.asList(new HipoDataEvent(event, reduced).getBankList()));
+        }
+        // until their schema is added to the dictionary
+        HipoDataEvent extended = new HipoDataEvent(event, reduced);
+        extended.addSchema(factory.getSchema("ECAL::adc"));
+        assertEquals(Arrays.asList("RUN::config", "DC::tdc", "ECAL::adc"),
+                Arrays.asList(extended.getBankList()));
+        assertEquals(Arrays.asList("RUN::config", "DC::tdc", "ECAL::adc"),
+                Arrays.asList(new HipoDataEvent(event, reduced).getBankList()));
+    }
+
+    @Test
+    public void testRetainBanks() {
+        SchemaFactory factory = createFactory();
+        SchemaFactory reduced = createReducedFactory(factory);
+        Event event = createEvent(factory);
+        Event expected = createEvent(factory, false);
+        int size = expected.getEventBuffer().getInt(4);
+
+        // DC::tdc is dropped, ECAL::adc is kept since it is not in the dictionary
+        Set<Integer> keys = new HashSet<>();
+        keys.add(HipoDataEvent.schemaKey(factory.getSchema("RUN::config")));
+        new HipoDataEvent(event, reduced).retainBanks(keys);
+        assertEquals(size, event.getEventBuffer().getInt(4));
+        for (int i = 0; i < size; i++) {
+            assertEquals(expected.getEventBuffer().get(i), event.getEventBuffer().get(i));
+        }
+
+        HipoDataEvent retained = new HipoDataEvent(event, factory);
+        assertEquals(Arrays.asList("RUN::config", "ECAL::adc"), Arrays.asList(retained.getBankList()));
+        assertFalse(retained.hasBank("DC::tdc"));
+        assertEquals(11, retained.getBank("RUN::config").getInt("run", 0));
+        assertEquals(7, retained.getBank("RUN::config").getInt("event", 0));
+        assertEquals(2, retained.getBank("ECAL::adc").rows());
+        assertEquals(21, retained.getBank("ECAL::adc").getShort("component", 1));
+        assertEquals(1001, retained.getBank("ECAL::adc").getInt("ADC", 1));
+
+        // keeping everything leaves the event unchanged
+        keys.add(HipoDataEvent.schemaKey(factory.getSchema("ECAL::adc")));
+        retained.retainBanks(keys);
+        assertEquals(size, event.getEventBuffer().getInt(4));
+        assertEquals(Arrays.asList("RUN::config", "ECAL::adc"), Arrays.asList(retained.getBankList()));
+    }
+}
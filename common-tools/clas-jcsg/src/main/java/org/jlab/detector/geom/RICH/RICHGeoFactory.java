@@ -369,6 +369,8 @@ public class RICHGeoFactory{
 
                         //if(debugMode>=2)show_Shape3D(compo_shape, null, "CC");
                     }
+
+                    layer.generate_SurfBVH();
                 }
 
             }
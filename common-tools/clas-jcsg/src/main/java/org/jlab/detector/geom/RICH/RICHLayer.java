@@ -39,6 +39,9 @@ public class RICHLayer extends ArrayList<RICHComponent> {
     private Sphere3D tracking_sphere      = null;
     private Shape3D  nominal_plane        = null;
 
+    private RICHSurfBVH global_bvh        = null;
+    private RICHSurfBVH tracking_bvh      = null;
+
     private ArrayList<Integer> compo_list          = new ArrayList<Integer>();
     
     private RICHFrame local_frame = new RICHFrame();
@@ -122,7 +125,7 @@ public class RICHLayer extends ArrayList<RICHComponent> {
     }
   
     // ----------------
-    public void set_TrackingSurf(Shape3D plane) { tracking_surf=plane;}
+    public void set_TrackingSurf(Shape3D plane) { tracking_surf=plane; tracking_bvh=null;}
     // ----------------
   
     // ----------------
@@ -227,13 +230,23 @@ public class RICHLayer extends ArrayList<RICHComponent> {
     }
 
     // ----------------
-    public void set_GlobalSurf(Shape3D plane) { global_surf = plane; }
+    public void set_GlobalSurf(Shape3D plane) { global_surf = plane; global_bvh = null; }
     // ----------------
   
     // ----------------
     public Shape3D get_GlobalSurf() { return global_surf; }
     // ----------------
 
+    // ----------------
+    public void generate_SurfBVH() { 
+    // ----------------
+        /*
+        *  Index the final (aligned) global and tracking surfaces for ray intersections
+        */
+        global_bvh   = RICHSurfBVH.create(global_surf);
+        tracking_bvh = RICHSurfBVH.create(tracking_surf);
+    }
+
     // ----------------
     public void set_TrackingSphere(Sphere3D sphere) { tracking_sphere = sphere; }
     // ----------------
@@ -705,6 +718,7 @@ public class RICHLayer extends ArrayList<RICHComponent> {
         boolean global = true;
         int ilay = id;
         Shape3D plane = this.get_GlobalSurf();
+        RICHSurfBVH bvh = global_bvh;
         String  splane = "global surf";
         Vector3D glnorm = this.get_LayerNormal(vinside);
 
@@ -716,6 +730,7 @@ public class RICHLayer extends ArrayList<RICHComponent> {
             global = false;
             splane = "compo  surf";
             plane = this.get_TrackingSurf();
+            bvh = tracking_bvh;
         }
 
         /*
@@ -725,7 +740,7 @@ public class RICHLayer extends ArrayList<RICHComponent> {
         List<Point3D> inters = new ArrayList<Point3D>();
         List<Integer> ifaces = new ArrayList<Integer>();
 
-        int nint = plane.intersection_with_faces(ray, inters, ifaces);
+        int nint = (bvh!=null) ? bvh.intersection_with_faces(ray, inters, ifaces) : plane.intersection_with_faces(ray, inters, ifaces);
         if(debugMode>=1) {
             String ee="out";
             if(exit==0) ee="into";
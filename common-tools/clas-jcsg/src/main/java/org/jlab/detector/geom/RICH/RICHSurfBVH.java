@@ -0,0 +1,282 @@
+package org.jlab.detector.geom.RICH;
+
+import java.util.List;
+import org.jlab.geom.prim.Face3D;
+import org.jlab.geom.prim.Line3D;
+import org.jlab.geom.prim.Point3D;
+import org.jlab.geom.prim.Shape3D;
+import org.jlab.geom.prim.Triangle3D;
+
+/**
+* Bounding volume hierarchy over the triangular faces of a RICH tracking surface.
+*
+* The triangle vertices and the tree nodes are stored in flat primitive arrays,
+* and the line/box and line/triangle tests work on primitives only, so that the
+* cost of a ray intersection grows with the log of the number of faces instead of
+* linearly, without allocating anything but the intersection points.
+*
+* The intersections are the same (and in the same face order) as those of
+* {@link Shape3D#intersection_with_faces}, i.e. with the infinite line through the
+* ray origin and end points.
+*/
+public class RICHSurfBVH {
+
+    private static final int    LEAF_SIZE = 4;
+    private static final double SMALL_NUM = 0.00000001;   // as in Plane3D.intersection
+    private static final double BOX_TOLE  = 1.e-6;
+
+    private final int nfaces;
+    private final double[] tri;       // 9 coordinates per face, in face order
+
+    private final int[] order;        // face indexes sorted by tree leaf
+    private final double[] box;       // 6 bounds per node (xmin,ymin,zmin,xmax,ymax,zmax)
+    private final int[] child;        // left child per node, or -1 for leaves
+    private final int[] sibling;      // right child per node
+    private final int[] first;        // first entry in order[] for leaves
+    private final int[] count;        // number of faces for leaves
+    private int nnodes = 0;
+
+    // ----------------
+    private RICHSurfBVH(Shape3D shape) {
+    // ----------------
+
+        nfaces = shape.size();
+        tri = new double[9*nfaces];
+        for(int ifa=0; ifa<nfaces; ifa++){
+            Face3D face = shape.face(ifa);
+            for(int ip=0; ip<3; ip++){
+                Point3D p = face.point(ip);
+                tri[9*ifa+3*ip]   = p.x();
+                tri[9*ifa+3*ip+1] = p.y();
+                tri[9*ifa+3*ip+2] = p.z();
+            }
+        }
+
+        order = new int[nfaces];
+        for(int ifa=0; ifa<nfaces; ifa++) order[ifa] = ifa;
+
+        int maxnodes = Math.max(1, 2*nfaces);
+        box     = new double[6*maxnodes];
+        child   = new int[maxnodes];
+        sibling = new int[maxnodes];
+        first   = new int[maxnodes];
+        count   = new int[maxnodes];
+
+        double[] centroid = new double[3*nfaces];
+        for(int ifa=0; ifa<nfaces; ifa++){
+            for(int ix=0; ix<3; ix++) centroid[3*ifa+ix] = (tri[9*ifa+ix]+tri[9*ifa+3+ix]+tri[9*ifa+6+ix])/3.;
+        }
+        if(nfaces>0) build(0, nfaces, centroid);
+    }
+
+
+    // ----------------
+    public static RICHSurfBVH create(Shape3D shape) {
+    // ----------------
+        /*
+        *  Only surfaces made of triangles can be indexed, otherwise keep the plain face loop
+        */
+        if(shape==null) return null;
+        for(int ifa=0; ifa<shape.size(); ifa++){
+            if(!(shape.face(ifa) instanceof Triangle3D)) return null;
+        }
+        return new RICHSurfBVH(shape);
+    }
+
+
+    // ----------------
+    public int size() { return nfaces; }
+    // ----------------
+
+
+    // ----------------
+    private int build(int start, int end, double[] centroid) {
+    // ----------------
+
+        int node = nnodes++;
+        for(int ix=0; ix<3; ix++){
+            box[6*node+ix]   =  Double.MAX_VALUE;
+            box[6*node+3+ix] = -Double.MAX_VALUE;
+        }
+        double[] cmin = { Double.MAX_VALUE,  Double.MAX_VALUE,  Double.MAX_VALUE};
+        double[] cmax = {-Double.MAX_VALUE, -Double.MAX_VALUE, -Double.MAX_VALUE};
+        for(int i=start; i<end; i++){
+            int ifa = order[i];
+            for(int ip=0; ip<3; ip++){
+                for(int ix=0; ix<3; ix++){
+                    double c = tri[9*ifa+3*ip+ix];
+                    if(c<box[6*node+ix])   box[6*node+ix]   = c;
+                    if(c>box[6*node+3+ix]) box[6*node+3+ix] = c;
+                }
+            }
+            for(int ix=0; ix<3; ix++){
+                double c = centroid[3*ifa+ix];
+                if(c<cmin[ix]) cmin[ix] = c;
+                if(c>cmax[ix]) cmax[ix] = c;
+            }
+        }
+        // pad the box to stay conservative against rounding in the triangle test
+        for(int ix=0; ix<3; ix++){
+            double pad = BOX_TOLE*(1.+box[6*node+3+ix]-box[6*node+ix]);
+            box[6*node+ix]   -= pad;
+            box[6*node+3+ix] += pad;
+        }
+
+        int axis = 0;
+        for(int ix=1; ix<3; ix++) if(cmax[ix]-cmin[ix]>cmax[axis]-cmin[axis]) axis = ix;
+
+        if(end-start<=LEAF_SIZE || cmax[axis]-cmin[axis]<=0){
+            child[node] = -1;
+            first[node] = start;
+            count[node] = end-start;
+            return node;
+        }
+
+        // split at the median centroid along the longest axis
+        int mid = (start+end)/2;
+        select(start, end-1, mid, axis, centroid);
+
+        child[node]   = build(start, mid, centroid);
+        sibling[node] = build(mid, end, centroid);
+        return node;
+    }
+
+
+    // ----------------
+    private void select(int lo, int hi, int k, int axis, double[] centroid) {
+    // ----------------
+        /*
+        *  Partial quick-select of order[lo..hi] so that order[k] is the median
+        */
+        while(lo<hi){
+            double pivot = centroid[3*order[(lo+hi)>>>1]+axis];
+            int i = lo, j = hi;
+            while(i<=j){
+                while(centroid[3*order[i]+axis]<pivot) i++;
+                while(centroid[3*order[j]+axis]>pivot) j--;
+                if(i<=j){
+                    int tmp = order[i]; order[i] = order[j]; order[j] = tmp;
+                    i++; j--;
+                }
+            }
+            if(k<=j) hi = j;
+            else if(k>=i) lo = i;
+            else return;
+        }
+    }
+
+
+    // ----------------
+    public int intersection_with_faces(Line3D ray, List<Point3D> intersections, List<Integer> ifaces) {
+    // ----------------
+
+        if(nfaces==0) return 0;
+
+        double ox = ray.origin().x(), oy = ray.origin().y(), oz = ray.origin().z();
+        double ux = ray.end().x()-ox, uy = ray.end().y()-oy, uz = ray.end().z()-oz;
+
+        return traverse(0, ox, oy, oz, ux, uy, uz, intersections, ifaces, ifaces.size());
+    }
+
+
+    // ----------------
+    private int traverse(int node, double ox, double oy, double oz, double ux, double uy, double uz,
+                         List<Point3D> intersections, List<Integer> ifaces, int offset) {
+    // ----------------
+
+        if(!crosses_Box(node, ox, oy, oz, ux, uy, uz)) return 0;
+
+        if(child[node]<0){
+            int nint = 0;
+            for(int i=first[node]; i<first[node]+count[node]; i++){
+                if(crosses_Triangle(order[i], ox, oy, oz, ux, uy, uz, intersections, ifaces, offset)) nint++;
+            }
+            return nint;
+        }
+        return traverse(child[node],   ox, oy, oz, ux, uy, uz, intersections, ifaces, offset) 
+             + traverse(sibling[node], ox, oy, oz, ux, uy, uz, intersections, ifaces, offset);
+    }
+
+
+    // ----------------
+    private boolean crosses_Box(int node, double ox, double oy, double oz, double ux, double uy, double uz) {
+    // ----------------
+        /*
+        *  Slab test of the infinite line with the node bounding box
+        */
+        int k = 6*node;
+        double tmin = -Double.MAX_VALUE;
+        double tmax =  Double.MAX_VALUE;
+
+        if(ux==0){
+            if(ox<box[k] || ox>box[k+3]) return false;
+        }else{
+            double t1 = (box[k]-ox)/ux, t2 = (box[k+3]-ox)/ux;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        if(uy==0){
+            if(oy<box[k+1] || oy>box[k+4]) return false;
+        }else{
+            double t1 = (box[k+1]-oy)/uy, t2 = (box[k+4]-oy)/uy;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        if(uz==0){
+            if(oz<box[k+2] || oz>box[k+5]) return false;
+        }else{
+            double t1 = (box[k+2]-oz)/uz, t2 = (box[k+5]-oz)/uz;
+            tmin = Math.max(tmin, Math.min(t1, t2));
+            tmax = Math.min(tmax, Math.max(t1, t2));
+        }
+        return tmin<=tmax;
+    }
+
+
+    // ----------------
+    private boolean crosses_Triangle(int ifa, double ox, double oy, double oz, double ux, double uy, double uz,
+                                     List<Point3D> intersections, List<Integer> ifaces, int offset) {
+    // ----------------
+        /*
+        *  Same arithmetic as Triangle3D.intersection, on primitives
+        */
+        int k = 9*ifa;
+        double p0x = tri[k],   p0y = tri[k+1], p0z = tri[k+2];
+        double v0x = tri[k+3]-p0x, v0y = tri[k+4]-p0y, v0z = tri[k+5]-p0z;
+        double v1x = tri[k+6]-p0x, v1y = tri[k+7]-p0y, v1z = tri[k+8]-p0z;
+
+        double nx = v0y*v1z-v0z*v1y;
+        double ny = v0z*v1x-v0x*v1z;
+        double nz = v0x*v1y-v0y*v1x;
+        double mag = Math.sqrt(nx*nx+ny*ny+nz*nz);
+        if(mag==0) return false;
+        double scale = 1/mag;
+        nx = scale*nx; ny = scale*ny; nz = scale*nz;
+
+        double D = nx*ux + ny*uy + nz*uz;
+        double N = -(nx*(ox-p0x) + ny*(oy-p0y) + nz*(oz-p0z));
+        if(Math.abs(D)<SMALL_NUM) return false;
+        double t = N/D;
+        double ix = ox+ux*t, iy = oy+uy*t, iz = oz+uz*t;
+
+        double v2x = ix-p0x, v2y = iy-p0y, v2z = iz-p0z;
+        double dot00 = v1x*v1x + v1y*v1y + v1z*v1z;
+        double dot01 = v1x*v0x + v1y*v0y + v1z*v0z;
+        double dot02 = v1x*v2x + v1y*v2y + v1z*v2z;
+        double dot11 = v0x*v0x + v0y*v0y + v0z*v0z;
+        double dot12 = v0x*v2x + v0y*v2y + v0z*v2z;
+        double invDenom = 1. / (dot00 * dot11 - dot01 * dot01);
+        double u = (dot11 * dot02 - dot01 * dot12) * invDenom;
+        double v = (dot00 * dot12 - dot01 * dot02) * invDenom;
+        if (u >= 0 && v >= 0 && ((u + v) <= 1)) {
+            // keep the face order of Shape3D.intersection_with_faces
+            int pos = ifaces.size();
+            while(pos>offset && ifaces.get(pos-1)>ifa) pos--;
+            intersections.add(pos, new Point3D(ix, iy, iz));
+            ifaces.add(pos, ifa);
+            return true;
+        }
+        return false;
+    }
+
+}
@@ -416,6 +416,38 @@ public class DetectorParticle implements Comparable {
     public int getDetectorHit(List<DetectorResponse>  hitList, DetectorType type,
             int detectorLayer,
             double distanceThreshold){
+        return this.getDetectorHit(hitList, null, type, detectorLayer, distanceThreshold);
+    }
+    
+    /**
+     * Same as {@link #getDetectorHit(List, DetectorType, int, double)}, but
+     * only considering the responses of the given type and layer in the index.
+     * @param index the indexed responses
+     * @param type the detector type
+     * @param detectorLayer the detector layer, or non-positive for all layers
+     * @param distanceThreshold the maximum distance between trajectory and hit
+     * @return the index of the matching response in the indexed list, else negative
+     */
+    public int getDetectorHit(DetectorResponseIndex index, DetectorType type,
+            int detectorLayer,
+            double distanceThreshold){
+        return this.getDetectorHit(index.getResponses(),
+                index.getCandidates(type, detectorLayer<=0 ? -1 : detectorLayer),
+                type, detectorLayer, distanceThreshold);
+    }
+
+    /**
+     * Find the response closest to the track's last cross.
+     * @param hitList the responses
+     * @param candidates the indices of the responses to consider, in
+     * increasing order, or null for all responses
+     * @param type the detector type
+     * @param detectorLayer the detector layer, or non-positive for all layers
+     * @param distanceThreshold the maximum distance between trajectory and hit
+     * @return the index of the matching response in the list, else negative
+     */
+    private int getDetectorHit(List<DetectorResponse>  hitList, int[] candidates,
+            DetectorType type, int detectorLayer, double distanceThreshold){
          
         Line3D   trajectory = this.detectorTrack.getLastCross();
         Point3D  hitPoint = new Point3D();
@@ -430,8 +462,10 @@ public class DetectorParticle implements Comparable {
             }
         }
 
-        for(int loop = 0; loop < hitList.size(); loop++){
+        final int n = candidates==null ? hitList.size() : candidates.length;
+        for(int ii = 0; ii < n; ii++){
            
+            final int loop = candidates==null ? ii : candidates[ii];
             DetectorResponse response = hitList.get(loop);
  
             // same-sector requirement between hit and track:
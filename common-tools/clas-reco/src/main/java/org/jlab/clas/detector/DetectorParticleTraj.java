@@ -26,6 +26,14 @@ public class DetectorParticleTraj extends DetectorParticle {
         return matcher.bestMatch(this, hitList, type, layer);
     }
 
+    @Override
+    public int getDetectorHit(DetectorResponseIndex index, DetectorType type,
+            int layer, double distanceThreshold){
+        MatchTrajDistance matcher = new MatchTrajDistance(distanceThreshold);
+        matcher.setSharing(Arrays.asList(sharedDetectors).contains(type));
+        return matcher.bestMatch(this, index, type, layer);
+    }
+
     @Override
     public double getPathLength(DetectorType type,int layId) {
         return this.detectorTrack.getPathLength(type,layId);
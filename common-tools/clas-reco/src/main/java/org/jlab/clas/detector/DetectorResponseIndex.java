@@ -0,0 +1,169 @@
+package org.jlab.clas.detector;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jlab.detector.base.DetectorType;
+import org.jlab.geom.prim.Point3D;
+
+/**
+ * Index of a list of detector responses by detector type and layer, with the
+ * responses of each layer sorted along x, so that the responses that can match
+ * a track are found without looping over all of them.
+ *
+ * The index is built once per event, from the responses in the list at that
+ * time.  Responses added to the list afterwards (e.g. copies of shared hits)
+ * are still returned, by checking them one by one.  Candidates are always
+ * returned in increasing order of their position in the list, so that matching
+ * picks the same response as a loop over the whole list.
+ */
+public class DetectorResponseIndex {
+
+    private static final double TOLERANCE = 1e-6;
+
+    private static final int[] NONE = new int[0];
+
+    private final List<DetectorResponse> responses;
+    private final int size;
+    private final Map<Integer,Bucket> buckets = new HashMap<>();
+
+    /**
+     * Responses of one detector type and layer, or of all layers of one type.
+     */
+    private static class Bucket {
+        private int n = 0;
+        private int[] index = new int[4];
+        private double[] x;
+        private double[] y;
+        private double[] z;
+        private int[] order;
+
+        private void add(int i) {
+            if (n == index.length) index = Arrays.copyOf(index, 2*n);
+            index[n++] = i;
+        }
+
+        private void sort(List<DetectorResponse> responses) {
+            Integer[] sorted = new Integer[n];
+            for (int i=0; i<n; i++) sorted[i] = i;
+            Arrays.sort(sorted, (a,b) -> Double.compare(
+                    responses.get(index[a]).getPosition().x(),
+                    responses.get(index[b]).getPosition().x()));
+            x = new double[n];
+            y = new double[n];
+            z = new double[n];
+            order = new int[n];
+            for (int i=0; i<n; i++) {
+                DetectorResponse r = responses.get(index[sorted[i]]);
+                x[i] = r.getPosition().x();
+                y[i] = r.getPosition().y();
+                z[i] = r.getPosition().z();
+                order[i] = index[sorted[i]];
+            }
+        }
+    }
+
+    public DetectorResponseIndex(List<DetectorResponse> responses) {
+        this.responses = responses;
+        this.size = responses.size();
+        for (int i=0; i<size; i++) {
+            DetectorType type = responses.get(i).getDescriptor().getType();
+            int layer = responses.get(i).getDescriptor().getLayer();
+            this.getBucket(type, -1, true).add(i);
+            this.getBucket(type, layer, true).add(i);
+        }
+        for (Bucket bucket : buckets.values()) bucket.sort(responses);
+    }
+
+    private static int getKey(DetectorType type, int layer) {
+        return (type.getDetectorId() << 16) | (layer & 0xFFFF);
+    }
+
+    private Bucket getBucket(DetectorType type, int layer, boolean create) {
+        final int key = getKey(type, layer < 0 ? -1 : layer);
+        Bucket bucket = buckets.get(key);
+        if (bucket == null && create) {
+            bucket = new Bucket();
+            buckets.put(key, bucket);
+        }
+        return bucket;
+    }
+
+    /**
+     * @return the indexed list of responses
+     */
+    public List<DetectorResponse> getResponses() {
+        return this.responses;
+    }
+
+    /**
+     * Find the responses of the given type and layer.
+     * @param type the detector type, or null for all types
+     * @param layer the detector layer, or negative for all layers
+     * @return the indices of the responses in the list, in increasing order
+     */
+    public int[] getCandidates(DetectorType type, int layer) {
+        if (type == null) {
+            int[] all = new int[responses.size()];
+            for (int i=0; i<all.length; i++) all[i] = i;
+            return all;
+        }
+        Bucket bucket = this.getBucket(type, layer, false);
+        int[] candidates = bucket == null ? NONE : Arrays.copyOf(bucket.index, bucket.n);
+        return this.addLate(candidates, candidates.length, type, layer);
+    }
+
+    /**
+     * Find the responses of the given type and layer within a cube centered
+     * on the given point.  All responses closer to the point than half the
+     * cube's side are returned, plus possibly some more.
+     * @param type the detector type, or null for all types
+     * @param layer the detector layer, or negative for all layers
+     * @param center the center of the cube
+     * @param halfSide half the side of the cube
+     * @return the indices of the responses in the list, in increasing order
+     */
+    public int[] getCandidates(DetectorType type, int layer, Point3D center, double halfSide) {
+        if (type == null || !(halfSide < Double.POSITIVE_INFINITY)) {
+            return this.getCandidates(type, layer);
+        }
+        Bucket bucket = this.getBucket(type, layer, false);
+        int n = 0;
+        int[] candidates = NONE;
+        if (bucket != null) {
+            final double window = halfSide*(1+TOLERANCE) + TOLERANCE;
+            final double xmin = center.x() - window;
+            final double xmax = center.x() + window;
+            // first response at or above the lower edge:
+            int lo = 0, hi = bucket.n;
+            while (lo < hi) {
+                final int mid = (lo+hi) >>> 1;
+                if (bucket.x[mid] < xmin) lo = mid+1;
+                else hi = mid;
+            }
+            candidates = new int[bucket.n-lo];
+            for (int i=lo; i<bucket.n && bucket.x[i]<=xmax; i++) {
+                if (Math.abs(bucket.y[i]-center.y()) > window) continue;
+                if (Math.abs(bucket.z[i]-center.z()) > window) continue;
+                candidates[n++] = bucket.order[i];
+            }
+            Arrays.sort(candidates, 0, n);
+        }
+        return this.addLate(candidates, n, type, layer);
+    }
+
+    /**
+     * Append the responses added to the list after the index was built.
+     */
+    private int[] addLate(int[] candidates, int n, DetectorType type, int layer) {
+        for (int i=size; i<responses.size(); i++) {
+            if (responses.get(i).getDescriptor().getType() != type) continue;
+            if (layer >= 0 && responses.get(i).getDescriptor().getLayer() != layer) continue;
+            if (n == candidates.length) candidates = Arrays.copyOf(candidates, 2*n+1);
+            candidates[n++] = i;
+        }
+        return n == candidates.length ? candidates : Arrays.copyOf(candidates, n);
+    }
+
+}
@@ -1,6 +1,7 @@
 package org.jlab.clas.detector;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -62,15 +63,37 @@ public class DetectorTrack implements Comparable {
 
         private int size=0;
         private Map < Integer, Map <Integer,TrajectoryPoint> > traj = new LinkedHashMap<>();
+
+        // flat copy of the points sorted by packed detector/layer key, for lookups:
+        private int[] keys = new int[8];
+        private TrajectoryPoint[] points = new TrajectoryPoint[8];
         
+        private static int getKey(int detId,int layId) {
+            return (detId << 16) | (layId & 0xFFFF);
+        }
+
+        private int find(int detId,int layId) {
+            return Arrays.binarySearch(this.keys, 0, this.size, getKey(detId,layId));
+        }
+
         public void add(TrajectoryPoint tp) {
+            int pos = this.find(tp.detId,tp.layId);
+            if (pos >= 0) {
+                throw new RuntimeException("Duplicate detector type/layer: "+tp.detId+"/"+tp.layId);
+            }
             if (!this.traj.containsKey(tp.detId)) {
                 this.traj.put(tp.detId,new LinkedHashMap<>());
             }
-            if (this.traj.get(tp.detId).containsKey(tp.layId)) {
-                throw new RuntimeException("Duplicate detector type/layer: "+tp.detId+"/"+tp.layId);
-            }
             this.traj.get(tp.detId).put(tp.layId,tp);
+            if (this.size == this.keys.length) {
+                this.keys = Arrays.copyOf(this.keys, 2*this.size);
+                this.points = Arrays.copyOf(this.points, 2*this.size);
+            }
+            pos = -pos-1;
+            System.arraycopy(this.keys, pos, this.keys, pos+1, this.size-pos);
+            System.arraycopy(this.points, pos, this.points, pos+1, this.size-pos);
+            this.keys[pos] = getKey(tp.detId,tp.layId);
+            this.points[pos] = tp;
             this.size++;
         }
 
@@ -86,12 +109,8 @@ public class DetectorTrack implements Comparable {
         }
         
         public TrajectoryPoint get(int detId,int layId) {
-            if (this.traj.containsKey(detId)) {
-                if (this.traj.get(detId).containsKey(layId)) {
-                    return this.traj.get(detId).get(layId);
-                }
-            }
-            return null;
+            final int pos = this.find(detId,layId);
+            return pos < 0 ? null : this.points[pos];
         }
 
         public TrajectoryPoint get(DetectorDescriptor dd) {
@@ -103,8 +122,7 @@ public class DetectorTrack implements Comparable {
         }
 
         public boolean contains(int detId,int layId) {
-            if (!this.contains(detId)) return false;
-            return this.traj.get(detId).containsKey(layId);
+            return this.find(detId,layId) >= 0;
         }
 
         public boolean contains(DetectorDescriptor dd) {
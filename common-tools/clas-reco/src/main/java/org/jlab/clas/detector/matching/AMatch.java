@@ -4,6 +4,7 @@ import java.util.List;
 import javafx.util.Pair;
 import org.jlab.clas.detector.DetectorParticle;
 import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.clas.detector.DetectorResponseIndex;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.geom.prim.Point3D;
 
@@ -35,15 +36,18 @@ public abstract class AMatch implements IMatch {
      * Find a matching response in the given list for the given particle.
      * @param p the particle
      * @param r the list of responses
+     * @param c the indices of the responses to consider, in increasing order, or null for all
      * @param t the requested detector type to consider
      * @param l the requested detector layer to consider
      * @param first whether to accept the first match, else look for the best one
      * @return the index of the resulting match, else negative
      */
-    private int findMatch(DetectorParticle p, List<DetectorResponse> r, DetectorType t, final int l, final boolean first) {
+    private int findMatch(DetectorParticle p, List<DetectorResponse> r, int[] c, DetectorType t, final int l, final boolean first) {
         int bestIndex = -1;
         double bestQuality = Double.POSITIVE_INFINITY;
-        for (int i=0; i<r.size(); i++) {
+        final int n = c == null ? r.size() : c.length;
+        for (int j=0; j<n; j++) {
+            final int i = c == null ? j : c[j];
             if (r.get(i).getAssociation()>=0 && !sharing) {
                 continue;
             }
@@ -66,6 +70,28 @@ public abstract class AMatch implements IMatch {
         return bestIndex;
     }
 
+    private int findMatch(DetectorParticle p, List<DetectorResponse> r, DetectorType t, final int l, final boolean first) {
+        return this.findMatch(p, r, null, t, l, first);
+    }
+
+    private int findMatch(DetectorParticle p, DetectorResponseIndex r, DetectorType t, final int l, final boolean first) {
+        return this.findMatch(p, r.getResponses(), this.getCandidates(p, r, t, l), t, l, first);
+    }
+
+    /**
+     * Find the responses in the index that can match the given particle.
+     * Subclasses whose matching is restricted to a spatial window should
+     * override this to only return the responses within that window.
+     * @param p the particle
+     * @param r the indexed responses
+     * @param t the requested detector type to consider
+     * @param l the requested detector layer to consider
+     * @return the indices of the candidate responses, in increasing order
+     */
+    protected int[] getCandidates(DetectorParticle p, DetectorResponseIndex r, DetectorType t, final int l) {
+        return r.getCandidates(t, l);
+    }
+
     /**
      * Find the first matching response in the given list for the given particle.
      * @param p the particle
@@ -116,6 +142,32 @@ public abstract class AMatch implements IMatch {
         return this.bestMatch(p, r, t, -1);
     }
 
+    /**
+     * Find the first matching response in the given index for the given particle.
+     * @param p the particle
+     * @param r the indexed responses
+     * @param t the requested detector type to consider
+     * @param l the requested detector layer to consider
+     * @return the index of the resulting match in the indexed list, else negative
+     */
+    @Override
+    public final int firstMatch(DetectorParticle p, DetectorResponseIndex r, DetectorType t, final int l) {
+        return this.findMatch(p, r, t, l, true);
+    }
+
+    /**
+     * Find the best matching response in the given index for the given particle.
+     * @param p the particle
+     * @param r the indexed responses
+     * @param t the requested detector type to consider
+     * @param l the requested detector layer to consider
+     * @return the index of the resulting match in the indexed list, else negative
+     */
+    @Override
+    public final int bestMatch(DetectorParticle p, DetectorResponseIndex r, DetectorType t, final int l) {
+        return this.findMatch(p, r, t, l, false);
+    }
+
     /**
      * Compare the quality of two particle-response pairs.
      * @param a
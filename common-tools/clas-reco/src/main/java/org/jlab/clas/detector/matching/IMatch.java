@@ -5,6 +5,7 @@ import java.util.List;
 import javafx.util.Pair;
 import org.jlab.clas.detector.DetectorParticle;
 import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.clas.detector.DetectorResponseIndex;
 import org.jlab.detector.base.DetectorType;
 
 /**
@@ -29,4 +30,10 @@ public interface IMatch extends Comparator<Pair<DetectorParticle,DetectorRespons
     public abstract int bestMatch(DetectorParticle p, List<DetectorResponse> r,
             DetectorType type);
 
+    public abstract int firstMatch(DetectorParticle p, DetectorResponseIndex r,
+            DetectorType type, final int layer);
+
+    public abstract int bestMatch(DetectorParticle p, DetectorResponseIndex r,
+            DetectorType type, final int layer);
+
 }
@@ -2,6 +2,8 @@ package org.jlab.clas.detector.matching;
 
 import org.jlab.clas.detector.DetectorParticle;
 import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.clas.detector.DetectorResponseIndex;
+import org.jlab.clas.detector.DetectorTrack.TrajectoryPoint;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.geom.prim.Point3D;
 
@@ -35,5 +37,18 @@ public class MatchTrajDistance extends AMatch {
         }
         return Double.POSITIVE_INFINITY;
     }
+
+    @Override
+    protected int[] getCandidates(DetectorParticle p, DetectorResponseIndex r, DetectorType t, final int l) {
+        if (t == null || l < 0) {
+            return super.getCandidates(p, r, t, l);
+        }
+        // only responses within the distance limit of the trajectory can match:
+        TrajectoryPoint tp = p.getTrackTrajectory().get(t.getDetectorId(), l);
+        if (tp == null) {
+            return new int[0];
+        }
+        return r.getCandidates(t, l, tp.getCross().origin(), this.distanceLimit);
+    }
  
 }
@@ -2,12 +2,15 @@ package org.jlab.clas.reco;
 
 import java.io.File;
 import java.nio.file.Files;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jlab.io.base.DataEvent;
+import org.jlab.io.hipo.HipoDataEvent;
 import org.jlab.io.hipo.HipoDataSource;
 import org.jlab.io.hipo.HipoDataSync;
 import org.jlab.utils.benchmark.ProgressPrintout;
@@ -15,6 +18,7 @@ import org.jlab.utils.options.OptionParser;
 import org.jlab.clara.engine.EngineData;
 import org.jlab.clara.engine.EngineDataType;
 import java.util.Arrays;
+import org.jlab.jnp.hipo4.data.Schema;
 import org.jlab.jnp.hipo4.data.SchemaFactory;
 import org.json.JSONObject;
 import org.jlab.logging.DefaultLogger;
@@ -33,6 +37,7 @@ public class EngineProcessor {
     private static final Logger LOGGER = Logger.getLogger(EngineProcessor.class.getPackage().getName());
     private boolean updateDictionary = true;
     private SchemaFactory banksToKeep = null;
+    private Set<Integer> bankKeysToKeep = null;
     private final List<String> schemaExempt = Arrays.asList("RUN::config","DC::tdc");
 
     public EngineProcessor(){}
@@ -89,10 +94,17 @@ public class EngineProcessor {
         LOGGER.log(Level.INFO, "Using schema directory:  "+schemaDirectory);
         banksToKeep = new SchemaFactory();
         banksToKeep.initFromDirectory(schemaDirectory);
+        bankKeysToKeep = new HashSet<>();
+        for (Schema schema : banksToKeep.getSchemaList()) {
+            bankKeysToKeep.add(HipoDataEvent.schemaKey(schema));
+        }
     }
 
     private void removeBanks(DataEvent event) {
-        if (banksToKeep != null) {
+        if (banksToKeep != null && event instanceof HipoDataEvent) {
+            ((HipoDataEvent) event).retainBanks(bankKeysToKeep);
+        }
+        else if (banksToKeep != null) {
             for (String bankName : event.getBankList()) {
                 if (!banksToKeep.hasSchema(bankName)) {
                     event.removeBank(bankName);
@@ -295,6 +307,8 @@ public class EngineProcessor {
             int eventCounter = 0;
             HipoDataSync   writer = new HipoDataSync();
             writer.setCompressionType(2);
+            // compress and write the output off the reconstruction thread:
+            writer.setWriteBehind(256);
 
             // this doesn't work (before or after "open"):
             //if (this.banksToKeep != null)
@@ -28,7 +28,9 @@ import org.jlab.io.base.DataEvent;
 import org.jlab.io.evio.EvioDataEvent;
 import org.jlab.io.evio.EvioFactory;
 import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.io.hipo.SchemaRegistry;
 import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.Schema;
 import org.jlab.jnp.hipo4.data.SchemaFactory;
 import org.jlab.utils.JsonUtils;
 import org.json.JSONException;
@@ -47,6 +49,7 @@ public abstract class ReconstructionEngine implements Engine {
     volatile ConstantsManager                       constantsManager;
     volatile ConcurrentMap<String,ConstantsManager> constManagerMap;
     volatile SchemaFactory                          engineDictionary;
+    volatile boolean                                privateDictionary = false;
 
     volatile ConcurrentMap<String,String>           engineConfigMap;
     volatile String                                 engineConfiguration = null;
@@ -74,10 +77,8 @@ public abstract class ReconstructionEngine implements Engine {
         engineAuthor  = author;
         engineVersion = version;
         constManagerMap   = new ConcurrentHashMap<>();
-        engineDictionary  = new SchemaFactory();
+        engineDictionary  = SchemaRegistry.getDefault();
         engineConfigMap   = new ConcurrentHashMap<>();
-        String env = System.getenv("CLAS12DIR");
-        engineDictionary.initFromDirectory( env +  "/etc/bankdefs/hipo4");
     }
    
     public ReconstructionEngine(String name, String author){ 
@@ -96,10 +97,29 @@ public abstract class ReconstructionEngine implements Engine {
         }
     }
 
+    /**
+     * @return the bank schemas, shared by all engines unless extended with
+     * {@link #addSchema(Schema)}, and then not to be modified
+     */
     protected SchemaFactory getSchemaFactory() {
         return this.engineDictionary;
     }
 
+    /**
+     * Add a schema private to this engine, switching from the shared schemas
+     * to a copy of them on the first call.
+     * @param schema 
+     */
+    protected synchronized void addSchema(Schema schema) {
+        if (!this.privateDictionary) {
+            SchemaFactory factory = new SchemaFactory();
+            factory.copy(this.engineDictionary);
+            this.engineDictionary = factory;
+            this.privateDictionary = true;
+        }
+        this.engineDictionary.addSchema(schema);
+    }
+
     protected RawBank getRawBankReader(String bankName) {
         return new RawDataBank(bankName, this.rawBankOrders);
     }
@@ -0,0 +1,72 @@
+package org.jlab.clas.detector;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.jlab.detector.base.DetectorType;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class DetectorParticleTest {
+
+    private static final DetectorType[] TYPES = {DetectorType.FTOF, DetectorType.ECAL};
+
+    // responses in sectors 0 to 6 and layers 1 to 3 within 100 cm of the
+    // origin, some of them already associated with another track
+    private static List<DetectorResponse> createResponses(Random random, int n) {
+        List<DetectorResponse> responses = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            DetectorResponse response = new DetectorResponse(random.nextInt(7), 1+random.nextInt(3), 1);
+            response.getDescriptor().setType(TYPES[random.nextInt(TYPES.length)]);
+            response.setPosition(200*random.nextDouble()-100, 200*random.nextDouble()-100, 200*random.nextDouble()-100);
+            if (random.nextInt(4) == 0) response.setAssociation(random.nextInt(3));
+            responses.add(response);
+        }
+        return responses;
+    }
+
+    private static DetectorParticle createParticle(Random random) {
+        DetectorTrack track = new DetectorTrack(random.nextInt(3)-1, 0, 0, 1);
+        track.setSector(random.nextInt(7));
+        track.addCross(200*random.nextDouble()-100, 200*random.nextDouble()-100, -200,
+                       0.2*random.nextDouble()-0.1, 0.2*random.nextDouble()-0.1, 1);
+        return new DetectorParticle(track);
+    }
+
+    private static int checkHits(List<DetectorResponse> responses, DetectorResponseIndex index, DetectorParticle particle) {
+        int nmatches = 0;
+        for (DetectorType type : TYPES) {
+            for (int layer = 0; layer <= 3; layer++) {
+                for (double threshold : new double[]{5, 20, 1000}) {
+                    final int hit = particle.getDetectorHit(responses, type, layer, threshold);
+                    assertEquals(hit, particle.getDetectorHit(index, type, layer, threshold));
+                    if (hit >= 0) {
+                        assertEquals(type, responses.get(hit).getDescriptor().getType());
+                        if (layer > 0) assertEquals(layer, responses.get(hit).getDescriptor().getLayer());
+                        nmatches++;
+                    }
+                }
+            }
+        }
+        return nmatches;
+    }
+
+    @Test
+    public void testIndexedHit() {
+        Random random = new Random(5);
+        int nmatches = 0;
+        for (int n = 0; n < 200; n++) {
+            List<DetectorResponse> responses = createResponses(random, random.nextInt(30));
+            DetectorResponseIndex index = new DetectorResponseIndex(responses);
+            for (int i = 0; i < 5; i++) {
+                nmatches += checkHits(responses, index, createParticle(random));
+            }
+            // responses added after the index was built are matched too
+            responses.addAll(createResponses(random, random.nextInt(5)));
+            for (int i = 0; i < 5; i++) {
+                nmatches += checkHits(responses, index, createParticle(random));
+            }
+        }
+        assertTrue(nmatches > 1000);
+    }
+}
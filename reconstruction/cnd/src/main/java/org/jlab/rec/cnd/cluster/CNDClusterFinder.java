@@ -2,6 +2,7 @@ package org.jlab.rec.cnd.cluster;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
@@ -14,6 +15,7 @@ import org.jlab.rec.cnd.hit.CndHit;
 
 import org.jlab.rec.cnd.cluster.CNDCluster;
 import org.jlab.rec.cnd.constants.CalibrationConstantsLoader;
+import org.jlab.rec.cnd.constants.Parameters;
 
 import java.lang.String;
 import java.lang.Double;
@@ -74,6 +76,11 @@ public class CNDClusterFinder {
 
         int size = hits.size();
         
+        // cluster seeds binned by layer and sector: the last cluster of each bin,
+        // and for each cluster the previous one in the same bin
+        int[] lastSeed = new int[Parameters.LayNum*Parameters.SectNum];
+        Arrays.fill(lastSeed, -1);
+        int[] previousSeed = new int[size];
         
         for (int i = 0; i < size; i++) {
             
@@ -84,36 +91,24 @@ public class CNDClusterFinder {
             closest_distance = 1.0e15;
             good_index = -1;
             
-            for(int k =0; k<j/*clustered_hits.size()*/; k++)
+            // compare with the seed hits of the clusters in the same layer and in the
+            // same or adjacent sectors, and take the last matching cluster
+            for(int ds = -1; ds <= 1; ds++)
             {
-                
-                for(int l=0; l<1/*clustered_hits.getItem(k).size()*/; l++)
+                int sector = (thisHit.Sector()-1 + ds + Parameters.SectNum) % Parameters.SectNum;
+                int bin = seedBin(thisHit.Layer(), sector+1);
+                for(int k = bin<0 ? -1 : lastSeed[bin]; k > good_index; k = previousSeed[k])
                 {
-                    //l is always 0, check with seed hit!!
-                    CndHit otherHit = (CndHit) clustered_hits.getItem(k).get(l);
+                    CndHit otherHit = (CndHit) clustered_hits.getItem(k).get(0);
 
-                    double deltaX = Math.abs(thisHit.X() - otherHit.X());
-                    double deltaY = Math.abs(thisHit.Y() - otherHit.Y());
                     double deltaZ = Math.abs(thisHit.Z() - otherHit.Z());
                     double deltaT = Math.abs(thisHit.Time() - otherHit.Time());
-                    double deltaLayer = Math.abs(thisHit.Layer() - otherHit.Layer());
-                    double deltaSector = thisHit.Sector() - otherHit.Sector();
 
-                    if (deltaZ / 10.0 < dZ && deltaT < dT && deltaLayer == 0
-                            && ((thisHit.Sector() != 1 && thisHit.Sector() != 24 && Math.abs(deltaSector) < 2)
-                                    || (thisHit.Sector() == 1
-                                            && (deltaSector == -1 || deltaSector == 0 || deltaSector == -23))
-                                    || (thisHit.Sector() == 24
-                                            && (deltaSector == 1 || deltaSector == 0 || deltaSector == 23)))) {
+                    if (deltaZ / 10.0 < dZ && deltaT < dT) {
                         good_index = k;
-
-                    } else {
-                        continue;
+                        break;
                     }
-                    
                 }
-                
-                
             }
             
             if(good_index==-1)
@@ -121,6 +116,11 @@ public class CNDClusterFinder {
                 
                 clustered_hits.add(new ArrayList<CndHit>(), j);
                 clustered_hits.getItem(j).add(thisHit);
+                int bin = seedBin(thisHit.Layer(), thisHit.Sector());
+                if(bin >= 0) {
+                    previousSeed[j] = lastSeed[bin];
+                    lastSeed[bin] = j;
+                }
                 j++;
                 
             }
@@ -240,6 +240,11 @@ public class CNDClusterFinder {
         return clusters;// returning ArrayList<CNDCluster> type; array of cluster found in the event
     }
     
+    private static int seedBin(int layer, int sector) {
+        if(layer < 1 || layer > Parameters.LayNum || sector < 1 || sector > Parameters.SectNum) return -1;
+        return (layer-1)*Parameters.SectNum + sector-1;
+    }
+    
     /// resolutions of CND hits
     /// unit : cm
     private double sigmaX(double x){ return 1.6; }
@@ -74,6 +74,11 @@ public class CndHitFinder {
 
 			int totrec = 0;      // counter for "good" reconstructions
 
+			// Bin the half-hits by sector, layer and component, so that each one is only
+			// matched with the half-hits of the coupled paddle:
+			int[] binStart = new int[Parameters.SectNum*Parameters.LayNum*Parameters.CompNum+1];
+			int[] binned = binHalfHits(halfhits, binStart);
+
 			for(int i = 0; i < (halfhits.size()); i++) 
 			{	
 				HalfHit hit1 = halfhits.get(i);   // first, get the half-hit			
@@ -85,17 +90,17 @@ public class CndHitFinder {
 				if (pad == 1) neigh = 2;  // the neighbouring paddle
 				else neigh = 1;
 
-				// Now loop through the half-hits again and match any which can give a physical reconstruction,
-				// but off-set the start of the list to make sure no repeats:
+				// Now loop through the half-hits of the coupled paddle, in the same sector and layer, and match
+				// any which can give a physical reconstruction, but off-set the start of the list to make sure no repeats:
+				int bin = binIndex(block, lay, neigh);
+				if (bin < 0) continue;
 
-				for (int j = i+1; j < halfhits.size(); j++) 
+				for (int b = binStart[bin]; b < binStart[bin+1]; b++) 
 				{	
+					int j = binned[b];
+					if (j <= i) continue;
 					HalfHit hit2 = halfhits.get(j);   // get the second half-hit	
 
-					if (block != hit2.Sector()) continue;             // half-hits must be in the same sector
-					if (lay != hit2.Layer()) continue;                // half-hits must be in the same layer					
-					if (hit2.Component() != neigh) continue;             // half-hits must come from coupled paddles
-
 					// Decide which one of the two signals is the direct and which one is indirect on the basis of timing.
 					// Works if effective velocities in the coupled paddles don't differ much.
 
@@ -275,26 +280,19 @@ public class CndHitFinder {
 
 			int ambig_rec[] = new int[totrec];  // to keep track of ambiguous reconstructions in the next loops
 
-			for (int i=0; i<totrec; i++)
+			// A reconstruction is ambiguous if one of its half-hits is used by another one:
+			int used[] = new int[halfhits.size()];
+			for(int i = 0; i < (HitArray.size()); i++)
 			{
-				ambig_rec[i] = 0;  // set all to zero before you start.
+				used[HitArray.get(i).index_d()]++;
+				used[HitArray.get(i).index_n()]++;
 			}
-
 			for(int i = 0; i < (HitArray.size()); i++)
 			{		
 				CndHit cndhit1 = HitArray.get(i);
-
-				for(int j = i+1; j < HitArray.size(); j++) 
+				if (used[cndhit1.index_d()] > 1 || used[cndhit1.index_n()] > 1)
 				{
-					CndHit cndhit2 = HitArray.get(j);   
-
-					if (i!=j){
-						if ((cndhit1.index_d() == cndhit2.index_d() || cndhit1.index_d() == cndhit2.index_n() || cndhit1.index_n() == cndhit2.index_d() || cndhit1.index_n() == cndhit2.index_n()))	
-						{
-							ambig_rec[i] = 1;  // set the flags for ambiguous reconstructions
-							ambig_rec[j] = 1;
-						}
-					}
+					ambig_rec[i] = 1;  // set the flags for ambiguous reconstructions
 				}
 			}
 
@@ -317,6 +315,36 @@ public class CndHitFinder {
 
 	} // findHits function		
 
+	/**
+	 * Sort the half-hit indices by sector, layer and component.
+	 * @param halfhits the half-hits
+	 * @param binStart filled with the start of each bin in the returned array, and its end in the next entry
+	 * @return the half-hit indices, in ascending order in each bin
+	 */
+	private static int[] binHalfHits(List<HalfHit> halfhits, int[] binStart)
+	{
+		for(HalfHit hit : halfhits) {
+			int bin = binIndex(hit.Sector(), hit.Layer(), hit.Component());
+			if (bin >= 0) binStart[bin+1]++;
+		}
+		for(int b = 1; b < binStart.length; b++) binStart[b] += binStart[b-1];
+		int[] fill = new int[binStart.length];
+		int[] binned = new int[binStart[binStart.length-1]];
+		for(int i = 0; i < halfhits.size(); i++) {
+			HalfHit hit = halfhits.get(i);
+			int bin = binIndex(hit.Sector(), hit.Layer(), hit.Component());
+			if (bin >= 0) binned[binStart[bin] + fill[bin]++] = i;
+		}
+		return binned;
+	}
+
+	private static int binIndex(int sector, int layer, int component)
+	{
+		if (sector < 1 || sector > Parameters.SectNum || layer < 1 || layer > Parameters.LayNum
+				|| component < 1 || component > Parameters.CompNum) return -1;
+		return ((sector-1)*Parameters.LayNum + layer-1)*Parameters.CompNum + component-1;
+	}
+
 
 	public double findLength(CndHit hit, List<CVTTrack> helices, int flag, CalibrationConstantsLoader ccdb) 
 	{
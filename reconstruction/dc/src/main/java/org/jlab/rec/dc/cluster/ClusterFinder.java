@@ -169,11 +169,11 @@ public class ClusterFinder {
      * @param allhits the list of unfitted hits
      * @param ct
      * @param cf
-     * @param DcDetector
-     * @return clusters of hits. Hit-based tracking linear fits to the wires are
-     * done to determine the clusters. The result is a fitted cluster
+     * @return clusters of hits from linear fits to the wires in the local
+     * superlayer coordinates, before the hit positions are computed from the
+     * geometry
      */
-    public List<FittedCluster> FindHitBasedClusters(List<Hit> allhits, ClusterCleanerUtilities ct, ClusterFitter cf, DCGeant4Factory DcDetector) {
+    public List<FittedCluster> FindLocalClusters(List<Hit> allhits, ClusterCleanerUtilities ct, ClusterFitter cf) {
 
         //fill array of hit
         this.fillHitArray(allhits, 0);
@@ -220,7 +220,6 @@ public class ClusterFinder {
         //		LOGGER.log(Level.FINER, h.printInfo());
         // create list of fitted clusters
         List<FittedCluster> fittedClusList = new ArrayList<>();
-        List<FittedCluster> refittedClusList = new ArrayList<>();
 
         for (FittedCluster clus : selectedClusList) {
 
@@ -242,6 +241,21 @@ public class ClusterFinder {
                 fittedClusList.addAll(splitClus);              
             }
         }
+        return fittedClusList;
+    }
+
+    /**
+     * @param allhits the list of unfitted hits
+     * @param ct
+     * @param cf
+     * @param DcDetector
+     * @return clusters of hits. Hit-based tracking linear fits to the wires are
+     * done to determine the clusters. The result is a fitted cluster
+     */
+    public List<FittedCluster> FindHitBasedClusters(List<Hit> allhits, ClusterCleanerUtilities ct, ClusterFitter cf, DCGeant4Factory DcDetector) {
+
+        List<FittedCluster> fittedClusList = this.FindLocalClusters(allhits, ct, cf);
+        List<FittedCluster> refittedClusList = new ArrayList<>();
         
         ArrayList rmHits = new ArrayList<FittedHit>();
         for (FittedCluster clus : fittedClusList) {
@@ -1,12 +1,10 @@
 package org.jlab.rec.dc.cross;
 
-import Jama.Matrix;
 import java.util.ArrayList;
 import java.util.List;
 import org.jlab.clas.swimtools.Swim;
 import org.jlab.detector.geant4.v2.DCGeant4Factory;
 import org.jlab.geom.prim.Point3D;
-import org.jlab.geom.prim.Vector3D;
 import org.jlab.io.base.DataEvent;
 import org.jlab.rec.dc.Constants;
 import org.jlab.rec.dc.cluster.ClusterFitter;
@@ -64,27 +62,27 @@ public class CrossListFinder  {
             double[] Z = new double[3];
             double[] errX = new double[3];
             double[] errY = new double[3];
-            Vector3D traj1 = new Vector3D(0,0,0);
-            Vector3D traj2 = new Vector3D(0,0,0);
-            Vector3D traj3 = new Vector3D(0,0,0);
 
             TrajectoryParametriz qf1 = new TrajectoryParametriz();
                             
             // need 3 crosses
             if(!dccrosslistRg1.isEmpty() && !dccrosslistRg2.isEmpty() && !dccrosslistRg3.isEmpty()) {
+                // only crosses in the same sector are combined
+                List<List<Cross>> dccrosslistRg2BySector = this.get_CrossesInSectors(dccrosslistRg2);
+                List<List<Cross>> dccrosslistRg3BySector = this.get_CrossesInSectors(dccrosslistRg3);
                 for(Cross c1 : dccrosslistRg1) {
-                    for(Cross c2 : dccrosslistRg2) {
-                        for(Cross c3 : dccrosslistRg3) {
-                            if(c1.get_Sector()!=c2.get_Sector() || c1.get_Sector()!=c3.get_Sector()) {
-                                this.clear(X, Y, Z, errX, errY);
+                    List<Cross> sectorRg2 = dccrosslistRg2BySector.get(c1.get_Sector()-1);
+                    List<Cross> sectorRg3 = dccrosslistRg3BySector.get(c1.get_Sector()-1);
+                    if(sectorRg2.isEmpty() || sectorRg3.isEmpty()) {
+                        continue;
+                    }
+                    for(Cross c2 : sectorRg2) {
+                        // with FOOS, at least one of the crosses must have no id
+                        boolean needsNoId = FOOS==true && c1.get_Id()!=-1 && c2.get_Id()!=-1;
+                        for(Cross c3 : sectorRg3) {
+                            if(needsNoId && c3.get_Id()!=-1) {
                                 continue;
                             }
-                            if(FOOS==true) {
-                                if(c1.get_Id()!=-1 && c2.get_Id()!=-1 && c3.get_Id()!=-1) {
-                                    this.clear(X, Y, Z, errX, errY);
-                                    continue;
-                                }
-                            }
                             Z[0] = c1.get_Point().z();
                             Y[0] = c1.get_Point().y();
                             X[0] = c1.get_Point().x();
@@ -105,13 +103,9 @@ public class CrossListFinder  {
                                 this.clear(qf1.fitResult[j]);
                             qf1.evaluate(Z, X, errX,Y,errY);
 
-                            traj1.setXYZ(qf1.fitResult[3][0],qf1.fitResult[4][0],qf1.fitResult[5][0]);
-                            traj2.setXYZ(qf1.fitResult[3][1],qf1.fitResult[4][1],qf1.fitResult[5][1]);
-                            traj3.setXYZ(qf1.fitResult[3][2],qf1.fitResult[4][2],qf1.fitResult[5][2]);
-
-                            double cosTh1 = traj1.dot(c1.get_Dir().toVector3D());
-                            double cosTh2 = traj2.dot(c2.get_Dir().toVector3D());
-                            double cosTh3 = traj3.dot(c3.get_Dir().toVector3D());
+                            double cosTh1 = qf1.cosDir(0, c1.get_Dir());
+                            double cosTh2 = qf1.cosDir(1, c2.get_Dir());
+                            double cosTh3 = qf1.cosDir(2, c3.get_Dir());
 
                             // require a line containing crosses in R1 and R2 to intersect the lab z coordinate line in the lab
                             // downstream of the position of the first cross
@@ -300,12 +294,18 @@ public class CrossListFinder  {
             {0.,0.,0.},
             {0.,0.,0.} };
 
+        // workspace of the quadratic fit, reused from one triplet to the next
+        private final double[][] A      = new double[3][3];
+        private final double[]   V      = new double[3];
+        private final double[][] LU     = new double[3][3];
+        private final double[]   LUcolj = new double[3];
+        private final int[]      piv    = new int[3];
+        private final double[][] Ainv   = new double[3][3];
+
         public double[] evaluate(double[] x, double[] y, double[] err, double[] y2, double[] err2) {
             LineFitter linefit = new LineFitter();
             linefit.fitStatus(x, y2, err, err, x.length);
             double[] ret = {0.,0.,0.};
-            Matrix A = new Matrix(3,3);
-            Matrix V = new Matrix(3,1);
             double sum1 = 0.0;
             double sum2 = 0.0;
             double sum3 = 0.0;
@@ -330,55 +330,124 @@ public class CrossListFinder  {
                 sum7 += y1 * x1/e2;
                 sum8 += y1/e2;
             }
-            A.set(0,0,sum1);
-            A.set(0,1,sum2);
-            A.set(0,2,sum3);
-            A.set(1,0,sum2);
-            A.set(1,1,sum3);
-            A.set(1,2,sum4);
-            A.set(2,0,sum3);
-            A.set(2,1,sum4);
-            A.set(2,2,sum5);
-            V.set(0,0,sum6);
-            V.set(1,0,sum7);
-            V.set(2,0,sum8);
-            Matrix Ainv = A.inverse();
-            Matrix X;
-            try {
-                X = Ainv.times(V);
-                for (int i = 0; i < 3; ++i) {
-                    ret[i] = X.get(i, 0);
+            A[0][0] = sum1;
+            A[0][1] = sum2;
+            A[0][2] = sum3;
+            A[1][0] = sum2;
+            A[1][1] = sum3;
+            A[1][2] = sum4;
+            A[2][0] = sum3;
+            A[2][1] = sum4;
+            A[2][2] = sum5;
+            V[0] = sum6;
+            V[1] = sum7;
+            V[2] = sum8;
+            this.invert();
+            for (int i = 0; i < 3; ++i) {
+                double s = 0.0;
+                for (int k = 0; k < 3; k++) {
+                    s += Ainv[i][k]*V[k];
                 }
-                for (int i = 0; i<x.length; i++) {
-                    
-                    double tiltSysXterm = ret[0]*x[i]*x[i]+ret[1]*x[i]+ret[2];
-                    double tiltSysYterm = linefit.getFit().slope()*x[i]+linefit.getFit().intercept();
-                    double tiltSysZterm = x[i];
-                    
-                    double dl = 0.01;
-                    double dQ = 2.*ret[0]*x[i]*dl+ret[1]*dl;
-                    double dL = linefit.getFit().slope()*dl;
-                    double Len = Math.sqrt(dl*dl + dQ*dQ + dL*dL) ;
-                    
-                    double tiltSysdirXterm = dQ/Len;
-                    double tiltSysdirYterm = dL/Len;
-                    double tiltSysdirZterm = dl/Len;
-                    
-                    fitResult[0][i] = tiltSysXterm;
-                    fitResult[1][i] = tiltSysYterm;
-                    fitResult[2][i] = tiltSysZterm;
-                    fitResult[3][i] = tiltSysdirXterm;
-                    fitResult[4][i] = tiltSysdirYterm;
-                    fitResult[5][i] = tiltSysdirZterm;
-                    
-                    
-                    //double n = ret[0]*x[i]*x[i]+ret[1]*x[i]+ret[2] - y[i];
-                    
-                }
-            } catch (ArithmeticException e) {
-                // TODO Auto-generated catch block
+                ret[i] = s;
+            }
+            for (int i = 0; i<x.length; i++) {
+
+                double tiltSysXterm = ret[0]*x[i]*x[i]+ret[1]*x[i]+ret[2];
+                double tiltSysYterm = linefit.getFit().slope()*x[i]+linefit.getFit().intercept();
+                double tiltSysZterm = x[i];
+
+                double dl = 0.01;
+                double dQ = 2.*ret[0]*x[i]*dl+ret[1]*dl;
+                double dL = linefit.getFit().slope()*dl;
+                double Len = Math.sqrt(dl*dl + dQ*dQ + dL*dL) ;
+
+                double tiltSysdirXterm = dQ/Len;
+                double tiltSysdirYterm = dL/Len;
+                double tiltSysdirZterm = dl/Len;
+
+                fitResult[0][i] = tiltSysXterm;
+                fitResult[1][i] = tiltSysYterm;
+                fitResult[2][i] = tiltSysZterm;
+                fitResult[3][i] = tiltSysdirXterm;
+                fitResult[4][i] = tiltSysdirYterm;
+                fitResult[5][i] = tiltSysdirZterm;
             }
             return(ret);
         }
+
+        /**
+         * @param i the point index
+         * @param dir a unit direction
+         * @return the cosine of the angle between the trajectory at point i and dir
+         */
+        public double cosDir(int i, Point3D dir) {
+            return fitResult[3][i]*dir.x() + fitResult[4][i]*dir.y() + fitResult[5][i]*dir.z();
+        }
+
+        // inverse of A, by LU decomposition with partial pivoting, with the same
+        // sequence of operations as Jama Matrix.inverse()
+        private void invert() {
+            int n = 3;
+            for (int i = 0; i < n; i++) {
+                System.arraycopy(A[i], 0, LU[i], 0, n);
+                piv[i] = i;
+            }
+            for (int j = 0; j < n; j++) {
+                for (int i = 0; i < n; i++) {
+                    LUcolj[i] = LU[i][j];
+                }
+                for (int i = 0; i < n; i++) {
+                    int kmax = Math.min(i,j);
+                    double s = 0.0;
+                    for (int k = 0; k < kmax; k++) {
+                        s += LU[i][k]*LUcolj[k];
+                    }
+                    LU[i][j] = LUcolj[i] -= s;
+                }
+                int p = j;
+                for (int i = j+1; i < n; i++) {
+                    if (Math.abs(LUcolj[i]) > Math.abs(LUcolj[p])) p = i;
+                }
+                if (p != j) {
+                    double[] row = LU[p];
+                    LU[p] = LU[j];
+                    LU[j] = row;
+                    int k = piv[p];
+                    piv[p] = piv[j];
+                    piv[j] = k;
+                }
+                if (LU[j][j] != 0.0) {
+                    for (int i = j+1; i < n; i++) {
+                        LU[i][j] /= LU[j][j];
+                    }
+                }
+            }
+            for (int j = 0; j < n; j++) {
+                if (LU[j][j] == 0) throw new RuntimeException("Matrix is singular.");
+            }
+            // solve L*U*Ainv = permuted identity
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    Ainv[i][j] = piv[i]==j ? 1.0 : 0.0;
+                }
+            }
+            for (int k = 0; k < n; k++) {
+                for (int i = k+1; i < n; i++) {
+                    for (int j = 0; j < n; j++) {
+                        Ainv[i][j] -= Ainv[k][j]*LU[i][k];
+                    }
+                }
+            }
+            for (int k = n-1; k >= 0; k--) {
+                for (int j = 0; j < n; j++) {
+                    Ainv[k][j] /= LU[k][k];
+                }
+                for (int i = 0; i < k; i++) {
+                    for (int j = 0; j < n; j++) {
+                        Ainv[i][j] -= Ainv[k][j]*LU[i][k];
+                    }
+                }
+            }
+        }
     }
 }
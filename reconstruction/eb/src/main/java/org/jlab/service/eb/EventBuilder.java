@@ -16,6 +16,7 @@ import org.jlab.clas.detector.DetectorEvent;
 import org.jlab.clas.detector.DetectorParticle;
 import org.jlab.clas.detector.DetectorParticleTraj;
 import org.jlab.clas.detector.DetectorResponse;
+import org.jlab.clas.detector.DetectorResponseIndex;
 import org.jlab.clas.detector.DetectorTrack;
 import org.jlab.clas.detector.TaggerResponse;
 import org.jlab.clas.detector.CherenkovResponse;
@@ -112,6 +113,10 @@ public class EventBuilder {
      */
     public void processHitMatching(){
         
+        // responses by detector type/layer/position, to avoid comparing
+        // every track with every response:
+        DetectorResponseIndex responseIndex = new DetectorResponseIndex(detectorResponses);
+
         int np = detectorEvent.getParticles().size();
         for(int n = 0; n < np; n++){
             DetectorParticle  p = this.detectorEvent.getParticle(n);
@@ -124,14 +129,14 @@ public class EventBuilder {
             if (p.getTrackDetectorID()==DetectorType.DC.getDetectorId()) {
 
                 // FTOF:
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 1, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1A));
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 2, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1B));
-                findMatchingHit(n,p,detectorResponses,DetectorType.FTOF, 3, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_2));
+                findMatchingHit(n,p,responseIndex,DetectorType.FTOF, 1, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1A));
+                findMatchingHit(n,p,responseIndex,DetectorType.FTOF, 2, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_1B));
+                findMatchingHit(n,p,responseIndex,DetectorType.FTOF, 3, ccdb.getDouble(EBCCDBEnum.FTOF_MATCHING_2));
                 
                 // ECAL:
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 1, ccdb.getDouble(EBCCDBEnum.PCAL_MATCHING));
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 4, ccdb.getDouble(EBCCDBEnum.ECIN_MATCHING));
-                findMatchingHit(n,p,detectorResponses,DetectorType.ECAL, 7, ccdb.getDouble(EBCCDBEnum.ECOUT_MATCHING));
+                findMatchingHit(n,p,responseIndex,DetectorType.ECAL, 1, ccdb.getDouble(EBCCDBEnum.PCAL_MATCHING));
+                findMatchingHit(n,p,responseIndex,DetectorType.ECAL, 4, ccdb.getDouble(EBCCDBEnum.ECIN_MATCHING));
+                findMatchingHit(n,p,responseIndex,DetectorType.ECAL, 7, ccdb.getDouble(EBCCDBEnum.ECOUT_MATCHING));
 
                 // LTCC:
                 int index = p.getCherenkovSignal(this.detectorResponses,DetectorType.LTCC);
@@ -143,10 +148,10 @@ public class EventBuilder {
 
             // only match with CTOF/CND if it's a central track:
             else if (p.getTrackDetectorID()==DetectorType.CVT.getDetectorId()) {
-                findMatchingHit(n,p,detectorResponses,DetectorType.CTOF,1, ccdb.getDouble(EBCCDBEnum.CTOF_DZ));
-                findMatchingHit(n,p,detectorResponses,DetectorType.CND,1, this.cndMatcher );
-                findMatchingHit(n,p,detectorResponses,DetectorType.CND,2, this.cndMatcher );
-                findMatchingHit(n,p,detectorResponses,DetectorType.CND,3, this.cndMatcher );
+                findMatchingHit(n,p,responseIndex,DetectorType.CTOF,1, ccdb.getDouble(EBCCDBEnum.CTOF_DZ));
+                findMatchingHit(n,p,responseIndex,DetectorType.CND,1, this.cndMatcher );
+                findMatchingHit(n,p,responseIndex,DetectorType.CND,2, this.cndMatcher );
+                findMatchingHit(n,p,responseIndex,DetectorType.CND,3, this.cndMatcher );
             }
 
             // set dedx by combining trajectory information with hit energy:
@@ -196,34 +201,39 @@ public class EventBuilder {
             final int pindex, DetectorParticle particle, List<DetectorResponse> responses,
             DetectorType type, final int layer, final double distance) {
         int index = particle.getDetectorHit(responses,type,layer,distance);
-        if (index>=0) {
-            // if sharing hits between tracks, duplicate it:
-            if (responses.get(index).getAssociation() >= 0) {
-                //System.out.println(responses.get(index).getClass());
-                //DetectorResponse copy = new DetectorResponse();
-                //copy.copy(responses.get(index));
-                DetectorResponse copy = DetectorResponseFactory.create(responses.get(index));
-                copy.clearAssociations();
-                responses.add(copy);
-                index = responses.size()-1;
-            }
-            particle.addResponse(responses.get(index),true);
-            responses.get(index).addAssociation(pindex);
-            return true;
-        }
-        return false;
+        return this.associate(pindex, particle, responses, index);
     }
     
     public boolean findMatchingHit(
             final int pindex, DetectorParticle particle, List<DetectorResponse> responses,
             DetectorType type, final int layer, IMatch matcher) {
         int index = matcher.bestMatch(particle, responses, type, layer);
+        return this.associate(pindex, particle, responses, index);
+    }
+
+    /**
+     * Same as {@link #findMatchingHit(int, DetectorParticle, List, DetectorType, int, double)},
+     * using the index to only consider responses of the given type and layer near the track.
+     */
+    public boolean findMatchingHit(
+            final int pindex, DetectorParticle particle, DetectorResponseIndex responses,
+            DetectorType type, final int layer, final double distance) {
+        return this.associate(pindex, particle, responses.getResponses(),
+                particle.getDetectorHit(responses,type,layer,distance));
+    }
+
+    public boolean findMatchingHit(
+            final int pindex, DetectorParticle particle, DetectorResponseIndex responses,
+            DetectorType type, final int layer, IMatch matcher) {
+        return this.associate(pindex, particle, responses.getResponses(),
+                matcher.bestMatch(particle, responses, type, layer));
+    }
+
+    private boolean associate(final int pindex, DetectorParticle particle,
+            List<DetectorResponse> responses, int index) {
         if (index>=0) {
             // if sharing hits between tracks, duplicate it:
             if (responses.get(index).getAssociation() >= 0) {
-                //System.out.println(responses.get(index).getClass());
-                //DetectorResponse copy = new DetectorResponse();
-                //copy.copy(responses.get(index));
                 DetectorResponse copy = DetectorResponseFactory.create(responses.get(index));
                 copy.clearAssociations();
                 responses.add(copy);
@@ -59,9 +59,8 @@ public class ECDisplay extends JPanel implements IDataEventListener {
 
 
 
-        List<ECStrip>  ecStrips = ECCommon.initEC(de, detectorEngine.getConstantsManager());
-        List<ECPeak> ecPeaksALL = ECCommon.createPeaks(ecStrips);
-        List<ECPeak> ecPeaks    = ECCommon.processPeaks(ecPeaksALL);
+        List<ECStrip>  ecStrips = detectorEngine.getStrips();
+        List<ECPeak> ecPeaks    = detectorEngine.getPeaks();
         
         DetectorShape2D shapeP = new DetectorShape2D(DetectorType.ECAL,0,0,0);
         
@@ -85,7 +84,7 @@ public class ECDisplay extends JPanel implements IDataEventListener {
             
         }
         System.out.println("*****************  CLUSTERS ");
-        List<ECCluster> cPCAL  = ECCommon.createClusters(ecPeaks,1);
+        List<ECCluster> cPCAL  = ECCommon.createClusters(detectorEngine.getContext(),ecPeaks,1);
         for(ECCluster c : cPCAL){
             System.out.println(c);
         }
@@ -25,12 +25,6 @@ import org.jlab.utils.groups.IndexedTable;
 
 public class ECCommon {
 	
-    public static Detector        ecDetector = null; 
-        
-    public static List<ECStrip>     myStrips = new ArrayList<ECStrip>();
-    public static List<ECPeak>       myPeaks = new ArrayList<ECPeak>();
-    public static List<ECCluster> myClusters = new ArrayList<ECCluster>();
-    
     public static int[]      stripThreshold = new int[3];
     public static int[]       peakThreshold = new int[3]; 
     public static int[]    clusterThreshold = new int[3];
@@ -39,7 +33,6 @@ public class ECCommon {
     
     public static int               touchID = 1;
     public static int           splitMethod = 0;
-    public static int       stripSortMethod = 0;
     public static int[]         splitThresh = new int[3];
     
     public static Boolean              isMC = false;
@@ -78,8 +71,6 @@ public class ECCommon {
     static int ind[]  = {0,0,0,1,1,1,2,2,2}; 
     static float               tps = 0.02345f;
     public static float       veff = 18.1f;
-    static int nclus, slast;
-    static float maxerr;
     
     public  static void initHistos() {
     	int[] bins = {480,240,120};       
@@ -124,29 +115,11 @@ public class ECCommon {
     	singleEvent = val;
     }
     
-    public static void clearMyStructures() {
-    	getMyStrips().clear();
-    	getMyPeaks().clear();
-    	getMyClusters().clear();
-    }
-    
-    public static List<ECStrip> getMyStrips() {
-    	return myStrips;
-    }
-    
-    public static List<ECPeak> getMyPeaks() {
-    	return myPeaks;
-    }
-    
-    public static List<ECCluster> getMyClusters() {
-    	return myClusters;
-    }
-    
     public static int  getRunNumber(DataEvent de) {
     	return (de.hasBank("RUN::config") ? (int) de.getBank("RUN::config").getInt("run", 0) : 10);
     }
     
-    public static List<ECStrip>  initEC(DataEvent event,  ConstantsManager manager){
+    public static List<ECStrip>  initEC(ECContext ctx, DataEvent event,  ConstantsManager manager){
     	
         int run = getRunNumber(event);
         
@@ -173,13 +146,13 @@ public class ECCommon {
     
         if(singleEvent) resetHistos();        
         
-        List<ECStrip>  ecStrips = null;
+        List<ECStrip>  ecStrips = ctx.getStrips();
         
-        ecStrips = ECCommon.readStripsHipo(event, run, manager);  
+        ECCommon.readStripsHipo(event, run, manager, ecStrips);  
         
-        if(ecStrips==null) return new ArrayList<ECStrip>();
+        Collections.sort(ecStrips); //sort by sector, layer, component
         
-        stripSortMethod=0; Collections.sort(ecStrips); //sort by sector, layer, component
+        Detector ecDetector = ctx.getDetector();
         
         for(ECStrip strip : ecStrips){
             int sector    = strip.getDescriptor().getSector();
@@ -308,10 +281,12 @@ public class ECCommon {
     }
         
     public static List<ECStrip>  readStripsHipo(DataEvent event, int run, ConstantsManager manager){ 
+        return readStripsHipo(event, run, manager, new ArrayList<ECStrip>());
+    }
+    
+    public static List<ECStrip>  readStripsHipo(DataEvent event, int run, ConstantsManager manager, List<ECStrip> strips){ 
     	
         IndexedList<List<Integer>>  tdcs = new IndexedList<List<Integer>>(3);          
-
-    	List<ECStrip>  strips = new ArrayList<ECStrip>();
       	
         IndexedTable    jitter = manager.getConstants(run, "/calibration/ec/time_jitter");
         IndexedTable        fo = manager.getConstants(run, "/calibration/ec/fadc_offset");        // TDC-FADC offset (sector, layer) 
@@ -448,8 +423,8 @@ public class ECCommon {
         return peakList;
     }
     
-    public static List<ECCluster>  createClusters(List<ECPeak>  peaks, int layer){ 
-       return filterClusters(processClusters(getClusters(peaks,layer)));       
+    public static List<ECCluster>  createClusters(ECContext ctx, List<ECPeak>  peaks, int layer){ 
+       return filterClusters(processClusters(getClusters(ctx,peaks,layer)));       
     }
     
     public static boolean goodPeaks(int sector, int layer, List<ECPeak> peaks) {
@@ -459,7 +434,7 @@ public class ECCommon {
         return pU.size()>0 && pV.size()>0 && pW.size()>0;
     }
     
-    public static List<ECCluster> getClusters(List<ECPeak> peaks, int layer) {
+    public static List<ECCluster> getClusters(ECContext ctx, List<ECPeak> peaks, int layer) {
     	
         List<ECCluster> clusters = new ArrayList<ECCluster>();
         
@@ -467,16 +442,16 @@ public class ECCommon {
         
         for(int sector = 1; sector <= 6; sector++){ 
         	if(!goodPeaks(sector,layer,peaks)) continue;
-            nclus=0; maxerr=0;
+            ctx.nclus=0; ctx.maxerr=0;
             for (ECPeak pu : getPeaks(sector,layer,peaks)) {
                 for (ECPeak pv : getPeaks(sector,layer+1,peaks)) {
                     for (ECPeak pw : getPeaks(sector,layer+2,peaks)) {
                     	ECCluster c = new ECCluster(pu,pv,pw);
-                        clusters.add(c); if(isSingleThreaded) processSingleThreaded(c);
+                        clusters.add(c); if(isSingleThreaded) processSingleThreaded(ctx,c);
                     }
                 }
             }
-            if(isSingleThreaded) H2_ecEng.get(sector,ind[layer-1]+1,1).fill(nclus,maxerr);
+            if(isSingleThreaded) H2_ecEng.get(sector,ind[layer-1]+1,1).fill(ctx.nclus,ctx.maxerr);
         }        
         return clusters;        
     }
@@ -501,7 +476,7 @@ public class ECCommon {
         return filtClusters;   
     }
     
-    public static void processSingleThreaded(ECCluster c) {  //not used in clara  
+    public static void processSingleThreaded(ECContext ctx, ECCluster c) {  //not used in clara  
     	int s = c.getDescriptor().getSector(); 
     	int l = c.getDescriptor().getLayer();
     	List<ECPeak> p = c.getPeaks();
@@ -511,7 +486,7 @@ public class ECCommon {
     	if(l==1 && zone<2) H1_ecEng.get(s,1,10+zone).fill(err);
     	if(l==1 && zone>1) H1_ecEng.get(s,1,12).fill(err); 
     	                          H1_ecEng.get(s,ind[l-1]+1,0).fill(err); 
-    	if(gc&&isGoodCluster(c)) {H1_ecEng.get(s,ind[l-1]+1,1).fill(err); nclus++; if(err>maxerr) maxerr=err;} 
+    	if(gc&&isGoodCluster(c)) {H1_ecEng.get(s,ind[l-1]+1,1).fill(err); ctx.nclus++; if(err>ctx.maxerr) ctx.maxerr=err;} 
     }    
 
     public static void shareClustersEnergy(List<ECCluster> clusters){
@@ -563,7 +538,7 @@ public class ECCommon {
         return 0;
     }
     
-    public static List<ECCluster>  OldcreateClusters(List<ECPeak>  peaks, int startLayer){
+    public static List<ECCluster>  OldcreateClusters(ECContext ctx, List<ECPeak>  peaks, int startLayer){
 
         List<ECCluster>   clusters = new ArrayList<ECCluster>();
         
@@ -580,7 +555,7 @@ public class ECCommon {
                     " W " + pW.size()
             );*/
             
-           nclus=0; maxerr=0;
+           ctx.nclus=0; ctx.maxerr=0;
            
            if(pU.size()>0&&pV.size()>0&&pW.size()>0){  //U,V,W peaks required for cluster
                 for(int bU = 0; bU < pU.size();bU++){
@@ -601,15 +576,15 @@ public class ECCommon {
                             	if(startLayer==1 && zone>1) H1_ecEng.get(sector,1,12).fill(err);
                             }
                             if(err<clusterSize[ind[startLayer-1]]) {
-                            	if(err>maxerr) maxerr=err;
+                            	if(err>ctx.maxerr) ctx.maxerr=err;
                                 if(isSingleThreaded)H1_ecEng.get(sector,ind[startLayer-1]+1,1).fill(err);                               
-								if(isGoodCluster(cluster)) {clusters.add(cluster);nclus++;}
+								if(isGoodCluster(cluster)) {clusters.add(cluster);ctx.nclus++;}
                             }
                         }
                     }
                 }
             }           
-            if(isSingleThreaded) H2_ecEng.get(sector,ind[startLayer-1]+1,1).fill(nclus,maxerr);             
+            if(isSingleThreaded) H2_ecEng.get(sector,ind[startLayer-1]+1,1).fill(ctx.nclus,ctx.maxerr);             
         }
 
         for (ECCluster c : clusters) c.setEnergy();
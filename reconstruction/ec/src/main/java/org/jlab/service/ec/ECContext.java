@@ -0,0 +1,57 @@
+package org.jlab.service.ec;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.jlab.geom.base.Detector;
+
+/**
+ * Per-thread reconstruction state for ECEngine:  the detector geometry used
+ * to build strip lines, plus the strip, peak and cluster lists of the event
+ * currently being processed.  The lists are cleared and reused from one
+ * event to the next, so an engine keeps at most one event's objects per
+ * thread and several engines can run concurrently in the same JVM.
+ */
+public class ECContext {
+
+    private final Detector ecDetector;
+
+    private final List<ECStrip>     strips = new ArrayList<>();
+    private final List<ECPeak>       peaks = new ArrayList<>();
+    private final List<ECCluster> clusters = new ArrayList<>();
+
+    // single-threaded monitoring counters, see ECCommon.processSingleThreaded:
+    int nclus;
+    float maxerr;
+
+    public ECContext(Detector detector) {
+        this.ecDetector = detector;
+    }
+
+    public Detector getDetector() {
+        return ecDetector;
+    }
+
+    public List<ECStrip> getStrips() {
+        return strips;
+    }
+
+    public List<ECPeak> getPeaks() {
+        return peaks;
+    }
+
+    public List<ECCluster> getClusters() {
+        return clusters;
+    }
+
+    /**
+     * Reset for the next event, keeping the allocated storage.
+     */
+    public void clear() {
+        strips.clear();
+        peaks.clear();
+        clusters.clear();
+        nclus = 0;
+        maxerr = 0;
+    }
+
+}
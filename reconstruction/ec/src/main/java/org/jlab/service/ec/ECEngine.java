@@ -1,6 +1,5 @@
 package org.jlab.service.ec;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -11,6 +10,7 @@ import org.jlab.clas.reco.ReconstructionEngine;
 import org.jlab.detector.base.DetectorCollection;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.detector.base.GeometryFactory;
+import org.jlab.geom.base.Detector;
 import org.jlab.groot.data.H1F;
 import org.jlab.groot.data.H2F;
 import org.jlab.io.base.DataBank;
@@ -25,20 +25,38 @@ public class ECEngine extends ReconstructionEngine {
 
     public static Logger LOGGER = Logger.getLogger(ECEngine.class.getName());
     
+    private Detector ecDetector = null;
+    
+    // per-thread event state, so that neither this engine nor other instances
+    // in the same JVM share strips, peaks or clusters between events:
+    private final ThreadLocal<ECContext> context = ThreadLocal.withInitial(this::createContext);
+    
     public ECEngine(){
         super("EC","gavalian","1.0");
     }
+
+    private ECContext createContext() {
+        if (ecDetector == null) {
+            throw new IllegalStateException("ECEngine:  init() must be called before processing events");
+        }
+        return new ECContext(ecDetector);
+    }
     
     @Override
     public boolean processDataEvent(DataEvent de) {
+        
+        ECContext ctx = context.get();
+        ctx.clear();
                            
-        List<ECStrip>     ecStrips = ECCommon.initEC(de, this.getConstantsManager()); // thresholds, ADC/TDC match        
-        List<ECPeak>       ecPeaks = ECCommon.processPeaks(ECCommon.createPeaks(ecStrips)); // thresholds, split peaks -> update peak-lines          
-        List<ECCluster> ecClusters = new ArrayList<ECCluster>();  
+        List<ECStrip>     ecStrips = ECCommon.initEC(ctx, de, this.getConstantsManager()); // thresholds, ADC/TDC match        
+        List<ECPeak>       ecPeaks = ctx.getPeaks();
+        List<ECCluster> ecClusters = ctx.getClusters();  
         
-        List<ECCluster> tmpPCAL  = ECCommon.createClusters(ecPeaks,1);
-        List<ECCluster> tmpECIN  = ECCommon.createClusters(ecPeaks,4);
-        List<ECCluster> tmpECOUT = ECCommon.createClusters(ecPeaks,7);
+        ecPeaks.addAll(ECCommon.processPeaks(ECCommon.createPeaks(ecStrips))); // thresholds, split peaks -> update peak-lines          
+        
+        List<ECCluster> tmpPCAL  = ECCommon.createClusters(ctx,ecPeaks,1);
+        List<ECCluster> tmpECIN  = ECCommon.createClusters(ctx,ecPeaks,4);
+        List<ECCluster> tmpECOUT = ECCommon.createClusters(ctx,ecPeaks,7);
         
         // - Thsi is the part that identifies clusters with 2 views shared,
         // - and picks the one with best cluster size.
@@ -85,13 +103,6 @@ public class ECEngine extends ReconstructionEngine {
         
         if (ECCommon.debug) printDebug(ecStrips,ecPeaks,ecClusters);  
         
-        if (ECCommon.isSingleThreaded) {
-        	ECCommon.clearMyStructures();
-        	getStrips().addAll(ecStrips);
-        	getPeaks().addAll(ecPeaks);
-        	getClusters().addAll(ecClusters);
-        }
-        
         return true;
     }
     
@@ -112,16 +123,23 @@ public class ECEngine extends ReconstructionEngine {
     	}    	
     }
         
+    /**
+     * @return the reconstruction state of the last event processed by the calling thread
+     */
+    public ECContext getContext() {
+        return context.get();
+    }
+    
     public List<ECStrip> getStrips() {
-	    return ECCommon.getMyStrips();    		
+	    return getContext().getStrips();    		
     }
     
     public List<ECPeak> getPeaks() {
-	    return ECCommon.getMyPeaks();    
+	    return getContext().getPeaks();    
     }
     
     public List<ECCluster> getClusters() {
-	    return ECCommon.getMyClusters();    
+	    return getContext().getClusters();    
     }    
         
     private void writeHipoBanks(DataEvent de, 
@@ -428,7 +446,7 @@ public class ECEngine extends ReconstructionEngine {
         String variationName = Optional.ofNullable(this.getEngineConfigString("variation")).orElse("default");
         if(!(ECCommon.geomVariation.equals("default"))) variationName = ECCommon.geomVariation;
         LOGGER.log(Level.INFO,"GEOMETRY VARIATION IS "+variationName);
-        ECCommon.ecDetector =  GeometryFactory.getDetector(DetectorType.ECAL,11,variationName);
+        ecDetector =  GeometryFactory.getDetector(DetectorType.ECAL,11,variationName);
 
         setConfig("test");
         
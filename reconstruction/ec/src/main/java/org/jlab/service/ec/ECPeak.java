@@ -351,8 +351,7 @@ public class ECPeak implements Comparable {
     int new_getSplitIndex() { //split2: lcsmith method sorts striplist by energy + dipfinder.  Peaklist split only once.
     	int split = -1;   	
         if(!peakSplit && peakStrips.size()>ECCommon.splitThresh[ind[getDescriptor().getLayer()-1]]){
-        	ECCommon.stripSortMethod=ECCommon.splitMethod; 
-         	List<ECStrip> sortStrips = new ArrayList<ECStrip>(); sortStrips.addAll(peakStrips); Collections.sort(sortStrips);          	
+         	List<ECStrip> sortStrips = new ArrayList<ECStrip>(); sortStrips.addAll(peakStrips); Collections.sort(sortStrips,ECStrip.comparator(ECCommon.splitMethod));          	
         	return setSplitStrip(getDipIndex(sortpair(sortStrips,0,1)));
         }    	
     	return split;
@@ -423,7 +422,7 @@ public class ECPeak implements Comparable {
         	for (int i = 0; i < sl.size(); i++) if (isMax(sl, sl.size(), sl.get(i).getEnergy(), i-1, i+1)) mxs.add(sl.get(i)); 
         	for (int i = 0; i < sl.size(); i++) if (isMin(sl, sl.size(), sl.get(i).getEnergy(), i-1, i+1)) mns.add(i); 
         	      
-        	ECCommon.stripSortMethod=ECCommon.splitMethod; Collections.sort(mxs); 
+        	Collections.sort(mxs,ECStrip.comparator(ECCommon.splitMethod)); 
         	
         	if(ECCommon.debugSplit) {        	
         		System.out.println(" ");
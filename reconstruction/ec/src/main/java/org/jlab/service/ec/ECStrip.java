@@ -1,5 +1,6 @@
 package org.jlab.service.ec;
 
+import java.util.Comparator;
 import org.jlab.detector.base.DetectorDescriptor;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.geom.prim.Line3D;
@@ -478,9 +479,24 @@ public class ECStrip implements Comparable {
         return false;
     } 
     
+    /**
+     * Sorts by sector, layer and component.
+     */
     public int compareTo(Object o) {
-        ECStrip ob = (ECStrip) o;
-        if (ECCommon.stripSortMethod==0) {
+        return compare(this, (ECStrip) o, 0);
+    }
+    
+    /**
+     * @param method 0 to sort by sector, layer and component, otherwise by decreasing energy
+     * @return the strip comparator for the given sort method
+     */
+    public static Comparator<ECStrip> comparator(int method) {
+        return (a, b) -> compare(a, b, method);
+    }
+    
+    private static int compare(ECStrip a, ECStrip ob, int method) {
+        DetectorDescriptor desc = a.getDescriptor();
+        if (method==0) {
             if(ob.getDescriptor().getSector()     < desc.getSector())    return  1;
             if(ob.getDescriptor().getSector()     > desc.getSector())    return -1;
             if(ob.getDescriptor().getLayer()      < desc.getLayer())     return  1;
@@ -488,8 +504,8 @@ public class ECStrip implements Comparable {
             if(ob.getDescriptor().getComponent() <  desc.getComponent()) return  1;
             if(ob.getDescriptor().getComponent() == desc.getComponent()) return  0;
         } else {
-        	if(ob.getEnergy()                       > getEnergy())            return  1;
-        	if(ob.getEnergy()                       < getEnergy())            return -1;
+        	if(ob.getEnergy()                       > a.getEnergy())          return  1;
+        	if(ob.getEnergy()                       < a.getEnergy())          return -1;
         }
         return -1;
     }
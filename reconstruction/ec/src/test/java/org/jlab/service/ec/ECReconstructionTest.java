@@ -1,8 +1,15 @@
 package org.jlab.service.ec;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
+import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
 
 import org.jlab.analysis.physics.TestEvent;
@@ -41,4 +48,68 @@ public class ECReconstructionTest {
     assertEquals(testEvent.getBank("ECAL::clusters").rows(), 3);    
   }
 
+  @Test
+  public void testECReconstructionMultiThreaded() throws Exception {
+    DefaultLogger.debug();
+
+    System.setProperty("CLAS12DIR", "../../");
+
+    String dir = ClasUtilsFile.getResourceDir("CLAS12DIR", "etc/bankdefs/hipo4");
+    SchemaFactory schemaFactory = new SchemaFactory();
+    schemaFactory.initFromDirectory(dir);
+
+    // single-threaded reference:
+    ECEngine reference = new ECEngine();
+    reference.init();
+    DataEvent referenceEvent = TestEvent.getECSector1PhotonEvent(schemaFactory);
+    reference.processDataEvent(referenceEvent);
+    String expected = dumpBanks(referenceEvent);
+
+    // several engines, each shared by several threads:
+    final int nEngines = 2;
+    final int nThreads = 4;
+    final int nEvents  = 50;
+    List<ECEngine> engines = new ArrayList<>();
+    for (int i=0; i<nEngines; i++) {
+      ECEngine engine = new ECEngine();
+      engine.init();
+      engines.add(engine);
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(nThreads);
+    List<Future<String>> results = new ArrayList<>();
+    for (int i=0; i<nEvents; i++) {
+      final ECEngine engine = engines.get(i%nEngines);
+      results.add(pool.submit(() -> {
+        DataEvent event = TestEvent.getECSector1PhotonEvent(schemaFactory);
+        engine.processDataEvent(event);
+        return dumpBanks(event);
+      }));
+    }
+    pool.shutdown();
+
+    for (Future<String> result : results) {
+      assertEquals(expected, result.get());
+    }
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testNoInit() {
+    new ECEngine().getContext();
+  }
+
+  private static String dumpBanks(DataEvent event) {
+    StringBuilder str = new StringBuilder();
+    for (String name : new String[]{"ECAL::hits","ECAL::peaks","ECAL::clusters"}) {
+      DataBank bank = event.getBank(name);
+      str.append(name).append(" ").append(bank.rows()).append("\n");
+      for (int row=0; row<bank.rows(); row++) {
+        str.append(String.format("%d %d %.5f %.5f\n",
+                bank.getByte("sector",row), bank.getByte("layer",row),
+                bank.getFloat("energy",row), bank.getFloat("time",row)));
+      }
+    }
+    return str.toString();
+  }
+
 }
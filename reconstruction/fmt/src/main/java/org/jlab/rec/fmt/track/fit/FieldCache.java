@@ -0,0 +1,92 @@
+package org.jlab.rec.fmt.track.fit;
+
+import java.util.Arrays;
+import org.jlab.clas.swimtools.Swim;
+
+/**
+ * Field values along the paths between the measurement planes of a track.
+ *
+ * The transport from one plane to the next queries the field at the same
+ * sequence of z positions at each iteration of the Kalman filter, only the
+ * track moves slightly in x and y with the filter updates. The values are
+ * kept per path in query order, and reused as long as the track has moved
+ * by less than TOLERANCE, far below the spacing of the field map.
+ */
+final class FieldCache {
+
+    // maximum distance in x and y, in cm, to reuse a field value
+    static final double TOLERANCE = 1e-4;
+
+    // {x, y, z, Bx, By, Bz} of the field queries of each path
+    private double[][] paths = new double[0][];
+    private int[] sizes = new int[0];
+
+    // current path and query index, path is -1 when not caching
+    private int path = -1;
+    private int query;
+
+    /**
+     * Forget all paths, e.g. for a new track
+     */
+    void clear() {
+        Arrays.fill(this.sizes, 0);
+        this.path = -1;
+    }
+
+    /**
+     * Start caching the queries of a path
+     * @param path the path index
+     */
+    void start(int path) {
+        if (path >= this.paths.length) {
+            int n = this.paths.length;
+            this.paths = Arrays.copyOf(this.paths, path+1);
+            this.sizes = Arrays.copyOf(this.sizes, path+1);
+            for (int i = n; i < this.paths.length; i++) {
+                this.paths[i] = new double[6*16];
+            }
+        }
+        this.path = path;
+        this.query = 0;
+    }
+
+    /**
+     * Stop caching, the next queries go to the field map
+     */
+    void stop() {
+        this.path = -1;
+    }
+
+    /**
+     * Field in the lab frame, see {@link Swim#BfieldLab}
+     */
+    void field(Swim swimmer, double x, double y, double z, float[] b) {
+        if (this.path < 0) {
+            swimmer.BfieldLab(x, y, z, b);
+            return;
+        }
+        double[] values = this.paths[this.path];
+        int i = 6*this.query++;
+        if (this.query <= this.sizes[this.path] && values[i+2] == z
+                && Math.abs(values[i] - x) < TOLERANCE && Math.abs(values[i+1] - y) < TOLERANCE) {
+            b[0] = (float) values[i+3];
+            b[1] = (float) values[i+4];
+            b[2] = (float) values[i+5];
+            return;
+        }
+        swimmer.BfieldLab(x, y, z, b);
+        if (i+6 > values.length) {
+            values = Arrays.copyOf(values, 2*values.length);
+            this.paths[this.path] = values;
+        }
+        values[i]   = x;
+        values[i+1] = y;
+        values[i+2] = z;
+        values[i+3] = b[0];
+        values[i+4] = b[1];
+        values[i+5] = b[2];
+        if (this.query > this.sizes[this.path]) {
+            this.sizes[this.path] = this.query;
+        }
+    }
+}
@@ -1,6 +1,5 @@
 package org.jlab.rec.fmt.track.fit;
 
-import java.util.ArrayList;
 import org.jlab.clas.swimtools.Swim;
 
 /**
@@ -11,24 +10,30 @@ public class RungeKutta {
 
     private final float[] _b = new float[3];
     final double v = 0.0029979245;
-    private final ArrayList<Double> k1;
-    private final ArrayList<Double> k2;
-    private final ArrayList<Double> k3;
-    private final ArrayList<Double> k4;
-    private final ArrayList<Double> jk1;
-    private final ArrayList<Double> jk2;
-    private final ArrayList<Double> jk3;
-    private final ArrayList<Double> jk4;
+
+    // Jacobian derivatives {delx_deltx0, dely_deltx0, delx_delty0, dely_delty0,
+    // delx_delq0, dely_delq0} at the start of a step:
+    private static final double[] JACOBIAN0 = {1, 0, 0, 1, 0, 0};
+
+    // Workspace of the transport with the covariance matrix, for each stage:
+    // k = {x', y', tx', ty'}, jk = the Jacobian derivatives of x and y, see
+    // JACOBIAN0, followed by the same derivatives of tx and ty
+    private final double[][] k = new double[4][4];
+    private final double[][] jk = new double[4][12];
+    private final double[] dA = new double[4];
+    private final double[][] u = new double[5][5];
+    private final double[][] C = new double[5][5];
+
+    private final FieldCache fieldCache = new FieldCache();
 
     public RungeKutta() {
-        this.k1 = new ArrayList<>(4);
-        this.k2 = new ArrayList<>(4);
-        this.k3 = new ArrayList<>(4);
-        this.k4 = new ArrayList<>(4);
-        this.jk1 = new ArrayList<>(12);
-        this.jk2 = new ArrayList<>(12);
-        this.jk3 = new ArrayList<>(12);
-        this.jk4 = new ArrayList<>(12);
+    }
+
+    /**
+     * @return the field values along the paths between the measurement planes
+     */
+    FieldCache getFieldCache() {
+        return fieldCache;
     }
 
     public void SwimToZ(int sector, StateVecs.StateVec fVec, Swim dcSwim, double z0, float[] bf){
@@ -67,25 +72,25 @@ public class RungeKutta {
     void RK4transport(int sector, double q, double x0, double y0, double z0, double tx0, double ty0, double h, Swim swimmer,
             double dPath, StateVecs.StateVec fVec) { // lab system = 1, TSC =0
 
-        swimmer.BfieldLab(x0, y0, z0, _b);
+        fieldCache.field(swimmer, x0, y0, z0, _b);
         double x1 = tx0;
         double y1 = ty0;
         double tx1=q*v*Ax(tx0, ty0, _b[0], _b[1], _b[2]);
         double ty1=q*v*Ay(tx0, ty0, _b[0], _b[1], _b[2]);
 
-        swimmer.BfieldLab(x0+0.5*h*x1, y0+0.5*h*y1, z0+0.5*h, _b);
+        fieldCache.field(swimmer, x0+0.5*h*x1, y0+0.5*h*y1, z0+0.5*h, _b);
         double x2 = tx0+0.5*h*tx1;
         double y2 = ty0+0.5*h*ty1;
         double tx2=q*v*Ax((tx0+0.5*h*tx1), (ty0+0.5*h*ty1), _b[0], _b[1], _b[2]);
         double ty2=q*v*Ay((tx0+0.5*h*tx1), (ty0+0.5*h*ty1), _b[0], _b[1], _b[2]);
 
-        swimmer.BfieldLab(x0+0.5*h*x2, y0+0.5*h*y2, z0+0.5*h, _b);
+        fieldCache.field(swimmer, x0+0.5*h*x2, y0+0.5*h*y2, z0+0.5*h, _b);
         double x3 = tx0+0.5*h*tx2;
         double y3 = ty0+0.5*h*ty2;
         double tx3=q*v*Ax((tx0+0.5*h*tx2), (ty0+0.5*h*ty2), _b[0], _b[1], _b[2]);
         double ty3=q*v*Ay((tx0+0.5*h*tx2), (ty0+0.5*h*ty2), _b[0], _b[1], _b[2]);
 
-        swimmer.BfieldLab(x0+h*x3, y0+h*y3, z0+h, _b);
+        fieldCache.field(swimmer, x0+h*x3, y0+h*y3, z0+h, _b);
         double x4 = tx0+h*tx3;
         double y4 = ty0+h*ty3;
         double tx4=q*v*Ax((tx0+h*tx3), (ty0+h*ty3), _b[0], _b[1], _b[2]);
@@ -114,198 +119,65 @@ public class RungeKutta {
     //
     void RK4transport(int sector, double q, double x0, double y0, double z0, double tx0, double ty0, double h, Swim swimmer,
             StateVecs.CovMat covMat, StateVecs.StateVec fVec, StateVecs.CovMat fCov, double dPath) {
-        // Jacobian:
-        double[][] u = new double[5][5];
-        double[][] C = new double[5][5];
-        double deltx_deltx0_0 =1;
-        double delty_deltx0_0 =0;
-        double deltx_delty0_0 =0;
-        double delty_delty0_0 =1;
-        double deltx_delq0_0 =0;
-        double delty_delq0_0 =0;
-        //System.out.println("RK0 "+x0+","+y0+","+z0+";"+tx0+","+ty0+","+" z0 "+z0+" h "+h);
-        //State
-        swimmer.BfieldLab(x0, y0, z0, _b);
-        double x1 = tx0;
-        double y1 = ty0;
-        double tx1=q*v*Ax(tx0, ty0, _b[0], _b[1], _b[2]);
-        double ty1=q*v*Ay(tx0, ty0, _b[0], _b[1], _b[2]);
-
-        // Jacobian:
-        double delx_deltx0_1 = deltx_deltx0_0;
-        double dely_deltx0_1 = delty_deltx0_0;
-        double delx_delty0_1 = deltx_delty0_0;
-        double dely_delty0_1 = delty_delty0_0;
-
-        double deltx_deltx0_1 = q*v*(delAx_deltx(tx0,ty0,_b[0],_b[1],_b[2])*deltx_deltx0_0
-                + delAx_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_deltx0_0);
-        double delty_deltx0_1 = q*v*(delAy_deltx(tx0,ty0,_b[0],_b[1],_b[2])*deltx_deltx0_0
-                + delAy_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_deltx0_0);
-        double deltx_delty0_1 = q*v*(delAx_delty(tx0,ty0,_b[0],_b[1],_b[2])*deltx_delty0_0
-                + delAx_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_delty0_0);
-        double delty_delty0_1 = q*v*(delAy_delty(tx0,ty0,_b[0],_b[1],_b[2])*deltx_delty0_0
-                + delAy_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_delty0_0);
-
-        double delx_delq0_1 = deltx_delq0_0;
-        double dely_delq0_1 = delty_delq0_0;
-
-        double deltx_delq0_1 = v*Ax(tx0, ty0, _b[0], _b[1], _b[2])
-                + q*v*(delAx_deltx(tx0,ty0,_b[0],_b[1],_b[2])*deltx_delq0_0
-                    + delAx_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_delq0_0);
-        double delty_delq0_1 = v*Ay(tx0, ty0, _b[0], _b[1], _b[2])
-                + q*v*(delAy_deltx(tx0,ty0,_b[0],_b[1],_b[2])*deltx_delq0_0
-                    + delAy_delty(tx0,ty0,_b[0],_b[1],_b[2])*delty_delq0_0);
-
-
-        swimmer.BfieldLab(x0+0.5*h*x1, y0+0.5*h*y1, z0+0.5*h, _b);
-        double x2 = tx0+0.5*h*tx1;
-        double y2 = ty0+0.5*h*ty1;
-        double tx2=q*v*Ax((tx0+0.5*h*tx1), (ty0+0.5*h*ty1), _b[0], _b[1], _b[2]);
-        double ty2=q*v*Ay((tx0+0.5*h*tx1), (ty0+0.5*h*ty1), _b[0], _b[1], _b[2]);
+        for (int i = 0; i < 5; i++) {
+            for (int j = 0; j < 5; j++) {
+                C[i][j] = covMat.covMat.get(i, j);
+            }
+        }
+        this.RK4transport(sector, q, x0, y0, z0, tx0, ty0, h, swimmer, C, fVec, C, dPath);
+        fCov.covMat.set(C);
+    }
 
-        // Jacobian:
-        double delx_deltx0_2 = deltx_deltx0_0+0.5*h*deltx_deltx0_1;
-        double dely_deltx0_2 = delty_deltx0_0+0.5*h*delty_deltx0_1;
-        double delx_delty0_2 = deltx_delty0_0+0.5*h*deltx_delty0_1;
-        double dely_delty0_2 = delty_delty0_0+0.5*h*delty_delty0_1;
-
-        double deltx_deltx0_2 = this.deltx_deltx0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+0.5*h*deltx_deltx0_1,delty_deltx0_0+0.5*h*delty_deltx0_1);
-        double delty_deltx0_2 = this.delty_deltx0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+0.5*h*deltx_deltx0_1,delty_deltx0_0+0.5*h*delty_deltx0_1);
-        double deltx_delty0_2 = this.deltx_delty0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_delty0_0+0.5*h*deltx_delty0_1,delty_delty0_0+0.5*h*delty_delty0_1);
-        double delty_delty0_2 = this.delty_delty0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_delty0_0+0.5*h*deltx_delty0_1,delty_delty0_0+0.5*h*delty_delty0_1);
-
-        double delx_delq0_2 = deltx_delq0_0+0.5*h*deltx_delq0_1;
-        double dely_delq0_2 = delty_delq0_0+0.5*h*delty_delq0_1;
-
-        double deltx_delq0_2 = this.deltx_delq0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_delq0_0+0.5*h*deltx_delq0_1,delty_delq0_0+0.5*h*delty_delq0_1);
-        double delty_delq0_2 = this.delty_delq0_next(q,v,tx0+0.5*h*tx1,ty0+0.5*h*ty1,_b[0],_b[1],_b[2],
-                deltx_delq0_0+0.5*h*deltx_delq0_1,delty_delq0_0+0.5*h*delty_delq0_1);
-
-        swimmer.BfieldLab(x0+0.5*h*x2, y0+0.5*h*y2, z0+0.5*h, _b);
-        double x3 = tx0+0.5*h*tx2;
-        double y3 = ty0+0.5*h*ty2;
-        double tx3=q*v*Ax((tx0+0.5*h*tx2), (ty0+0.5*h*ty2), _b[0], _b[1], _b[2]);
-        double ty3=q*v*Ay((tx0+0.5*h*tx2), (ty0+0.5*h*ty2), _b[0], _b[1], _b[2]);
+    /**
+     * Transport with the covariance matrix, on primitive arrays.
+     * @param covMat covariance matrix at z0
+     * @param fCov covariance matrix at z0+h, may be the same array as covMat
+     */
+    void RK4transport(int sector, double q, double x0, double y0, double z0, double tx0, double ty0, double h, Swim swimmer,
+            double[][] covMat, StateVecs.StateVec fVec, double[][] fCov, double dPath) {
 
-        // Jacobian:
-        double delx_deltx0_3 = deltx_deltx0_0+0.5*h*deltx_deltx0_2;
-        double dely_deltx0_3 = delty_deltx0_0+0.5*h*delty_deltx0_2;
-        double delx_delty0_3 = deltx_delty0_0+0.5*h*deltx_delty0_2;
-        double dely_delty0_3 = delty_delty0_0+0.5*h*delty_delty0_2;
-
-        double deltx_deltx0_3 = this.deltx_deltx0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+0.5*h*deltx_deltx0_2,delty_deltx0_0+0.5*h*delty_deltx0_2);
-        double delty_deltx0_3 = this.delty_deltx0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+0.5*h*deltx_deltx0_2,delty_deltx0_0+0.5*h*delty_deltx0_2);
-        double deltx_delty0_3 = this.deltx_delty0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_delty0_0+0.5*h*deltx_delty0_2,delty_delty0_0+0.5*h*delty_delty0_2);
-        double delty_delty0_3 = this.delty_delty0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_delty0_0+0.5*h*deltx_delty0_2,delty_delty0_0+0.5*h*delty_delty0_2);
-
-        double delx_delq0_3 = deltx_delq0_0+0.5*h*deltx_delq0_2;
-        double dely_delq0_3 = delty_delq0_0+0.5*h*delty_delq0_2;
-
-        double deltx_delq0_3 = this.deltx_delq0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_delq0_0+0.5*h*deltx_delq0_2,delty_delq0_0+0.5*h*delty_delq0_2);
-        double delty_delq0_3 = this.delty_delq0_next(q,v,tx0+0.5*h*tx2,ty0+0.5*h*ty2,_b[0],_b[1],_b[2],
-                deltx_delq0_0+0.5*h*deltx_delq0_2,delty_delq0_0+0.5*h*delty_delq0_2);
-
-        swimmer.BfieldLab(x0+h*x3, y0+h*y3, z0+h, _b);
-        double x4 = tx0+h*tx3;
-        double y4 = ty0+h*ty3;
-        double tx4=q*v*Ax((tx0+h*tx3), (ty0+h*ty3), _b[0], _b[1], _b[2]);
-        double ty4=q*v*Ay((tx0+h*tx3), (ty0+h*ty3), _b[0], _b[1], _b[2]);
+        this.RK4step(0, q, x0, y0, z0, tx0, ty0, 0,     swimmer);
+        this.RK4step(1, q, x0, y0, z0, tx0, ty0, 0.5*h, swimmer);
+        this.RK4step(2, q, x0, y0, z0, tx0, ty0, 0.5*h, swimmer);
+        this.RK4step(3, q, x0, y0, z0, tx0, ty0, h,     swimmer);
 
-         // Jacobian:
-        double delx_deltx0_4 = deltx_deltx0_0+h*deltx_deltx0_3;
-        double dely_deltx0_4 = delty_deltx0_0+h*delty_deltx0_3;
-        double delx_delty0_4 = deltx_delty0_0+h*deltx_delty0_3;
-        double dely_delty0_4 = delty_delty0_0+h*delty_delty0_3;
-
-        double deltx_deltx0_4 = this.deltx_deltx0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+h*deltx_deltx0_3,delty_deltx0_0+h*delty_deltx0_3);
-        double delty_deltx0_4 = this.delty_deltx0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+h*deltx_deltx0_3,delty_deltx0_0+h*delty_deltx0_3);
-        double deltx_delty0_4 = this.deltx_delty0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_delty0_0+h*deltx_delty0_3,delty_delty0_0+h*delty_delty0_3);
-        double delty_delty0_4 = this.delty_delty0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_delty0_0+h*deltx_delty0_3,delty_delty0_0+h*delty_delty0_3);
-
-        double delx_delq0_4 = deltx_delq0_0+h*deltx_delq0_3;
-        double dely_delq0_4 = delty_delq0_0+h*delty_delq0_3;
-
-        double deltx_delq0_4 = this.deltx_delq0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_delq0_0+h*deltx_delq0_3,delty_delq0_0+h*delty_delq0_3);
-        double delty_delq0_4 = this.delty_delq0_next(q,v,tx0+h*tx3,ty0+h*ty3,_b[0],_b[1],_b[2],
-                deltx_delq0_0+h*deltx_delq0_3,delty_delq0_0+h*delty_delq0_3);
+        double x = x0 + this.RK4(k[0][0], k[1][0], k[2][0], k[3][0], h);
+        double y = y0 + this.RK4(k[0][1], k[1][1], k[2][1], k[3][1], h);
+        double tx = tx0 + this.RK4(k[0][2], k[1][2], k[2][2], k[3][2], h);
+        double ty = ty0 + this.RK4(k[0][3], k[1][3], k[2][3], k[3][3], h);
 
-        double x = x0 + this.RK4(x1, x2, x3, x4, h);
-        double y = y0 + this.RK4(y1, y2, y3, y4, h);
-        double tx = tx0 + this.RK4(tx1, tx2, tx3, tx4, h);
-        double ty = ty0 + this.RK4(ty1, ty2, ty3, ty4, h);
-        double z = z0+h;
-        //System.out.println("RK "+x+","+y+","+z+";"+tx+","+ty+","+" z0 "+z0);
         // Jacobian:
-        double delx_deltx0  = this.RK4(delx_deltx0_1, delx_deltx0_2, delx_deltx0_3, delx_deltx0_4, h);
-        double deltx_deltx0 = 1 + this.RK4(deltx_deltx0_1, deltx_deltx0_2, deltx_deltx0_3, deltx_deltx0_4, h);
-        double dely_deltx0  = this.RK4(dely_deltx0_1, dely_deltx0_2, dely_deltx0_3, dely_deltx0_4, h);
-        double delty_deltx0 = this.RK4(delty_deltx0_1, delty_deltx0_2, delty_deltx0_3, delty_deltx0_4, h);
-
-        double delx_delty0  = this.RK4(delx_delty0_1, delx_delty0_2, delx_delty0_3, delx_delty0_4, h);
-        double deltx_delty0 = this.RK4(deltx_delty0_1, deltx_delty0_2, deltx_delty0_3, deltx_delty0_4, h);
-        double dely_delty0  = this.RK4(dely_delty0_1, dely_delty0_2, dely_delty0_3, dely_delty0_4, h);
-        double delty_delty0 = 1 + this.RK4(delty_delty0_1, delty_delty0_2, delty_delty0_3, delty_delty0_4, h);
-
-        double delx_delq0  = this.RK4(delx_delq0_1, delx_delq0_2, delx_delq0_3, delx_delq0_4, h);
-        double deltx_delq0 = this.RK4(deltx_delq0_1, deltx_delq0_2, deltx_delq0_3, deltx_delq0_4, h);
-        double dely_delq0  = this.RK4(dely_delq0_1, dely_delq0_2, dely_delq0_3, dely_delq0_4, h);
-        double delty_delq0 = this.RK4(delty_delq0_1, delty_delq0_2, delty_delq0_3, delty_delq0_4, h);
+        double delx_deltx0  = this.RK4(jk[0][0], jk[1][0], jk[2][0], jk[3][0], h);
+        double dely_deltx0  = this.RK4(jk[0][1], jk[1][1], jk[2][1], jk[3][1], h);
+        double delx_delty0  = this.RK4(jk[0][2], jk[1][2], jk[2][2], jk[3][2], h);
+        double dely_delty0  = this.RK4(jk[0][3], jk[1][3], jk[2][3], jk[3][3], h);
+        double delx_delq0   = this.RK4(jk[0][4], jk[1][4], jk[2][4], jk[3][4], h);
+        double dely_delq0   = this.RK4(jk[0][5], jk[1][5], jk[2][5], jk[3][5], h);
+
+        double deltx_deltx0 = 1 + this.RK4(jk[0][6], jk[1][6], jk[2][6], jk[3][6], h);
+        double delty_deltx0 = this.RK4(jk[0][7], jk[1][7], jk[2][7], jk[3][7], h);
+        double deltx_delty0 = this.RK4(jk[0][8], jk[1][8], jk[2][8], jk[3][8], h);
+        double delty_delty0 = 1 + this.RK4(jk[0][9], jk[1][9], jk[2][9], jk[3][9], h);
+        double deltx_delq0  = this.RK4(jk[0][10], jk[1][10], jk[2][10], jk[3][10], h);
+        double delty_delq0  = this.RK4(jk[0][11], jk[1][11], jk[2][11], jk[3][11], h);
 
         //covMat = FCF^T; u = FC;
         for (int j1 = 0; j1 < 5; j1++) {
-            u[0][j1] = covMat.covMat.get(0,j1) + covMat.covMat.get(2,j1) * delx_deltx0+ covMat.covMat.get(3,j1)* delx_delty0 + covMat.covMat.get(4,j1) * delx_delq0;
-            u[1][j1] = covMat.covMat.get(1,j1) + covMat.covMat.get(2,j1) * dely_deltx0+ covMat.covMat.get(3,j1)* dely_delty0 + covMat.covMat.get(4,j1) * dely_delq0;
-            u[2][j1] = covMat.covMat.get(2,j1) * deltx_deltx0+ covMat.covMat.get(3,j1)* deltx_delty0 + covMat.covMat.get(4,j1) * deltx_delq0;
-            u[3][j1] = covMat.covMat.get(2,j1) * delty_deltx0+ covMat.covMat.get(3,j1)* delty_delty0 + covMat.covMat.get(4,j1) * delty_delq0;
-            u[4][j1] = covMat.covMat.get(4,j1);
+            u[0][j1] = covMat[0][j1] + covMat[2][j1] * delx_deltx0+ covMat[3][j1]* delx_delty0 + covMat[4][j1] * delx_delq0;
+            u[1][j1] = covMat[1][j1] + covMat[2][j1] * dely_deltx0+ covMat[3][j1]* dely_delty0 + covMat[4][j1] * dely_delq0;
+            u[2][j1] = covMat[2][j1] * deltx_deltx0+ covMat[3][j1]* deltx_delty0 + covMat[4][j1] * deltx_delq0;
+            u[3][j1] = covMat[2][j1] * delty_deltx0+ covMat[3][j1]* delty_delty0 + covMat[4][j1] * delty_delq0;
+            u[4][j1] = covMat[4][j1];
         }
 
         for (int i1 = 0; i1 < 5; i1++) {
-            C[i1][0] = u[i1][0] + u[i1][2] * delx_deltx0 + u[i1][3] * delx_delty0 + u[i1][4] * delx_delq0;
-            C[i1][1] = u[i1][1] + u[i1][2] * dely_deltx0 + u[i1][3] * dely_delty0 + u[i1][4] * dely_delq0;
-            C[i1][2] = u[i1][2] * deltx_deltx0 + u[i1][3] * deltx_delty0 + u[i1][4] * deltx_delq0;
-            C[i1][3] = u[i1][2] * delty_deltx0 + u[i1][3] * delty_delty0 + u[i1][4] * delty_delq0;
-            C[i1][4] = u[i1][4];
+            fCov[i1][0] = u[i1][0] + u[i1][2] * delx_deltx0 + u[i1][3] * delx_delty0 + u[i1][4] * delx_delq0;
+            fCov[i1][1] = u[i1][1] + u[i1][2] * dely_deltx0 + u[i1][3] * dely_delty0 + u[i1][4] * dely_delq0;
+            fCov[i1][2] = u[i1][2] * deltx_deltx0 + u[i1][3] * deltx_delty0 + u[i1][4] * deltx_delq0;
+            fCov[i1][3] = u[i1][2] * delty_deltx0 + u[i1][3] * delty_delty0 + u[i1][4] * delty_delq0;
+            fCov[i1][4] = u[i1][4];
         }
 
-//        // Q  process noise matrix estimate
-//        double p = Math.abs(1. / q);
-//
-//        double X0 = fVec.getX0(z0+h/2);
-//        double t_ov_X0 = Math.sqrt((x0-x)*(x0-x)+(y0-y)*(y0-y)+h*h) / X0;//path length in radiation length units = t/X0 [true path length/ X0] ; Ar radiation length = 14 cm
-//
-//        double beta = p / Math.sqrt(p * p + mass * mass);  //use particle momentum
-//        beta = 1;
-//
-//        double sctRMS = ((0.0136)/(beta*p))*Math.sqrt(t_ov_X0*Math.sqrt(1 + tx0 * tx0 + ty0 * ty0))*
-//                (1 + 0.038 * Math.log(t_ov_X0*Math.sqrt(1 + tx0 * tx0 + ty0 * ty0)));
-//
-//        double cov_txtx = (1 + tx0 * tx0) * (1 + tx0 * tx0 + ty0 * ty0) * sctRMS * sctRMS;
-//        double cov_tyty = (1 + ty0 * ty0) * (1 + tx0 * tx0 + ty0 * ty0) * sctRMS * sctRMS;
-//        double cov_txty = tx0 * ty0 * (1 + tx0 * tx0 + ty0 * ty0) * sctRMS * sctRMS;
-//
-//        if (h > 0) {
-//            C[2][2] += cov_txtx;
-//            C[2][3] += cov_txty;
-//            C[3][2] += cov_txty;
-//            C[3][3] += cov_tyty;
-//        }
-
         fVec.x = x;
         fVec.y  = y ;
         fVec.z = z0+h;
@@ -314,11 +186,51 @@ public class RungeKutta {
         fVec.Q = q;
         fVec.B = Math.sqrt(_b[0]*_b[0]+_b[1]*_b[1]+_b[2]*_b[2]);
         fVec.deltaPath = Math.sqrt((x0-x)*(x0-x)+(y0-y)*(y0-y)+h*h)+dPath;
-        fCov.covMat.set(C);
-        //System.out.println("Transported matrix");
-        //Matrix5x5.show(fCov.covMat);
     }
 
+    /**
+     * One Runge-Kutta stage of the transport with the covariance matrix: the
+     * derivatives of the state and of the Jacobian at z0+d, from the ones of
+     * the previous stage.
+     * @param n stage index, from 0 to 3
+     * @param d distance in z from z0 of the stage
+     */
+    private void RK4step(int n, double q, double x0, double y0, double z0, double tx0, double ty0, double d, Swim swimmer) {
+        double[] kn = k[n];
+        double[] jkn = jk[n];
+        if (n == 0) {
+            fieldCache.field(swimmer, x0, y0, z0, _b);
+            kn[0] = tx0;
+            kn[1] = ty0;
+            System.arraycopy(JACOBIAN0, 0, jkn, 0, 6);
+        }
+        else {
+            double[] kp = k[n-1];
+            double[] jkp = jk[n-1];
+            fieldCache.field(swimmer, x0+d*kp[0], y0+d*kp[1], z0+d, _b);
+            kn[0] = tx0+d*kp[2];
+            kn[1] = ty0+d*kp[3];
+            for (int j = 0; j < 6; j++) {
+                jkn[j] = JACOBIAN0[j]+d*jkp[6+j];
+            }
+        }
+        double tx = kn[0];
+        double ty = kn[1];
+        double Ax = this.Ax(tx, ty, _b[0], _b[1], _b[2]);
+        double Ay = this.Ay(tx, ty, _b[0], _b[1], _b[2]);
+        this.delA_delt(tx, ty, _b[0], _b[1], _b[2], dA);
+
+        kn[2] = q*v*Ax;
+        kn[3] = q*v*Ay;
+
+        // Jacobian, dA = {delAx_deltx, delAx_delty, delAy_deltx, delAy_delty}:
+        jkn[6]  = q*v*(dA[0]*jkn[0] + dA[1]*jkn[1]);
+        jkn[7]  = q*v*(dA[2]*jkn[0] + dA[3]*jkn[1]);
+        jkn[8]  = q*v*(dA[1]*jkn[2] + dA[1]*jkn[3]);
+        jkn[9]  = q*v*(dA[3]*jkn[2] + dA[3]*jkn[3]);
+        jkn[10] = v*Ax + q*v*(dA[0]*jkn[4] + dA[1]*jkn[5]);
+        jkn[11] = v*Ay + q*v*(dA[2]*jkn[4] + dA[3]*jkn[5]);
+    }
 
     private double RK4(double k1, double k2, double k3, double k4, double h) {
         return h/6*(k1 + 2*k2 +2*k3 + k4);
@@ -333,39 +245,6 @@ public class RungeKutta {
         return C * (-tx * (ty * By + Bz) + (1 + ty * ty) * Bx);
     }
 
-    private double delAx_deltx(double tx, double ty, double Bx, double By, double Bz) {
-        double C2 = 1 + tx * tx + ty * ty;
-        double C = Math.sqrt(1 + tx * tx + ty * ty);
-        double Ax = C * (ty * (tx * Bx + Bz) - (1 + tx * tx) * By);
-        double Ay = C * (-tx * (ty * By + Bz) + (1 + ty * ty) * Bx);
-
-        return tx * Ax / C2 + C * (ty * Bx - 2 * tx * By); //delAx_deltx
-    }
-    private double delAx_delty(double tx, double ty, double Bx, double By, double Bz) {
-        double C2 = 1 + tx * tx + ty * ty;
-        double C = Math.sqrt(1 + tx * tx + ty * ty);
-        double Ax = C * (ty * (tx * Bx + Bz) - (1 + tx * tx) * By);
-        double Ay = C * (-tx * (ty * By + Bz) + (1 + ty * ty) * Bx);
-
-        return ty * Ax / C2 + C * (tx * Bx + Bz); //delAx_delty
-    }
-    private double delAy_deltx(double tx, double ty, double Bx, double By, double Bz) {
-        double C2 = 1 + tx * tx + ty * ty;
-        double C = Math.sqrt(1 + tx * tx + ty * ty);
-        double Ax = C * (ty * (tx * Bx + Bz) - (1 + tx * tx) * By);
-        double Ay = C * (-tx * (ty * By + Bz) + (1 + ty * ty) * Bx);
-
-        return tx * Ay / C2 + C * (-ty * By - Bz); //delAy_deltx
-    }
-    private double delAy_delty(double tx, double ty, double Bx, double By, double Bz) {
-        double C2 = 1 + tx * tx + ty * ty;
-        double C = Math.sqrt(1 + tx * tx + ty * ty);
-        double Ax = C * (ty * (tx * Bx + Bz) - (1 + tx * tx) * By);
-        double Ay = C * (-tx * (ty * By + Bz) + (1 + ty * ty) * Bx);
-
-        return ty * Ay / C2 + C * (-tx * By + 2 * ty * Bx); //delAy_delty
-    }
-
     private void A(double tx, double ty, double Bx, double By, double Bz, double[] a) {
 
         double C = Math.sqrt(1 + tx * tx + ty * ty);
@@ -385,113 +264,4 @@ public class RungeKutta {
         dela_delt[2] = tx * Ay / C2 + C * (-ty * By - Bz); //delAy_deltx
         dela_delt[3] = ty * Ay / C2 + C * (-tx * By + 2 * ty * Bx); //delAy_delty
     }
-
-    private double deltx_deltx0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_deltx0_1, double delty_deltx0_1) {
-        return q*v*(delAx_deltx(tx1,ty1,b0,b1,b2)*(deltx_deltx0_1)
-                + delAx_delty(tx1,ty1,b0,b1,b2)*(delty_deltx0_1));
-    }
-
-    private double delty_deltx0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_deltx0_1, double delty_deltx0_1) {
-        return q*v*(delAy_deltx(tx1,ty1,b0,b1,b2)*(deltx_deltx0_1)
-                + delAy_delty(tx1,ty1,b0,b1,b2)*(delty_deltx0_1));
-    }
-
-    private double deltx_delty0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_delty0_1, double delty_delty0_1) {
-        return q*v*(delAx_delty(tx1,ty1,b0,b1,b2)*(deltx_delty0_1)
-                + delAx_delty(tx1,ty1,b0,b1,b2)*(delty_delty0_1));
-    }
-
-    private double delty_delty0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_delty0_1, double delty_delty0_1) {
-        return q*v*(delAy_delty(tx1,ty1,b0,b1,b2)*(deltx_delty0_1)
-                + delAy_delty(tx1,ty1,b0,b1,b2)*(delty_delty0_1));
-    }
-
-    private double deltx_delq0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_delq0_1, double delty_delq0_1) {
-        return v*Ax(tx1, ty1, b0, b1, b2)
-                + q*v*(delAx_deltx(tx1,ty1,b0,b1,b2)*(deltx_delq0_1)
-                    + delAx_delty(tx1,ty1,b0,b1,b2)*(delty_delq0_1));
-    }
-
-    private double delty_delq0_next(double q, double v, double tx1, double ty1, float b0, float b1, float b2, double deltx_delq0_1, double delty_delq0_1) {
-        return v*Ay(tx1, ty1, b0, b1, b2)
-                + q*v*(delAy_deltx(tx1, ty1,b0,b1,b2)*(deltx_delq0_1)
-                    + delAy_delty(tx1, ty1,b0,b1,b2)*(delty_delq0_1));
-    }
-
-    private void getRKn(int sector, ArrayList<Double> k1, ArrayList<Double> k2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] b) {
-
-        double tx1  = k1.get(2);
-        double ty1  = k1.get(3);
-
-        double x2 = tx0+d*tx1;
-        double y2 = ty0+d*ty1;
-        double tx2=q*v*Ax((tx0+d*tx1), (ty0+d*ty1), b[0], b[1], b[2]);
-        double ty2=q*v*Ay((tx0+d*tx1), (ty0+d*ty1), b[0], b[1], b[2]);
-
-        k2.add(0, x2);
-        k2.add(1, y2);
-        k2.add(2, tx2);
-        k2.add(3, ty2);
-    }
-
-    private void getjRKn(int sector, ArrayList<Double> k1, ArrayList<Double> jk1, ArrayList<Double> jk2, double d, double x0, double y0, double z0, double tx0, double ty0, double q, float[] _b,
-            double deltx_deltx0_0, double delty_deltx0_0, double deltx_delty0_0, double delty_delty0_0, double deltx_delq0_0, double delty_delq0_0) {
-
-        double tx1  = k1.get(2);
-        double ty1  = k1.get(3);
-
-        double delx_deltx0_1 = jk1.get(0);
-        double dely_deltx0_1 = jk1.get(1);
-        double delx_delty0_1 = jk1.get(2);
-        double dely_delty0_1 = jk1.get(3);
-
-        double deltx_deltx0_1 = jk1.get(4);
-        double delty_deltx0_1 = jk1.get(5);
-        double deltx_delty0_1 = jk1.get(6);
-        double delty_delty0_1 = jk1.get(7);
-
-        double delx_delq0_1 = jk1.get(8);
-        double dely_delq0_1 = jk1.get(9);
-
-        double deltx_delq0_1 = jk1.get(10);
-        double delty_delq0_1 = jk1.get(11);
-
-        double delx_deltx0_2 = deltx_deltx0_0+d*deltx_deltx0_1;
-        double dely_deltx0_2 = delty_deltx0_0+d*delty_deltx0_1;
-        double delx_delty0_2 = deltx_delty0_0+d*deltx_delty0_1;
-        double dely_delty0_2 = delty_delty0_0+d*delty_delty0_1;
-
-        double deltx_deltx0_2 = this.deltx_deltx0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+d*deltx_deltx0_1,delty_deltx0_0+d*delty_deltx0_1);
-        double delty_deltx0_2 = this.delty_deltx0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_deltx0_0+d*deltx_deltx0_1,delty_deltx0_0+d*delty_deltx0_1);
-        double deltx_delty0_2 = this.deltx_delty0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_delty0_0+d*deltx_delty0_1,delty_delty0_0+d*delty_delty0_1);
-        double delty_delty0_2 = this.delty_delty0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_delty0_0+d*deltx_delty0_1,delty_delty0_0+d*delty_delty0_1);
-
-        double delx_delq0_2 = deltx_delq0_0+d*deltx_delq0_1;
-        double dely_delq0_2 = delty_delq0_0+d*delty_delq0_1;
-
-        double deltx_delq0_2 = this.deltx_delq0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_delq0_0+d*deltx_delq0_1,delty_delq0_0+d*delty_delq0_1);
-        double delty_delq0_2 = this.delty_delq0_next(q,v,tx0+d*tx1,ty0+d*ty1,_b[0],_b[1],_b[2],
-                deltx_delq0_0+d*deltx_delq0_1,delty_delq0_0+d*delty_delq0_1);
-
-        jk2.add(0, delx_deltx0_2 );
-        jk2.add(1, dely_deltx0_2 );
-        jk2.add(2, delx_delty0_2 );
-        jk2.add(3, dely_delty0_2 );
-
-        jk2.add(4, deltx_deltx0_2 );
-        jk2.add(5, delty_deltx0_2 );
-        jk2.add(6, deltx_delty0_2 );
-        jk2.add(7, delty_delty0_2 );
-
-        jk2.add(8, delx_delq0_2 );
-        jk2.add(9, dely_delq0_2 );
-
-        jk2.add(10, deltx_delq0_2 );
-        jk2.add(11, delty_delq0_2 );
-    }
 }
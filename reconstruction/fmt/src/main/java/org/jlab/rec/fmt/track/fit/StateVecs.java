@@ -21,8 +21,8 @@ public class StateVecs {
     public StateVec StateVec;
     public CovMat CovMat;
     public Matrix F = new Matrix();
-    private final Matrix fMS = new Matrix();
-    private final Matrix copyMatrix = new Matrix();
+    private final double[][] covA = new double[5][5];
+    private final double[][] covB = new double[5][5];
     private final double[] A = new double[2];
     private final double[] dA = new double[4];
     private final float[] bf = new float[3];
@@ -49,76 +49,10 @@ public class StateVecs {
      * @return 
      */
     public Matrix transport(int sector, int i, double Zf, StateVec iVec, CovMat covMat) { // s = signed step-size
-        double stepSize = 1.0;
         StateVecs.StateVec fVec = new StateVec(0);
         CovMat fCov = new CovMat(0);
-        fVec.x = iVec.x;
-        fVec.y = iVec.y;
-        fVec.z = iVec.z;
-        fVec.tx = iVec.tx;
-        fVec.ty = iVec.ty;
-        fVec.Q = iVec.Q;
-        fVec.B = iVec.B;
-
-        Matrix5x5.copy(covMat.covMat, fCov.covMat);
-        double s  = 0;
-        double z = Z[i];
-        double BatMeas = iVec.B;
-
-        while(Math.signum(Zf - Z[i]) *z<Math.signum(Zf - Z[i]) *Zf) {
-            double x =  fVec.x;
-            double y =  fVec.y;
-            z = fVec.z;
-            double tx = fVec.tx;
-            double ty = fVec.ty;
-            double Q =  fVec.Q;
-            double dPath = fVec.deltaPath;
 
-            Matrix5x5.copy(fCov.covMat, covMat.covMat);
-            s= Math.signum(Zf - Z[i]) * stepSize;
-
-            if (Math.signum(Zf - Z[i]) *(z+s)>Math.signum(Zf - Z[i]) *Zf)
-                s=Math.signum(Zf - Z[i]) *Math.abs(Zf-z);
-
-            rk.RK4transport(sector, Q, x, y, z, tx, ty, s, dcSwim,
-                        covMat, fVec, fCov, dPath);
-
-            // Q  process noise matrix estimate
-
-            double p = Math.abs(1. / iVec.Q);
-
-            double X0 = this.getX0(z);
-            double t_ov_X0 = Math.abs(s) / X0;//path length in radiation length units = t/X0 [true path length/ X0] ; Ar radiation length = 14 cm
-
-            double beta = this.beta;
-            if(beta>1.0 || beta<=0)
-                beta =1.0;
-
-            double sctRMS = 0;
-
-            if(Math.abs(s)>0)
-                sctRMS = ((0.0136)/(beta*PhysicsConstants.speedOfLight()*p))*Math.sqrt(t_ov_X0)*
-                    (1 + 0.038 * Math.log(t_ov_X0));
-
-            double cov_txtx = (1 + tx * tx) * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
-            double cov_tyty = (1 + ty * ty) * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
-            double cov_txty = tx * ty * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
-
-            fMS.set(
-                    0, 0, 0, 0, 0,
-                    0, 0, 0, 0, 0,
-                    0, 0, cov_txtx, cov_txty, 0,
-                    0, 0, cov_txty, cov_tyty, 0,
-                    0, 0, 0, 0, 0
-            );
-
-            Matrix5x5.copy(fCov.covMat, copyMatrix);
-            Matrix5x5.add(copyMatrix, fMS, fCov.covMat);
-
-            // end add process noise
-            if (Math.abs(fVec.B - BatMeas) < 0.0001) stepSize*=2;
-            BatMeas = fVec.B;
-        }
+        this.transport(sector, Z[i], Zf, iVec, covMat, fVec, fCov);
 
         return fCov.covMat;
     }
@@ -134,9 +68,26 @@ public class StateVecs {
     public void transport(int sector, int i, int f, StateVec iVec, CovMat covMat) { // s = signed step-size
         if(iVec==null)
             return;
-        double stepSize = 1.0;
         StateVecs.StateVec fVec = new StateVec(f);
         CovMat fCov = new CovMat(f);
+
+        // the field along the path between two planes is reused from one iteration to the next
+        rk.getFieldCache().start(f > i ? 2*i : 2*i+1);
+        this.transport(sector, Z[i], Z[f], iVec, covMat, fVec, fCov);
+        rk.getFieldCache().stop();
+
+        this.trackTraj.put(f, fVec);
+        this.trackCov.put(f, fCov);
+    }
+
+    /**
+     * Transport from Zi to Zf in steps, doubling the step size as long as the
+     * field does not change, with the covariance matrix in the covA and covB
+     * arrays
+     */
+    private void transport(int sector, double Zi, double Zf, StateVec iVec, CovMat covMat,
+            StateVec fVec, CovMat fCov) {
+        double stepSize = 1.0;
         fVec.x = iVec.x;
         fVec.y = iVec.y;
         fVec.z = iVec.z;
@@ -144,14 +95,22 @@ public class StateVecs {
         fVec.ty = iVec.ty;
         fVec.Q = iVec.Q;
         fVec.B = iVec.B;
-        //fCov.covMat = covMat.covMat;
-        Matrix5x5.copy(covMat.covMat, fCov.covMat);
+
+        // covariance matrix before and after each step:
+        double[][] cov = covA;
+        double[][] next = covB;
+        for (int j = 0; j < 5; j++) {
+            for (int k = 0; k < 5; k++) {
+                cov[j][k] = covMat.covMat.get(j, k);
+            }
+        }
+        boolean moved = false;
         double s  = 0;
-        double z = Z[i];
+        double z = Zi;
         double BatMeas = iVec.B;
+        final double sign = Math.signum(Zf - Zi);
 
-        while(Math.signum(Z[f] - Z[i]) *z<Math.signum(Z[f] - Z[i]) *Z[f]) {
-            //System.out.println(" RK step num "+(j+1)+" = "+(float)s+" nSteps = "+nSteps);
+        while(sign *z<sign *Zf) {
             double x =  fVec.x;
             double y =  fVec.y;
             z = fVec.z;
@@ -159,15 +118,14 @@ public class StateVecs {
             double ty = fVec.ty;
             double Q =  fVec.Q;
             double dPath = fVec.deltaPath;
-            //covMat.covMat = fCov.covMat;
-            Matrix5x5.copy(fCov.covMat, covMat.covMat);
-            s= Math.signum(Z[f] - Z[i]) * stepSize;
-           // System.out.println(" from "+(float)Z[i]+" to "+(float)Z[f]+" at "+(float)z+" By is "+bf[1]+" B is "+Math.sqrt(bf[0]*bf[0]+bf[1]*bf[1]+bf[2]*bf[2])/Bmax+" stepSize is "+s);
-            if(Math.signum(Z[f] - Z[i]) *(z+s)>Math.signum(Z[f] - Z[i]) *Z[f])
-                s=Math.signum(Z[f] - Z[i]) *Math.abs(Z[f]-z);
+
+            s= sign * stepSize;
+
+            if (sign *(z+s)>sign *Zf)
+                s=sign *Math.abs(Zf-z);
 
             rk.RK4transport(sector, Q, x, y, z, tx, ty, s, dcSwim,
-                        covMat, fVec, fCov, dPath);
+                        cov, fVec, next, dPath);
 
             // Q  process noise matrix estimate
 
@@ -186,35 +144,31 @@ public class StateVecs {
                 sctRMS = ((0.0136)/(beta*PhysicsConstants.speedOfLight()*p))*Math.sqrt(t_ov_X0)*
                     (1 + 0.038 * Math.log(t_ov_X0));
 
-
             double cov_txtx = (1 + tx * tx) * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
             double cov_tyty = (1 + ty * ty) * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
             double cov_txty = tx * ty * (1 + tx * tx + ty * ty) * sctRMS * sctRMS;
 
+            next[2][2] += cov_txtx;
+            next[2][3] += cov_txty;
+            next[3][2] += cov_txty;
+            next[3][3] += cov_tyty;
 
-            //if (Math.signum(Z[f] - Z[i]) > 0) {
-                fMS.set(
-                0, 0, 0, 0, 0,
-                0, 0, 0, 0, 0,
-                0, 0, cov_txtx, cov_txty, 0,
-                0, 0, cov_txty, cov_tyty, 0,
-                0, 0, 0, 0, 0
-                );
-
-                Matrix5x5.copy(fCov.covMat, copyMatrix);
-                Matrix5x5.add(copyMatrix, fMS, fCov.covMat);
-
-            //}
             // end add process noise
+            double[][] swap = cov;
+            cov = next;
+            next = swap;
+            moved = true;
 
-            if( Math.abs(fVec.B - BatMeas)<0.0001)
-                stepSize*=2;
-
+            if (Math.abs(fVec.B - BatMeas) < 0.0001) stepSize*=2;
             BatMeas = fVec.B;
         }
-        this.trackTraj.put(f, fVec);
-        this.trackCov.put(f, fCov);
+
+        // the initial covariance matrix is left with the one before the last step
+        if (moved)
+            covMat.covMat.set(next);
+        fCov.covMat.set(cov);
     }
+
     double AIRRADLEN = 30400; // radiation length in cm
     public double getX0(double z) {
 
@@ -343,6 +297,7 @@ public class StateVecs {
         double p = Math.sqrt(pxVtx*pxVtx+pyVtx*pyVtx+pzVtx*pzVtx);
         initSV.Q = (double)q / p;
 
+        rk.getFieldCache().clear();
         rk.SwimToZ(sector, initSV, dcSwim, z0, bf);
 
         if (initSV != null) {
@@ -16,12 +16,81 @@ public class FTCALCluster extends ArrayList<FTCALHit> {
 
 	private int     _clusID;		// cluster ID
          private boolean _clusStat=true;       // cluster status flag (true==good, false==bad)
+
+        // running sums, updated as hits are added, and log-weighted moments, computed once 
+        // when first needed since the weights depend on the total energy; both are valid 
+        // as long as the list modification count is the one they were computed for
+        private int    _sumsModCount    = 0;
+        private double _energy          = 0;
+        private double _energyTime      = 0;
+        private int    _momentsModCount = -1;
+        private double _x, _y, _z, _x2, _y2;
 	
 	// constructor
 	public FTCALCluster(int cid) {
             this.setID(cid);
 	}
 
+        @Override
+        public boolean add(FTCALHit hit) {
+            boolean upToDate = _sumsModCount == modCount;
+            super.add(hit);
+            if(upToDate) {
+                _energy     += hit.get_Edep();
+                _energyTime += hit.get_Edep()*hit.get_Time();
+                _sumsModCount = modCount;
+            }
+            return true;
+        }
+
+        @Override
+        public FTCALHit set(int index, FTCALHit hit) {
+            _sumsModCount    = -1;
+            _momentsModCount = -1;
+            return super.set(index, hit);
+        }
+
+        private void updateSums() {
+            if(_sumsModCount == modCount) return;
+            _energy     = 0;
+            _energyTime = 0;
+            for(int i=0; i<this.size(); i++) {
+                FTCALHit hit = this.get(i);
+                _energy     += hit.get_Edep();
+                _energyTime += hit.get_Edep()*hit.get_Time();
+            }
+            _sumsModCount = modCount;
+        }
+
+        private void updateMoments() {
+            if(_momentsModCount == modCount) return;
+            double clusEnergy = this.getEnergy();
+            double wtot       = 0;
+            double clusterX   = 0;
+            double clusterY   = 0;
+            double clusterZ   = 0;
+            double clusterXX  = 0;
+            double clusterYY  = 0;
+            for(int i=0; i<this.size(); i++) {
+                FTCALHit hit = this.get(i);
+                // the moments: this are calculated in a second loop because log weighting requires clusEnergy to be known
+//				double wi = hit_in_clus.get_Edep();    // de-comment for arithmetic weighting
+                double wi = this.weight(hit, clusEnergy);
+                wtot      += wi;
+                clusterX  += wi*hit.get_Dx();
+                clusterY  += wi*hit.get_Dy();
+                clusterZ  += wi*hit.get_Dz();
+                clusterXX += wi*hit.get_Dx()*hit.get_Dx();
+                clusterYY += wi*hit.get_Dy()*hit.get_Dy();
+            }
+            _x  = clusterX/wtot;
+            _y  = clusterY/wtot;
+            _z  = clusterZ/wtot;
+            _x2 = clusterXX/wtot;
+            _y2 = clusterYY/wtot;
+            _momentsModCount = modCount;
+        }
+
 	public int getID() {
             return _clusID;
 	}
@@ -37,11 +106,8 @@ public class FTCALCluster extends ArrayList<FTCALHit> {
 
 	public double getEnergy() {
             // return measured energy
-            double clusterEnergy = 0;
-            for(int i=0; i<this.size(); i++) {
-                clusterEnergy += this.get(i).get_Edep();
-            }
-            return clusterEnergy;
+            this.updateSums();
+            return _energy;
 	}
 
         public double getFullEnergy(IndexedTable energyTable) {
@@ -66,84 +132,42 @@ public class FTCALCluster extends ArrayList<FTCALHit> {
         
 	public double getTime() {
             // returns energy weighted time 
-            double clusterEnergy  = this.getEnergy();
-            double clusterTime    = 0;
-            for(int i=0; i<this.size(); i++) {
-                FTCALHit hit = this.get(i);
-                clusterTime += hit.get_Edep()*hit.get_Time();              
-            }
-            clusterTime /= clusterEnergy;
-            return clusterTime;
+            this.updateSums();
+            return _energyTime/_energy;
 	}
         
         public Point3D getCentroid() {
-            double clusEnergy = this.getEnergy();
-            double wtot       = 0;
-            double clusterX   = 0;
-            double clusterY   = 0;
-            double clusterZ   = 0;
-            for(int i=0; i<this.size(); i++) {
-                FTCALHit hit = this.get(i);
-                // the moments: this are calculated in a second loop because log weighting requires clusEnergy to be known
-//				double wi = hit_in_clus.get_Edep();    // de-comment for arithmetic weighting
-                double wi = Math.max(0., (3.45+Math.log(hit.get_Edep()/clusEnergy)));
-                wtot     += wi;
-                clusterX += wi*hit.get_Dx();
-                clusterY += wi*hit.get_Dy();
-                clusterZ += wi*hit.get_Dz();
-            }
-            clusterX /= wtot;
-            clusterY /= wtot;
-            clusterZ /= wtot;
-            Point3D centroid  = new Point3D(clusterX,clusterY,clusterZ);
+            this.updateMoments();
+            Point3D centroid  = new Point3D(_x,_y,_z);
             return centroid;            
         }    
 
         public double getX() {
             // returns X coordinate of centroild
-            return this.getCentroid().x();
+            this.updateMoments();
+            return _x;
 	}
 
 	public double getY() {
             // returns Y coordinate of centroild
-            return this.getCentroid().y();           
+            this.updateMoments();
+            return _y;
 	}
        
 	public double getZ() {
             // returns Z coordinate of centroild
-            return this.getCentroid().z();           
+            this.updateMoments();
+            return _z;
 	}
        
 	public double getX2() {
-            double clusEnergy = this.getEnergy();
-            double wtot       = 0;
-            double clusterXX   = 0;
-            for(int i=0; i<this.size(); i++) {
-                FTCALHit hit = this.get(i);
-                // the moments: this are calculated in a second loop because log weighting requires clusEnergy to be known
-//				double wi = hit_in_clus.get_Edep();    // de-comment for arithmetic weighting
-                double wi = Math.max(0., (3.45+Math.log(hit.get_Edep()/clusEnergy)));
-                wtot     += wi;
-                clusterXX += wi*hit.get_Dx()*hit.get_Dx();
-            }
-            clusterXX /= wtot;
-            return clusterXX;
+            this.updateMoments();
+            return _x2;
         }
 
 	public double getY2() {
-            double clusEnergy = this.getEnergy();
-            double wtot       = 0;
-            double clusterYY   = 0;
-            for(int i=0; i<this.size(); i++) {
-                FTCALHit hit = this.get(i);
-                // the moments: this are calculated in a second loop because log weighting requires clusEnergy to be known
-//				double wi = hit_in_clus.get_Edep();    // de-comment for arithmetic weighting
-                double wi = Math.max(0., (3.45+Math.log(hit.get_Edep()/clusEnergy)));
-                wtot     += wi;
-                clusterYY += wi*hit.get_Dy()*hit.get_Dy();
-            }
-            clusterYY /= wtot;
-            return clusterYY;
+            this.updateMoments();
+            return _y2;
 	}
 
 	public double getWidthX() {
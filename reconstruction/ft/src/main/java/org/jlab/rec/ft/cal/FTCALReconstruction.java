@@ -18,6 +18,8 @@ public class FTCALReconstruction {
 	
     public int debugMode = 0;
 
+    private static final int NCRYSTALS = 22;        // crystals per row and column
+
     public FTCALReconstruction() {
     }
 	
@@ -81,6 +83,65 @@ public class FTCALReconstruction {
         IndexedTable   thresholds   = manager.getConstants(run, "/calibration/ft/ftcal/thresholds");
         IndexedTable   clusterTable = manager.getConstants(run, "/calibration/ft/ftcal/cluster");
         
+        // clustered hits by crystal, with a margin of one crystal around the calorimeter
+        // so that the 8 neighbours of any crystal can be read without bound checks
+        for(FTCALHit hit : hits) {
+            if(hit.get_IDX()<1 || hit.get_IDX()>NCRYSTALS || hit.get_IDY()<1 || hit.get_IDY()>NCRYSTALS) {
+                return this.findClustersByScan(hits, thresholds, clusterTable);
+            }
+        }
+        List<FTCALHit>[] grid = new List[(NCRYSTALS+2)*(NCRYSTALS+2)];
+        double timeWindow = clusterTable.getDoubleValue("time_window", 1,1,0);
+
+        if(debugMode>=1) System.out.println("\nBuilding clusters");
+        for(int ihit=0; ihit<hits.size(); ihit++) {
+            FTCALHit hit = hits.get(ihit);
+            if(hit.get_ClusID()!=0) continue;                // hit associated with a cluster before this call
+            if(hit.get_Edep()>thresholds.getDoubleValue("thresholdCluster",1,1,hit.get_COMPONENT()))  {
+                // this hit is not yet associated with a cluster: attach it to the first cluster,
+                // i.e. the one with the lowest ID, with a hit in a neighbouring crystal
+                int clusID = 0;
+                for(int dy=-1; dy<=1; dy++) {
+                    for(int dx=-1; dx<=1; dx++) {
+                        if(dx==0 && dy==0) continue;
+                        List<FTCALHit> cell = grid[gridIndex(hit.get_IDX()+dx, hit.get_IDY()+dy)];
+                        if(cell==null) continue;
+                        for(FTCALHit other : cell) {
+                            if(Math.abs(hit.get_Time()-other.get_Time()) <= timeWindow && (clusID==0 || other.get_ClusID()<clusID)) {
+                                clusID = other.get_ClusID();
+                            }
+                        }
+                    }
+                }
+                if(clusID>0) {
+                    FTCALCluster cluster = clusters.get(clusID-1);
+                    hit.set_ClusID(cluster.getID());     // attaching hit to previous cluster 
+                    cluster.add(hit);
+                    if(debugMode>=1) System.out.println("Attaching hit " + ihit + " to cluster " + cluster.getID());
+                }
+            }
+            if(hit.get_ClusID()==0)  {                       // new cluster found
+                FTCALCluster cluster = new FTCALCluster(clusters.size()+1);
+                hit.set_ClusID(cluster.getID());
+                cluster.add(hit);
+                clusters.add(cluster);
+                if(debugMode>=1) System.out.println("Creating new cluster with ID " + cluster.getID());
+            }
+            int index = gridIndex(hit.get_IDX(), hit.get_IDY());
+            if(grid[index]==null) grid[index] = new ArrayList<>();
+            grid[index].add(hit);
+        }
+        return clusters;
+    }
+
+    private static int gridIndex(int idx, int idy) {
+        return idy*(NCRYSTALS+2) + idx;
+    }
+
+    private List<FTCALCluster> findClustersByScan(List<FTCALHit> hits, IndexedTable thresholds, IndexedTable clusterTable) {
+
+        List<FTCALCluster> clusters = new ArrayList();
+        
         if(debugMode>=1) System.out.println("\nBuilding clusters");
         for(int ihit=0; ihit<hits.size(); ihit++) {
             FTCALHit hit = hits.get(ihit);
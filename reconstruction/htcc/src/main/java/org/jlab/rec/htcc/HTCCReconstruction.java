@@ -1,7 +1,9 @@
 package org.jlab.rec.htcc;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import org.jlab.detector.base.ChannelClusterer;
 import org.jlab.detector.banks.RawDataBank;
 import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
@@ -36,11 +38,31 @@ public class HTCCReconstruction {
     private int[] iphiArray;
     private int numHits;
 
-    // Data about the hit in the remaining hit list with the greatest number of
-    // photoelections. See findMaximumHit().
-    private double maxHitNumPhotoelectrons;
-    private int maxHitRemainingIndex;
-    private int maxHitRawDataIndex;
+    // Hit times corrected by the ring time offsets
+    private double[] hitTimeArray;
+
+    // HTCC channels, 4 rings in theta by 12 half-sectors in phi
+    private static final int NTHETA = 4;
+    private static final int NPHI = 12;
+
+    // Adjacent channels: in the next ring and/or half-sector, phi wraps around
+    private static final int[][] NEIGHBOURS = createNeighbours();
+
+    // Hits indexed by channel, see createNeighbours()
+    private final ChannelClusterer clusterer = new ChannelClusterer(NEIGHBOURS);
+
+    // Cluster parameters and geometry, read once per event. See readParameters().
+    private double npheMinHit;
+    private double npheMinMax;
+    private double npheMinClst;
+    private double nthetaMaxClst;
+    private double nphiMaxClst;
+    private double nhitMaxClst;
+    private double maxTimeDiff;
+    private double theta0;
+    private double dtheta;
+    private double phi0;
+    private double dphi;
 
     /**
      * Initializes the HTCCReconstruction.
@@ -56,13 +78,19 @@ public class HTCCReconstruction {
     public void processEvent(DataEvent event) {
         // Load the raw data about the event
         readBankInput(event);
-        // Initialize the remaining hits list
-        List<Integer> remainingHits = intiRemainingHitList();
-
-        // Place all of the hits into clusters
+        // Load the cluster parameters
+        readParameters();
+        // Initialize the remaining hits
+        initRemainingHits();
+
+        // Place all of the hits into clusters, starting from the remaining hit
+        // with the largest number of photoelectrons that also meets the
+        // threshold for the minimum number of photoelectrons specified by
+        // cluster_par.npheminmax
         List<HTCCCluster> clusters = new ArrayList();
-        while (!remainingHits.isEmpty()) {
-            HTCCCluster cluster =  findCluster(remainingHits);
+        int seed;
+        while ((seed = clusterer.nextSeed(npheMinMax)) >= 0) {
+            HTCCCluster cluster =  findCluster(seed);
             if(cluster!=null) clusters.add(cluster);
         }
 
@@ -70,6 +98,32 @@ public class HTCCReconstruction {
         fillBankResults(clusters, event);
     }
 
+    /**
+     * Builds the table of adjacent channels, a channel being itheta*NPHI+iphi.
+     *
+     * @return the adjacent channels of each channel
+     */
+    private static int[][] createNeighbours() {
+        int[][] neighbours = new int[NTHETA*NPHI][];
+        for (int itheta = 0; itheta < NTHETA; ++itheta) {
+            for (int iphi = 0; iphi < NPHI; ++iphi) {
+                int[] adjacent = new int[8];
+                int n = 0;
+                for (int ithetaDiff = -1; ithetaDiff <= 1; ++ithetaDiff) {
+                    for (int iphiDiff = -1; iphiDiff <= 1; ++iphiDiff) {
+                        int ithetaNext = itheta + ithetaDiff;
+                        if ((ithetaDiff == 0 && iphiDiff == 0) || ithetaNext < 0 || ithetaNext >= NTHETA) {
+                            continue;
+                        }
+                        adjacent[n++] = ithetaNext*NPHI + (NPHI + iphi + iphiDiff) % NPHI;
+                    }
+                }
+                neighbours[itheta*NPHI + iphi] = Arrays.copyOf(adjacent, n);
+            }
+        }
+        return neighbours;
+    }
+
     /**
      * Reads hit information from the given event out of the bank.
      *
@@ -126,175 +180,139 @@ public class HTCCReconstruction {
     }
 
     /**
-     * Returns a list of of the indexes of the hits whose number of
-     * photoelectrons surpasses the minimum number of photoelectrons specified
-     * by in <code>parameters</code>.
-     *
-     * @return a list of hit indexes
+     * Reads the cluster parameters and the geometry from the constants tables.
+     */
+    void readParameters() {
+        npheMinHit    = cluster_par.getDoubleValue("npheminhit", 0,0,0);
+        npheMinMax    = cluster_par.getDoubleValue("npheminmax", 0,0,0);
+        npheMinClst   = cluster_par.getDoubleValue("npheminclst", 0,0,0);
+        nthetaMaxClst = cluster_par.getDoubleValue("nthetamaxclst", 0,0,0);
+        nphiMaxClst   = cluster_par.getDoubleValue("nphimaxclst", 0,0,0);
+        nhitMaxClst   = cluster_par.getDoubleValue("nhitmaxclst", 0,0,0);
+        maxTimeDiff   = cluster_par.getDoubleValue("maxtimediff", 0,0,0);
+        theta0 = geometry.getDoubleValue("theta0", 0,0,0);
+        dtheta = geometry.getDoubleValue("dtheta", 0,0,0);
+        phi0   = geometry.getDoubleValue("phi0", 0,0,0);
+        dphi   = geometry.getDoubleValue("dphi", 0,0,0);
+    }
+
+    /**
+     * Sets the hits in the clusterer, keeping as remaining hits the ones whose
+     * number of photoelectrons surpasses the minimum number of photoelectrons
+     * specified by cluster_par.npheminhit.
      */
-    List<Integer> intiRemainingHitList() {
-        List<Integer> remainingHits = new ArrayList();
+    void initRemainingHits() {
+        int[] channels = new int[numHits];
+        for (int hit = 0; hit < numHits; ++hit) {
+            int itheta = ithetaArray[hit];
+            int iphi = iphiArray[hit];
+            channels[hit] = itheta >= 0 && itheta < NTHETA && iphi >= 0 && iphi < NPHI ? itheta*NPHI + iphi : -1;
+        }
+        clusterer.setHits(numHits, channels);
+        hitTimeArray = new double[numHits];
 
         // Find all hits above the photoelectron threshold
         for (int hit = 0; hit < numHits; ++hit) {
-            if(    npheArray[hit] > cluster_par.getDoubleValue("npheminhit", 0,0,0) 
+            if(    npheArray[hit] > npheMinHit
                 && sectorArray[hit] > 0
                 && status.getIntValue("status", sectorArray[hit],halfArray[hit],ringArray[hit])==0) {
-                remainingHits.add(hit);
+                hitTimeArray[hit] = timeArray[hit] - ring_time.getDoubleValue("offset", 0,0,ithetaArray[hit]+1);
+            }
+            else {
+                clusterer.remove(hit);
             }
         }
-
-        return remainingHits;
+        if (numHits > 0) clusterer.setSeedWeights(npheArray);
     }
 
     /**
-     * Returns the next cluster or null if no clusters are left.
+     * Returns the cluster grown from the given seed hit, or null if it does
+     * not pass the cluster requirements.
      *
-     * @param remainingHits the list of remaining hits
-     * @return the next cluster or null if no clusters are left
+     * @param seed the index of the seed hit, already removed from the remaining hits
+     * @return the cluster or null
      */
-    HTCCCluster findCluster(List<Integer> remainingHits) {
-        // Note:
-        // maxHitNumPhotoelectrons : the number of photoelectrons for the maximum hit
-        // maxHitRawDataIndex : the index of the hit in the raw data
-        // maxHitRemainingIndex : the index of the hit in the remaining hits list
-
-        // Find the hit from the list of remaining hits with the largest number 
-        // of photoelectrons that also meets the threshold for the minimum 
-        // number of photoelectrons specified by cluster_par.npheminmax
-        findMaximumHit(remainingHits);
-
-        // If a maximum hit was found:
-        if (maxHitNumPhotoelectrons > -1) {
-
-            // Remove the maximum hit from the list of remaining hits
-            remainingHits.remove(maxHitRemainingIndex);
-
-            // Get Hit Data:
-            // Detector Indicies
-            int itheta = ithetaArray[maxHitRawDataIndex];
-            int iphi = iphiArray[maxHitRawDataIndex];
-            // Numver of Photoelectrons
-            double nphe = maxHitNumPhotoelectrons;
-            // Hit Time
-            double time = timeArray[maxHitRawDataIndex] - ring_time.getDoubleValue("offset", 0,0,itheta+1);
-            // Detector Coordinates (polar)
-            double theta = Math.toRadians(geometry.getDoubleValue("theta0", 0,0,0)+2*geometry.getDoubleValue("dtheta", 0,0,0)*itheta);
-            double phi   = Math.toRadians(geometry.getDoubleValue("phi0", 0,0,0)  +2*geometry.getDoubleValue("dphi", 0,0,0)*iphi);
-            // Detector Alignment Errors
-            double dtheta = Math.toRadians(geometry.getDoubleValue("dtheta", 0,0,0));
-            double dphi   = Math.toRadians(geometry.getDoubleValue("dphi", 0,0,0));
- 
-            // Create a new cluster and add the maximum hit
-            HTCCCluster cluster = new HTCCCluster();
-            cluster.addHit(itheta, iphi, nphe, time, theta, phi, dtheta, dphi);
-            // Recursively grow the cluster by adding nearby hits
-            growCluster(cluster, remainingHits);
-
-            //Check whether this cluster has nphe above threshold, size along theta and phi and total number of hits less than maximum:
-            if (cluster.getNPheTot() >= cluster_par.getDoubleValue("npheminclst", 0,0,0)
-                    && cluster.getNThetaClust() <= cluster_par.getDoubleValue("nthetamaxclst", 0,0,0)
-                    && cluster.getNPhiClust() <= cluster_par.getDoubleValue("nphimaxclst", 0,0,0)
-                    && cluster.getNHitClust() <= cluster_par.getDoubleValue("nhitmaxclst", 0,0,0)) {
-
-                // Return the cluster
-                return cluster;
-            }
+    HTCCCluster findCluster(int seed) {
+        // Get Hit Data:
+        // Detector Indicies
+        int itheta = ithetaArray[seed];
+        int iphi = iphiArray[seed];
+        // Numver of Photoelectrons
+        double nphe = npheArray[seed];
+        // Hit Time
+        double time = hitTimeArray[seed];
+        // Detector Coordinates (polar)
+        double theta = Math.toRadians(theta0+2*dtheta*itheta);
+        double phi   = Math.toRadians(phi0  +2*dphi*iphi);
+        // Detector Alignment Errors
+        double dthetaRad = Math.toRadians(dtheta);
+        double dphiRad   = Math.toRadians(dphi);
+
+        // Create a new cluster and add the maximum hit
+        HTCCCluster cluster = new HTCCCluster();
+        cluster.addHit(itheta, iphi, nphe, time, theta, phi, dthetaRad, dphiRad);
+        // Grow the cluster by adding nearby hits
+        growCluster(cluster, seed);
+
+        //Check whether this cluster has nphe above threshold, size along theta and phi and total number of hits less than maximum:
+        if (cluster.getNPheTot() >= npheMinClst
+                && cluster.getNThetaClust() <= nthetaMaxClst
+                && cluster.getNPhiClust() <= nphiMaxClst
+                && cluster.getNHitClust() <= nhitMaxClst) {
+
+            // Return the cluster
+            return cluster;
         }
 
-        // There are no clusters left, so return null
         return null;
     }
 
     /**
-     * Finds the hit from the list of remaining hits with the largest number of
-     * photoelectrons that also meets the threshold for the minimum number of
-     * photoelectrons specified in <code>parameters</code>.
-     * <p>
-     * Side effects: If a maximum hit was found with a number of photo electrons
-     * greater than or equal to <code>cluster_par.npheminmax</code>, then:
-     * maxHitNumPhotoelectrons = the number of photoelectrons for the max hit
-     * maxHitRawDataIndex = the index of the max hit in the bank data
-     * maxHitRemainingIndex = the index of the max hit in the remaining hits
-     * list
-     * <p>
-     * If no remaining hit has a number of photoelectrons greater than or equal
-     * to <code>cluster_par.npheminmax</code>, then: maxHitNumPhotoelectrons = -1
-     * maxHitRawDataIndex = -1 maxHitRemainingIndex = -1
-     *
-     * @param remainingHits the list of remaining hits
-     */
-    void findMaximumHit(List<Integer> remainingHits) {
-        maxHitNumPhotoelectrons = -100;
-        maxHitRemainingIndex = -100;
-        maxHitRawDataIndex = -100;
-        for (int hit = 0; hit < remainingHits.size(); ++hit) {
-            int hitIndex = remainingHits.get(hit);
-            double numPhotoElectrons = npheArray[hitIndex];
-            if (numPhotoElectrons >= cluster_par.getDoubleValue("npheminmax", 0,0,0)
-                    && numPhotoElectrons > maxHitNumPhotoelectrons) {
-                maxHitNumPhotoelectrons = numPhotoElectrons;
-                maxHitRemainingIndex = hit;
-                maxHitRawDataIndex = hitIndex;
-            }
-        }
-    }
-
-    /**
-     * Grows the given cluster by adding nearby hits from the remaining hits
-     * list. As hits are added to the cluster they are removed from the
-     * remaining hits list.
+     * Grows the given cluster by adding the remaining hits in the adjacent
+     * channels of each of its hits, that are also close enough in time. As
+     * hits are added to the cluster they are removed from the remaining hits.
      *
      * @param cluster the cluster to grow
-     * @param remainingHits the list of indexes of the remaining hits
+     * @param seed the index of the first hit of the cluster
      */
-    void growCluster(HTCCCluster cluster, List<Integer> remainingHits) {
+    void growCluster(HTCCCluster cluster, int seed) {
+        // Indexes of the hits in the cluster
+        int[] clusterHits = new int[numHits];
+        int nClusterHits = 0;
+        clusterHits[nClusterHits++] = seed;
         // Get the average time of the cluster
         double clusterTime = cluster.getTime();
         // For each hit in the cluster:
-        for (int currHit = 0; currHit < cluster.getNHitClust(); ++currHit) {
-            // Get the hits coordinates
-            int ithetaCurr = cluster.getHitITheta(currHit);
-            int iphiCurr = cluster.getHitIPhi(currHit);
-
-            // For each of the remaining hits:
-            int hit = 0;
-            while (hit < remainingHits.size()) {
-                // Get the index of the remaining hit (and call it a test hit)
-                int testHit = remainingHits.get(hit);
-                // Get the coordinates of the test hit
-                int ithetaTest = ithetaArray[testHit];
-                int iphiTest = iphiArray[testHit];
-
-                // Find the distance
-                int ithetaDiff = Math.abs(ithetaTest - ithetaCurr);
-                int iphiDiff = Math.min((12 + iphiTest - iphiCurr) % 12, (12 + iphiCurr - iphiTest) % 12);
+        for (int currHit = 0; currHit < nClusterHits; ++currHit) {
+            // For each of the remaining hits in the adjacent channels, by index:
+            int nNeighbours = clusterer.neighbours(clusterHits[currHit]);
+            for (int k = 0; k < nNeighbours; ++k) {
+                int testHit = clusterer.getNeighbour(k);
 
                 // Find the difference in time
-                double time = timeArray[testHit] - ring_time.getDoubleValue("offset", 0,0,ithetaTest+1);
+                double time = hitTimeArray[testHit];
                 double timeDiff = Math.abs(time - clusterTime);
 
-                // If the test hit is close enough in space and time
-                if ((ithetaDiff == 1 || iphiDiff == 1)
-                        && (ithetaDiff + iphiDiff <= 2)
-                        && (timeDiff <= cluster_par.getDoubleValue("maxtimediff", 0,0,0))) {
-                    // Remove the hit from the remaining hits list
-                    remainingHits.remove(hit);
+                // If the test hit is close enough in time
+                if (timeDiff <= maxTimeDiff) {
+                    // Remove the hit from the remaining hits
+                    clusterer.remove(testHit);
+                    clusterHits[nClusterHits++] = testHit;
+                    // Get the coordinates of the test hit
+                    int ithetaTest = ithetaArray[testHit];
+                    int iphiTest = iphiArray[testHit];
                     // Get the Numeber of Photoelectrons
                     double npheTest = npheArray[testHit];
                     // Get the Detector Coordinates (polar)
-                    double thetaTest = Math.toRadians(geometry.getDoubleValue("theta0", 0,0,0)+2*geometry.getDoubleValue("dtheta", 0,0,0)*ithetaTest);
-                    double phiTest   = Math.toRadians(geometry.getDoubleValue("phi0", 0,0,0)  +2*geometry.getDoubleValue("dphi", 0,0,0)*iphiTest);
+                    double thetaTest = Math.toRadians(theta0+2*dtheta*ithetaTest);
+                    double phiTest   = Math.toRadians(phi0  +2*dphi*iphiTest);
                     // Detector Alignment Errors
-                    double dthetaTest = Math.toRadians(geometry.getDoubleValue("dtheta", 0,0,0));
-                    double dphiTest   = Math.toRadians(geometry.getDoubleValue("dphi", 0,0,0));
+                    double dthetaTest = Math.toRadians(dtheta);
+                    double dphiTest   = Math.toRadians(dphi);
                     // Add the hit to the cluster
                     cluster.addHit(ithetaTest, iphiTest, npheTest, time, thetaTest, phiTest, dthetaTest, dphiTest);
                     // Get the new average time of the cluster
                     clusterTime = cluster.getTime();
-                } else {
-                    // Go to the next hit in the remaining hits list
-                    hit++;
                 }
             }
         }
@@ -7,7 +7,7 @@ package org.jlab.service.ltcc;
 
 import java.util.List;
 import java.util.ArrayList;
-import java.util.ListIterator;
+import org.jlab.detector.base.ChannelClusterer;
 
 /**
  *
@@ -25,6 +25,16 @@ public final class LTCCClusterFinder {
     // note: good cluster requirements are defined in the LTCCCluster class
     //       good hits are ensured by LTCCHit.loadHits()
     
+    // LTCC channels, 18 segments in each of the 6 sectors, both sides together
+    static private final int NSECTOR = 6;
+    static private final int NSEGMENT = 18;
+    // channels within DSEGMENT_SEARCH segments in the same sector
+    static private final int[][] NEIGHBORS = createNeighbors();
+
+    // hits indexed by channel, one per thread
+    static private final ThreadLocal<ChannelClusterer> CLUSTERER =
+            ThreadLocal.withInitial(() -> new ChannelClusterer(NEIGHBORS));
+    
     static public List<LTCCCluster> findClusters(List<LTCCHit> hits) {
         List<LTCCCluster> clusters = new ArrayList<>(10);
         
@@ -35,37 +45,63 @@ public final class LTCCClusterFinder {
         // by reversing the arguments to the compare operations we get a descending list
         // ==> the first entry has the largest nphe
         
-        while(!hits.isEmpty()) {
-            LTCCHit center = findClusterCenter(hits);
+        ChannelClusterer clusterer = CLUSTERER.get();
+        int[] channels = new int[hits.size()];
+        double[] nphe = new double[hits.size()];
+        for (int i = 0; i < hits.size(); i++) {
+            LTCCHit hit = hits.get(i);
+            channels[i] = getChannel(hit.getSector(), hit.getSegment());
+            nphe[i] = hit.getNphe();
+        }
+        clusterer.setHits(hits.size(), channels);
+        clusterer.setSeedWeights(nphe);
+        
+        while(true) {
+            int center = clusterer.nextSeed(NPHE_MIN_CLUSTER_CENTER);
             // no more good cluster centers available
-            if (center == null) {
+            if (center < 0) {
                 break;
             }
-            LTCCCluster cluster = growCluster(center, hits);
+            LTCCCluster cluster = growCluster(clusterer, center, hits);
             clusters.add(cluster);
         }
         return clusters;
     }
     
-    // get a new cluster center, assuming that the list hits is order in
-    // descending order for number of photo-electrons
-    static private LTCCHit findClusterCenter(List<LTCCHit> hits) {
-        LTCCHit center = hits.remove(0);
-        // sanity check
-        if (center.getNphe() < NPHE_MIN_CLUSTER_CENTER) {
-            center = null;
+    static private int getChannel(int sector, int segment) {
+        if (sector < 1 || sector > NSECTOR || segment < 1 || segment > NSEGMENT) {
+            return -1;
         }
-        
-        return center;
+        return (sector - 1) * NSEGMENT + segment - 1;
     }
-    static private LTCCCluster growCluster(LTCCHit center, List<LTCCHit> hits){
-        LTCCCluster cluster = new LTCCCluster(center);
-        ListIterator<LTCCHit> hitIt = hits.listIterator();
-        while (hitIt.hasNext()){
-            LTCCHit hit = hitIt.next();
-            if (hit.isNeighbor(center, DSEGMENT_SEARCH, DTIME_SEARCH)) {
+    
+    static private int[][] createNeighbors() {
+        int[][] neighbors = new int[NSECTOR * NSEGMENT][];
+        for (int sector = 1; sector <= NSECTOR; sector++) {
+            for (int segment = 1; segment <= NSEGMENT; segment++) {
+                int first = Math.max(1, segment - DSEGMENT_SEARCH);
+                int last = Math.min(NSEGMENT, segment + DSEGMENT_SEARCH);
+                int[] channels = new int[last - first + 1];
+                for (int s = first; s <= last; s++) {
+                    channels[s - first] = getChannel(sector, s);
+                }
+                neighbors[getChannel(sector, segment)] = channels;
+            }
+        }
+        return neighbors;
+    }
+    
+    // add the remaining hits around the cluster center, by decreasing nphe
+    static private LTCCCluster growCluster(ChannelClusterer clusterer, int center, List<LTCCHit> hits){
+        LTCCHit centerHit = hits.get(center);
+        LTCCCluster cluster = new LTCCCluster(centerHit);
+        int nNeighbors = clusterer.neighbours(center);
+        for (int i = 0; i < nNeighbors; i++) {
+            int index = clusterer.getNeighbour(i);
+            LTCCHit hit = hits.get(index);
+            if (hit.isNeighbor(centerHit, DSEGMENT_SEARCH, DTIME_SEARCH)) {
                 cluster.add(hit);
-                hitIt.remove();
+                clusterer.remove(index);
             }
         }
         return cluster;
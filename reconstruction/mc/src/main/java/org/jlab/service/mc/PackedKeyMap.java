@@ -0,0 +1,115 @@
+package org.jlab.service.mc;
+
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to long values, for the per-event
+ * lookups of the truth matching. Keys are usually two ints packed with
+ * {@link #key(int, int)}, e.g. (detector, hit id) or (MC index, pindex).
+ *
+ * The map is meant to be cleared and reused from event to event, it keeps
+ * its capacity across {@link #clear()}.
+ */
+final class PackedKeyMap {
+
+    private long[]    keys;
+    private long[]    values;
+    private boolean[] used;
+    private int       size;
+
+    PackedKeyMap() {
+        this.allocate(64);
+    }
+
+    /**
+     * @param a high part of the key
+     * @param b low part of the key
+     * @return the packed key
+     */
+    static long key(int a, int b) {
+        return ((long) a << 32) | (b & 0xffffffffL);
+    }
+
+    int size() {
+        return this.size;
+    }
+
+    boolean containsKey(long key) {
+        return this.used[this.slot(key)];
+    }
+
+    /**
+     * @param key the key
+     * @param missing the value to return if the key is not in the map
+     * @return the value for the key, or missing
+     */
+    long get(long key, long missing) {
+        int i = this.slot(key);
+        return this.used[i] ? this.values[i] : missing;
+    }
+
+    void put(long key, long value) {
+        int i = this.slot(key);
+        if (!this.used[i]) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                this.rehash();
+                i = this.slot(key);
+            }
+            this.used[i] = true;
+            this.keys[i] = key;
+            this.size++;
+        }
+        this.values[i] = value;
+    }
+
+    /**
+     * Set bits in the value for the key, starting from 0 if it is not in the
+     * map yet
+     * @param key the key
+     * @param bits the bits to set
+     */
+    void or(long key, long bits) {
+        int i = this.slot(key);
+        if (this.used[i]) {
+            this.values[i] |= bits;
+        } else {
+            this.put(key, bits);
+        }
+    }
+
+    void clear() {
+        if (this.size > 0) {
+            Arrays.fill(this.used, false);
+            this.size = 0;
+        }
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int mask = this.keys.length - 1;
+        int i = (int) (h ^ (h >>> 32)) & mask;
+        while (this.used[i] && this.keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new long[capacity];
+        this.used = new boolean[capacity];
+        this.size = 0;
+    }
+
+    private void rehash() {
+        long[] oldKeys = this.keys;
+        long[] oldValues = this.values;
+        boolean[] oldUsed = this.used;
+        this.allocate(2 * oldKeys.length);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                this.put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -6,8 +6,6 @@ import org.jlab.io.base.DataBank;
 import org.jlab.io.base.DataEvent;
 import org.jlab.clas.pdg.PDGDatabase;
 import java.util.*;
-import java.util.logging.Level;
-import java.util.logging.Logger;
 
 /**
  *
@@ -20,6 +18,10 @@ import java.util.logging.Logger;
  * particles as well The "TruthMatching" class works well for charged particles,
  * but for neutrals it requires to introduce some ad-hoc functions. So this is
  * an attempt to make it to look more general.
+ *
+ * Each bank is read once per event, and the hits, responses and tracks are
+ * looked up in per-thread primitive maps keyed by packed (detector, id) longs,
+ * see {@link PackedKeyMap}, which are cleared and reused from event to event.
  */
 public class TruthMatch extends ReconstructionEngine {
 
@@ -31,6 +33,11 @@ public class TruthMatch extends ReconstructionEngine {
      */
     private boolean hasNeutral;
 
+    /**
+     * Per-thread lookup maps and buffers, reused from event to event
+     */
+    private final ThreadLocal<Buffers> buffers = ThreadLocal.withInitial(Buffers::new);
+
     public TruthMatch() {
         super("TruthMatch", "Rafo", "0.0");
         this.chargedPIDs = new ArrayList<>(Arrays.asList(ELECTRON_ID, PROTON_ID, POSITRON_ID, PIPLUS_ID, PIMINUS_ID, KPLUS_ID, KMINUS_ID, MUMINUS_ID, MUPLUS_ID));
@@ -60,177 +67,189 @@ public class TruthMatch extends ReconstructionEngine {
             return false;
         }
 
+        Buffers buf = this.buffers.get();
+        buf.clear();
+
         /**
          * ********************************************************
          * The 1st thing, let's load MC particles
          * ********************************************************
          */
-        // <index, MCPart>
-        Map<Short, MCPart> mcp = getMCparticles(event.getBank("MC::Particle"));
+        // indexed by the row in MC::Particle
+        List<MCPart> mcp = getMCparticles(event.getBank("MC::Particle"));
 
-        // <index, RecPart>
-        Map<Short, RecPart> recp = getRecparticles(event.getBank("REC::Particle"));
+        // indexed by the row in REC::Particle
+        List<RecPart> recp = getRecparticles(event.getBank("REC::Particle"));
 
         /**
          * ********************************************************
          * Now let's get True hits from the MC::True bank
          * ********************************************************
          */
-        // <Detector, <hitn, MCHit>>
-        Map<Byte, Map<Integer, MCHit>> mchits = getMCHits(event.getBank("MC::True"), mcp);
+        getMCHits(event.getBank("MC::True"), buf);
 
         /**
          * We need a conversion from trkID to the index of a track in the
          * Rec::Track banks It is needed for CVT detectors and DC for two
          * different methods, so in order to avoid multiple times of defining
-         * such a map in these function, instead we will make it here, and pass
-         * it as an argument to corresponding functions.
+         * such a map in these function, instead we will make it here, and use
+         * it in the corresponding functions.
          */
-        Map<Integer, Integer> trkID2TrackIndex = MaketrkID2IndexMap(event);
+        MaketrkID2IndexMaps(event, buf);
 
         /**
-         * Now let's get ECal Rec hits. The RecHit object should, has the -
-         * hitID (the same as the hitn in MCHit) - cID : clusterId of the
-         * cluster to which the hit belogs to - pindex : pindex of the particle
-         * that the current cluster belongs to.
+         * The REC::Calorimeter, REC::ForwardTagger and REC::Scintillator
+         * banks are read once, for both the clusters of each detector and the
+         * pindex of each cluster, needed by the hits.
          */
-        // <clID, List of RecHits> 
-        Map<Short, List<RecHit>> ecalHits = getECalHits(event, mchits.get((byte) DetectorType.ECAL.getDetectorId()), mcp, recp);
-        List<RecCluster> ecalClusters = getECalClusters(event);
+        List<RecCluster> ecalClusters = new ArrayList<>();
+        getECalClusters(event, ecalClusters, buf);
 
-        /**
-         * Getting FT Hits and clusters
-         */
-        Map< Short, List<RecHit>> ftCalHits = getFTCalHits(event, mchits.get((byte) DetectorType.FTCAL.getDetectorId()), mcp, recp);
-        List<RecCluster> ftCalClusters = getFTCalClusters(event);
+        List<RecCluster> ftCalClusters = new ArrayList<>();
+        List<RecCluster> ftHodoClusters = new ArrayList<>();
+        getFTClusters(event, ftCalClusters, ftHodoClusters, buf);
 
-        Map< Short, List<RecHit>> ftHodoHits = getFTHodoHits(event, mchits.get((byte) DetectorType.FTHODO.getDetectorId()), mcp, recp);
-        List<RecCluster> ftHodoClusters = getFTHodoClusters(event);
+        List<RecCluster> cndClusters = new ArrayList<>();
+        List<RecCluster> ctofClusters = new ArrayList<>();
+        getScintillatorClusters(event, cndClusters, ctofClusters, buf);
 
-        /**
-         * Getting CND Hits and Clusters
-         */
-        Map<Short, List<RecHit>> cndHits = getCNDHits(event, mchits.get((byte) DetectorType.CND.getDetectorId()), mcp, recp);
-        List<RecCluster> cndClusters = getCNDClusters(event);
+        List<RecCluster> bstClusters = getBSTClusters(event, buf);
+        List<RecCluster> bmtClusters = getBMTClusters(event, buf);
+        List<RecCluster> dcClusters = getDCClusters(event, buf);
 
         /**
-         * Getting CTOF Hits and Clusters
+         * Now let's get the Rec hits of each detector, and match the clusters
+         * of the detector to MCParticles. Each hit has the - hitID (the same
+         * as the hitn in MC::True) - cID : clusterId of the cluster to which
+         * the hit belogs to - pindex : pindex of the particle that the current
+         * cluster belongs to.
          */
-        Map<Short, List<RecHit>> ctofHits = getCTOFHits(event, mchits.get((byte) DetectorType.CTOF.getDetectorId()), mcp, recp);
-        List<RecCluster> ctofClusters = getCTOFClusters(event);
+        getECalHits(event, mcp, recp, buf);
+        MatchClasters(ecalClusters, buf);
 
-        /**
-         * Getting BST Hits and Clusters
-         */
-        Map<Short, List<RecHit>> bstHits = getBSTHits(event, mchits.get((byte) DetectorType.BST.getDetectorId()), trkID2TrackIndex, mcp, recp);
-        List<RecCluster> bstClusters = getBSTClusters(event, trkID2TrackIndex);
+        getFTCalHits(event, mcp, recp, buf);
+        MatchClasters(ftCalClusters, buf);
 
-        /**
-         * Getting BMT Hits and Clusters
-         */
-        Map<Short, List<RecHit>> bmtHits = getBMTHits(event, mchits.get((byte) DetectorType.BMT.getDetectorId()), trkID2TrackIndex, mcp, recp);
-        List<RecCluster> bmtClusters = getBMTClusters(event, trkID2TrackIndex);
+        getFTHodoHits(event, mcp, recp, buf);
+        MatchClasters(ftHodoClusters, buf);
 
-        /**
-         * Getting DC Hits and Clusters
-         */
-        Map<Short, List<RecHit>> DCHits = getDCHits(event, mchits.get((byte) DetectorType.DC.getDetectorId()), mcp, recp);
-        List<RecCluster> dcClusters = getDCClusters(event);
+        getCNDHits(event, mcp, recp, buf);
+        MatchClasters(cndClusters, buf);
 
-        /**
-         * Matchingg clusters to MCParticles
-         */
-        MatchClasters(ecalClusters, ecalHits, mchits.get((byte) DetectorType.ECAL.getDetectorId()));
-        MatchClasters(ftCalClusters, ftCalHits, mchits.get((byte) DetectorType.FTCAL.getDetectorId()));
-        MatchClasters(ftHodoClusters, ftHodoHits, mchits.get((byte) DetectorType.FTHODO.getDetectorId()));
-        MatchClasters(cndClusters, cndHits, mchits.get((byte) DetectorType.CND.getDetectorId()));
-        MatchClasters(ctofClusters, ctofHits, mchits.get((byte) DetectorType.CTOF.getDetectorId()));
-        MatchClasters(bstClusters, bstHits, mchits.get((byte) DetectorType.BST.getDetectorId()));
-        MatchClasters(bmtClusters, bmtHits, mchits.get((byte) DetectorType.BMT.getDetectorId()));
-        MatchClasters(dcClusters, DCHits, mchits.get((byte) DetectorType.DC.getDetectorId()));
+        getCTOFHits(event, mcp, recp, buf);
+        MatchClasters(ctofClusters, buf);
+
+        getBSTHits(event, mcp, recp, buf);
+        MatchClasters(bstClusters, buf);
+
+        getBMTHits(event, mcp, recp, buf);
+        MatchClasters(bmtClusters, buf);
+
+        getDCHits(event, mcp, recp, buf);
+        MatchClasters(dcClusters, buf);
 
         /**
          * Adding all clusters together
          */
         List<RecCluster> allCls = new ArrayList<>();
+        allCls.addAll(ecalClusters);
+        allCls.addAll(ftCalClusters);
+        allCls.addAll(ftHodoClusters);
+        allCls.addAll(cndClusters);
+        allCls.addAll(ctofClusters);
+        allCls.addAll(bstClusters);
+        allCls.addAll(bmtClusters);
+        allCls.addAll(dcClusters);
 
         /**
-         * Adding ECal clusters
+         * Mapping Clusters to MCParticle
          */
-        if (ecalClusters != null) {
-            allCls.addAll(ecalClusters);
-        }
-        /**
-         * Adding FTCal clusters
-         */
-        if (ftCalClusters != null) {
-            allCls.addAll(ftCalClusters);
-        }
-
+        List<List<RecCluster>> clsPerMCp = mapClustersToParticles(mcp.size(), allCls, true);
         /**
-         * Adding FTHodo clusters
+         * Mapping Clusters to RecParticle
          */
-        if (ftHodoClusters != null) {
-            allCls.addAll(ftHodoClusters);
-        }
+        List<List<RecCluster>> clsPerRecp = mapClustersToParticles(recp.size(), allCls, false);
+        //PrintClsPerMc(clsPerMCp);
 
-        /**
-         * Adding CND clusters
-         */
-        if (cndClusters != null) {
-            allCls.addAll(cndClusters);
-        }
+        List<MCRecMatch> MCRecMatches = MakeMCRecMatch(mcp, clsPerMCp, buf);
+        List<MCRecMatch> RecMCMatches = MakeRecMCMatch(recp, clsPerRecp, buf);
+        CalculateMatchCuality(event, MCRecMatches, RecMCMatches);
+        bankWriter(event, MCRecMatches, RecMCMatches);
 
-        /**
-         * Adding CTOF clusters
-         */
-        if (ctofClusters != null) {
-            allCls.addAll(ctofClusters);
-        }
+        return true;
 
-        /**
-         * Adding BST clusters
-         */
-        if (bstClusters != null) {
-            allCls.addAll(bstClusters);
-        }
+    }
 
-        /**
-         * Adding BMT clusters
-         */
-        if (bmtClusters != null) {
-            allCls.addAll(bmtClusters);
+    /**
+     * Per-thread maps and buffers of the matching, keyed by packed ints, see
+     * {@link PackedKeyMap#key(int, int)}
+     */
+    private static class Buffers {
+
+        // (detector, hitn) -> row in MC::True
+        final PackedKeyMap mcHits = new PackedKeyMap();
+        // otid of each row in MC::True, starting from 0
+        int[] mcOtids = new int[64];
+        // number of MC::True hits per detector
+        final int[] mcHitCounts = new int[256];
+
+        // (detector, index) -> pindex, from REC::Calorimeter, REC::ForwardTagger and REC::Scintillator
+        final PackedKeyMap responses = new PackedKeyMap();
+
+        // CVT track ID -> row in REC::Track
+        final PackedKeyMap cvtTracks = new PackedKeyMap();
+        // TB track ID -> row in REC::Track
+        final PackedKeyMap dcTracks = new PackedKeyMap();
+        // TB hit ID -> row in REC::Track, for the hits on tracks
+        final PackedKeyMap dcHits = new PackedKeyMap();
+
+        // (MC index, pindex) -> layer words of the pair, set from the hits
+        // of the MC particle that are associated to the Rec particle
+        final PackedKeyMap layersTrk = new PackedKeyMap();
+        final PackedKeyMap layersNeut = new PackedKeyMap();
+
+        // (cluster ID, hit number) of the matched hits of the current
+        // detector, and the otid of each hit number
+        long[] hits = new long[64];
+        int[] hitOtids = new int[64];
+        int nHits;
+        // otids of the hits of one cluster and their number of hits
+        int[] clusterOtids = new int[16];
+        int[] clusterCounts = new int[16];
+        // cluster ID -> (number of hits, otid) of its MC particle
+        final PackedKeyMap clusterMatches = new PackedKeyMap();
+
+        void clear() {
+            mcHits.clear();
+            Arrays.fill(mcHitCounts, 0);
+            responses.clear();
+            cvtTracks.clear();
+            dcTracks.clear();
+            dcHits.clear();
+            layersTrk.clear();
+            layersNeut.clear();
+            nHits = 0;
         }
 
         /**
-         * Adding DC clusters
+         * @param detector detector ID
+         * @param hitn hit ID, starting from 0
+         * @return the row in MC::True, or -1 if there is no MC hit
          */
-        if (dcClusters != null) {
-            allCls.addAll(dcClusters);
+        int getMCRow(int detector, int hitn) {
+            return (int) mcHits.get(PackedKeyMap.key(detector, hitn), -1);
         }
 
-        try {
-            /**
-             * Mapping Clusters to MCParticle
-             */
-            Map<Short, List<RecCluster>> clsPerMCp = mapClustersToParticles(mcp.keySet(), allCls, "MC");
-            /**
-             * Mapping Clusters to RecParticle
-             */
-            Map<Short, List<RecCluster>> clsPerRecp = mapClustersToParticles(recp.keySet(), allCls, "Rec");
-            //PrintClsPerMc(clsPerMCp);
-
-            List<MCRecMatch> MCRecMatches = MakeMCRecMatch(mcp, clsPerMCp);
-            List<MCRecMatch> RecMCMatches = MakeRecMCMatch(recp, clsPerRecp);
-            CalculateMatchCuality(event, MCRecMatches, RecMCMatches);
-            bankWriter(event, MCRecMatches, RecMCMatches);
-
-        } catch (Exception ex) {
-            System.err.println("The DataSet in the  mapClustersToParticles should be either 'Rec' or 'MC' ");
-            Logger.getLogger(TruthMatch.class.getName()).log(Level.SEVERE, null, ex);
+        void addHit(short cid, int otid) {
+            if (nHits == hits.length) {
+                hits = Arrays.copyOf(hits, 2 * nHits);
+                hitOtids = Arrays.copyOf(hitOtids, 2 * nHits);
+            }
+            // the hits sort by cluster ID, and then in the order they were added
+            hitOtids[nHits] = otid;
+            hits[nHits] = PackedKeyMap.key(cid, nHits);
+            nHits++;
         }
-        return true;
-
     }
 
     /**
@@ -244,8 +263,6 @@ public class TruthMatch extends ReconstructionEngine {
         public MCPart() {
             MCLayersTrk = 0;
             MCLayersNeut = 0;
-            RecLayersTrk = new HashMap<>();
-            RecLayersNeut = new HashMap<>();
         }
 
         public int id;      // index of the MC particle (it should correspond of tid/otid
@@ -259,10 +276,7 @@ public class TruthMatch extends ReconstructionEngine {
 
         public long MCLayersNeut;   // This is ntot really MCParticle property, bu we know that each MCParticle should have this so, attaching this to MCPart object
 
-        // In the following map, the key is the pindex of the matched particle, and the value is the    
-        public Map<Integer, Long> RecLayersTrk;
-        // In the following map, the key is the pindex of the matched particle, and the value is the    
-        public Map<Integer, Long> RecLayersNeut;
+        // The layers of each matched (MCParticle, RecParticle) pair are kept in the per-thread buffers
     }
 
     // MCParticle from MC::Particle bank
@@ -271,9 +285,6 @@ public class TruthMatch extends ReconstructionEngine {
         public RecPart() {
             RecLayersTrk = 0;
             RecLayersNeut = 0;
-
-            MCLayersTrk = new HashMap<>();
-            MCLayersNeut = new HashMap<>();
         }
 
         public int id;      // index of the MC particle (it should correspond of tid/otid
@@ -285,55 +296,6 @@ public class TruthMatch extends ReconstructionEngine {
         // *********************************************** Description of "LayersTrk" ************************************************************
         //**** BMT Layer ****|*** BST Layer **** | ******************************************* DC layers *******************************************
         // 47 46 45 44 43 42 | 41 40 39 38 37 36 | 35 34 33 32 31 30 29 28 27 26 25 24 23 22 21 20 19 18 17 16 15 14 13 12 11 10 9 8 7 6 5 4 3 3 2 0
-
-        public Map<Integer, Long> MCLayersTrk;
-        public Map<Integer, Long> MCLayersNeut;
-    }
-
-// True hit information from the MC::True banl
-    class MCHit {
-
-        /**
-         * TODO: pid should be removed, it is not needed anymore.
-         */
-        public int pid;      // MC particle id (pdg code)
-        public int otid;     // id of the original (gernerated) particle that eventually caused the hit
-        public int hitn;     // Hit id: it corresponds to the position of the corresponding dgtized hit in the adc bank
-        public byte detector; // Detector code descriptor
-
-        @Override
-        public String toString() {
-            String str = "***** MCHit object ******\n";
-
-            str += "* pid = " + String.valueOf(pid) + "\n";
-            str += "* otid = " + String.valueOf(otid) + "\n";
-            str += "* hitn = " + String.valueOf(hitn) + "\n";
-            str += "* detector = " + String.valueOf(detector) + "\n";
-
-            return str;
-        }
-    }
-
-// RecHit object
-    class RecHit {
-
-        public int id;          // ID: This is corresponding ADC row number in the ADC bank.
-        public short pindex;      // pindex
-        public short cid;         // clusterID
-        public byte detector;     // Detector specifier
-
-        @Override
-        public String toString() {
-            String str = "***** RecHit object ******\n";
-
-            str += "* id = " + String.valueOf(id) + "\n";
-            str += "* pindex = " + String.valueOf(pindex) + "\n";
-            str += "* cid = " + String.valueOf(cid) + "\n";
-            str += "* detector = " + String.valueOf(cid) + "\n";
-            str += "***** End of RecHit object ******\n";
-            return str;
-        }
-
     }
 
     class RecCluster {
@@ -441,16 +403,18 @@ public class TruthMatch extends ReconstructionEngine {
      * Defining utility functions
      * ************************************************************************
      */
+    private static final String[] HIT_IDS = {"Hit1_ID", "Hit2_ID", "Hit3_ID", "Hit4_ID", "Hit5_ID"};
+
     /**
      *
      * @param MC::Particle bank
      *
-     * @return map of MCpart objects, where the Key is the index of the MC
+     * @return list of MCpart objects, where the index is the index of the MC
      * particle in the MC::Particle bank
      */
-    Map<Short, MCPart> getMCparticles(DataBank mcpart) {
+    List<MCPart> getMCparticles(DataBank mcpart) {
 
-        Map<Short, MCPart> mcp = new HashMap<>();
+        List<MCPart> mcp = new ArrayList<>(mcpart.rows());
 
         for (int i = 0; i < mcpart.rows(); i++) {
 
@@ -466,7 +430,7 @@ public class TruthMatch extends ReconstructionEngine {
                 hasNeutral = true;
             }
 
-            mcp.put((short) (i), curPart);
+            mcp.add(curPart);
         }
         return mcp;
     }
@@ -475,12 +439,12 @@ public class TruthMatch extends ReconstructionEngine {
      *
      * @param REC::Particle bank
      *
-     * @return map of MCpart objects, where the Key is the index of the MC
-     * particle in the MC::Particle bank
+     * @return list of RecPart objects, where the index is the index of the
+     * particle in the REC::Particle bank
      */
-    Map<Short, RecPart> getRecparticles(DataBank recpart) {
+    List<RecPart> getRecparticles(DataBank recpart) {
 
-        Map<Short, RecPart> recp = new HashMap<>();
+        List<RecPart> recp = new ArrayList<>(recpart.rows());
 
         for (int i = 0; i < recpart.rows(); i++) {
 
@@ -496,28 +460,27 @@ public class TruthMatch extends ReconstructionEngine {
                 hasNeutral = true;
             }
 
-            recp.put((short) (i), curPart);
+            recp.add(curPart);
         }
         return recp;
     }
 
-    Map<Byte, Map<Integer, MCHit>> getMCHits(DataBank mctrue, Map<Short, MCPart> mcp) {
+    /**
+     * Fill the (detector, hitn) map of MC::True hits, and their otid
+     *
+     * @param mctrue MC::True bank
+     * @param buf the buffers to fill
+     */
+    void getMCHits(DataBank mctrue, Buffers buf) {
 
-        /**
-         * TODO: The 2nd argument is not needed anymore, should be cleaned up
-         */
-        Map<Byte, Map<Integer, MCHit>> dmchits = new HashMap<>();
+        if (buf.mcOtids.length < mctrue.rows()) {
+            buf.mcOtids = new int[mctrue.rows()];
+        }
 
         for (int i = 0; i < mctrue.rows(); i++) {
-            MCHit hit = new MCHit();
-            hit.pid = mctrue.getInt("pid", i);
-            hit.otid = mctrue.getInt("otid", i) - 1;
-            hit.hitn = mctrue.getInt("hitn", i) - 1;
-            hit.detector = mctrue.getByte("detector", i);
-
-            int tid = mctrue.getInt("tid", i) - 1;  // in MC::True tid starts 
-            //  from one, so subtracting 1 to match to the row number in the MC::Particle bank
-            int mtid = mctrue.getInt("mtid", i);
+            int otid = mctrue.getInt("otid", i) - 1;
+            int hitn = mctrue.getInt("hitn", i) - 1;
+            byte detector = mctrue.getByte("detector", i);
 
             /**
              * In the original version of Truth Matching, before adding the
@@ -541,868 +504,520 @@ public class TruthMatch extends ReconstructionEngine {
              * particle
              *
              */
+            buf.mcOtids[i] = otid;
+            buf.mcHits.put(PackedKeyMap.key(detector, hitn), i);
+            buf.mcHitCounts[detector & 0xff]++;
+        }
+    }
+
+    /**
+     * Fill the maps from the trkID of the CVT and DC clusters to the index of
+     * the track in the REC::Track bank
+     *
+     * @param event DataEvent
+     * @param buf the buffers to fill
+     */
+    void MaketrkID2IndexMaps(DataEvent event, Buffers buf) {
+
+        if (event.hasBank("REC::Track") == false) {
+            return;
+        }
+        DataBank trkBank = event.getBank("REC::Track");
+
+        // ******* Key of the map is the trkID of theBSTRec::Cluster, while the value is the index of the track in the CVTRec::Tracks
+        if (event.hasBank("CVTRec::Tracks")) {
+            DataBank CVTtrkBank = event.getBank("CVTRec::Tracks");
+            int nCVT = CVTtrkBank.rows();
 
             /**
-             * We can check whether the particle or it's mother is original
-             * particle. This can reduce the number of hits. Subject further
-             * studies... if( mcp.get( (short) tid ) == null && mcp.get( (short)
-             * mtid ) == null ) continue;
+             * If a track ID is repeated, only its last row is kept
              */
-            if (dmchits.get(hit.detector) == null) {
-                dmchits.put(hit.detector, new HashMap<>());
+            short[] IDs = new short[nCVT];
+            for (int icvtTr = 0; icvtTr < nCVT; icvtTr++) {
+                IDs[icvtTr] = CVTtrkBank.getShort("ID", icvtTr);
+                buf.cvtTracks.put(IDs[icvtTr], icvtTr);
             }
-            dmchits.get(hit.detector).put(hit.hitn, hit);
+            boolean[] kept = new boolean[nCVT];
+            for (int icvtTr = 0; icvtTr < nCVT; icvtTr++) {
+                kept[icvtTr] = buf.cvtTracks.get(IDs[icvtTr], -1) == icvtTr;
+            }
+            buf.cvtTracks.clear();
 
+            for (int itr = 0; itr < trkBank.rows(); itr++) {
+                int index = trkBank.getShort("index", itr);
+                if (index >= 0 && index < nCVT && kept[index]) {
+                    buf.cvtTracks.put(IDs[index], itr);
+                }
+            }
         }
-        return dmchits;
-    }
 
-    Map<Integer, Integer> MaketrkID2IndexMap(DataEvent event) {
-        
-        // ******* Key of the map is the trkID of theBSTRec::Cluster, while the value is the index of the track in the CVTRec::Tracks
-        
-        Map<Integer, Integer> trkID2TrInd = new HashMap<>();
-        /**
-         * Check if both "REC::Track" and "CVTRec::Tracks" banks exist
-         */
-        if (! (event.hasBank("REC::Track") && event.hasBank("CVTRec::Tracks") ) ) {
-            return trkID2TrInd;
-        }
-        
-        
-        Map<Short, Integer> trkID2Index = new HashMap<>();
-        DataBank CVTtrkBank = event.getBank("CVTRec::Tracks");
-        for( int icvtTr = 0; icvtTr < CVTtrkBank.rows(); icvtTr++ ){
-            Short ID = CVTtrkBank.getShort("ID", icvtTr);
-            trkID2Index.put(ID, icvtTr);
-        }
-        
-        DataBank trkBank = event.getBank("REC::Track");
-        for( int itr = 0; itr < trkBank.rows(); itr++ ){
-            Short index = trkBank.getShort("index", itr);
-            
-            for( Map.Entry<Short, Integer> entry : trkID2Index.entrySet() ){
-               if( (int)entry.getValue() == index ){
-                   trkID2TrInd.put( (int)entry.getKey(), itr );
-               }
+        if (event.hasBank("TimeBasedTrkg::TBTracks")) {
+            DataBank tbtrkBank = event.getBank("TimeBasedTrkg::TBTracks");
+            for (int iRec = 0; iRec < trkBank.rows(); iRec++) {
+                if (trkBank.getByte("detector", iRec) == DetectorType.DC.getDetectorId()) {
+                    int index = trkBank.getShort("index", iRec);
+                    buf.dcTracks.put(tbtrkBank.getShort("id", index), iRec);
+                }
             }
-            
         }
-        
-        return trkID2TrInd;
     }
 
     /**
+     * Set a tracking layer bit for a pair of MC and Rec particles
+     */
+    void setLayerTrk(List<RecPart> recp, Buffers buf, int otid, short pindex, long layerBit) {
+        if (pindex >= 0) {
+            recp.get(pindex).RecLayersTrk |= layerBit;
+            buf.layersTrk.or(PackedKeyMap.key(otid, pindex), layerBit);
+        }
+    }
+
+    /**
+     * Set a neutral layer bit for a pair of MC and Rec particles
+     */
+    void setLayerNeut(List<RecPart> recp, Buffers buf, int otid, short pindex, long layerBit) {
+        if (pindex >= 0) {
+            recp.get(pindex).RecLayersNeut |= layerBit;
+            buf.layersNeut.or(PackedKeyMap.key(otid, pindex), layerBit);
+        }
+    }
+
+    /**
+     * Collect the ECal hits that are associated to an MC hit. The "id" and
+     * "cid (clusterId)" will be obtained from the ECAL::hits bank, and the
+     * pindex of the cluster from the REC::Calorimeter bank.
      *
      * @param event DataEvent
-     * @param mchitsInECal MCHits in ECal
-     * @return Map<clusterID, List<RecHit>>, Map, where the Key is the
-     * clusterID, and the value is a list of hits having the same clusterID
+     * @param mcp MC particles
+     * @param recp Rec particles
+     * @param buf the buffers, with the responses and the MC hits
      */
-    Map< Short, List<RecHit>> getECalHits(DataEvent event, Map<Integer, MCHit> mchitsInECal, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
+    void getECalHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
 
-        /**
-         * We need two banks to be present in the event: ECAL::hits and
-         * REC::Calorimeter "id" and "cid (clusterId)" will be obtained from the
-         * ECAL::hits bank, but in order to find the pindex of particle we need
-         * to loop over the REC::Calorimeter bank and create a map
-         * <cId, pindex>.
-         */
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
-        if (mchitsInECal == null) {
+        final int detector = DetectorType.ECAL.getDetectorId();
+
+        if (buf.mcHitCounts[detector] == 0) {
             /**
              * In case if no MC hit present in the ECal, then don't proceed, as
              * we need only hits that are associated to an MC hit
              */
-            return recHits;
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if three necessary banks exist
          */
-        if (event.hasBank("ECAL::adc") == false) {
-            return null;
-        }
-
-        if (event.hasBank("ECAL::hits") == false) {
-            return null;
-        }
-
-        if (event.hasBank("REC::Calorimeter") == false) {
-            return null;
-        }
-
-        Map<Short, Short> clId2Pindex = new HashMap<>();
-        DataBank RecCalBank = event.getBank("REC::Calorimeter");
-
-        for (int ical = 0; ical < RecCalBank.rows(); ical++) {
-
-            Short pindex = RecCalBank.getShort("pindex", ical);
-            Short index = RecCalBank.getShort("index", ical);
-
-            clId2Pindex.put(index, pindex);
+        if ((event.hasBank("ECAL::adc") == false) || (event.hasBank("ECAL::hits") == false)
+                || (event.hasBank("REC::Calorimeter") == false)) {
+            return;
         }
 
-        DataBank adcBank = event.getBank("ECAL::adc");
         DataBank hitsBank = event.getBank("ECAL::hits");
 
         for (int ihit = 0; ihit < hitsBank.rows(); ihit++) {
-            RecHit curHit = new RecHit();
 
-            curHit.id = hitsBank.getShort("id", ihit) - 1;   // -1 for starting from 0
+            int id = hitsBank.getShort("id", ihit) - 1;   // -1 for starting from 0
 
-            if (!mchitsInECal.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, id);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            curHit.cid = (short) (hitsBank.getShort("clusterId", ihit) - 1);  // -1 for starting from 0
+            short cid = (short) (hitsBank.getShort("clusterId", ihit) - 1);  // -1 for starting from 0
 
             int layer = (hitsBank.getInt("layer", ihit) - 1) / 3;  // PCAL 1(U)2(V)3(W), ECIN 4(U)5(V)6(W). ECOut 7(U)8(V)9(W)
 
-            int ECalLayerBit = ECalStartBit + layer;
-
-            mcp.get((short) mchitsInECal.get(curHit.id).otid).MCLayersNeut |= 1L << ECalLayerBit;
-
-            if (curHit.cid == -2 || !mchitsInECal.containsKey(curHit.id)) {
-                continue; // The hit is not part of any cluster, or the hit it's corresponding MC hit is ignored
-            }
-            curHit.pindex = clId2Pindex.get(curHit.cid);
-            curHit.detector = (byte) DetectorType.ECAL.getDetectorId();
-
-            if (curHit.pindex >= 0) {
-
-                recp.get(curHit.pindex).RecLayersNeut |= 1L << ECalLayerBit;
-
-                if (!recp.get(curHit.pindex).MCLayersNeut.containsKey(mchitsInECal.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersNeut.put(mchitsInECal.get(curHit.id).otid, 0L);
-                }
-
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersNeut.get(mchitsInECal.get(curHit.id).otid);
-                tmpMCWord |= 1L << ECalLayerBit;
-                recp.get(curHit.pindex).MCLayersNeut.put(mchitsInECal.get(curHit.id).otid, tmpMCWord);
+            long ECalLayerBit = 1L << (ECalStartBit + layer);
 
-                if (!mcp.get((short) mchitsInECal.get(curHit.id).otid).RecLayersNeut.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInECal.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, 0L);
-                }
+            mcp.get(otid).MCLayersNeut |= ECalLayerBit;
 
-                Long tmp = mcp.get((short) mchitsInECal.get(curHit.id).otid).RecLayersNeut.get((int) curHit.pindex);
-                tmp |= 1L << ECalLayerBit;
-                mcp.get((short) mchitsInECal.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, tmp);
+            long response = PackedKeyMap.key(detector, cid);
+            if (cid == -2 || !buf.responses.containsKey(response)) {
+                continue; // The hit is not part of any cluster, or the cluster is not associated to a rec particle
             }
+            short pindex = (short) buf.responses.get(response, -1);
 
-            if (recHits.get(curHit.cid) == null) {
-                recHits.put(curHit.cid, new ArrayList<>());
-            }
+            setLayerNeut(recp, buf, otid, pindex, ECalLayerBit);
 
-            recHits.get(curHit.cid).add(curHit);
+            buf.addHit(cid, otid);
         }
-
-        return recHits;
     }
 
-    Map< Short, List<RecHit>> getFTCalHits(DataEvent event, Map<Integer, MCHit> mchitsInFTCal, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
+    void getFTCalHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
 
-        if (mchitsInFTCal == null) {
+        final int detector = DetectorType.FTCAL.getDetectorId();
+
+        if (buf.mcHitCounts[detector] == 0) {
             /**
              * In case if no MC hit present in the FTCal, then don't proceed, as
              * we need only hits that are associated to an MC hit
              */
-            return recHits;
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if three necessary banks exist
          */
-        if (event.hasBank("FTCAL::adc") == false) {
-            return null;
-        }
-
-        if (event.hasBank("FTCAL::hits") == false) {
-            return null;
-        }
-
-        if (event.hasBank("FTCAL::clusters") == false) {
-            return null;
-        }
-
-        Map<Short, Short> clId2Pindex = new HashMap<>();
-        DataBank RecFTBank = event.getBank("REC::ForwardTagger");
-
-        for (int iFT = 0; iFT < RecFTBank.rows(); iFT++) {
-
-            Short pindex = RecFTBank.getShort("pindex", iFT);
-            Short index = RecFTBank.getShort("index", iFT);
-            Byte detector = RecFTBank.getByte("detector", iFT);
-
-            if (detector == (byte) DetectorType.FTCAL.getDetectorId()) {
-                clId2Pindex.put(index, pindex);
-            }
+        if ((event.hasBank("FTCAL::adc") == false) || (event.hasBank("FTCAL::hits") == false)
+                || (event.hasBank("FTCAL::clusters") == false)) {
+            return;
         }
 
-        DataBank adcBank = event.getBank("FTCAL::adc");
         DataBank hitsBank = event.getBank("FTCAL::hits");
 
         for (int ihit = 0; ihit < hitsBank.rows(); ihit++) {
-            RecHit curHit = new RecHit();
 
-            curHit.id = hitsBank.getShort("hitID", ihit);   // Not removing 1, as hitID start from 0
+            int id = hitsBank.getShort("hitID", ihit);   // Not removing 1, as hitID start from 0
             // Now let's make sure the hit is not removed by the background merging
-            if (!mchitsInFTCal.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, id);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            curHit.cid = (short) (hitsBank.getShort("clusterID", ihit) - 1);  // -1 for starting from 0
+            short cid = (short) (hitsBank.getShort("clusterID", ihit) - 1);  // -1 for starting from 0
 
-            mcp.get((short) mchitsInFTCal.get(curHit.id).otid).MCLayersNeut |= 1L << FTCalBit;
-
-            if (curHit.cid == -2 || !mchitsInFTCal.containsKey(curHit.id)) {
-                continue; // The hit is not part of any cluster, or the hit it's corresponding MC hit is ignored
-            }
+            mcp.get(otid).MCLayersNeut |= 1L << FTCalBit;
 
             /**
              * For FTCal not necessarily all clusters are associated to a rec
-             * particle, that is why we will check, if the clId2Pindex contains
-             * the given cluster
+             * particle, that is why we will check, if the REC::ForwardTagger
+             * contains the given cluster
              */
-            if (!clId2Pindex.containsKey(curHit.cid)) {
-                continue;
-            }
-
-            curHit.pindex = clId2Pindex.get(curHit.cid);
-            //curHit.detector = (byte) DetectorType.ECAL.getDetectorId(); // Seems Wrong 10/03/2020, Should be looked at
-            curHit.detector = (byte) DetectorType.FTCAL.getDetectorId();
-
-            // Although the "if" statement above should ensure pindex is not negative, 
-            if (curHit.pindex >= 0) {
-
-                recp.get(curHit.pindex).RecLayersNeut |= 1L << FTCalBit;
-
-                if (!recp.get(curHit.pindex).MCLayersNeut.containsKey(mchitsInFTCal.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersNeut.put(mchitsInFTCal.get(curHit.id).otid, 0L);
-                }
-
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersNeut.get(mchitsInFTCal.get(curHit.id).otid);
-                tmpMCWord |= 1L << FTCalBit;
-                recp.get(curHit.pindex).MCLayersNeut.put(mchitsInFTCal.get(curHit.id).otid, tmpMCWord);
-
-                if (!mcp.get((short) mchitsInFTCal.get(curHit.id).otid).RecLayersNeut.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInFTCal.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, 0L);
-                }
-
-                Long tmp = mcp.get((short) mchitsInFTCal.get(curHit.id).otid).RecLayersNeut.get((int) curHit.pindex);
-                tmp |= 1L << FTCalBit;
-                mcp.get((short) mchitsInFTCal.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, tmp);
+            long response = PackedKeyMap.key(detector, cid);
+            if (cid == -2 || !buf.responses.containsKey(response)) {
+                continue; // The hit is not part of any cluster, or the cluster is not associated to a rec particle
             }
+            short pindex = (short) buf.responses.get(response, -1);
 
-            if (recHits.get(curHit.cid) == null) {
-                recHits.put(curHit.cid, new ArrayList<>());
-            }
+            setLayerNeut(recp, buf, otid, pindex, 1L << FTCalBit);
 
-            recHits.get(curHit.cid).add(curHit);
+            buf.addHit(cid, otid);
         }
-
-        return recHits;
     }
 
-    Map< Short, List<RecHit>> getFTHodoHits(DataEvent event, Map<Integer, MCHit> mchitsInFTHodo, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
+    void getFTHodoHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
+
+        final int detector = DetectorType.FTHODO.getDetectorId();
 
-        if (mchitsInFTHodo == null) {
+        if (buf.mcHitCounts[detector] == 0) {
             /**
              * In case if no MC hit present in the FTHodo, then don't proceed,
              * as we need only hits that are associated to an MC hit
              */
-            return recHits;
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if three necessary banks exist
          */
-        if (event.hasBank("FTHODO::adc") == false) {
-            return null;
-        }
-        if (event.hasBank("FTHODO::hits") == false) {
-            return null;
-        }
-
-        if (event.hasBank("FTHODO::clusters") == false) {
-            return null;
-        }
-
-        Map<Short, Short> clId2Pindex = new HashMap<>();
-        DataBank RecFTBank = event.getBank("REC::ForwardTagger");
-
-        for (int iFT = 0; iFT < RecFTBank.rows(); iFT++) {
-
-            Short pindex = RecFTBank.getShort("pindex", iFT);
-            Short index = RecFTBank.getShort("index", iFT);
-            Byte detector = RecFTBank.getByte("detector", iFT);
-
-            if (detector == (byte) DetectorType.FTHODO.getDetectorId()) {
-                clId2Pindex.put(index, pindex);
-            }
+        if ((event.hasBank("FTHODO::adc") == false) || (event.hasBank("FTHODO::hits") == false)
+                || (event.hasBank("FTHODO::clusters") == false)) {
+            return;
         }
 
-        DataBank adcBank = event.getBank("FTHODO::adc");
         DataBank hitsBank = event.getBank("FTHODO::hits");
 
         for (int ihit = 0; ihit < hitsBank.rows(); ihit++) {
-            RecHit curHit = new RecHit();
 
-            curHit.id = hitsBank.getShort("hitID", ihit);   // Not removing 1, as hitID start from 0
+            int id = hitsBank.getShort("hitID", ihit);   // Not removing 1, as hitID start from 0
             // Now let's make sure the hit is not removed by the background merging
-
-            if (!mchitsInFTHodo.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, id);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            curHit.cid = (short) (hitsBank.getShort("clusterID", ihit) - 1);  // -1 for starting from 0
+            short cid = (short) (hitsBank.getShort("clusterID", ihit) - 1);  // -1 for starting from 0
             int layer = (int) hitsBank.getByte("layer", ihit) - 1; // 0 would correspond to the layer 1, and 1 would correspond to the layer 2
-            int HodoLayerBit = FTHodoStartBit + layer;
-
-            mcp.get((short) mchitsInFTHodo.get(curHit.id).otid).MCLayersNeut |= 1L << HodoLayerBit;
+            long HodoLayerBit = 1L << (FTHodoStartBit + layer);
 
-            if (curHit.cid == -2 || !mchitsInFTHodo.containsKey(curHit.id)) {
-                continue; // The hit is not part of any cluster, or the hit it's corresponding MC hit is ignored
-            }
+            mcp.get(otid).MCLayersNeut |= HodoLayerBit;
 
             /**
              * For FTHodo not necessarily all clusters are associated to a rec
-             * particle, that is why we will check, if the clId2Pindex contains
-             * the given cluster
+             * particle, that is why we will check, if the REC::ForwardTagger
+             * contains the given cluster
              */
-            if (!clId2Pindex.containsKey(curHit.cid)) {
-                continue;
-            }
-
-            curHit.pindex = clId2Pindex.get(curHit.cid);
-            //curHit.detector = (byte) DetectorType.ECAL.getDetectorId(); // Seems Wrong 10/03/2020, Should be looked at
-            curHit.detector = (byte) DetectorType.FTHODO.getDetectorId();
-
-            // Although the "if" statement above should ensure pindex is not negative, 
-            if (curHit.pindex >= 0) {
-
-                recp.get(curHit.pindex).RecLayersNeut |= 1L << HodoLayerBit;
-
-                if (!recp.get(curHit.pindex).MCLayersNeut.containsKey(mchitsInFTHodo.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersNeut.put(mchitsInFTHodo.get(curHit.id).otid, 0L);
-                }
-
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersNeut.get(mchitsInFTHodo.get(curHit.id).otid);
-                tmpMCWord |= 1L << HodoLayerBit;
-                recp.get(curHit.pindex).MCLayersNeut.put(mchitsInFTHodo.get(curHit.id).otid, tmpMCWord);
-
-                if (!mcp.get((short) mchitsInFTHodo.get(curHit.id).otid).RecLayersNeut.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInFTHodo.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, 0L);
-                }
-
-                Long tmp = mcp.get((short) mchitsInFTHodo.get(curHit.id).otid).RecLayersNeut.get((int) curHit.pindex);
-                tmp |= 1L << HodoLayerBit;
-                mcp.get((short) mchitsInFTHodo.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, tmp);
+            long response = PackedKeyMap.key(detector, cid);
+            if (cid == -2 || !buf.responses.containsKey(response)) {
+                continue; // The hit is not part of any cluster, or the cluster is not associated to a rec particle
             }
+            short pindex = (short) buf.responses.get(response, -1);
 
-            if (recHits.get(curHit.cid) == null) {
-                recHits.put(curHit.cid, new ArrayList<>());
-            }
+            setLayerNeut(recp, buf, otid, pindex, HodoLayerBit);
 
-            recHits.get(curHit.cid).add(curHit);
+            buf.addHit(cid, otid);
         }
-
-        return recHits;
     }
 
-    Map< Short, List<RecHit>> getCNDHits(DataEvent event, Map<Integer, MCHit> mchitsInCND, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
+    void getCNDHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
 
-        if (mchitsInCND == null) {
+        final int detector = DetectorType.CND.getDetectorId();
+
+        if (buf.mcHitCounts[detector] == 0) {
             /**
              * If no MC hits present in the CND, then we stop here! no need to
              * collect hits, as wee need only hits that are matched to an MChit
              */
-            //System.out.println("No MC hits in CND");
-            return recHits;
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist
          */
         if ((event.hasBank("CND::hits") == false) || (event.hasBank("CND::clusters") == false)
                 || (event.hasBank("REC::Scintillator") == false) || (event.hasBank("CND::tdc") == false)) {
-            // System.out.println("There is No CND cluster or there is No CND::hit or there is no REC::Scintillator bank present");
-            return null;
-        }
-
-        Map<Short, Short> clId2Pindex = new HashMap<>();
-        DataBank RecScintil = event.getBank("REC::Scintillator");
-
-        for (int iSC = 0; iSC < RecScintil.rows(); iSC++) {
-
-            // Rec scintillator has different detectors in it, so we want only CND responces in this case
-            if (RecScintil.getByte("detector", iSC) != (byte) DetectorType.CND.getDetectorId()) {
-                continue;
-            }
-
-            Short pindex = RecScintil.getShort("pindex", iSC);
-            Short index = RecScintil.getShort("index", iSC);
-
-            clId2Pindex.put(index, pindex);
+            return;
         }
 
-        DataBank tdcBank = event.getBank("CND::tdc");
         DataBank hitsBank = event.getBank("CND::hits");
 
         for (int ihit = 0; ihit < hitsBank.rows(); ihit++) {
-            RecHit curHit = new RecHit();
 
             /**
-             * The following line is *WRONG*, variable *id* is not correct,
-             * instead we should use indexLadc(tdc) *** curHit.id =
-             * hitsBank.getShort("id", ihit) - 1; // -1, as id start from 1***
+             * Variable *id* is not correct here, instead we should use
+             * indexLadc(tdc)
              */
-            curHit.id = (int) hitsBank.getShort("indexLtdc", ihit) / 2;   // We should devide to 2, as each MC::True hit is digitized into two ADC/TDC hits.
+            int id = (int) hitsBank.getShort("indexLtdc", ihit) / 2;   // We should devide to 2, as each MC::True hit is digitized into two ADC/TDC hits.
             // Now let's make sure the hit is not removed by the background merging
-
-            if (!mchitsInCND.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, id);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            curHit.cid = (short) (hitsBank.getShort("clusterid", ihit) - 1);  // -1 for starting from 0
+            short cid = (short) (hitsBank.getShort("clusterid", ihit) - 1);  // -1 for starting from 0
 
             int layer = hitsBank.getInt("layer", ihit) - 1;
 
-            int CNDLayerBit = CNDStartBit + layer;
-            mcp.get((short) mchitsInCND.get(curHit.id).otid).MCLayersNeut |= 1L << CNDLayerBit;
-
-            if (curHit.cid == -2 || !mchitsInCND.containsKey(curHit.id)) {
-                continue; // The hit is not part of any cluster, or the hit it's corresponding MC hit is ignored
-            }
-
-            curHit.pindex = clId2Pindex.get(curHit.cid);
-            curHit.detector = (byte) DetectorType.CND.getDetectorId();
-
-            if (curHit.pindex >= 0) {
-                recp.get(curHit.pindex).RecLayersNeut |= 1L << CNDLayerBit;
-
-                if (!recp.get(curHit.pindex).MCLayersNeut.containsKey(mchitsInCND.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersNeut.put(mchitsInCND.get(curHit.id).otid, 0L);
-                }
-
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersNeut.get(mchitsInCND.get(curHit.id).otid);
-                tmpMCWord |= 1L << CNDLayerBit;
-                recp.get(curHit.pindex).MCLayersNeut.put(mchitsInCND.get(curHit.id).otid, tmpMCWord);
-
-                if (!mcp.get((short) mchitsInCND.get(curHit.id).otid).RecLayersNeut.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInCND.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, 0L);
-                }
-
-                Long tmp = mcp.get((short) mchitsInCND.get(curHit.id).otid).RecLayersNeut.get((int) curHit.pindex);
-                tmp |= 1L << CNDLayerBit;
-                mcp.get((short) mchitsInCND.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, tmp);
+            long CNDLayerBit = 1L << (CNDStartBit + layer);
+            mcp.get(otid).MCLayersNeut |= CNDLayerBit;
 
+            long response = PackedKeyMap.key(detector, cid);
+            if (cid == -2 || !buf.responses.containsKey(response)) {
+                continue; // The hit is not part of any cluster, or the cluster is not associated to a rec particle
             }
+            short pindex = (short) buf.responses.get(response, -1);
 
-            if (recHits.get(curHit.cid) == null) {
-                recHits.put(curHit.cid, new ArrayList<>());
-            }
+            setLayerNeut(recp, buf, otid, pindex, CNDLayerBit);
 
-            recHits.get(curHit.cid).add(curHit);
+            buf.addHit(cid, otid);
         }
-
-        //System.out.println("The size of CNDHits is " + recHits.keySet().size());
-        return recHits;
     }
 
-    Map< Short, List<RecHit>> getCTOFHits(DataEvent event, Map<Integer, MCHit> mchitsInCTOF, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
+    void getCTOFHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
+
+        final int detector = DetectorType.CTOF.getDetectorId();
 
-        if (mchitsInCTOF == null) {
+        if (buf.mcHitCounts[detector] == 0) {
             /**
              * If no MC hits present in the CTOF, then we stop here! no need to
              * collect hits, as wee need only hits that are matched to an MChit
-             */           
-            return recHits;
+             */
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist
          */
         if ((event.hasBank("CTOF::hits") == false) || (event.hasBank("CTOF::clusters") == false)
                 || (event.hasBank("REC::Scintillator") == false) || (event.hasBank("CTOF::tdc") == false)) {
-            //System.out.println("There is No CTOF::cluster or there is No CTOF::hit or there is no REC::Scintillator bank present");
-            return null;
-        }
-
-        Map<Short, Short> clId2Pindex = new HashMap<>();
-        DataBank RecScintil = event.getBank("REC::Scintillator");
-
-        for (int iSC = 0; iSC < RecScintil.rows(); iSC++) {
-
-            // Rec scintillator has different detectors in it, so we want only CTOF responces in this case
-            if (RecScintil.getByte("detector", iSC) != (byte) DetectorType.CTOF.getDetectorId()) {
-                continue;
-            }
-
-            Short pindex = RecScintil.getShort("pindex", iSC);
-            Short index = RecScintil.getShort("index", iSC);
-
-            clId2Pindex.put(index, pindex);
+            return;
         }
 
         DataBank hitsBank = event.getBank("CTOF::hits");
-        DataBank tdcBank = event.getBank("CTOF::tdc");
 
         for (int ihit = 0; ihit < hitsBank.rows(); ihit++) {
-            RecHit curHit = new RecHit();
 
-            curHit.id = (int) hitsBank.getShort("tdc_idx1", ihit);
+            int id = (int) hitsBank.getShort("tdc_idx1", ihit);
 
-            if (!mchitsInCTOF.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, id);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            mcp.get((short) mchitsInCTOF.get(curHit.id).otid).MCLayersNeut |= 1L << CTOFBit;
+            mcp.get(otid).MCLayersNeut |= 1L << CTOFBit;
 
-            curHit.cid = (short) (hitsBank.getShort("clusterid", ihit) - 1);  // -1 for starting from 0
-            if (curHit.cid == -1 || !mchitsInCTOF.containsKey(curHit.id)) {
+            short cid = (short) (hitsBank.getShort("clusterid", ihit) - 1);  // -1 for starting from 0
 
-                continue; // The hit is not part of any cluster, or the hit it's corresponding MC hit is ignored
+            long response = PackedKeyMap.key(detector, cid);
+            if (cid == -1 || !buf.responses.containsKey(response)) {
+                continue; // The hit is not part of any cluster, or the cluster is not associated to a rec particle
             }
+            short pindex = (short) buf.responses.get(response, -1);
 
-            curHit.pindex = clId2Pindex.get(curHit.cid);
-            curHit.detector = (byte) DetectorType.CTOF.getDetectorId();
+            setLayerNeut(recp, buf, otid, pindex, 1L << CTOFBit);
 
-            if (curHit.pindex >= 0) {
-
-                recp.get(curHit.pindex).RecLayersNeut |= 1L << CTOFBit;
+            buf.addHit(cid, otid);
+        }
+    }
 
-                if (!recp.get(curHit.pindex).MCLayersNeut.containsKey(mchitsInCTOF.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersNeut.put(mchitsInCTOF.get(curHit.id).otid, 0L);
-                }
+    void getBSTHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
+        getCVTHits(event, DetectorType.BST, "BST::adc", "BSTRec::Clusters", BSTStartBit, mcp, recp, buf);
+    }
 
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersNeut.get(mchitsInCTOF.get(curHit.id).otid);
-                tmpMCWord |= 1L << CTOFBit;
-                recp.get(curHit.pindex).MCLayersNeut.put(mchitsInCTOF.get(curHit.id).otid, tmpMCWord);
+    void getBMTHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
+        getCVTHits(event, DetectorType.BMT, "BMT::adc", "BMTRec::Clusters", BMTStartBit, mcp, recp, buf);
+    }
 
-                if (!mcp.get((short) mchitsInCTOF.get(curHit.id).otid).RecLayersNeut.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInCTOF.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, 0L);
-                }
+    /**
+     * Collect the hits of the BST or BMT clusters that are associated to an
+     * MC hit
+     *
+     * @param event DataEvent
+     * @param type BST or BMT
+     * @param adcName the name of the ADC bank
+     * @param clName the name of the clusters bank
+     * @param startBit the bit of the first layer
+     * @param mcp MC particles
+     * @param recp Rec particles
+     * @param buf the buffers, with the tracks and the MC hits
+     */
+    private void getCVTHits(DataEvent event, DetectorType type, String adcName, String clName, int startBit,
+            List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
 
-                Long tmp = mcp.get((short) mchitsInCTOF.get(curHit.id).otid).RecLayersNeut.get((int) curHit.pindex);
-                tmp |= 1L << CTOFBit;
-                mcp.get((short) mchitsInCTOF.get(curHit.id).otid).RecLayersNeut.put((int) curHit.pindex, tmp);
-            }
+        final int detector = type.getDetectorId();
 
-            if (recHits.get(curHit.cid) == null) {
-                recHits.put(curHit.cid, new ArrayList<>());
-            }
-
-            recHits.get(curHit.cid).add(curHit);
-        }
-
-        return recHits;
-    }
-
-    Map< Short, List<RecHit>> getBSTHits(DataEvent event, Map<Integer, MCHit> mchitsInBST, Map<Integer, Integer> trkID2Index, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
-
-        if (mchitsInBST == null) {
+        if (buf.mcHitCounts[detector] == 0) {
             /**
-             * If no MC hits present in the BST, then we stop here! no need to
-             * collect hits, as wee need only hits that are matched to an MChit
+             * If no MC hits present in the BST/BMT, then we stop here! no need
+             * to collect hits, as wee need only hits that are matched to an
+             * MChit
              */
-            //System.out.println("No MC hits in BST");
-            return recHits;
+            return;
         }
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist
          */
-        if ((event.hasBank("BST::adc") == false) || (event.hasBank("BSTRec::Clusters") == false)) {
-            return null;
+        if ((event.hasBank(adcName) == false) || (event.hasBank(clName) == false)) {
+            return;
         }
 
-        DataBank clBank = event.getBank("BSTRec::Clusters");
-        DataBank trkBank = event.getBank("REC::Track");
-        DataBank adcBank = event.getBank("BST::adc");
+        DataBank clBank = event.getBank(clName);
+        DataBank adcBank = event.getBank(adcName);
+        DataBank trkBank = event.hasBank("REC::Track") ? event.getBank("REC::Track") : null;
+
         for (int iCL = 0; iCL < clBank.rows(); iCL++) {
 
-            short clID = (short) iCL;
-            short trkID = (short) (clBank.getShort("trkID", iCL));
+            short trkID = clBank.getShort("trkID", iCL);
 
-            /**
-             * The following line sometimes throws exception. The cluster's
-             * associated track doesn't exist in the Rec::Track bank. Yuri knows
-             * this they were working on this.
-             */
-            short pindex = trkID >= 0 ? trkBank.getShort("pindex", trkID2Index.get((int)trkID)) : -1;
+            short pindex = getCVTPindex(trkBank, trkID, buf);
 
             // The hardcoded 5 is the Max number of hits per Cl
-            for (int iHit = 0; iHit < 5; iHit++) {
-
-                int hitID = clBank.getInt(String.format("Hit%d_ID", iHit + 1), iCL) - 1;
+            for (int iHit = 0; iHit < HIT_IDS.length; iHit++) {
 
+                int hitID = clBank.getInt(HIT_IDS[iHit], iCL) - 1;
 
                 if (hitID < 0) {
                     break;
                 }
 
-                if (!mchitsInBST.containsKey(hitID)) {
-                    continue;
-                }
-
-                int layerBit = BSTStartBit + adcBank.getInt("layer", hitID) - 1;
-                mcp.get((short) mchitsInBST.get(hitID).otid).MCLayersTrk |= 1L << layerBit;
-                if (pindex >= 0) {
-
-                    recp.get(pindex).RecLayersTrk |= 1L << layerBit;
-
-                    if (!recp.get(pindex).MCLayersTrk.containsKey(mchitsInBST.get(hitID).otid)) {
-                        recp.get(pindex).MCLayersTrk.put(mchitsInBST.get(hitID).otid, 0L);
-                    }
-
-                    Long tmpMCWord = recp.get(pindex).MCLayersTrk.get(mchitsInBST.get(hitID).otid);
-                    tmpMCWord |= 1L << layerBit;
-                    recp.get(pindex).MCLayersTrk.put(mchitsInBST.get(hitID).otid, tmpMCWord);
-
-                    if (!mcp.get((short) mchitsInBST.get(hitID).otid).RecLayersTrk.containsKey((int) pindex)) {
-                        mcp.get((short) mchitsInBST.get(hitID).otid).RecLayersTrk.put((int) pindex, 0L);
-                    }
-
-                    Long tmp = mcp.get((short) mchitsInBST.get(hitID).otid).RecLayersTrk.get((int) pindex);
-                    tmp |= 1L << layerBit;
-                    mcp.get((short) mchitsInBST.get(hitID).otid).RecLayersTrk.put((int) pindex, tmp);
-                }
-                if (!mchitsInBST.containsKey(hitID)) {
+                int mcRow = buf.getMCRow(detector, hitID);
+                if (mcRow < 0) {
                     // We need only hits that correspond to an MCHit
                     continue;
                 }
+                int otid = buf.mcOtids[mcRow];
 
-                RecHit curHit = new RecHit();
+                long layerBit = 1L << (startBit + adcBank.getInt("layer", hitID) - 1);
+                mcp.get(otid).MCLayersTrk |= layerBit;
 
-                curHit.id = hitID;
-                curHit.cid = (short) iCL;
-                curHit.pindex = pindex;
-                curHit.detector = (byte) DetectorType.BST.getDetectorId();
-
-                if (recHits.get(curHit.cid) == null) {
-                    recHits.put(curHit.cid, new ArrayList<>());
-                }
-
-                recHits.get(curHit.cid).add(curHit);
+                setLayerTrk(recp, buf, otid, pindex, layerBit);
 
+                buf.addHit((short) iCL, otid);
             }
-
         }
-
-        return recHits;
     }
 
-    Map< Short, List<RecHit>> getBMTHits(DataEvent event, Map<Integer, MCHit> mchitsInBMT, Map<Integer, Integer> trkID2Index, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
-
-        if( mchitsInBMT == null) {
-            /**
-             * If no MC hits present in the BMT, then we stop here! no need to
-             * collect hits, as wee need only hits that are matched to an MChit
-             */
-            return recHits;
-        }
-
-        
-        /**
-         * Check if three necessary banks exist otherwise will return null
-         */
-        if ((event.hasBank("BMT::adc") == false) || (event.hasBank("BMTRec::Clusters") == false)) {
-            return null;
-        }
-
-        DataBank clBank = event.getBank("BMTRec::Clusters");
-        DataBank trkBank = event.getBank("REC::Track");
-        DataBank adcBank = event.getBank("BMT::adc");
-
-        for (int iCL = 0; iCL < clBank.rows(); iCL++) {
-
-            short clID = (short) iCL;
-            short trkID = (short) (clBank.getShort("trkID", iCL));
-
-            //short pindex = trkID >= 0 ? trkBank.getShort("pindex", trkID) : -1;   // THIS IS WRONG, see following line
-            short pindex = trkID >= 0 ? trkBank.getShort("pindex", trkID2Index.get((int)trkID)) : -1;
-
-            for (int iHit = 0; iHit < 5; iHit++) {
-
-                int hitID = clBank.getInt(String.format("Hit%d_ID", iHit + 1), iCL) - 1;
-
-                if (hitID < 0) {
-                    break;
-                }
-
-                if (!mchitsInBMT.containsKey(hitID)) {
-                    continue;
-                }
-
-                int layerBit = BMTStartBit + adcBank.getInt("layer", hitID) - 1;
-                mcp.get((short) mchitsInBMT.get(hitID).otid).MCLayersTrk |= 1L << layerBit;
-                if (pindex >= 0) {
-
-                    recp.get(pindex).RecLayersTrk |= 1L << layerBit;
-
-                    if (!recp.get(pindex).MCLayersTrk.containsKey(mchitsInBMT.get(hitID).otid)) {
-                        recp.get(pindex).MCLayersTrk.put(mchitsInBMT.get(hitID).otid, 0L);
-                    }
-
-                    Long tmpMCWord = recp.get(pindex).MCLayersTrk.get(mchitsInBMT.get(hitID).otid);
-                    tmpMCWord |= 1L << layerBit;
-                    recp.get(pindex).MCLayersTrk.put(mchitsInBMT.get(hitID).otid, tmpMCWord);
-
-                    if (!mcp.get((short) mchitsInBMT.get(hitID).otid).RecLayersTrk.containsKey((int) pindex)) {
-                        mcp.get((short) mchitsInBMT.get(hitID).otid).RecLayersTrk.put((int) pindex, 0L);
-                    }
-
-                    Long tmp = mcp.get((short) mchitsInBMT.get(hitID).otid).RecLayersTrk.get((int) pindex);
-                    tmp |= 1L << layerBit;
-                    mcp.get((short) mchitsInBMT.get(hitID).otid).RecLayersTrk.put((int) pindex, tmp);
-                }
-
-                if (!mchitsInBMT.containsKey(hitID)) {
-                    // We need only hits that correspond to an MCHit
-
-                    System.out.println("*********** This BMT hit is not in MCHit!!  " + hitID);
-
-                    continue;
-                }
-
-                RecHit curHit = new RecHit();
-
-                curHit.id = hitID;
-                curHit.cid = (short) iCL;
-                curHit.pindex = pindex;
-                curHit.detector = (byte) DetectorType.BMT.getDetectorId();
-
-                if (recHits.get(curHit.cid) == null) {
-                    recHits.put(curHit.cid, new ArrayList<>());
-                }
-
-                recHits.get(curHit.cid).add(curHit);
-
-            }
-
+    /**
+     * @return the pindex of the track of a CVT cluster, or -1 if the cluster
+     * is not on a track, or if the track is not in the REC::Track bank
+     */
+    private short getCVTPindex(DataBank trkBank, short trkID, Buffers buf) {
+        if (trkID < 0 || trkBank == null) {
+            return -1;
         }
-
-        return recHits;
+        int itr = (int) buf.cvtTracks.get(trkID, -1);
+        return itr >= 0 ? trkBank.getShort("pindex", itr) : -1;
     }
 
-    Map< Short, List<RecHit>> getDCHits(DataEvent event, Map<Integer, MCHit> mchitsInDC, Map<Short, MCPart> mcp, Map<Short, RecPart> recp) {
-        Map< Short, List<RecHit>> recHits = new HashMap<>();
+    void getDCHits(DataEvent event, List<MCPart> mcp, List<RecPart> recp, Buffers buf) {
+
+        final int detector = DetectorType.DC.getDetectorId();
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist, and that there are MC hits
          */
-        if (event.hasBank("DC::tdc") == false) {
-            return null;
+        if (event.hasBank("DC::tdc") == false || buf.mcHitCounts[detector] == 0) {
+            return;
         }
 
-        DataBank tbtrkBank = event.getBank("TimeBasedTrkg::TBTracks");
-        DataBank trkBank = event.getBank("REC::Track");
         DataBank tdcBank = event.getBank("DC::tdc");
-        DataBank tbHitsBank = event.getBank("TimeBasedTrkg::TBHits");
-        DataBank tbMCTrue = event.getBank("MC::True");
+        DataBank trkBank = event.hasBank("REC::Track") ? event.getBank("REC::Track") : null;
 
         /**
          * We need to link the hit to a pindex, if the the hit is part of a
          * track, so will read TBHits banks and collect all hit IDs that were
          * part of any track
          */
-        //List<Integer> tbHitIDs = new ArrayList<>();
-        Map<Short, Short> tbTrkID2RecTrInd = new HashMap();
-        for (short iRec = 0; iRec < trkBank.rows(); iRec++) {
-            Byte det = trkBank.getByte("detector", iRec);
-            Short index = trkBank.getShort("index", iRec);
-
-            if (det == DetectorType.DC.getDetectorId()) {
-                tbTrkID2RecTrInd.put(tbtrkBank.getShort("id", index), iRec);
-            }
-        }
-
-        Map<Integer, Short> tbHitIDs = new HashMap<>();
-        for (int itbHit = 0; itbHit < tbHitsBank.rows(); itbHit++) {
-
-            if (tbTrkID2RecTrInd.containsKey((short) tbHitsBank.getByte("trkID", itbHit))) {
-                tbHitIDs.put(tbHitsBank.getInt("id", itbHit) - 1, (short) tbTrkID2RecTrInd.get((short) tbHitsBank.getByte("trkID", itbHit)));
+        PackedKeyMap tbHitIDs = buf.dcHits;
+        if (trkBank != null && event.hasBank("TimeBasedTrkg::TBHits")) {
+            DataBank tbHitsBank = event.getBank("TimeBasedTrkg::TBHits");
+            for (int itbHit = 0; itbHit < tbHitsBank.rows(); itbHit++) {
+                int itr = (int) buf.dcTracks.get(tbHitsBank.getByte("trkID", itbHit), -1);
+                if (itr >= 0) {
+                    tbHitIDs.put(tbHitsBank.getInt("id", itbHit) - 1, itr);
+                }
             }
         }
 
         for (int iHit = 0; iHit < tdcBank.rows(); iHit++) {
-            RecHit curHit = new RecHit();
 
             int layer = tdcBank.getInt("layer", iHit);
-            int layerBit = DCStartBit + layer - 1;
-
-            curHit.id = iHit;
+            long layerBit = 1L << (DCStartBit + layer - 1);
 
             // Now let's make sure the hit is not removed by the background merging
-            if (tdcBank.getByte("order", curHit.id) >= (byte) 10) {
+            if (tdcBank.getByte("order", iHit) >= (byte) 10) {
                 continue;
             }
 
-            if (!mchitsInDC.containsKey(curHit.id)) {
+            int mcRow = buf.getMCRow(detector, iHit);
+            if (mcRow < 0) {
                 continue;
             }
+            int otid = buf.mcOtids[mcRow];
 
-            curHit.detector = (byte) DetectorType.DC.getDetectorId();
-            curHit.cid = (short) iHit;
-
-            if (tbHitIDs.containsKey(curHit.id)) {
-                //System.out.println("======== siz of trkBanks is " + trkBank.rows() + "  hitid is " + curHit.id + "   tbHitIDs.get(curHit.id) is " + tbHitIDs.get(curHit.id) + "   the Pindex is " + trkBank.getShort("pindex", tbHitIDs.get(curHit.id)));
-
-                curHit.pindex = trkBank.getShort("pindex", tbHitIDs.get(curHit.id));
-                //System.out.println( "iHit = " + iHit + "   pindex = " + curHit.pindex);
-            } else {
-                curHit.pindex = -1;
-            }
-
-            mcp.get((short) mchitsInDC.get(curHit.id).otid).MCLayersTrk |= 1L << layerBit;
-
-            if (curHit.pindex >= 0) {
-
-                //System.out.println("N_Rec_Part = " + recp.size() + "    pindex = " + curHit.pindex);
-                recp.get(curHit.pindex).RecLayersTrk |= 1L << layerBit;
-
-                if (!recp.get(curHit.pindex).MCLayersTrk.containsKey(mchitsInDC.get(curHit.id).otid)) {
-                    recp.get(curHit.pindex).MCLayersTrk.put(mchitsInDC.get(curHit.id).otid, 0L);
-                }
+            int itr = (int) tbHitIDs.get(iHit, -1);
+            short pindex = itr >= 0 ? trkBank.getShort("pindex", itr) : -1;
 
-                Long tmpMCWord = recp.get(curHit.pindex).MCLayersTrk.get(mchitsInDC.get(curHit.id).otid);
-                tmpMCWord |= 1L << layerBit;
-                recp.get(curHit.pindex).MCLayersTrk.put(mchitsInDC.get(curHit.id).otid, tmpMCWord);
+            mcp.get(otid).MCLayersTrk |= layerBit;
 
-                if (!mcp.get((short) mchitsInDC.get(curHit.id).otid).RecLayersTrk.containsKey((int) curHit.pindex)) {
-                    mcp.get((short) mchitsInDC.get(curHit.id).otid).RecLayersTrk.put((int) curHit.pindex, 0L);
-                }
+            setLayerTrk(recp, buf, otid, pindex, layerBit);
 
-                Long tmp = mcp.get((short) mchitsInDC.get(curHit.id).otid).RecLayersTrk.get((int) curHit.pindex);
-                tmp |= 1L << layerBit;
-                mcp.get((short) mchitsInDC.get(curHit.id).otid).RecLayersTrk.put((int) curHit.pindex, tmp);
-            }
-
-            recHits.put(curHit.cid, new ArrayList<>());
-            recHits.get(curHit.cid).add(curHit);
+            buf.addHit((short) iHit, otid);
         }
-
-        return recHits;
     }
 
-    List<RecCluster> getECalClusters(DataEvent event) {
-
-        List<RecCluster> cls = new ArrayList<>();
+    /**
+     * Read the ECal clusters from the REC::Calorimeter bank, and fill the
+     * pindex of each cluster
+     *
+     * @param event DataEvent
+     * @param cls the list to add the clusters to
+     * @param buf the buffers, to fill the responses
+     */
+    void getECalClusters(DataEvent event, List<RecCluster> cls, Buffers buf) {
 
         /**
          * We need the bank REC::Calorimeter, so as a first thing we will check
          * if the bank exist
          */
         if (event.hasBank("REC::Calorimeter") == false) {
-            return cls;
+            return;
         }
 
         DataBank recCal = event.getBank("REC::Calorimeter");
@@ -1421,63 +1036,29 @@ public class TruthMatch extends ReconstructionEngine {
             curCl.rectid = -1;  // We will not use ECal clusters for tracks.
             curCl.superlayer = -1; // Not applicable for ECal clusters
 
-            cls.add(curCl);
-        }
-
-        return cls;
-    }
-
-    List<RecCluster> getFTCalClusters(DataEvent event) {
-        List<RecCluster> cls = new ArrayList<>();
-
-        /**
-         * We need the bank REC::ForwardTagger, so as a first thing we will
-         * check if the bank exist
-         */
-        if (event.hasBank("REC::ForwardTagger") == false) {
-            return cls;
-        }
-
-        DataBank recFTCal = event.getBank("REC::ForwardTagger");
-
-        for (int iCl = 0; iCl < recFTCal.rows(); iCl++) {
-
-            /**
-             * Both FT clusters and FT hodo hits are in the same
-             * REC::ForwardTagger bank
-             */
-            if (recFTCal.getByte("detector", iCl) != DetectorType.FTCAL.getDetectorId()) {
-                continue;
-            }
-
-            RecCluster curCl = new RecCluster();
-
-            curCl.id = recFTCal.getShort("index", iCl);
-            curCl.pindex = recFTCal.getShort("pindex", iCl);
-            curCl.detector = recFTCal.getByte("detector", iCl);
-            curCl.layer = recFTCal.getByte("layer", iCl);
-            curCl.sector = -1; // No concept of sector for FT
-            curCl.energy = recFTCal.getFloat("energy", iCl);
-            curCl.size = recFTCal.getShort("size", iCl);
-
-            curCl.rectid = -1;  // We will not use ECal clusters for tracks.
-            curCl.superlayer = -1; // Not applicable for ECal clusters
+            buf.responses.put(PackedKeyMap.key(DetectorType.ECAL.getDetectorId(), curCl.id), curCl.pindex);
 
             cls.add(curCl);
         }
-
-        return cls;
     }
 
-    List<RecCluster> getFTHodoClusters(DataEvent event) {
-        List<RecCluster> cls = new ArrayList<>();
+    /**
+     * Read the FTCal clusters and FTHodo clusters from the REC::ForwardTagger
+     * bank, and fill the pindex of each cluster
+     *
+     * @param event DataEvent
+     * @param calCls the list to add the FTCal clusters to
+     * @param hodoCls the list to add the FTHodo clusters to
+     * @param buf the buffers, to fill the responses
+     */
+    void getFTClusters(DataEvent event, List<RecCluster> calCls, List<RecCluster> hodoCls, Buffers buf) {
 
         /**
          * We need the bank REC::ForwardTagger, so as a first thing we will
          * check if the bank exist
          */
         if (event.hasBank("REC::ForwardTagger") == false) {
-            return cls;
+            return;
         }
 
         DataBank recFT = event.getBank("REC::ForwardTagger");
@@ -1488,7 +1069,13 @@ public class TruthMatch extends ReconstructionEngine {
              * Both FT clusters and FT hodo hits are in the same
              * REC::ForwardTagger bank
              */
-            if (recFT.getByte("detector", iCl) != DetectorType.FTHODO.getDetectorId()) {
+            byte detector = recFT.getByte("detector", iCl);
+            List<RecCluster> cls;
+            if (detector == DetectorType.FTCAL.getDetectorId()) {
+                cls = calCls;
+            } else if (detector == DetectorType.FTHODO.getDetectorId()) {
+                cls = hodoCls;
+            } else {
                 continue;
             }
 
@@ -1496,172 +1083,115 @@ public class TruthMatch extends ReconstructionEngine {
 
             curCl.id = recFT.getShort("index", iCl);
             curCl.pindex = recFT.getShort("pindex", iCl);
-            curCl.detector = recFT.getByte("detector", iCl);
+            curCl.detector = detector;
             curCl.layer = recFT.getByte("layer", iCl);
             curCl.sector = -1; // No concept of sector for FT
             curCl.energy = recFT.getFloat("energy", iCl);
             curCl.size = recFT.getShort("size", iCl);
 
-            curCl.rectid = -1;
-            curCl.superlayer = -1;
+            curCl.rectid = -1;  // We will not use FT clusters for tracks.
+            curCl.superlayer = -1; // Not applicable for FT clusters
+
+            buf.responses.put(PackedKeyMap.key(detector, curCl.id), curCl.pindex);
 
             cls.add(curCl);
         }
-
-        return cls;
     }
 
-    List<RecCluster> getCNDClusters(DataEvent event) {
-        List<RecCluster> cls = new ArrayList<>();
+    /**
+     * Read the CND and CTOF clusters from the REC::Scintillator bank, and
+     * fill the pindex of each cluster
+     *
+     * @param event DataEvent
+     * @param cndCls the list to add the CND clusters to
+     * @param ctofCls the list to add the CTOF clusters to
+     * @param buf the buffers, to fill the responses
+     */
+    void getScintillatorClusters(DataEvent event, List<RecCluster> cndCls, List<RecCluster> ctofCls, Buffers buf) {
 
         /**
          * Of course we need the REC::Scintillator bank. Though we don't need
-         * directly the CND::cluster bank, however without it REC::scintillator
-         * will not have entry with CND detector
+         * directly the CND::cluster and CTOF::cluster banks, however without
+         * them REC::scintillator will not have entries with CND or CTOF
          */
-        if ((event.hasBank("REC::Scintillator") == false) || (event.hasBank("CND::clusters") == false)) {
-            return cls;
+        if (event.hasBank("REC::Scintillator") == false) {
+            return;
         }
+        boolean hasCND = event.hasBank("CND::clusters");
+        boolean hasCTOF = event.hasBank("CTOF::clusters");
 
         DataBank recSC = event.getBank("REC::Scintillator");
 
         for (int iSC = 0; iSC < recSC.rows(); iSC++) {
 
-            if (recSC.getByte("detector", iSC) != DetectorType.CND.getDetectorId()) {
+            // Rec scintillator has different detectors in it, so we want only CND and CTOF responces
+            byte detector = recSC.getByte("detector", iSC);
+            List<RecCluster> cls;
+            if (detector == DetectorType.CND.getDetectorId()) {
+                cls = hasCND ? cndCls : null;
+            } else if (detector == DetectorType.CTOF.getDetectorId()) {
+                cls = hasCTOF ? ctofCls : null;
+            } else {
                 continue;
             }
 
             RecCluster curCl = new RecCluster();
             curCl.id = recSC.getShort("index", iSC);
             curCl.pindex = recSC.getShort("pindex", iSC);
-            curCl.detector = recSC.getByte("detector", iSC);
+            curCl.detector = detector;
             curCl.layer = recSC.getByte("layer", iSC);
             curCl.sector = recSC.getByte("sector", iSC);
             curCl.energy = recSC.getFloat("energy", iSC);
-            curCl.size = -1; // For CND clusters this is not a relevant variable
-            curCl.rectid = -1; // CND is not used for tracks
+            curCl.size = -1; // For CND and CTOF clusters this is not a relevant variable
+            curCl.rectid = -1; // CND and CTOF are not used for tracks
             curCl.superlayer = -1; // not applicable
 
-            cls.add(curCl);
-        }
-
-        return cls;
-    }
-
-    List<RecCluster> getCTOFClusters(DataEvent event) {
-        List<RecCluster> cls = new ArrayList<>();
-
-        /**
-         * Of course we need the REC::Scintillator bank. Though we don't need
-         * directly the CTOF::cluster bank, however without it REC::scintillator
-         * will not have entry with CTOF detector
-         */
-        if ((event.hasBank("REC::Scintillator") == false) || (event.hasBank("CTOF::clusters") == false)) {
-            return cls;
-        }
+            buf.responses.put(PackedKeyMap.key(detector, curCl.id), curCl.pindex);
 
-        DataBank recSC = event.getBank("REC::Scintillator");
-
-        for (int iSC = 0; iSC < recSC.rows(); iSC++) {
-
-            if (recSC.getByte("detector", iSC) != DetectorType.CTOF.getDetectorId()) {
-                continue;
+            if (cls != null) {
+                cls.add(curCl);
             }
-
-            RecCluster curCl = new RecCluster();
-            curCl.id = recSC.getShort("index", iSC);
-            curCl.pindex = recSC.getShort("pindex", iSC);
-            curCl.detector = recSC.getByte("detector", iSC);
-            curCl.layer = recSC.getByte("layer", iSC);
-            curCl.sector = recSC.getByte("sector", iSC);
-            curCl.energy = recSC.getFloat("energy", iSC);
-            curCl.size = -1; // For CTOF clusters this is not a relevant variable
-            curCl.rectid = -1; // CTOF is not used for tracks
-            curCl.superlayer = -1; // not applicable
-
-            cls.add(curCl);
         }
-
-        return cls;
     }
 
-    List<RecCluster> getBSTClusters(DataEvent event, Map<Integer, Integer> trkID2Index) {
-        List<RecCluster> cls = new ArrayList<>();
-
-        /**
-         * Check if three necessary banks exist otherwise will return null
-         */
-        if ((event.hasBank("BSTRec::Clusters") == false) || (event.hasBank("REC::Track") == false)) {
-            //System.out.println("There is No BSTRec::clusters bank, or there is No BSTRec::Hits bank, or there is no REC::Track bank present");
-            return null;
-        }
-
-        DataBank clBank = event.getBank("BSTRec::Clusters");
-        DataBank trkBank = event.getBank("REC::Track");
-
-        for (int iCL = 0; iCL < clBank.rows(); iCL++) {
-
-            short clID = (short) iCL;
-            short trkID = (short) (clBank.getShort("trkID", iCL));
-
-            if (trkID < 0) {
-                // We need only hits that contribute to a track
-                continue;
-            }
-
-            //short pindex = trkBank.getShort("pindex", trkID);
-            short pindex = trkBank.getShort("pindex", trkID2Index.get((int)trkID));
-
-            RecCluster curCl = new RecCluster();
-            curCl.id = (short) iCL;
-            curCl.detector = (byte) DetectorType.BST.getDetectorId();
-            curCl.energy = clBank.getFloat("ETot", iCL);
-            curCl.rectid = (short)(trkID - 1);
-            curCl.layer = clBank.getByte("layer", iCL);
-            curCl.sector = clBank.getByte("sector", iCL);
-            curCl.pindex = pindex;
-            curCl.size = clBank.getShort("size", iCL);
-            curCl.superlayer = -1; // NA for this detector
-            cls.add(curCl);
-        }
+    List<RecCluster> getBSTClusters(DataEvent event, Buffers buf) {
+        return getCVTClusters(event, DetectorType.BST, "BSTRec::Clusters", buf);
+    }
 
-        return cls;
+    List<RecCluster> getBMTClusters(DataEvent event, Buffers buf) {
+        return getCVTClusters(event, DetectorType.BMT, "BMTRec::Clusters", buf);
     }
 
-    List<RecCluster> getBMTClusters(DataEvent event, Map<Integer, Integer> trkID2Index) {
+    private List<RecCluster> getCVTClusters(DataEvent event, DetectorType type, String clName, Buffers buf) {
         List<RecCluster> cls = new ArrayList<>();
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist
          */
-        if ((event.hasBank("BMTRec::Clusters") == false) || (event.hasBank("REC::Track") == false)) {
-            //System.out.println("There is No BMTRec::clusters bank, or there is No BMTRec::Hits bank, or there is no REC::Track bank present");
-            return null;
+        if ((event.hasBank(clName) == false) || (event.hasBank("REC::Track") == false)) {
+            return cls;
         }
 
-        DataBank clBank = event.getBank("BMTRec::Clusters");
+        DataBank clBank = event.getBank(clName);
         DataBank trkBank = event.getBank("REC::Track");
 
         for (int iCL = 0; iCL < clBank.rows(); iCL++) {
 
-            short clID = (short) iCL;
-            short trkID = (short) (clBank.getShort("trkID", iCL));
+            short trkID = clBank.getShort("trkID", iCL);
 
             if (trkID < 0) {
                 // We need only hits/clusters that contribute to a track
                 continue;
             }
 
-            //short pindex = trkBank.getShort("pindex", trkID);
-            short pindex = trkBank.getShort("pindex", trkID2Index.get((int)trkID));
             RecCluster curCl = new RecCluster();
             curCl.id = (short) iCL;
-            curCl.detector = (byte) DetectorType.BMT.getDetectorId();
+            curCl.detector = (byte) type.getDetectorId();
             curCl.energy = clBank.getFloat("ETot", iCL);
-            curCl.rectid = (short)(trkID - 1);
+            curCl.rectid = (short) (trkID - 1);
             curCl.layer = clBank.getByte("layer", iCL);
             curCl.sector = clBank.getByte("sector", iCL);
-            curCl.pindex = pindex;
+            curCl.pindex = getCVTPindex(trkBank, trkID, buf);
             curCl.size = clBank.getShort("size", iCL);
             curCl.superlayer = -1; // NA for this detector
             cls.add(curCl);
@@ -1670,14 +1200,14 @@ public class TruthMatch extends ReconstructionEngine {
         return cls;
     }
 
-    List<RecCluster> getDCClusters(DataEvent event) {
+    List<RecCluster> getDCClusters(DataEvent event, Buffers buf) {
         List<RecCluster> cls = new ArrayList<>();
 
         /**
-         * Check if three necessary banks exist otherwise will return null
+         * Check if the necessary banks exist
          */
         if ((event.hasBank("TimeBasedTrkg::TBHits") == false) || (event.hasBank("REC::Track") == false)) {
-            return null;
+            return cls;
         }
 
         DataBank trkBank = event.getBank("REC::Track");
@@ -1686,45 +1216,30 @@ public class TruthMatch extends ReconstructionEngine {
          * In the case of DC, a cluster is a single DC hit.
          */
         DataBank clBank = event.getBank("TimeBasedTrkg::TBHits");
-        DataBank tbtrkBank = event.getBank("TimeBasedTrkg::TBTracks");
-
-        /*
-        * We need to get a conversion from HitID to Rec::Track Ind
-         */
-        Map<Short, Short> tbTrkID2RecTrInd = new HashMap();
-        for (short iRec = 0; iRec < trkBank.rows(); iRec++) {
-            Byte det = trkBank.getByte("detector", iRec);
-            Short index = trkBank.getShort("index", iRec);
-
-            if (det == DetectorType.DC.getDetectorId()) {
-                tbTrkID2RecTrInd.put(tbtrkBank.getShort("id", index), iRec);
-            }
-        }
 
         for (int iCL = 0; iCL < clBank.rows(); iCL++) {
 
-            short clID = (short) iCL;
             short trkID = (short) (clBank.getByte("trkID", iCL));
 
             if (trkID < 0) {
                 // This should not happen, just in case
                 continue;
             }
-            //System.out.println("trkID = " + trkID);
-            int trInd = tbTrkID2RecTrInd.get(trkID);
-            short pindex = trkBank.getShort("pindex", trInd);
+
+            int trInd = (int) buf.dcTracks.get(trkID, -1);
+            short pindex = trInd >= 0 ? trkBank.getShort("pindex", trInd) : -1;
+
             RecCluster curCl = new RecCluster();
             curCl.id = (short) (clBank.getShort("id", iCL) - 1);
             curCl.detector = (byte) DetectorType.DC.getDetectorId();
             curCl.energy = -1;
-            curCl.rectid = 0;
             curCl.rectid = trkID;
             curCl.layer = clBank.getByte("layer", iCL);
             curCl.sector = clBank.getByte("sector", iCL);
             curCl.pindex = pindex;
-            //System.out.println("id = " + curCl.id + "   pindex = " + pindex);
             curCl.size = 1;
             curCl.superlayer = clBank.getByte("superlayer", iCL);
+
             cls.add(curCl);
         }
 
@@ -1732,136 +1247,125 @@ public class TruthMatch extends ReconstructionEngine {
     }
 
     /**
+     * Match the clusters of a detector to the MC particle with the largest
+     * number of hits in the cluster, from the hits collected in the buffers,
+     * which are then reset for the next detector.
      *
      * @param cls: List of clusters for a given detector
-     * @param Rechits_a : Map<clId, ListRecHis>, i.e. list of hits for each
-     * cluster
-     * @param mchits : Map<hitn, mchit>, map of mc hits, where the Key is the
-     * "hitn"
+     * @param buf: the buffers, with the (cluster ID, otid) of the hits
      */
-    void MatchClasters(List<RecCluster> cls, Map< Short, List<RecHit>> Rechits_a, Map<Integer, MCHit> mchits) {
+    void MatchClasters(List<RecCluster> cls, Buffers buf) {
 
-        if (cls == null) {
-            return;
-        }
-
-        for (RecCluster cl : cls) {
-
-            /**
-             * The Key of the map is the MCParticleindex, that created a given
-             * hit in a cluster, while the value of the map shows # of hits in
-             * the cluster from that MCParticle
-             */
-            Map<Integer, Integer> matchMCParts = new HashMap<>();
-
-            List<RecHit> recHits = Rechits_a.get(cl.id);
-
-            if (recHits == null) {
-                /**
-                 * ************* AA TT EE NN TT II OO NN *******************
-                 * This needs to be resolved!! There should not be cases where
-                 * there is a cluster, but non of hits has clusterId pointing to
-                 * that cluster. A possibility is that because of shared hits
-                 * all hits of a given cluster is shared wit other cluster(s).
-                 *
-                 * Needs to be investigated
-                 */
-                continue;
-            }
-
-            for (RecHit curRecHit : recHits) {
-
-                MCHit mchit = mchits.get(curRecHit.id);
-
-                if (mchit != null) {
+        /**
+         * The hits are sorted by cluster ID, so that the hits of a cluster are
+         * consecutive, and keep the order in which they were added
+         */
+        long[] hits = buf.hits;
+        int nHits = buf.nHits;
+        buf.nHits = 0;
+        Arrays.sort(hits, 0, nHits);
 
-                    if (matchMCParts.get(mchit.otid) == null) {
-                        matchMCParts.put(mchit.otid, 1);
-                    } else {
-                        matchMCParts.put(mchit.otid, matchMCParts.get(mchit.otid) + 1);
+        /**
+         * If there are more than one MCParticle associated with the cluster,
+         * chose the one which has largest # of hits. Ties go to the
+         * MCParticle of the first hit of the cluster, in the order of the hits.
+         */
+        PackedKeyMap matches = buf.clusterMatches;
+        matches.clear();
+        for (int i = 0; i < nHits;) {
+            short cid = (short) (hits[i] >> 32);
+            int n = 0;
+            int j = i;
+            for (; j < nHits && (short) (hits[j] >> 32) == cid; j++) {
+                int otid = buf.hitOtids[(int) hits[j]];
+                int k = 0;
+                while (k < n && buf.clusterOtids[k] != otid) {
+                    k++;
+                }
+                if (k == n) {
+                    if (n == buf.clusterOtids.length) {
+                        buf.clusterOtids = Arrays.copyOf(buf.clusterOtids, 2 * n);
+                        buf.clusterCounts = Arrays.copyOf(buf.clusterCounts, 2 * n);
                     }
-                } else {
+                    buf.clusterOtids[n] = otid;
+                    buf.clusterCounts[n] = 0;
+                    n++;
                 }
-
+                buf.clusterCounts[k]++;
             }
-
-            /**
-             * Loop over all hits is finished, so let's check, if there are more
-             * than one MCParticle is associated with the cluster, chose the one
-             * which has largest # of hits.
-             */
-            Map.Entry<Integer, Integer> maxEntry = null;
-            for (Map.Entry<Integer, Integer> entry : matchMCParts.entrySet()) {
-                if (maxEntry == null || entry.getValue().compareTo(maxEntry.getValue()) > 0) {
-                    maxEntry = entry;
+            // the otids are in the order of their first hit
+            int best = 0;
+            for (int k = 1; k < n; k++) {
+                if (buf.clusterCounts[k] > buf.clusterCounts[best]) {
+                    best = k;
                 }
             }
+            matches.put(cid, PackedKeyMap.key(buf.clusterCounts[best], buf.clusterOtids[best]));
+            i = j;
+        }
 
-            if (maxEntry != null) {
-                cl.nHitMatched = maxEntry.getValue();
-                cl.mcotid = maxEntry.getKey().shortValue();
+        for (RecCluster cl : cls) {
+            /**
+             * There should not be cases where there is a cluster, but non of
+             * hits has clusterId pointing to that cluster. A possibility is
+             * that because of shared hits all hits of a given cluster is
+             * shared wit other cluster(s).
+             */
+            if (matches.containsKey(cl.id)) {
+                long match = matches.get(cl.id, 0L);
+                cl.nHitMatched = (int) (match >>> 32);
+                cl.mcotid = (short) match;
             }
-
         }
-
     }
 
     /**
      *
-     * @param pKeys: Set of Particle iDs, // For MCParticle it is id, and for
+     * @param nParticles: number of particles // For MCParticle it is id, and for
      * RecParticle it is pindex
      * @param cls : List of clusters
-     * @return : Map<MCPId, List<Clusters>>, returns list of RecClusters for
-     * each MC particle
+     * @param byMC : whether to map the clusters to MC particles, otherwise
+     * to Rec particles
+     * @return : List of RecClusters for each particle
      */
-    Map<Short, List<RecCluster>> mapClustersToParticles(Set<Short> pKeys, List<RecCluster> cls, String DataSet) throws Exception {
-        Map<Short, List<RecCluster>> map = new HashMap<>();
+    List<List<RecCluster>> mapClustersToParticles(int nParticles, List<RecCluster> cls, boolean byMC) {
 
-        for (short theKey : pKeys) {
+        List<List<RecCluster>> map = new ArrayList<>(nParticles);
 
-            map.put(theKey, new ArrayList<>());
+        for (int i = 0; i < nParticles; i++) {
+            map.add(new ArrayList<>());
         }
 
         for (RecCluster curCl : cls) {
 
-            short partId;
-            if (DataSet == "MC") {
-                partId = curCl.mcotid;
-            } else if (DataSet == "Rec") {
-                partId = curCl.pindex;
-            } else {
-                System.out.println("The dataSet provided is " + DataSet);
-                throw new RuntimeException("The Data set should be 'MC' or 'Rec' ");
-            }
+            int partId = byMC ? curCl.mcotid : curCl.pindex;
 
-            if (map.get(partId) == null) {
-                // Should not happen, but just in case
-                map.put(partId, new ArrayList<>());
+            // clusters not matched to any of the particles are not needed
+            if (partId >= 0 && partId < nParticles) {
+                map.get(partId).add(curCl);
             }
-
-            map.get(partId).add(curCl);
-
         }
 
         return map;
     }
 
     /**
-     * @param mcp: the Key is the index of the MCparticle in the MC::Particle
-     * bank, and the value is MCPart object
-     * @param clsPerMCp: The key is MCParticle index in the MC::Particle bank
+     * @param mcp: the index is the index of the MCparticle in the MC::Particle
+     * bank
+     * @param clsPerMCp: the index is MCParticle index in the MC::Particle bank
      * and the value is the list of clusters for that MC::Particle
+     * @param buf: the buffers, with the layers of each (MC, Rec) pair
      * @return
      */
-    List<MCRecMatch> MakeMCRecMatch(Map<Short, MCPart> mcp, Map<Short, List<RecCluster>> clsPerMCp) {
+    List<MCRecMatch> MakeMCRecMatch(List<MCPart> mcp, List<List<RecCluster>> clsPerMCp, Buffers buf) {
 
         List<MCRecMatch> recMatch = new ArrayList<>();
 
-        for (short imc : mcp.keySet()) {
+        for (int imc = 0; imc < mcp.size(); imc++) {
 
             MCRecMatch match = new MCRecMatch();
 
-            match.id = imc;
+            match.id = (short) imc;
             match.MCLayersTrk = mcp.get(imc).MCLayersTrk;
             match.MCLayersNeut = mcp.get(imc).MCLayersNeut;
 
@@ -1873,97 +1377,42 @@ public class TruthMatch extends ReconstructionEngine {
              */
             Map<Short, Integer> matched_counts = new HashMap<>();
 
-            Map<Short, Integer> matched_PCalcounts = new HashMap<>();
-            Map<Short, Integer> matched_ECcounts = new HashMap<>();
-            Map<Short, Integer> matched_FTCalcounts = new HashMap<>();
-            Map<Short, Integer> matched_CNDcounts = new HashMap<>();
-            Map<Short, Integer> matched_CTOFcounts = new HashMap<>();
-            Map<Short, Integer> matched_BSTcounts = new HashMap<>();
-            Map<Short, Integer> matched_BMTcounts = new HashMap<>();
-
-            int nPCal = 0;
-            int nEC = 0;
-            int nFTCal = 0;
-            int nCND = 0;
-            int nCTOF = 0;
-            int nBST = 0;
-            int nBMT = 0;
-
             /**
              * Making sure there are clusters created from the given MCParticle
              */
             if (!clsPerMCp.get(imc).isEmpty()) {
 
                 for (RecCluster curCl : clsPerMCp.get(imc)) {
-
                     incrementMap(matched_counts, curCl.pindex);
-
-                    final int det = (int) curCl.detector;
-
-                    /**
-                     * Can not use swith with with det.getdetectorID() so will
-                     * make
-                     */
-                    switch (det) {
-
-                        case ECALID:
-
-                            if (curCl.layer == 1) {
-                                // PCal
-                                incrementMap(matched_PCalcounts, curCl.pindex);
-                            } else if (curCl.layer == 4 || curCl.layer == 7) {
-                                // EC
-                                incrementMap(matched_ECcounts, curCl.pindex);
-                            }
-                            break;
-                        case FTCALID:
-                            incrementMap(matched_FTCalcounts, curCl.pindex);
-
-                        case BMTID:
-                            incrementMap(matched_BMTcounts, curCl.pindex);
-                            break;
-                        case BSTID:
-                            incrementMap(matched_BSTcounts, curCl.pindex);
-                            break;
-                        case CNDID:
-                            incrementMap(matched_CNDcounts, curCl.pindex);
-                        case CTOFID:
-                            incrementMap(matched_CTOFcounts, curCl.pindex);
-                            break;
-                    }
-
                 }
 
                 match.pindex = getMaxEntryKey(matched_counts);
-                match.RecLayersTrk = 0L;
-                match.RecLayersNeut = 0L;
-                if (mcp.get(imc).RecLayersTrk.containsKey((int) match.pindex)) {
-                    match.RecLayersTrk = mcp.get(imc).RecLayersTrk.get((int) match.pindex);
-                }
-                if (mcp.get(imc).RecLayersNeut.containsKey((int) match.pindex)) {
-                    match.RecLayersNeut = mcp.get(imc).RecLayersNeut.get((int) match.pindex);
-                }
+
+                long pair = PackedKeyMap.key(imc, match.pindex);
+                match.RecLayersTrk = buf.layersTrk.get(pair, 0L);
+                match.RecLayersNeut = buf.layersNeut.get(pair, 0L);
 
             } else {
                 match.pindex = -1;
                 match.RecLayersTrk = 0L;
                 match.RecLayersNeut = 0L;
             }
+
             recMatch.add(match);
         }
 
         return recMatch;
     }
 
-    List<MCRecMatch> MakeRecMCMatch(Map<Short, RecPart> recp, Map<Short, List<RecCluster>> clsPerRecP) {
+    List<MCRecMatch> MakeRecMCMatch(List<RecPart> recp, List<List<RecCluster>> clsPerRecP, Buffers buf) {
 
         List<MCRecMatch> recMatch = new ArrayList<>();
 
-        for (short iRec : recp.keySet()) {
+        for (int iRec = 0; iRec < recp.size(); iRec++) {
 
             MCRecMatch match = new MCRecMatch();
 
-            match.pindex = iRec;
+            match.pindex = (short) iRec;
             match.RecLayersTrk = recp.get(iRec).RecLayersTrk;
             match.RecLayersNeut = recp.get(iRec).RecLayersNeut;
 
@@ -1985,15 +1434,10 @@ public class TruthMatch extends ReconstructionEngine {
                 }
 
                 match.id = getMaxEntryKey(matched_counts);
-                match.MCLayersTrk = 0L;
-                match.MCLayersNeut = 0L;
-                if (recp.get(iRec).MCLayersTrk.containsKey((int) match.id)) {
-                    match.MCLayersTrk = recp.get(iRec).MCLayersTrk.get((int) match.id);
-                }
 
-                if (recp.get(iRec).MCLayersNeut.containsKey((int) match.id)) {
-                    match.MCLayersNeut = recp.get(iRec).MCLayersNeut.get((int) match.id);
-                }
+                long pair = PackedKeyMap.key(match.id, iRec);
+                match.MCLayersTrk = buf.layersTrk.get(pair, 0L);
+                match.MCLayersNeut = buf.layersNeut.get(pair, 0L);
 
             } else {
                 match.id = -1;
@@ -2137,27 +1581,6 @@ public class TruthMatch extends ReconstructionEngine {
     /**
      * Some Utility functions
      */
-    void PrintRecHits(Map< Short, List<RecHit>> Rechits_a) {
-
-        System.out.println("******************* Map of Rec Hits ******************************");
-
-        for (Map.Entry<Short, List<RecHit>> entry : Rechits_a.entrySet()) {
-            System.out.println("**  ======= The key (clusterID) : is " + entry.getKey() + " ======= ");
-
-            for (int ilist = 0; ilist < entry.getValue().size(); ilist++) {
-
-                System.out.println("**  *id* of the " + ilist + "-th RecHit is " + entry.getValue().get(ilist).id);
-                System.out.println("**  *pindex of the " + ilist + "-th RecHit is " + entry.getValue().get(ilist).pindex);
-                System.out.println("**  *cid* of the " + ilist + "-th RecHit is " + entry.getValue().get(ilist).cid);
-                System.out.println("**  *detector* of the " + ilist + "-th RecHit is " + entry.getValue().get(ilist).detector);
-                System.out.println("**");
-            }
-        }
-
-        System.out.println("******************* Map of Rec Hits ******************************");
-
-    }
-
     void PrintRecCluster(RecCluster cl) {
 
         System.out.println("******************* RecCluster ******************************");
@@ -2200,13 +1623,13 @@ public class TruthMatch extends ReconstructionEngine {
 
     }
 
-    void PrintClsPerMc(Map<Short, List<RecCluster>> map) {
+    void PrintClsPerMc(List<List<RecCluster>> map) {
 
         System.out.println("** ******** Map of Clusters per MC particle **************");
 
         if (!map.isEmpty()) {
 
-            for (Short curKey : map.keySet()) {
+            for (int curKey = 0; curKey < map.size(); curKey++) {
 
                 int nCl = map.get(curKey).size();
                 System.out.println("mcotid  = " + curKey + "     # of clusters is " + nCl);
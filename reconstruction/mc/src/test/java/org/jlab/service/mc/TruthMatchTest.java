@@ -0,0 +1,149 @@
+package org.jlab.service.mc;
+
+import org.jlab.detector.base.DetectorType;
+import org.jlab.io.base.DataBank;
+import org.jlab.io.base.DataEvent;
+import org.jlab.io.hipo.HipoDataEvent;
+import org.jlab.jnp.hipo4.data.Event;
+import org.jlab.jnp.hipo4.data.SchemaFactory;
+import org.jlab.utils.system.ClasUtilsFile;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class TruthMatchTest {
+
+    private static final int N_MC = 20;
+
+    // (cluster, otid) of the ECAL hits, otid starting from 0, the clusters
+    // are interleaved to check that the order of the hits of each cluster
+    // is kept, ties go to the particle of the first hit of the cluster
+    private static final int[][] HITS = {
+        // cluster 0: 1 hit from 2 and 17, 2 comes first
+        {0, 2}, {1, 16}, {2, 5}, {0, 17},
+        // cluster 1: 1 hit from 16 and 0, 16 comes first
+        {1, 0},
+        // cluster 2: 2 hits from 5, 1 from 18
+        {2, 18}, {2, 5},
+        // cluster 3: 1 hit from 13 particles, 19 comes first
+        {3, 19}, {3, 3}, {3, 4}, {3, 5}, {3, 6}, {3, 7}, {3, 8}, {3, 9},
+        {3, 10}, {3, 11}, {3, 12}, {3, 13}, {3, 14},
+        // cluster 4: 1 hit from 1 and 17, 1 comes first
+        {4, 1}, {4, 17}
+    };
+    private static final int N_CLUSTERS = 5;
+
+    // MC::GenMatch rows: mcindex, pindex, mclayer2, player2
+    private static final long[][] GEN_MATCH = {
+        { 0,  -1, 0b010, 0b000},
+        { 1,   4, 0b100, 0b100},
+        { 2,   0, 0b001, 0b001},
+        { 3,  -1, 0b100, 0b000},
+        { 4,  -1, 0b001, 0b000},
+        { 5,   2, 0b111, 0b101},
+        { 6,  -1, 0b100, 0b000},
+        { 7,  -1, 0b001, 0b000},
+        { 8,  -1, 0b010, 0b000},
+        { 9,  -1, 0b100, 0b000},
+        {10,  -1, 0b001, 0b000},
+        {11,  -1, 0b010, 0b000},
+        {12,  -1, 0b100, 0b000},
+        {13,  -1, 0b001, 0b000},
+        {14,  -1, 0b010, 0b000},
+        {15,  -1, 0b000, 0b000},
+        {16,   1, 0b010, 0b010},
+        {17,  -1, 0b001, 0b000},
+        {18,  -1, 0b100, 0b000},
+        {19,   3, 0b010, 0b010}
+    };
+    private static final float[] GEN_QUALITY = {0, 0, 0.94f, 0, 0, 0.94f, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0};
+
+    // MC::RecMatch rows: pindex, mcindex, player2, mclayer2
+    private static final long[][] REC_MATCH = {
+        { 0,   2, 0b001, 0b001},
+        { 1,  16, 0b010, 0b010},
+        { 2,   5, 0b101, 0b101},
+        { 3,  19, 0b111, 0b010},
+        { 4,   1, 0b101, 0b100}
+    };
+    private static final float[] REC_QUALITY = {0.94f, 0, 0.94f, 0.94f, 0.94f};
+
+    private static DataEvent createEvent() {
+        System.setProperty("CLAS12DIR", "../../");
+        String dir = ClasUtilsFile.getResourceDir("CLAS12DIR", "etc/bankdefs/hipo4");
+        SchemaFactory factory = new SchemaFactory();
+        factory.initFromDirectory(dir);
+        DataEvent event = new HipoDataEvent(new Event(), factory);
+
+        DataBank mcParticle = event.createBank("MC::Particle", N_MC);
+        for (int i = 0; i < N_MC; i++) {
+            mcParticle.setInt("pid", i, 22);
+        }
+        DataBank recParticle = event.createBank("REC::Particle", N_CLUSTERS);
+        DataBank recCalorimeter = event.createBank("REC::Calorimeter", N_CLUSTERS);
+        for (int i = 0; i < N_CLUSTERS; i++) {
+            recParticle.setInt("pid", i, 22);
+            recParticle.setByte("charge", i, (byte) 0);
+            recCalorimeter.setShort("index", i, (short) i);
+            recCalorimeter.setShort("pindex", i, (short) i);
+            recCalorimeter.setByte("detector", i, (byte) DetectorType.ECAL.getDetectorId());
+            recCalorimeter.setByte("sector", i, (byte) 1);
+            recCalorimeter.setByte("layer", i, (byte) 1);
+            recCalorimeter.setFloat("energy", i, 0.1f);
+        }
+
+        DataBank mcTrue = event.createBank("MC::True", HITS.length);
+        DataBank ecalHits = event.createBank("ECAL::hits", HITS.length);
+        DataBank ecalAdc = event.createBank("ECAL::adc", HITS.length);
+        for (int i = 0; i < HITS.length; i++) {
+            // PCAL, ECIN and ECOUT layers in turn
+            byte layer = (byte) (1 + 3*(i%3));
+            mcTrue.setByte("detector", i, (byte) DetectorType.ECAL.getDetectorId());
+            mcTrue.setInt("hitn", i, i+1);
+            mcTrue.setInt("otid", i, HITS[i][1]+1);
+            ecalHits.setShort("id", i, (short) (i+1));
+            ecalHits.setShort("clusterId", i, (short) (HITS[i][0]+1));
+            ecalHits.setByte("sector", i, (byte) 1);
+            ecalHits.setByte("layer", i, layer);
+            ecalAdc.setByte("sector", i, (byte) 1);
+            ecalAdc.setByte("layer", i, layer);
+            ecalAdc.setShort("component", i, (short) (i+1));
+        }
+        event.appendBanks(mcParticle, recParticle, recCalorimeter, mcTrue, ecalHits, ecalAdc);
+        return event;
+    }
+
+    @Test
+    public void testMatch() {
+        TruthMatch engine = new TruthMatch();
+        engine.init();
+        // the per-thread buffers are reused for the second event
+        for (int n = 0; n < 2; n++) {
+            DataEvent event = createEvent();
+            assertTrue(engine.processDataEvent(event));
+
+            DataBank genMatch = event.getBank("MC::GenMatch");
+            assertEquals(GEN_MATCH.length, genMatch.rows());
+            for (int i = 0; i < genMatch.rows(); i++) {
+                assertEquals(GEN_MATCH[i][0], genMatch.getShort("mcindex", i));
+                assertEquals(GEN_MATCH[i][1], genMatch.getShort("pindex", i));
+                assertEquals(0, genMatch.getLong("mclayer1", i));
+                assertEquals(GEN_MATCH[i][2], genMatch.getLong("mclayer2", i));
+                assertEquals(0, genMatch.getLong("player1", i));
+                assertEquals(GEN_MATCH[i][3], genMatch.getLong("player2", i));
+                assertEquals(GEN_QUALITY[i], genMatch.getFloat("quality", i), 0);
+            }
+
+            DataBank recMatch = event.getBank("MC::RecMatch");
+            assertEquals(REC_MATCH.length, recMatch.rows());
+            for (int i = 0; i < recMatch.rows(); i++) {
+                assertEquals(REC_MATCH[i][0], recMatch.getShort("pindex", i));
+                assertEquals(REC_MATCH[i][1], recMatch.getShort("mcindex", i));
+                assertEquals(0, recMatch.getLong("player1", i));
+                assertEquals(REC_MATCH[i][2], recMatch.getLong("player2", i));
+                assertEquals(0, recMatch.getLong("mclayer1", i));
+                assertEquals(REC_MATCH[i][3], recMatch.getLong("mclayer2", i));
+                assertEquals(REC_QUALITY[i], recMatch.getFloat("quality", i), 0);
+            }
+        }
+    }
+}
@@ -7,33 +7,26 @@
 package org.jlab.rec.rtpc.hit;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
-import java.util.Set;
-import org.jlab.detector.calib.utils.ConstantsManager;
 
 
 public class TrackFinder {
     
     private TrackUtils tutil = new TrackUtils();
     private TrackMap TIDMap = new TrackMap();
-    private List<Integer> TIDList;
-    private Track track;
     private ADCMap ADCMap;
     private List<Integer> PadList;
     private int TrigWindSize;
     private int StepSize = 120;//Bin Size of Dream Electronics Output
     private double adcthresh = 0; 
     private int padloopsize;// = PadList.size();
-    private boolean padSorted = false; 
+    private int nslices;
     private List<Integer> padTIDlist = new ArrayList<>();
-    private List<Integer> padlist; 
-    private int pad = 0;
-    private double adc = 0; 
     private int timeadjlimit = 4; 
-    private int parenttid = -1;
     private String method = "phiz";
     private int minhitcount = 5; 
     private double zthresh = 16;
@@ -43,6 +36,13 @@ public class TrackFinder {
     private double TFtotaltracktimeflag = 5000;
     private double TFtotalpadtimeflag = 1000;
     
+    private int[] hitTID;     //TID assigned to each pad (index in PadList) and time slice, 0 if no hit
+    private int[] parentTID;  //union-find forest over the TIDs, merged tracks point to their parent
+    private int[] firstTime;  //time at which each TID was created
+    private int[] minTime;    //earliest time slice visited for each TID, see below
+    private int lastTime = -1;//latest time slice visited for all TIDs
+    private List<Integer> newTIDs = new ArrayList<>();
+
 
     public TrackFinder(HitParameters params, boolean cosmic) {
         /*	
@@ -62,73 +62,65 @@ public class TrackFinder {
         
         TrigWindSize = params.get_TrigWindSize();
         padloopsize = PadList.size();
+        nslices = TrigWindSize > 0 ? (TrigWindSize + StepSize - 1)/StepSize : 0;
         
         /*
          * Main Algorithm
+         *
+         * Pads above threshold are collected once per time slice, and each of them is processed
+         * in time then pad order. A pad joins every track having a hit on the same or a
+         * neighbouring pad in the previous timeadjlimit slices, and the tracks it joins are merged.
+         * Only the hits of the neighbouring pads are looked at, so the cost scales with the
+         * number of hits instead of hits x tracks x track size.
          */
+        int[][] slicePads = findHits();
+        int[][] neighbours = findNeighbours(params, slicePads, cosmic);
+
+        hitTID = new int[padloopsize*nslices];
+        parentTID = new int[16];
+        firstTime = new int[16];
+        minTime = new int[16];
+
         TIMELOOP: //Loop over all times
-        for(int time = 0; time < TrigWindSize; time += StepSize) { //Steps of 120 up to TrigWindSize = 10000
+        for(int slice = 0; slice < nslices; slice++) { //Steps of 120 up to TrigWindSize = 10000
+            int time = slice*StepSize;
 
-            PADLOOP: //Loop over all pads
-            for(int padindex = 0; padindex < padloopsize; padindex++) {
-                padSorted = false;  //Flag to be set when the pad is assigned to a track
+            PADLOOP: //Loop over pads above threshold
+            for(int padindex : slicePads[slice]) {
                 padTIDlist.clear(); //List of all TIDs assigned to the pad starts empty
-                pad = PadList.get(padindex);	
-                adc = ADCMap.getADC(pad,time);
-                
-                
-
-                if(adc > adcthresh) { //pad adc threshold check
-
-                    PadVector PadVec = params.get_padvector(pad); //initializes the x,y,z,phi for pad
-                    TIDList = TIDMap.getAllTrackIDs(); //Retrieve list of all available TIDs
-
-                    TIDLOOP: //Loop over all Track IDs 
-                    for(int tid : TIDList) {
-                        track = TIDMap.getTrack(tid); //Get track with current tid
-
-                        TIMECHECKLOOP: //Loop over current and former times
-                        for(int timecheck = time; timecheck > 0 && timecheck >= time - timeadjlimit*StepSize; timecheck -= StepSize) {
-                            padlist = track.getTimeSlice(timecheck); //Get pads assigned to current time slice
-                            if(!padlist.contains(pad)) { //Ensures pad isn't already assigned here
-                                PADCHECKLOOP: //Loop over pads 
-                                for(int checkpad : padlist) {		
-                                    PadVector checkpadvec = params.get_padvector(checkpad);	
-                                    if(tutil.comparePads(PadVec, checkpadvec, method, cosmic, zthresh, zthreshgap, phithresh, phithreshgap)) { //compares the position of two pads
-                                        track.addPad(time, pad);			//assign pad to track
-                                        padSorted = true;				//flag set
-                                        padTIDlist.add(tid);				//track the TID assigned
-                                        break TIMECHECKLOOP;                            //no need to continue checking previous times
-                                    } //END PAD COMPARE
-
-                                } //END PADCHECKLOOP
-
-                            } else {//pad is somehow in this time slice already so lets go ahead and add it to the current time slice
-                                    track.addPad(time, pad);
-                                    padSorted = true;
-                                    padTIDlist.add(tid);
-                                    break TIMECHECKLOOP;
-                            }
-
-                        } //END TIMECHECKLOOP 
+                int pad = PadList.get(padindex);
+                boolean scan = time > 0 && timeadjlimit >= 0;
 
-                    } //END TIDLOOP 
+                if(scan) {
+                    TIMECHECKLOOP: //Loop over current and former times
+                    for(int checkslice = slice; checkslice >= 0; checkslice--) {
+                        int timecheck = checkslice*StepSize;
+                        if(timecheck <= 0 || timecheck < time - timeadjlimit*StepSize) break;
+                        addTID(padindex, checkslice);
+                        for(int checkpad : neighbours[padindex]) addTID(checkpad, checkslice);
+                    }
+                    updateTimeRange(time);
+                }
 
-                    if(!padSorted) { //we need a new TID if we get here, the pad was never assigned an ID
+                int tid;
+                if(padTIDlist.isEmpty()) { //we need a new TID if we get here, the pad was never assigned an ID
                             TIDMap.addTrack(new Track(time,pad));
+                    tid = TIDMap.getLastTrackID();
+                    newTID(tid, time);
+                } else {
+                    //add the pad to all tracks in the order the TIDs are stored in the map, and merge them into the first one
+                    List<Integer> tids = padTIDlist.size() > 1 ? TIDMap.getTrackIDs(padTIDlist) : padTIDlist;
+                    tid = tids.get(0);
+                    for(int tidtemp : tids) {
+                        TIDMap.getTrack(tidtemp).getTimeSlice(time).add(pad);
                     }
-
-                    if(padTIDlist.size()>1) { //if a pad gets more than 1 ID let's merge the IDs	
-                        for(int tidtemp : padTIDlist) {
-                            if(tidtemp == padTIDlist.get(0)) {
-                                parenttid = padTIDlist.get(0);
-                            } else {
-                                TIDMap.mergeTracks(parenttid, tidtemp); 
-                            }
-                        }						
+                    for(int index = 1; index < tids.size(); index++) {
+                        TIDMap.mergeTracks(tid, tids.get(index));
+                        parentTID[tids.get(index)] = tid;
+                        minTime[tid] = Math.min(minTime[tid], minTime[tids.get(index)]);
                     }
-
-                } //END ADC THRESH CHECK
+                }
+                hitTID[padindex*nslices + slice] = tid;
 
             } //END PADLOOP
 
@@ -168,7 +160,9 @@ public class TrackFinder {
                 }
                 List<Integer> times = t.getAllTimeSlices();
                 Collections.sort(times);
-                if(times.get(times.size()-1) - times.get(0) > TFtotaltracktimeflag) t.flagTrack();
+                int tfirst = Math.min(times.get(0), minTime[tid]);
+                int tlast = Math.max(times.get(times.size()-1), lastTime);
+                if(tlast - tfirst > TFtotaltracktimeflag) t.flagTrack();
 		TRACKTIMELOOP:
                 for(int tx : times){
                     List<Integer> pads = t.getTimeSlice(tx);
@@ -206,4 +200,133 @@ public class TrackFinder {
 
     }       
 	
+    private int[][] findHits() {
+        /*
+         * Indices in PadList of the pads above threshold, for each time slice
+         */
+        double[][] adcs = new double[padloopsize][];
+        for(int padindex = 0; padindex < padloopsize; padindex++) {
+            adcs[padindex] = ADCMap.getADCMap().get(PadList.get(padindex));
+        }
+        int[][] slicePads = new int[nslices][];
+        int[] buffer = new int[padloopsize];
+        for(int slice = 0; slice < nslices; slice++) {
+            int time = slice*StepSize;
+            int n = 0;
+            for(int padindex = 0; padindex < padloopsize; padindex++) {
+                if(adcs[padindex][time] > adcthresh) buffer[n++] = padindex;
+            }
+            slicePads[slice] = Arrays.copyOf(buffer, n);
+        }
+        return slicePads;
+    }
+
+    private int[][] findNeighbours(HitParameters params, int[][] slicePads, boolean cosmic) {
+        /*
+         * For each pad with at least one hit, the other such pads accepted by comparePads.
+         * Pads are binned in z and phi with bins at least as wide as the largest accepted
+         * separations, so only the pads of the adjacent bins need to be compared
+         */
+        int[][] neighbours = new int[padloopsize][];
+        boolean[] active = new boolean[padloopsize];
+        for(int[] pads : slicePads) {
+            for(int padindex : pads) active[padindex] = true;
+        }
+
+        double zbinsize = tutil.maxZDistance(cosmic, zthresh, zthreshgap);
+        double phibinsize = tutil.maxPhiDistance(cosmic, phithresh, phithreshgap);
+        int nphibins = method.equals("phiz") && zbinsize > 0 && phibinsize > 0 ? (int) Math.floor(2*Math.PI/phibinsize) : 1;
+        if(nphibins < 3) nphibins = 1;
+
+        int[] zbin = new int[padloopsize];
+        int[] phibin = new int[padloopsize];
+        HashMap<Integer, List<Integer>> bins = new HashMap<>();
+        for(int padindex = 0; padindex < padloopsize; padindex++) {
+            if(!active[padindex]) continue;
+            PadVector pv = params.get_padvector(PadList.get(padindex));
+            double phi = pv.phi();
+            if(phi < 0) phi += 2*Math.PI;
+            zbin[padindex] = nphibins > 1 ? (int) Math.floor(pv.z()/zbinsize) : 0;
+            phibin[padindex] = nphibins > 1 ? Math.min((int) (phi*nphibins/(2*Math.PI)), nphibins - 1) : 0;
+            int bin = zbin[padindex]*nphibins + phibin[padindex];
+            if(!bins.containsKey(bin)) bins.put(bin, new ArrayList<>());
+            bins.get(bin).add(padindex);
+        }
+
+        List<Integer> list = new ArrayList<>();
+        for(int padindex = 0; padindex < padloopsize; padindex++) {
+            if(!active[padindex]) continue;
+            PadVector PadVec = params.get_padvector(PadList.get(padindex));
+            list.clear();
+            int dzmax = nphibins > 1 ? 1 : 0;
+            for(int dz = -dzmax; dz <= dzmax; dz++) {
+                for(int dphi = -dzmax; dphi <= dzmax; dphi++) {
+                    int bin = (zbin[padindex] + dz)*nphibins + (phibin[padindex] + dphi + nphibins)%nphibins;
+                    if(!bins.containsKey(bin)) continue;
+                    for(int checkpad : bins.get(bin)) {
+                        if(checkpad == padindex) continue;
+                        PadVector checkpadvec = params.get_padvector(PadList.get(checkpad));
+                        if(tutil.comparePads(PadVec, checkpadvec, method, cosmic, zthresh, zthreshgap, phithresh, phithreshgap)) list.add(checkpad);
+                    }
+                }
+            }
+            neighbours[padindex] = new int[list.size()];
+            for(int i = 0; i < list.size(); i++) neighbours[padindex][i] = list.get(i);
+        }
+        return neighbours;
+    }
+
+    private void addTID(int padindex, int slice) {
+        int tid = hitTID[padindex*nslices + slice];
+        if(tid == 0) return;
+        tid = findTID(tid);
+        if(!padTIDlist.contains(tid)) padTIDlist.add(tid);
+    }
+
+    private int findTID(int tid) {
+        while(parentTID[tid] != tid) {
+            parentTID[tid] = parentTID[parentTID[tid]];
+            tid = parentTID[tid];
+        }
+        return tid;
+    }
+
+    private void newTID(int tid, int time) {
+        if(tid >= parentTID.length) {
+            int size = Math.max(2*parentTID.length, tid + 1);
+            parentTID = Arrays.copyOf(parentTID, size);
+            firstTime = Arrays.copyOf(firstTime, size);
+            minTime = Arrays.copyOf(minTime, size);
+        }
+        parentTID[tid] = tid;
+        firstTime[tid] = time;
+        minTime[tid] = Integer.MAX_VALUE;
+        newTIDs.add(tid);
+    }
+
+    private void updateTimeRange(int time) {
+        /*
+         * The track time range used to flag crossing tracks also counts the time slices
+         * that were visited while looking for neighbouring pads: the time of every later
+         * pad, and for tracks the pad did not join, the earliest slice of its time window.
+         * As the earliest slice only grows with time, it can only lower the time range of
+         * the tracks created in the last timeadjlimit slices, and only the first time they
+         * are not joined.
+         */
+        int earliest = time - StepSize*Math.min(timeadjlimit, (time - 1)/StepSize);
+        for(int index = newTIDs.size() - 1; index >= 0; index--) {
+            int tid = newTIDs.get(index);
+            if(earliest >= firstTime[tid]) {
+                newTIDs.remove(index);
+                continue;
+            }
+            int parent = findTID(tid);
+            if(!padTIDlist.contains(parent)) {
+                minTime[parent] = Math.min(minTime[parent], earliest);
+                newTIDs.remove(index);
+            }
+        }
+        lastTime = time;
+    }
+
 }
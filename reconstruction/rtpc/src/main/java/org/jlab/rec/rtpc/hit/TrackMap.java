@@ -1,6 +1,7 @@
 package org.jlab.rec.rtpc.hit;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.HashMap;
@@ -42,6 +43,15 @@ public class TrackMap {
         return l; 
     }
 
+    public List<Integer> getTrackIDs(Collection<Integer> trackIDs) {
+        //the given IDs, in the same order as getAllTrackIDs()
+        List<Integer> l = new ArrayList<Integer>();
+        for(int i : _map.keySet()) {
+                if(trackIDs.contains(i)) { l.add(i);}
+        }
+        return l;
+    }
+
     public int getLastTrackID() {
         return _trackID;
     }
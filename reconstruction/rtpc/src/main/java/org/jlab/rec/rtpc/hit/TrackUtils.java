@@ -10,13 +10,15 @@ public class TrackUtils {
     private double phithresh = 7;
     private double zthreshgap = 20;
     private double phithreshgap = 0.20;
+    private static final double COSMICZTHRESH = 200;
+    private static final double COSMICPHITHRESH = 7;
 
     public TrackUtils() {}
 
     public boolean comparePads(PadVector p1, PadVector p2, String Method, boolean cosmic, double dz, double dzgap, double dphi, double dphigap) {
         if(cosmic){
-            zthresh = 200;
-            phithresh = 7;  
+            zthresh = COSMICZTHRESH;
+            phithresh = COSMICPHITHRESH;  
             zthreshgap = zthresh;
             phithreshgap = phithresh;
         }else{
@@ -30,6 +32,18 @@ public class TrackUtils {
         else return false;
     }	
 
+    /*
+     * Largest z and phi separations for which the phiz method can accept a pair of pads,
+     * used to restrict the pads that need to be compared
+     */
+    public double maxZDistance(boolean cosmic, double dz, double dzgap) {
+        return cosmic ? COSMICZTHRESH : Math.max(dz, dzgap);
+    }
+
+    public double maxPhiDistance(boolean cosmic, double dphi, double dphigap) {
+        return cosmic ? COSMICPHITHRESH : Math.max(dphi, dphigap);
+    }
+
     private boolean ellipseMethod(PadVector p1, PadVector p2) {
         double p1x = p1.x(); 
         double p1y = p1.y();
@@ -0,0 +1,191 @@
+package org.jlab.rec.rtpc.hit;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that TrackFinder builds the same tracks, with the same IDs and flags,
+ * as the original scan over all pads, times and tracks.
+ */
+public class TrackFinderTest {
+
+  private static final int NROWS = 180;
+  private static final int NCOLS = 96;
+
+  @Test
+  public void testTrackFinderEquivalence() {
+    Random random = new Random(12345);
+    for (int ievent=0; ievent<40; ievent++) {
+      int ntracks = 1 + random.nextInt(8);
+      int nnoise = random.nextInt(300);
+      for (boolean cosmic : new boolean[]{false, true}) {
+        HitParameters params = generateEvent(new Random(ievent), ntracks, nnoise);
+        new TrackFinder(params, cosmic);
+        TrackMap sparse = params.get_trackmap();
+        TrackMap reference = findTracks(params, cosmic);
+        compare(reference, sparse);
+      }
+    }
+  }
+
+  private static HitParameters generateEvent(Random random, int ntracks, int nnoise) {
+    HitParameters params = new HitParameters();
+    ADCMap adcmap = params.get_ADCMap();
+    List<Integer> pads = new ArrayList<>();
+    int nslices = params.get_TrigWindSize()/120;
+    for (int itrack=0; itrack<ntracks; itrack++) {
+      int row = 1 + random.nextInt(NROWS);
+      int col = 1 + random.nextInt(NCOLS);
+      int slice = random.nextInt(nslices);
+      int length = 5 + random.nextInt(30);
+      for (int istep=0; istep<length && slice<nslices; istep++) {
+        for (int ipad=0; ipad<1+random.nextInt(3); ipad++) {
+          int r = (row + random.nextInt(3) - 1 + NROWS - 1)%NROWS + 1;
+          int c = Math.max(1, Math.min(NCOLS, col + random.nextInt(3) - 1));
+          addSignal(adcmap, pads, r, c, slice*120, 400 + random.nextInt(200));
+        }
+        row = (row + random.nextInt(3) - 1 + NROWS - 1)%NROWS + 1;
+        col = Math.max(1, Math.min(NCOLS, col + random.nextInt(3) - 1));
+        slice += random.nextInt(3);
+      }
+    }
+    for (int inoise=0; inoise<nnoise; inoise++) {
+      addSignal(adcmap, pads, 1 + random.nextInt(NROWS), 1 + random.nextInt(NCOLS),
+                random.nextInt(nslices)*120, 200 + random.nextInt(400));
+    }
+    params.set_PadList(pads);
+    return params;
+  }
+
+  private static void addSignal(ADCMap adcmap, List<Integer> pads, int row, int col, int time, double adc) {
+    int pad = (row - 1)*NCOLS + col;
+    if (!pads.contains(pad)) pads.add(pad);
+    adcmap.addSignal(pad, time, adc);
+  }
+
+  private static void compare(TrackMap reference, TrackMap sparse) {
+    assertEquals(reference.getAllTrackIDs(), sparse.getAllTrackIDs());
+    for (int tid : reference.getAllTrackIDs()) {
+      Track expected = reference.getTrack(tid);
+      Track actual = sparse.getTrack(tid);
+      assertEquals(expected.isTrackFlagged(), actual.isTrackFlagged());
+      List<Integer> times = new ArrayList<>();
+      for (int time : expected.getAllTimeSlices()) {
+        if (!expected.getTimeSlice(time).isEmpty()) times.add(time);
+      }
+      List<Integer> actualTimes = actual.getAllTimeSlices();
+      Collections.sort(times);
+      Collections.sort(actualTimes);
+      assertEquals(times, actualTimes);
+      for (int time : times) {
+        assertEquals(expected.getTimeSlice(time), actual.getTimeSlice(time));
+      }
+    }
+  }
+
+  /*
+   * The original track finder: every pad above threshold is compared with the pads of
+   * every track in the previous time slices
+   */
+  private static TrackMap findTracks(HitParameters params, boolean cosmic) {
+    TrackUtils tutil = new TrackUtils();
+    TrackMap TIDMap = new TrackMap();
+    String method = "phiz";
+    int StepSize = 120;
+    int timeadjlimit = params.get_timeadjlimit();
+    double zthresh = params.get_zthreshTF();
+    double phithresh = params.get_phithreshTF();
+    double zthreshgap = params.get_zthreshTFgap();
+    double phithreshgap = params.get_phithreshTFgap();
+    List<Integer> PadList = params.get_PadList();
+    List<Integer> padTIDlist = new ArrayList<>();
+
+    for (int time = 0; time < params.get_TrigWindSize(); time += StepSize) {
+      for (int pad : PadList) {
+        boolean padSorted = false;
+        padTIDlist.clear();
+        if (params.get_ADCMap().getADC(pad, time) > params.get_adcthresh()) {
+          PadVector PadVec = params.get_padvector(pad);
+          for (int tid : TIDMap.getAllTrackIDs()) {
+            Track track = TIDMap.getTrack(tid);
+            TIMECHECKLOOP:
+            for (int timecheck = time; timecheck > 0 && timecheck >= time - timeadjlimit*StepSize; timecheck -= StepSize) {
+              List<Integer> padlist = track.getTimeSlice(timecheck);
+              if (!padlist.contains(pad)) {
+                for (int checkpad : padlist) {
+                  if (tutil.comparePads(PadVec, params.get_padvector(checkpad), method, cosmic, zthresh, zthreshgap, phithresh, phithreshgap)) {
+                    track.addPad(time, pad);
+                    padSorted = true;
+                    padTIDlist.add(tid);
+                    break TIMECHECKLOOP;
+                  }
+                }
+              } else {
+                track.addPad(time, pad);
+                padSorted = true;
+                padTIDlist.add(tid);
+                break TIMECHECKLOOP;
+              }
+            }
+          }
+          if (!padSorted) TIDMap.addTrack(new Track(time, pad));
+          for (int index = 1; index < padTIDlist.size(); index++) {
+            TIDMap.mergeTracks(padTIDlist.get(0), padTIDlist.get(index));
+          }
+        }
+      }
+    }
+
+    for (int tid : TIDMap.getAllTrackIDs()) {
+      if (TIDMap.getTrack(tid).uniquePadCountTotal() < params.get_minhitspertrack()) TIDMap.removeTrack(tid);
+    }
+
+    if (!cosmic) {
+      for (int tid : TIDMap.getAllTrackIDs()) {
+        Track t = TIDMap.getTrack(tid);
+        for (int pad : t.uniquePadList()) {
+          int tmax = 0;
+          int tmin = 1000000;
+          for (int time : t.PadTimeList(pad)) {
+            if (time > tmax) tmax = time;
+            if (time < tmin) tmin = time;
+          }
+          if (tmax - tmin > params.get_TFtotalpadtimeflag()) {
+            t.flagTrack();
+            break;
+          }
+        }
+        List<Integer> times = t.getAllTimeSlices();
+        Collections.sort(times);
+        if (times.get(times.size()-1) - times.get(0) > params.get_TFtotaltracktimeflag()) t.flagTrack();
+        TRACKTIMELOOP:
+        for (int tx : times) {
+          List<Integer> pads = t.getTimeSlice(tx);
+          if (pads.size() > 1) {
+            Collections.sort(pads, new Comparator<Integer>() {
+              @Override
+              public int compare(Integer p1, Integer p2) {
+                return Double.compare(params.get_padvector(p2).z(), params.get_padvector(p1).z());
+              }
+            });
+            for (int index = 1; index < pads.size(); index++) {
+              if (!tutil.comparePads(params.get_padvector(pads.get(index - 1)), params.get_padvector(pads.get(index)),
+                                     method, cosmic, zthresh, zthreshgap, phithresh, phithreshgap)) {
+                t.flagTrack();
+                break TRACKTIMELOOP;
+              }
+            }
+          }
+        }
+      }
+    }
+    return TIDMap;
+  }
+
+}
@@ -14,6 +14,8 @@ import org.jlab.rec.tof.banks.BaseHit;
 import org.jlab.rec.tof.banks.BaseHitReader;
 import org.jlab.rec.tof.banks.IMatchedHit;
 import org.jlab.rec.tof.cluster.Cluster;
+import org.jlab.rec.ctof.Constants;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import org.jlab.rec.tof.hit.ctof.Hit;
 import org.jlab.rec.tof.track.Track;
 import org.jlab.utils.groups.IndexedList;
@@ -44,30 +46,18 @@ public class HitReader implements IMatchedHit {
      *
      * @param event the evio event
      * @param geometry the CTOF geometry from package
+     * @param paddles the counter parameters for the run, see getPaddleParameters
      */
     public void fetch_Hits(DataEvent event, long timeStamp, CTOFGeant4Factory geometry,
             ArrayList<Track> tracks,
-            IndexedTable constants0, 
-            IndexedTable constants1, 
-            IndexedTable constants2, 
+            PaddleParameters[] paddles,
             IndexedTable constants3, 
-            IndexedTable constants4, 
-            IndexedTable constants5, 
             IndexedTable constants6, 
-            IndexedTable constants7, 
-            IndexedTable constants8, 
-            IndexedTable constants9) {
+            IndexedTable constants7) {
         /*
-        0: "/calibration/ctof/attenuation"),
-        1: "/calibration/ctof/effective_velocity"),
-        2: "/calibration/ctof/time_offsets"),
         3: "/calibration/ctof/tdc_conv"),
-        4: "/calibration/ctof/status"));
-        5: "/calibration/ctof/gain_balance"),
         6: "/calibration/ctof/time_jitter"),
         7: "/calibration/ctof/fadc_offset"),
-        7: "/calibration/ctof/hpos"),
-        7: "/calibration/ctof/hposbin"));
         */
 
         double triggerPhase = this.getTriggerPhase(timeStamp, constants6);
@@ -115,15 +105,16 @@ public class HitReader implements IMatchedHit {
             hit.set_ADCbankHitIdx2(ADCDIdx[i]);
             hit.set_TDCbankHitIdx1(TDCUIdx[i]);
             hit.set_TDCbankHitIdx2(TDCDIdx[i]);
-            if(!this.passADC(hit.Status1(constants4), ADCU[i]))
+            PaddleParameters par = paddles[paddle[i] - 1];
+            if(!this.passADC(par.status1, ADCU[i]))
                 hit.set_Status(RawOrder.ADC1, 1);
-            if(!this.passTDC(hit.Status1(constants4), TDCU[i]))
+            if(!this.passTDC(par.status1, TDCU[i]))
                 hit.set_Status(RawOrder.TDC1, 1);
-            if(!this.passADC(hit.Status2(constants4), ADCD[i]))
+            if(!this.passADC(par.status2, ADCD[i]))
                 hit.set_Status(RawOrder.ADC2, 1);
-            if(!this.passTDC(hit.Status2(constants4), TDCD[i]))
+            if(!this.passTDC(par.status2, TDCD[i]))
                 hit.set_Status(RawOrder.TDC2, 1);
-            hit.setPaddleLine(geometry);
+            hit.setPaddleLine(par);
             // add this hit
             if(passHit(hit))hits.add(hit);
         }
@@ -137,14 +128,7 @@ public class HitReader implements IMatchedHit {
         for (Hit hit : updated_hits) {
             // set the layer to get the paddle position from the geometry
             // package
-            hit.set_HitParameters(1, triggerPhase, 
-             constants0, 
-             constants1, 
-             constants2, 
-             constants3, 
-             constants5, 
-             constants8, 
-             constants9);
+            hit.set_HitParameters(1, triggerPhase, paddles[hit.get_Paddle() - 1]);
             // DetHits.get(hit.get_Panel()-1).add(hit);
         }
         // List<Hit> unique_hits = this.removeDuplicatedHits(updated_hits);
@@ -156,6 +140,30 @@ public class HitReader implements IMatchedHit {
         this.set_CTOFHits(updated_hits);
     }
 
+    /**
+     * Reads the calibration constants and geometry of all counters, to be done
+     * once per run
+     *
+     * @param geometry the CTOF geometry from package
+     * @return the counter parameters, indexed by paddle-1
+     */
+    public static PaddleParameters[] getPaddleParameters(CTOFGeant4Factory geometry,
+            IndexedTable constants0, 
+            IndexedTable constants1, 
+            IndexedTable constants2, 
+            IndexedTable constants3, 
+            IndexedTable constants4, 
+            IndexedTable constants5, 
+            IndexedTable constants8, 
+            IndexedTable constants9) {
+        PaddleParameters[] paddles = new PaddleParameters[Constants.NPAD[0]];
+        for (int paddle = 1; paddle <= Constants.NPAD[0]; paddle++) {
+            paddles[paddle - 1] = Hit.getPaddleParameters(paddle, geometry,
+                    constants0, constants1, constants2, constants3, constants4, constants5, constants8, constants9);
+        }
+        return paddles;
+    }
+
     private boolean passHit(Hit hit) {
         // drop hits that miss both ADCs or both TDCs
         return hit.get_StatusWord()==0;
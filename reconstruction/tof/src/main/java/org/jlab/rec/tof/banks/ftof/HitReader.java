@@ -13,6 +13,8 @@ import org.jlab.rec.tof.banks.BaseHit;
 import org.jlab.rec.tof.banks.BaseHitReader;
 import org.jlab.rec.tof.banks.IMatchedHit;
 import org.jlab.rec.tof.cluster.Cluster;
+import org.jlab.rec.ftof.Constants;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import org.jlab.rec.tof.hit.ftof.Hit;
 import org.jlab.rec.tof.track.Track;
 import org.jlab.utils.groups.IndexedList;
@@ -59,34 +61,22 @@ public class HitReader implements IMatchedHit {
 
     private int _numTrks;
 
+    private static final int NSECTORS = 6;
+
     /**
      *
      * @param event the evio event
      * @param geometry the FTOF geometry from package
+     * @param paddles the counter parameters for the run, see getPaddleParameters
      */
     public void fetch_Hits(DataEvent event, long timeStamp, FTOFGeant4Factory geometry,
             ArrayList<Track> tracks, 
-            IndexedTable constants0, 
-            IndexedTable constants1, 
-            IndexedTable constants2, 
-            IndexedTable constants3, 
-            IndexedTable constants4, 
-            IndexedTable constants5, 
+            PaddleParameters[] paddles,
             IndexedTable constants6, 
             IndexedTable constants7, 
-            IndexedTable constants8, 
-            IndexedTable constants9, 
             IndexedTable constants10) {/*
-        0: "/calibration/ftof/attenuation"),
-        1: "/calibration/ftof/effective_velocity"),
-        2: "/calibration/ftof/time_offsets"),
-        3: "/calibration/ftof/time_walk"),
-        4: "/calibration/ftof/status"),
-        5: "/calibration/ftof/gain_balance"),
         6: "/calibration/ftof/tdc_conv"),
         7: "/calibration/ftof/time_jitter"),
-        8: "/calibration/ftof/time_walk_pos"),
-        9: "/calibration/ftof/time_walk_exp"),
         10:"/calibration/ftof/fadc_offset") );
         */
         _numTrks = tracks.size();
@@ -153,15 +143,16 @@ public class HitReader implements IMatchedHit {
             hit.set_ADCbankHitIdx2(ADCRIdx[i]);
             hit.set_TDCbankHitIdx1(TDCLIdx[i]);
             hit.set_TDCbankHitIdx2(TDCRIdx[i]);
-            if(!this.passADC(hit.Status1(constants4), ADCL[i]))
+            PaddleParameters par = paddles[getPaddleIndex(sector[i], panel[i], paddle[i])];
+            if(!this.passADC(par.status1, ADCL[i]))
                 hit.set_Status(RawOrder.ADC1, 1);
-            if(!this.passTDC(hit.Status1(constants4), TDCL[i]))
+            if(!this.passTDC(par.status1, TDCL[i]))
                 hit.set_Status(RawOrder.TDC1, 1);
-            if(!this.passADC(hit.Status2(constants4), ADCR[i]))
+            if(!this.passADC(par.status2, ADCR[i]))
                 hit.set_Status(RawOrder.ADC2, 1);
-            if(!this.passTDC(hit.Status2(constants4), TDCR[i]))
+            if(!this.passTDC(par.status2, TDCR[i]))
                 hit.set_Status(RawOrder.TDC2, 1);
-            hit.setPaddleLine(geometry);
+            hit.setPaddleLine(par);
             // add this hit
             if(passHit(hit))hits.add(hit);
         }
@@ -177,14 +168,7 @@ public class HitReader implements IMatchedHit {
             // package
             hit.set_HitParameters(hit.get_Panel(), 
                 triggerPhase,
-                constants0, 
-                constants1, 
-                constants2, 
-                constants3, 
-                constants5, 
-                constants6, 
-                constants8, 
-                constants9);
+                paddles[getPaddleIndex(hit.get_Sector(), hit.get_Panel(), hit.get_Paddle())]);
             // DetHits.get(hit.get_Panel()-1).add(hit);
         }
         // List<Hit> unique_hits = this.removeDuplicatedHits(updated_hits);
@@ -247,6 +231,45 @@ public class HitReader implements IMatchedHit {
         return unique_hits;
     }
 
+    /**
+     * Reads the calibration constants and geometry of all counters, to be done
+     * once per run
+     *
+     * @param geometry the FTOF geometry from package
+     * @return the counter parameters, indexed by getPaddleIndex
+     */
+    public static PaddleParameters[] getPaddleParameters(FTOFGeant4Factory geometry,
+            IndexedTable constants0, 
+            IndexedTable constants1, 
+            IndexedTable constants2, 
+            IndexedTable constants3, 
+            IndexedTable constants4, 
+            IndexedTable constants5, 
+            IndexedTable constants6, 
+            IndexedTable constants8, 
+            IndexedTable constants9) {
+        PaddleParameters[] paddles = new PaddleParameters[NSECTORS*Constants.NPAD.length*getMaxPaddles()];
+        for (int sector = 1; sector <= NSECTORS; sector++) {
+            for (int panel = 1; panel <= Constants.NPAD.length; panel++) {
+                for (int paddle = 1; paddle <= Constants.NPAD[panel - 1]; paddle++) {
+                    paddles[getPaddleIndex(sector, panel, paddle)] = Hit.getPaddleParameters(sector, panel, paddle, geometry,
+                            constants0, constants1, constants2, constants3, constants4, constants5, constants6, constants8, constants9);
+                }
+            }
+        }
+        return paddles;
+    }
+
+    public static int getPaddleIndex(int sector, int panel, int paddle) {
+        return ((sector - 1)*Constants.NPAD.length + panel - 1)*getMaxPaddles() + paddle - 1;
+    }
+
+    private static int getMaxPaddles() {
+        int max = 0;
+        for (int npad : Constants.NPAD) max = Math.max(max, npad);
+        return max;
+    }
+
     private boolean passHit(Hit hit) {
         // drop hits that miss both ADCs or both TDCs
         return hit.get_StatusWord()==0;
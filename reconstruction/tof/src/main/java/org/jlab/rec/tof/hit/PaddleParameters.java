@@ -0,0 +1,65 @@
+package org.jlab.rec.tof.hit;
+
+import org.jlab.geom.prim.Line3D;
+
+/**
+ * The calibration constants and geometry of one counter used in the hit
+ * reconstruction. They are filled once per run for every counter, so that each
+ * hit reads them from here instead of looking them up in the calibration
+ * tables and in the geometry.
+ *
+ * The values are those returned by the IGetCalibrationParams methods of the
+ * hit class of the detector; HPOSBIN and LSBConv are shared by all hits in the
+ * counter and must not be modified.
+ */
+public class PaddleParameters {
+
+    public Line3D paddleLine;
+    public double barThickness;
+    public int status1;
+    public int status2;
+
+    public double TW01;
+    public double TW02;
+    public double TW11;
+    public double TW12;
+    public double TW1P;
+    public double TW2P;
+    public double TW0E;
+    public double TW1E;
+    public double TW2E;
+    public double TW3E;
+    public double TW4E;
+    public double HPOSa;
+    public double HPOSb;
+    public double HPOSc;
+    public double HPOSd;
+    public double HPOSe;
+    public double[] HPOSBIN;
+    public double lambda1;
+    public double lambda2;
+    public double lambda1Unc;
+    public double lambda2Unc;
+    public double yOffset;
+    public double v1;
+    public double v2;
+    public double v1Unc;
+    public double v2Unc;
+    public double PED1;
+    public double PED2;
+    public double PED1Unc;
+    public double PED2Unc;
+    public double paddle2paddle;
+    public double RFPad;
+    public double timeOffset;
+    public double[] LSBConv;
+    public double LSBConvErr;
+    public double ADC1Err;
+    public double ADC2Err;
+    public double TDC1Err;
+    public double TDC2Err;
+    public double ADC_MIP;
+    public double ADC_MIPErr;
+    public double DEDX_MIP;
+
+}
@@ -14,6 +14,7 @@ import org.jlab.geometry.prim.Line3d;
 import org.jlab.rec.ctof.Constants;
 import org.jlab.rec.tof.hit.AHit;
 import org.jlab.rec.tof.hit.IGetCalibrationParams;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import org.jlab.utils.groups.IndexedTable;
 
 /**
@@ -52,12 +53,20 @@ public class Hit extends AHit implements IGetCalibrationParams {
         this._matchedTrack = _matchedTrack;
     }
 
-    public void set_HitParameters(int superlayer,
-            double triggerPhase,
+    /**
+     * Reads the calibration constants and geometry of one counter
+     *
+     * @param paddle the paddle
+     * @param geometry the CTOF geometry
+     * @return the counter parameters used in the hit reconstruction
+     */
+    public static PaddleParameters getPaddleParameters(int paddle,
+            CTOFGeant4Factory geometry,
             IndexedTable constants0, 
             IndexedTable constants1, 
             IndexedTable constants2, 
             IndexedTable constants3, 
+            IndexedTable constants4, 
             IndexedTable constants5, 
             IndexedTable constants8, 
             IndexedTable constants9) {
@@ -68,70 +77,91 @@ public class Hit extends AHit implements IGetCalibrationParams {
         3: "/calibration/ctof/tdc_conv"),
         4: "/calibration/ctof/status"),
         5: "/calibration/ctof/gain_balance"),
-        5: "/calibration/ctof/hpos"),
-        5: "/calibration/ctof/hposbin"));
+        8: "/calibration/ctof/hpos"),
+        9: "/calibration/ctof/hposbin"));
         */
+        Hit hit = new Hit(0, 1, 1, paddle, 0, 0, 0, 0);
+        hit.setPaddleLine(geometry);
+
+        PaddleParameters par = new PaddleParameters();
+        par.paddleLine = hit.get_paddleLine();
+        par.barThickness = hit.get_barthickness();
+        par.status1 = hit.Status1(constants4);
+        par.status2 = hit.Status2(constants4);
+        par.TW01 = hit.TW01(null);
+        par.TW02 = hit.TW02(null);
+        par.TW11 = hit.TW11(null);
+        par.TW12 = hit.TW12(null);
+        par.TW1P = hit.TW1P(null); 
+        par.TW2P = hit.TW2P(null);  
+        par.TW0E = hit.TW0E(null); 
+        par.TW1E = hit.TW1E(null); 
+        par.TW2E = hit.TW2E(null); 
+        par.TW3E = hit.TW3E(null); 
+        par.TW4E = hit.TW4E(null);
+        par.HPOSa = hit.HPOSa(constants8);
+        par.HPOSb = hit.HPOSb(constants8);
+        par.HPOSc = hit.HPOSc(constants8);
+        par.HPOSd = hit.HPOSd(constants8);
+        par.HPOSe = hit.HPOSe(constants8);
+        par.HPOSBIN = hit.HPOSBIN(constants9);
+        par.lambda1 = hit.lambda1(constants0);
+        par.lambda1Unc = hit.lambda1Unc(constants0);
+        par.lambda2 = hit.lambda1(constants0);
+        par.lambda2Unc = hit.lambda2Unc(constants0);
+        par.yOffset = hit.yOffset(constants0);
+        par.v1 = hit.v1(constants1);
+        par.v2 = hit.v2(constants1);
+        par.v1Unc = hit.v1Unc(constants1);
+        par.v2Unc = hit.v2Unc(constants1);
+        par.PED1 = hit.PED1();
+        par.PED2 = hit.PED2();
+        par.PED1Unc = hit.PED1Unc();
+        par.PED2Unc = hit.PED2Unc();
+        par.paddle2paddle = hit.PaddleToPaddle(constants2);
+        par.RFPad = hit.RFPad(constants2);
+        par.timeOffset = hit.TimeOffset(constants2);
+        par.LSBConv = hit.LSBConversion(constants3);
+        par.LSBConvErr = hit.LSBConversionUnc();
+        par.ADC1Err = hit.ADC1Unc();
+        par.ADC2Err = hit.ADC2Unc();
+        par.TDC1Err = hit.TDC1Unc();
+        par.TDC2Err = hit.TDC2Unc();
+        par.ADC_MIP = hit.ADC_MIP(constants5);
+        par.ADC_MIPErr = hit.ADC_MIPUnc(constants5);
+        par.DEDX_MIP = hit.DEDX_MIP();
+        return par;
+    }
+
+    public void set_HitParameters(int superlayer,
+            double triggerPhase,
+            PaddleParameters par) {
+
         double pl = this.get_paddleLine().length();
 
-        // Get all the constants used in the hit parameters calculation
-        double TW0U = this.TW01(null);
-        double TW0D = this.TW02(null);
-        double TW1U = this.TW11(null);
-        double TW1D = this.TW12(null);
-        double TW1P = this.TW1P(null); 
-        double TW2P = this.TW2P(null);  
-        double TW0E = this.TW0E(null); 
-        double TW1E = this.TW1E(null); 
-        double TW2E = this.TW2E(null); 
-        double TW3E = this.TW3E(null); 
-        double TW4E = this.TW4E(null);
-        double HPOSa = this.HPOSa(constants8);
-        double HPOSb = this.HPOSb(constants8);
-        double HPOSc = this.HPOSc(constants8);
-        double HPOSd = this.HPOSd(constants8);
-        double HPOSe = this.HPOSe(constants8);
-        double[] HPOSBIN = this.HPOSBIN(constants9);
-        double lambdaU = this.lambda1(constants0);
-        this.set_lambda1(lambdaU);
-        this.set_lambda1Unc(this.lambda1Unc(constants0));
-        double lambdaD = this.lambda1(constants0);
-        this.set_lambda2(lambdaD);
-        this.set_lambda2Unc(this.lambda2Unc(constants0));
-        double yOffset = this.yOffset(constants0);
-        double vU = this.v1(constants1);
-        double vD = this.v2(constants1);
-        double vUUnc = this.v1Unc(constants1);
-        double vDUnc = this.v2Unc(constants1);
-        double PEDU = this.PED1();
-        double PEDD = this.PED2();
-        double PEDUUnc = this.PED1Unc();
-        double PEDDUnc = this.PED2Unc();
-        double paddle2paddle = this.PaddleToPaddle(constants2);
-        double RFPad = this.RFPad(constants2);
-        double timeOffset = this.TimeOffset(constants2);
-        double[] LSBConv = this.LSBConversion(constants3);
-        double LSBConvErr = this.LSBConversionUnc();
-        double ADCUErr = this.ADC1Unc();
-        double ADCDErr = this.ADC2Unc();
-        double TDCUErr = this.TDC1Unc();
-        double TDCDErr = this.TDC2Unc();
-        double ADC_MIP = this.ADC_MIP(constants5);
-        double ADC_MIPErr = this.ADC_MIPUnc(constants5);
-        double DEDX_MIP = this.DEDX_MIP();
+        this.set_lambda1(par.lambda1);
+        this.set_lambda1Unc(par.lambda1Unc);
+        this.set_lambda2(par.lambda2);
+        this.set_lambda2Unc(par.lambda2Unc);
         double ScinBarThickn = this.get_barthickness();
 
-        this.set_HitParams(superlayer, TW0U, TW0D, TW1U, TW1D, TW1P, TW2P, 
-                TW0E, TW1E, TW2E, TW3E, TW4E, 
-                HPOSa, HPOSb, HPOSc, HPOSd, HPOSe, HPOSBIN, lambdaU,lambdaD, 
-                yOffset, vU, vD, vUUnc, vDUnc, PEDU, PEDD, PEDUUnc,
-                PEDDUnc, paddle2paddle, RFPad, timeOffset, triggerPhase, LSBConv, LSBConvErr,
-                ADCUErr, ADCDErr, TDCUErr, TDCDErr, ADC_MIP, ADC_MIPErr,
-                DEDX_MIP, ScinBarThickn, pl);
+        this.set_HitParams(superlayer, par.TW01, par.TW02, par.TW11, par.TW12, par.TW1P, par.TW2P, 
+                par.TW0E, par.TW1E, par.TW2E, par.TW3E, par.TW4E, 
+                par.HPOSa, par.HPOSb, par.HPOSc, par.HPOSd, par.HPOSe, par.HPOSBIN, par.lambda1, par.lambda2, 
+                par.yOffset, par.v1, par.v2, par.v1Unc, par.v2Unc, par.PED1, par.PED2, par.PED1Unc,
+                par.PED2Unc, par.paddle2paddle, par.RFPad, par.timeOffset, triggerPhase, par.LSBConv, par.LSBConvErr,
+                par.ADC1Err, par.ADC2Err, par.TDC1Err, par.TDC2Err, par.ADC_MIP, par.ADC_MIPErr,
+                par.DEDX_MIP, ScinBarThickn, pl);
         // Set the hit position in the local coordinate of the bar
         this.set_Position(this.calc_hitPosition());
 
     }
 
+    public void setPaddleLine(PaddleParameters par) {
+        this.set_paddleLine(par.paddleLine);
+        this.set_barthickness(par.barThickness);
+    }
+
     public void setPaddleLine(CTOFGeant4Factory geometry) {
         // get the line in the middle of the paddle
         org.jlab.detector.volume.Geant4Basic pad = geometry
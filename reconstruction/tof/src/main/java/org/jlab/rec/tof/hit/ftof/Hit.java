@@ -23,6 +23,7 @@ import org.jlab.rec.ftof.Constants;
 import org.jlab.rec.tof.banks.ftof.HitReader;
 import org.jlab.rec.tof.hit.AHit;
 import org.jlab.rec.tof.hit.IGetCalibrationParams;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import eu.mihosoft.vrl.v3d.Vector3d;
 import org.jlab.service.ftof.FTOFHBEngine;
 import org.jlab.utils.groups.IndexedTable;
@@ -78,10 +79,22 @@ public class Hit extends AHit implements IGetCalibrationParams {
         this._matchedTrack = _matchedTrack;
     }
 
-    public void set_HitParameters(int superlayer, double triggerPhase, IndexedTable constants0, 
+    /**
+     * Reads the calibration constants and geometry of one counter
+     *
+     * @param sector the sector
+     * @param panel the panel
+     * @param paddle the paddle
+     * @param geometry the FTOF geometry
+     * @return the counter parameters used in the hit reconstruction
+     */
+    public static PaddleParameters getPaddleParameters(int sector, int panel, int paddle,
+            FTOFGeant4Factory geometry,
+            IndexedTable constants0, 
             IndexedTable constants1, 
             IndexedTable constants2, 
             IndexedTable constants3, 
+            IndexedTable constants4, 
             IndexedTable constants5, 
             IndexedTable constants6, 
             IndexedTable constants8, 
@@ -96,67 +109,86 @@ public class Hit extends AHit implements IGetCalibrationParams {
         8: "/calibration/ftof/time_walk_pos"),
         9: "/calibration/ftof/time_walk_exp"));
         */
+        Hit hit = new Hit(0, panel, sector, paddle, 0, 0, 0, 0);
+        hit.setPaddleLine(geometry);
+
+        PaddleParameters par = new PaddleParameters();
+        par.paddleLine = hit.get_paddleLine();
+        par.barThickness = hit.get_barthickness();
+        par.status1 = hit.Status1(constants4);
+        par.status2 = hit.Status2(constants4);
+        par.TW01 = hit.TW01(constants3);
+        par.TW02 = hit.TW02(constants3);
+        par.TW11 = hit.TW11(constants3);
+        par.TW12 = hit.TW12(constants3); 
+        par.TW1P = hit.TW1P(constants8); 
+        par.TW2P = hit.TW2P(constants8); 
+        par.TW0E = hit.TW0E(constants9); 
+        par.TW1E = hit.TW1E(constants9); 
+        par.TW2E = hit.TW2E(constants9); 
+        par.TW3E = hit.TW3E(constants9); 
+        par.TW4E = hit.TW4E(constants9); 
+        par.HPOSa = hit.HPOSa(null);
+        par.HPOSb = hit.HPOSb(null);
+        par.HPOSc = hit.HPOSc(null);
+        par.HPOSd = hit.HPOSd(null);
+        par.HPOSe = hit.HPOSe(null);
+        par.HPOSBIN = hit.HPOSBIN(null);
+        par.lambda1 = hit.lambda1(constants0);
+        par.lambda1Unc = hit.lambda1Unc(constants0);
+        par.lambda2 = hit.lambda1(constants0);
+        par.lambda2Unc = hit.lambda2Unc(constants0);
+        par.yOffset = hit.yOffset(constants0);
+        par.v1 = hit.v1(constants1);
+        par.v2 = hit.v2(constants1);
+        par.v1Unc = hit.v1Unc(constants1);
+        par.v2Unc = hit.v2Unc(constants1);
+        par.PED1 = hit.PED1();
+        par.PED2 = hit.PED2();
+        par.PED1Unc = hit.PED1Unc();
+        par.PED2Unc = hit.PED2Unc();
+        par.paddle2paddle = hit.PaddleToPaddle(constants2);
+        par.RFPad = hit.RFPad(constants2);
+        par.timeOffset = hit.TimeOffset(constants2);
+        par.LSBConv = hit.LSBConversion(constants6);
+        par.LSBConvErr = hit.LSBConversionUnc();
+        par.ADC1Err = hit.ADC1Unc();
+        par.ADC2Err = hit.ADC2Unc();
+        par.TDC1Err = hit.TDC1Unc();
+        par.TDC2Err = hit.TDC2Unc();
+        par.ADC_MIP = hit.ADC_MIP(constants5);
+        par.ADC_MIPErr = hit.ADC_MIPUnc(constants5);
+        par.DEDX_MIP = hit.DEDX_MIP();
+        return par;
+    }
+
+    public void set_HitParameters(int superlayer, double triggerPhase, PaddleParameters par) {
+
         double pl = this.get_paddleLine().length();
 
-        // Get all the constants used in the hit parameters calculation
-        double TW0L = this.TW01(constants3);
-        double TW0R = this.TW02(constants3);
-        double TW1L = this.TW11(constants3);
-        double TW1R = this.TW12(constants3); 
-        double TW1P = this.TW1P(constants8); 
-        double TW2P = this.TW2P(constants8); 
-        double TW0E = this.TW0E(constants9); 
-        double TW1E = this.TW1E(constants9); 
-        double TW2E = this.TW2E(constants9); 
-        double TW3E = this.TW3E(constants9); 
-        double TW4E = this.TW4E(constants9); 
-        double HPOSa = this.HPOSa(null);
-        double HPOSb = this.HPOSb(null);
-        double HPOSc = this.HPOSc(null);
-        double HPOSd = this.HPOSd(null);
-        double HPOSe = this.HPOSe(null);
-        double[] HPOSBIN = this.HPOSBIN(null);
-        double lambdaL = this.lambda1(constants0);
-        this.set_lambda1(lambdaL);
-        this.set_lambda1Unc(this.lambda1Unc(constants0));
-        double lambdaR = this.lambda1(constants0);
-        this.set_lambda2(lambdaR);
-        this.set_lambda2Unc(this.lambda2Unc(constants0));
-        double yOffset = this.yOffset(constants0);
-        double vL = this.v1(constants1);
-        double vR = this.v2(constants1);
-        double vLUnc = this.v1Unc(constants1);
-        double vRUnc = this.v2Unc(constants1);
-        double PEDL = this.PED1();
-        double PEDR = this.PED2();
-        double PEDLUnc = this.PED1Unc();
-        double PEDRUnc = this.PED2Unc();
-        double paddle2paddle = this.PaddleToPaddle(constants2);
-        double RFPad = this.RFPad(constants2);
-        double timeOffset = this.TimeOffset(constants2);
-        double[] LSBConv = this.LSBConversion(constants6);
-        double LSBConvErr = this.LSBConversionUnc();
-        double ADCLErr = this.ADC1Unc();
-        double ADCRErr = this.ADC2Unc();
-        double TDCLErr = this.TDC1Unc();
-        double TDCRErr = this.TDC2Unc();
-        double ADC_MIP = this.ADC_MIP(constants5);
-        double ADC_MIPErr = this.ADC_MIPUnc(constants5);
-        double DEDX_MIP = this.DEDX_MIP();
+        this.set_lambda1(par.lambda1);
+        this.set_lambda1Unc(par.lambda1Unc);
+        this.set_lambda2(par.lambda2);
+        this.set_lambda2Unc(par.lambda2Unc);
         double ScinBarThickn = this.get_barthickness();
 
-        this.set_HitParams(superlayer, TW0L, TW0R, TW1L, TW1R, TW1P, TW2P, 
-                TW0E, TW1E, TW2E, TW3E, TW4E,
-                HPOSa, HPOSb, HPOSc, HPOSd, HPOSe, HPOSBIN, lambdaL,lambdaR, 
-                yOffset, vL, vR, vLUnc, vRUnc, PEDL, PEDR, PEDLUnc,
-                PEDRUnc, paddle2paddle, RFPad, timeOffset, triggerPhase, LSBConv, LSBConvErr,
-                ADCLErr, ADCRErr, TDCLErr, TDCRErr, ADC_MIP, ADC_MIPErr,
-                DEDX_MIP, ScinBarThickn, pl);
+        this.set_HitParams(superlayer, par.TW01, par.TW02, par.TW11, par.TW12, par.TW1P, par.TW2P, 
+                par.TW0E, par.TW1E, par.TW2E, par.TW3E, par.TW4E,
+                par.HPOSa, par.HPOSb, par.HPOSc, par.HPOSd, par.HPOSe, par.HPOSBIN, par.lambda1, par.lambda2, 
+                par.yOffset, par.v1, par.v2, par.v1Unc, par.v2Unc, par.PED1, par.PED2, par.PED1Unc,
+                par.PED2Unc, par.paddle2paddle, par.RFPad, par.timeOffset, triggerPhase, par.LSBConv, par.LSBConvErr,
+                par.ADC1Err, par.ADC2Err, par.TDC1Err, par.TDC2Err, par.ADC_MIP, par.ADC_MIPErr,
+                par.DEDX_MIP, ScinBarThickn, pl);
         // Set the hit position in the local coordinate of the bar
         this.set_Position(this.calc_hitPosition());
 
     }
 
+    public void setPaddleLine(PaddleParameters par) {
+        this.set_paddleLine(par.paddleLine);
+        this.set_barthickness(par.barThickness);
+    }
+
     public void setPaddleLine(FTOFGeant4Factory geometry) {
         // get the line in the middle of the paddle
         G4Box comp = (G4Box) geometry.getComponent(this.get_Sector(),
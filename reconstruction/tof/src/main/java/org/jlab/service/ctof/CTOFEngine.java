@@ -25,6 +25,7 @@ import org.jlab.rec.tof.banks.ctof.TrackReader;
 import org.jlab.rec.tof.cluster.Cluster;
 import org.jlab.rec.tof.cluster.ClusterFinder;
 import org.jlab.rec.tof.hit.AHit;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import org.jlab.rec.tof.hit.ctof.Hit;
 import org.jlab.rec.tof.track.Track;
 
@@ -42,6 +43,7 @@ public class CTOFEngine extends ReconstructionEngine {
     CTOFGeant4Factory geometry;
 
     int Run = 0;
+    PaddleParameters[] paddles;
     RecoBankWriter rbc;
     
     @Override
@@ -80,6 +82,28 @@ public class CTOFEngine extends ReconstructionEngine {
         return true;
     }
 
+    /**
+     * Get the calibration constants and geometry of all counters, read again
+     * only when the run changes
+     * @param run the run number
+     * @return the counter parameters
+     */
+    private synchronized PaddleParameters[] getPaddleParameters(int run) {
+        if (paddles == null || run != Run) {
+            paddles = HitReader.getPaddleParameters(geometry,
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/attenuation"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/effective_velocity"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/time_offsets"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/tdc_conv"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/status"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/gain_balance"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/hpos"),
+                this.getConstantsManager().getConstants(run, "/calibration/ctof/hposbin"));
+            Run = run;
+        }
+        return paddles;
+    }
+
     @Override
     public boolean processDataEvent(DataEvent event) {
         //setRunConditionsParameters( event) ;
@@ -116,16 +140,10 @@ public class CTOFEngine extends ReconstructionEngine {
         // read in the hits for CTOF
         HitReader hitRead = new HitReader();
         hitRead.fetch_Hits(event, timeStamp, geometry, tracks, 
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/attenuation"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/effective_velocity"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/time_offsets"),
+            this.getPaddleParameters(newRun),
             this.getConstantsManager().getConstants(newRun, "/calibration/ctof/tdc_conv"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/status"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/gain_balance"),
             this.getConstantsManager().getConstants(newRun, "/calibration/ctof/time_jitter"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/fadc_offset"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/hpos"),
-            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/hposbin"));
+            this.getConstantsManager().getConstants(newRun, "/calibration/ctof/fadc_offset"));
 
         // 1) get the hits
         List<Hit> CTOFHits = hitRead.get_CTOFHits();
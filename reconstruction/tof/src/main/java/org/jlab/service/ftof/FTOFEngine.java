@@ -17,6 +17,7 @@ import org.jlab.io.hipo.HipoDataSource;
 import org.jlab.io.hipo.HipoDataSync;
 import org.jlab.rec.ftof.Constants;
 import org.jlab.rec.tof.banks.ftof.HitReader;
+import org.jlab.rec.tof.hit.PaddleParameters;
 import org.jlab.rec.tof.banks.ftof.RecoBankWriter;
 import org.jlab.rec.tof.banks.ftof.TrackReader;
 import org.jlab.rec.tof.cluster.Cluster;
@@ -41,6 +42,7 @@ public class FTOFEngine extends ReconstructionEngine {
     
     FTOFGeant4Factory geometry;
     int Run = 0;
+    PaddleParameters[] paddles;
     RecoBankWriter rbc;
     
     @Override
@@ -83,6 +85,29 @@ public class FTOFEngine extends ReconstructionEngine {
         return true;
     }
 
+    /**
+     * Get the calibration constants and geometry of all counters, read again
+     * only when the run changes
+     * @param run the run number
+     * @return the counter parameters
+     */
+    private synchronized PaddleParameters[] getPaddleParameters(int run) {
+        if (paddles == null || run != Run) {
+            paddles = HitReader.getPaddleParameters(geometry,
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/attenuation"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/effective_velocity"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/time_offsets"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/time_walk"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/status"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/gain_balance"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/tdc_conv"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/time_walk_pos"),
+                this.getConstantsManager().getConstants(run, "/calibration/ftof/time_walk_exp"));
+            Run = run;
+        }
+        return paddles;
+    }
+
     @Override
     public boolean processDataEvent(DataEvent event) {
         // System.out.println(" PROCESSING EVENT ....");
@@ -119,16 +144,9 @@ public class FTOFEngine extends ReconstructionEngine {
         // read in the hits for FTOF
         HitReader hitRead = new HitReader();
         hitRead.fetch_Hits(event, timeStamp, geometry, tracks, 
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/attenuation"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/effective_velocity"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/time_offsets"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/time_walk"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/status"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/gain_balance"),
+                this.getPaddleParameters(newRun),
                 this.getConstantsManager().getConstants(newRun, "/calibration/ftof/tdc_conv"),
                 this.getConstantsManager().getConstants(newRun, "/calibration/ftof/time_jitter"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/time_walk_pos"),
-                this.getConstantsManager().getConstants(newRun, "/calibration/ftof/time_walk_exp"),
                 this.getConstantsManager().getConstants(newRun, "/calibration/ftof/fadc_offset"));
 
         // 1) get the hits
@@ -1,7 +1,9 @@
 package org.jlab.service.urwell;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import org.jlab.detector.base.ChannelClusterer;
 import org.jlab.detector.base.DetectorDescriptor;
 import org.jlab.detector.base.DetectorType;
 import org.jlab.geom.prim.Line3D;
@@ -14,6 +16,13 @@ import org.jlab.geom.prim.Point3D;
  */
 public class URWellCluster extends ArrayList<URWellStrip> {
    
+    // strips per chamber block, see getChannel()
+    private static final int NCOMPONENT = URWellConstants.STRIPMAX[URWellConstants.NCHAMBER-1];
+    
+    // strips indexed by channel, one per thread sharing the same adjacency table
+    private static final ChannelClusterer CHANNELS = createClusterer();
+    private static final ThreadLocal<ChannelClusterer> CLUSTERER = 
+            ThreadLocal.withInitial(() -> new ChannelClusterer(CHANNELS));
     
     private DetectorDescriptor  desc          = new DetectorDescriptor(DetectorType.URWELL);
     private int                 id;  
@@ -86,17 +95,21 @@ public class URWellCluster extends ArrayList<URWellStrip> {
     public boolean  addStrip(URWellStrip strip){
         for(URWellStrip s : this){
             if(s.isNeighbour(strip)){
-                this.add(strip);
-                if(strip.getEnergy()>this.get(indexMaxStrip).getEnergy()){
-                    this.indexMaxStrip = this.size()-1;
-                    this.clusterLine.copy(strip.getLine());
-                }
+                this.appendStrip(strip);
                 return true;
             }
         }
         return false;
     }
     
+    private void appendStrip(URWellStrip strip){
+        this.add(strip);
+        if(strip.getEnergy()>this.get(indexMaxStrip).getEnergy()){
+            this.indexMaxStrip = this.size()-1;
+            this.clusterLine.copy(strip.getLine());
+        }
+    }
+    
     public int getADC(){
         int adc = 0;
         for(URWellStrip s : this){
@@ -155,21 +168,86 @@ public class URWellCluster extends ArrayList<URWellStrip> {
     }
     
     
+    /**
+     * Strip channel, one block of strips per sector, layer and chamber, so
+     * that neighbour strips are adjacent channels within the same block
+     * @param strip
+     * @return the channel, or -1 if out of range
+     */
+    private static int getChannel(URWellStrip strip) {
+        int sector  = strip.getDescriptor().getSector();
+        int layer   = strip.getDescriptor().getLayer();
+        int chamber = strip.getChamber();
+        int comp    = strip.getDescriptor().getComponent();
+        if(sector<1 || sector>URWellConstants.NSECTOR || layer<1 || layer>URWellConstants.NLAYER ||
+           chamber<1 || chamber>URWellConstants.NCHAMBER || comp<1 || comp>NCOMPONENT) return -1;
+        return (((sector-1)*URWellConstants.NLAYER + layer-1)*URWellConstants.NCHAMBER + chamber-1)*NCOMPONENT + comp-1;
+    }
+    
+    private static ChannelClusterer createClusterer() {
+        int[][] neighbours = new int[URWellConstants.NSECTOR*URWellConstants.NLAYER*URWellConstants.NCHAMBER*NCOMPONENT][];
+        for(int channel = 0; channel < neighbours.length; channel++) {
+            int comp = channel%NCOMPONENT;
+            if(comp==0)                 neighbours[channel] = new int[]{channel, channel+1};
+            else if(comp==NCOMPONENT-1) neighbours[channel] = new int[]{channel-1, channel};
+            else                        neighbours[channel] = new int[]{channel-1, channel, channel+1};
+        }
+        return new ChannelClusterer(neighbours);
+    }
+    
     public static List<URWellCluster> createClusters(List<URWellStrip> stripList){
     	
         List<URWellCluster>  clusterList = new ArrayList<>();
         
         if(!stripList.isEmpty()){
-            for(int loop = 0; loop < stripList.size(); loop++){ //Loop over all strips 
-                boolean stripAdded = false;                
-                for(URWellCluster  cluster : clusterList) {
-                    if(cluster.addStrip(stripList.get(loop))){ //Add adjacent strip to newly seeded peak
-                        stripAdded = true;
+            int nStrips = stripList.size();
+            int[] channels = new int[nStrips];
+            for(int loop = 0; loop < nStrips; loop++) channels[loop] = getChannel(stripList.get(loop));
+            ChannelClusterer clusterer = CLUSTERER.get();
+            clusterer.setHits(nStrips, channels);
+            
+            // clusters of each strip, as linked lists of entries
+            int[] firstEntry   = new int[nStrips];
+            int[] entryCluster = new int[nStrips];
+            int[] entryNext    = new int[nStrips];
+            int   nEntries     = 0;
+            int[] clusterIds   = new int[8];
+            
+            for(int loop = 0; loop < nStrips; loop++){ //Loop over all strips 
+                URWellStrip strip = stripList.get(loop);
+                clusterer.remove(loop);
+                // clusters of the previous neighbour strips
+                int nIds = 0;
+                int nNeighbours = clusterer.removedNeighbours(loop);
+                for(int k = 0; k < nNeighbours; k++) {
+                    for(int e = firstEntry[clusterer.getNeighbour(k)]; e >= 0; e = entryNext[e]) {
+                        if(nIds==clusterIds.length) clusterIds = Arrays.copyOf(clusterIds, 2*nIds);
+                        clusterIds[nIds++] = entryCluster[e];
+                    }
+                }
+                Arrays.sort(clusterIds, 0, nIds);
+                firstEntry[loop] = -1;
+                for(int k = 0; k < nIds; k++) {
+                    if(k>0 && clusterIds[k]==clusterIds[k-1]) continue;
+                    clusterList.get(clusterIds[k]).appendStrip(strip); //Add adjacent strip to newly seeded peak
+                    if(nEntries==entryCluster.length) {
+                        entryCluster = Arrays.copyOf(entryCluster, 2*nEntries);
+                        entryNext    = Arrays.copyOf(entryNext, 2*nEntries);
                     }
+                    entryCluster[nEntries] = clusterIds[k];
+                    entryNext[nEntries]    = firstEntry[loop];
+                    firstEntry[loop]       = nEntries++;
                 }
-                if(!stripAdded){
-                    URWellCluster  newPeak = new URWellCluster(stripList.get(loop)); //Non-adjacent strip seeds new peak
+                if(nIds==0){
+                    URWellCluster  newPeak = new URWellCluster(strip); //Non-adjacent strip seeds new peak
                     clusterList.add(newPeak);
+                    if(nEntries==entryCluster.length) {
+                        entryCluster = Arrays.copyOf(entryCluster, 2*nEntries);
+                        entryNext    = Arrays.copyOf(entryNext, 2*nEntries);
+                    }
+                    entryCluster[nEntries] = clusterList.size()-1;
+                    entryNext[nEntries]    = -1;
+                    firstEntry[loop]       = nEntries++;
                 }
             }
         }
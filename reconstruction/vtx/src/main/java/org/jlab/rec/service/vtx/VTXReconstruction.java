@@ -89,7 +89,8 @@ public class VTXReconstruction extends ReconstructionEngine {
     	for(int i=0; i<hxPairs.size(); i++) {
     		Vertex v = vertexFinder.FindVertex(hxPairs.get(i));
                 //put cuts....
-                if(v!=null)
+                // skip pairs for which the DOCA search did not converge
+                if(v!=null && v.isConverged())
                     verteces.add(v);
     	}
         Writer vtxOut = new Writer();
@@ -64,8 +64,29 @@ public class TrackParsHelix extends Helix {
         _cosphidca = Math.cos(this._phi_dca);
         _sinphidca = Math.sin(this._phi_dca);
 
+        this._rho    = 1./this._helix.getOmega();
+        this._xc     = _x0 + (this._helix.getD0() + _rho)*_cosphidca;
+        this._yc     = _y0 + (this._helix.getD0() + _rho)*_sinphidca;
+        this._zc     = _z0 + this._helix.getZ0();
+        this._dzdphi = -_rho*this._helix.getTanL();
+
     } // end setHelixParams()
 
+    // the helix curve as in calcPoint, with primitive parameters:
+    // x = xc - rho*cos(phi_dca+phi), y = yc - rho*sin(phi_dca+phi), z = zc + dzdphi*phi
+    private double _rho;
+    private double _xc;
+    private double _yc;
+    private double _zc;
+    private double _dzdphi;
+
+    double getPhiDca()  { return _phi_dca; }
+    double getRho()     { return _rho; }
+    double getCenterX() { return _xc; }
+    double getCenterY() { return _yc; }
+    double getZRef()    { return _zc; }
+    double getDzDphi()  { return _dzdphi; }
+
 
     // calculate coordinates of the point of the helix curve from the parameter phi.
     // phi=0 corresponds to the ref. point given by the track
@@ -21,6 +21,7 @@ public class Vertex {
         private Vector3D _Track1POCADir;        //direction of the first track at the DOCA point 
         private Vector3D _Track2POCADir;        //direction of the second track at the DOCA point 
         private double _Doca;                   //distance between two tracks at the DOCA point
+        private boolean _Converged;             //whether the DOCA search converged
         
         public Point3D get_Vertex() {
 		return _Vertex;
@@ -98,6 +99,20 @@ public class Vertex {
     public void setDoca(double _Doca) {
         this._Doca = _Doca;
     }
+
+    /**
+     * @return whether the DOCA search converged
+     */
+    public boolean isConverged() {
+        return _Converged;
+    }
+
+    /**
+     * @param _Converged whether the DOCA search converged
+     */
+    public void setConverged(boolean _Converged) {
+        this._Converged = _Converged;
+    }
         
       
         private List<TrackParsHelix> _HelixPair = new ArrayList<TrackParsHelix>();
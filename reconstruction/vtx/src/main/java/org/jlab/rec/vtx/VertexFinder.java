@@ -7,7 +7,6 @@ import java.util.List;
 
 import org.jlab.geom.prim.Line3D;
 import org.jlab.geom.prim.Point3D;
-import org.jlab.geom.prim.Vector3D;
 
 public class VertexFinder {
 	
@@ -55,70 +54,193 @@ public class VertexFinder {
 	}
 	
 	
+	// range of the helix turning angle, from the track reference point, in
+	// which the closest approach is searched for
+	private static final double PHI_RANGE = 0.25;
+	// convergence tolerance on the turning angles and maximum iterations
+	private static final double PHI_TOLERANCE = 1e-10;
+	private static final int MAX_ITERATIONS = 20;
+
 	public Vertex FindVertex(ArrayList<TrackParsHelix> helixPair) {
 		
 	    TrackParsHelix h1 = helixPair.get(0);
 	    TrackParsHelix h2 = helixPair.get(1);
-           
-	    int nsteps=50;
-	    double step = 0.005;    		
-	    double minD = 9999.;
-	    double phiMin1 = 9999.;
-	    double phiMin2 = 9999.;	    
-	    Point3D pMin1 = null;
-            Point3D pMin2 = null;
-            Vector3D uMin1 = null;
-            Vector3D uMin2 = null;
-	    // loop through the points of both helix curves 
-	    // and find two points with the minimal distance between them.
-		for(double phi1=-(nsteps*step) ; phi1<(nsteps*step); phi1+=step) {
-                    for(double phi2=-(nsteps*step) ; phi2<(nsteps*step); phi2+=step) {
-                    double d = h1.calcPoint(phi1).distance(h2.calcPoint(phi2)); 
-
-                    if(d<minD) { minD = d; phiMin1=phi1; phiMin2=phi2; }
-                    }
-		}
-		
-		// repeat previous loops around phiMin1 and phiMin2 with smaller step
-		nsteps=15;
-		step = step/10.;
-		for(double phi1=phiMin1-(nsteps*step) ; phi1<phiMin1+(nsteps*step); phi1+=step) {
-                    for(double phi2=phiMin2-(nsteps*step) ; phi2<phiMin2+(nsteps*step); phi2+=step) {
-                        double d = h1.calcPoint(phi1).distance(h2.calcPoint(phi2));
-                        if(d<minD) { minD = d; phiMin1=phi1; phiMin2=phi2; 
-                        uMin1 =  h1.calcDir(phi1); uMin2 =  h2.calcDir(phi2);}
-                    }
-		}
 
-		// one more iteration
-		nsteps=15;
-		step = step/10.;
-		for(double phi1=phiMin1-(nsteps*step) ; phi1<phiMin1+(nsteps*step); phi1+=step) {
-                    for(double phi2=phiMin2-(nsteps*step) ; phi2<phiMin2+(nsteps*step); phi2+=step) {
-                        double d = h1.calcPoint(phi1).distance(h2.calcPoint(phi2));
-                        if(d<minD) { minD = d; phiMin1=phi1; phiMin2=phi2; 
-                        pMin1 =  h1.calcPoint(phi1);pMin2 =  h2.calcPoint(phi2);
-                        uMin1 =  h1.calcDir(phi1); uMin2 =  h2.calcDir(phi2);}
-                    }
-		}
-				
-		// the line connecting the points of two helixes with minimal distance between them
-		Line3D intrxLine = new Line3D(h1.calcPoint(phiMin1), h2.calcPoint(phiMin2));
-		Point3D intrxPoint = intrxLine.midpoint();		
+	    // start from the intersections of the two circles in the transverse
+	    // plane, or from their closest points if they don't intersect, and
+	    // refine on the 3D distance
+	    double[] starts = circleStarts(h1, h2);
+	    double[] best = null;
+	    for(int i=0; i<starts.length; i+=2) {
+	        double[] sol = minimize(h1, h2, starts[i], starts[i+1]);
+	        if(best==null || sol[2]<best[2]) best = sol;
+	    }
+	    if(best==null || Double.isNaN(best[2])) return null;
+	    
+	    double phiMin1 = best[0];
+	    double phiMin2 = best[1];
+	    Point3D pMin1 = h1.calcPoint(phiMin1);
+	    Point3D pMin2 = h2.calcPoint(phiMin2);
+	    
+	    // the line connecting the points of two helixes with minimal distance between them
+	    Line3D intrxLine = new Line3D(pMin1, pMin2);
+	    Point3D intrxPoint = intrxLine.midpoint();		
 		
-                Vertex v = null;
-                if(pMin1!=null && pMin2!=null && uMin1!=null && uMin2!=null) {
-                    v = new Vertex();
-                    v.set_HelixPair(helixPair);
-                    v.set_Vertex(intrxPoint);
-                    v.setDoca(minD);
-                    v.setTrack1POCA(pMin1);
-                    v.setTrack2POCA(pMin2);
-                    v.setTrack1POCADir(uMin1);
-                    v.setTrack2POCADir(uMin2);
-                }
+	    Vertex v = new Vertex();
+	    v.set_HelixPair(helixPair);
+	    v.set_Vertex(intrxPoint);
+	    v.setDoca(pMin1.distance(pMin2));
+	    v.setTrack1POCA(pMin1);
+	    v.setTrack2POCA(pMin2);
+	    v.setTrack1POCADir(h1.calcDir(phiMin1));
+	    v.setTrack2POCADir(h2.calcDir(phiMin2));
+	    v.setConverged(best[3]>0);
                 
 	    return v;
 	
 	} // end FindVertex()
+
+	/**
+	 * Starting turning angles for the two helices: the intersections of their
+	 * circles in the transverse plane, or the points of each circle closest to
+	 * the other one.
+	 * @return pairs of turning angles (phi1, phi2)
+	 */
+	private static double[] circleStarts(TrackParsHelix h1, TrackParsHelix h2) {
+	    double r1 = Math.abs(h1.getRho());
+	    double r2 = Math.abs(h2.getRho());
+	    double dx = h2.getCenterX() - h1.getCenterX();
+	    double dy = h2.getCenterY() - h1.getCenterY();
+	    double d  = Math.sqrt(dx*dx+dy*dy);
+	    if(d==0 || Double.isNaN(d)) return new double[]{0, 0};
+	    double ux = dx/d;
+	    double uy = dy/d;
+	    if(d>r1+r2 || d<Math.abs(r1-r2)) {
+	        // separated circles: the closest points are on the line of centers,
+	        // on the facing sides, or on the same side if one contains the other
+	        double s1 = d>r1+r2 || r1>r2 ? r1 : -r1;
+	        double s2 = d>r1+r2 || r1<r2 ? -r2 : r2;
+	        return new double[]{
+	            turningAngle(h1, h1.getCenterX()+s1*ux, h1.getCenterY()+s1*uy),
+	            turningAngle(h2, h1.getCenterX()+d*ux+s2*ux, h1.getCenterY()+d*uy+s2*uy)};
+	    }
+	    double l = (d*d + r1*r1 - r2*r2)/(2*d);
+	    double h = Math.sqrt(Math.max(0, r1*r1 - l*l));
+	    double mx = h1.getCenterX() + l*ux;
+	    double my = h1.getCenterY() + l*uy;
+	    return new double[]{
+	        turningAngle(h1, mx-h*uy, my+h*ux), turningAngle(h2, mx-h*uy, my+h*ux),
+	        turningAngle(h1, mx+h*uy, my-h*ux), turningAngle(h2, mx+h*uy, my-h*ux)};
+	}
+
+	/**
+	 * @return the turning angle of the point of the helix circle closest to
+	 * (x,y), in the search range
+	 */
+	private static double turningAngle(TrackParsHelix h, double x, double y) {
+	    double rho = h.getRho();
+	    double psi = Math.atan2(-(y-h.getCenterY())/rho, -(x-h.getCenterX())/rho);
+	    double phi = Math.IEEEremainder(psi - h.getPhiDca(), 2*Math.PI);
+	    return Math.max(-PHI_RANGE, Math.min(PHI_RANGE, phi));
+	}
+
+	/**
+	 * Newton minimization of the squared 3D distance between the two helices,
+	 * as a function of the two turning angles, bounded to the search range.
+	 * @return phi1, phi2, the distance, and 1 if converged or 0 otherwise
+	 */
+	private static double[] minimize(TrackParsHelix h1, TrackParsHelix h2, double phi1, double phi2) {
+	    double[] p1 = new double[8];
+	    double[] p2 = new double[8];
+	    double f = distance2(h1, phi1, p1, h2, phi2, p2);
+	    boolean converged = false;
+	    for(int iter=0; iter<MAX_ITERATIONS && !converged; iter++) {
+	        // gradient and Hessian of half the squared distance
+	        double rx = p1[0]-p2[0], ry = p1[1]-p2[1], rz = p1[2]-p2[2];
+	        double g1  =  rx*p1[3] + ry*p1[4] + rz*p1[5];
+	        double g2  = -(rx*p2[3] + ry*p2[4] + rz*p2[5]);
+	        double u11 = p1[3]*p1[3] + p1[4]*p1[4] + p1[5]*p1[5];
+	        double u22 = p2[3]*p2[3] + p2[4]*p2[4] + p2[5]*p2[5];
+	        double h12 = -(p1[3]*p2[3] + p1[4]*p2[4] + p1[5]*p2[5]);
+	        double h11 = u11 + rx*p1[6] + ry*p1[7];
+	        double h22 = u22 - rx*p2[6] - ry*p2[7];
+	        // an angle at the bound, with the distance decreasing outside, is fixed
+	        boolean free1 = !(phi1>= PHI_RANGE && g1<0 || phi1<=-PHI_RANGE && g1>0);
+	        boolean free2 = !(phi2>= PHI_RANGE && g2<0 || phi2<=-PHI_RANGE && g2>0);
+	        if(!free1 && !free2) {
+	            converged = true;
+	            break;
+	        }
+	        double d1 = 0, d2 = 0;
+	        if(free1 && free2) {
+	            double det = h11*h22 - h12*h12;
+	            if(h11<=0 || det<=0) {
+	                // not a minimum locally, take the Gauss-Newton step
+	                h11 = u11;
+	                h22 = u22;
+	                det = h11*h22 - h12*h12;
+	            }
+	            if(det<=0) break;
+	            d1 = -( h22*g1 - h12*g2)/det;
+	            d2 = -(-h12*g1 + h11*g2)/det;
+	        }
+	        else if(free1) {
+	            d1 = -g1/(h11>0 ? h11 : u11);
+	        }
+	        else {
+	            d2 = -g2/(h22>0 ? h22 : u22);
+	        }
+	        // bounded step, halved until the distance does not increase
+	        boolean stalled = true;
+	        for(int k=0; k<10 && stalled; k++) {
+	            double n1 = Math.max(-PHI_RANGE, Math.min(PHI_RANGE, phi1+d1));
+	            double n2 = Math.max(-PHI_RANGE, Math.min(PHI_RANGE, phi2+d2));
+	            double fn = distance2(h1, n1, p1, h2, n2, p2);
+	            if(fn<=f) {
+	                converged = Math.abs(n1-phi1)<PHI_TOLERANCE && Math.abs(n2-phi2)<PHI_TOLERANCE;
+	                phi1 = n1;
+	                phi2 = n2;
+	                f = fn;
+	                stalled = false;
+	            }
+	            d1 /= 2;
+	            d2 /= 2;
+	        }
+	        if(stalled) {
+	            // no decrease, i.e. at the minimum within rounding if the step was small
+	            converged = Math.abs(d1)<PHI_TOLERANCE && Math.abs(d2)<PHI_TOLERANCE;
+	            break;
+	        }
+	    }
+	    return new double[]{phi1, phi2, Math.sqrt(f), converged ? 1 : 0};
+	}
+
+	/**
+	 * Fill the position, first and second derivatives of the two helices at
+	 * the given turning angles.
+	 * @return the squared distance between the two points
+	 */
+	private static double distance2(TrackParsHelix h1, double phi1, double[] p1,
+	                                TrackParsHelix h2, double phi2, double[] p2) {
+	    point(h1, phi1, p1);
+	    point(h2, phi2, p2);
+	    double dx = p1[0]-p2[0];
+	    double dy = p1[1]-p2[1];
+	    double dz = p1[2]-p2[2];
+	    return dx*dx + dy*dy + dz*dz;
+	}
+
+	private static void point(TrackParsHelix h, double phi, double[] p) {
+	    double rho = h.getRho();
+	    double c = Math.cos(h.getPhiDca()+phi);
+	    double s = Math.sin(h.getPhiDca()+phi);
+	    p[0] = h.getCenterX() - rho*c;
+	    p[1] = h.getCenterY() - rho*s;
+	    p[2] = h.getZRef() + h.getDzDphi()*phi;
+	    p[3] = rho*s;
+	    p[4] = -rho*c;
+	    p[5] = h.getDzDphi();
+	    p[6] = rho*c;
+	    p[7] = rho*s;
+	}
 } // end class
@@ -0,0 +1,66 @@
+package org.jlab.rec.vtx;
+
+import java.util.ArrayList;
+import org.jlab.geom.prim.Point3D;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class VertexFinderTest {
+
+    private static final double FIELD = 5;
+    private static final double TOLERANCE = 1e-5;
+
+    private static ArrayList<TrackParsHelix> pair(TrackParsHelix h1, TrackParsHelix h2) {
+        ArrayList<TrackParsHelix> pair = new ArrayList<>();
+        pair.add(h1);
+        pair.add(h2);
+        return pair;
+    }
+
+    // helix starting at the given point with the track momentum perpendicular
+    // to the beam line, i.e. with the point at its reference turning angle
+    private static TrackParsHelix helix(int id, Point3D p, double px, double py, double pz, int q) {
+        return new TrackParsHelix(id, p.x(), p.y(), p.z(), px, py, pz, q, FIELD, p.x(), p.y());
+    }
+
+    private static void assertPoint(Point3D expected, Point3D actual) {
+        assertEquals(expected.x(), actual.x(), TOLERANCE);
+        assertEquals(expected.y(), actual.y(), TOLERANCE);
+        assertEquals(expected.z(), actual.z(), TOLERANCE);
+    }
+
+    @Test
+    public void testIntersecting() {
+        // the second track starts from a point of the first one, away from its reference point
+        TrackParsHelix h1 = helix(1, new Point3D(0, 0, 2), 0.6, 0.2, 0.4, 1);
+        Point3D common = h1.calcPoint(0.1);
+        TrackParsHelix h2 = helix(2, common, -0.3, 0.5, -0.2, -1);
+
+        Vertex v = new VertexFinder().FindVertex(pair(h1, h2));
+        assertNotNull(v);
+        assertTrue(v.isConverged());
+        assertEquals(0, v.getDoca(), TOLERANCE);
+        assertPoint(common, v.get_Vertex());
+        assertPoint(common, v.getTrack1POCA());
+        assertPoint(common, v.getTrack2POCA());
+    }
+
+    @Test
+    public void testNonIntersecting() {
+        // tracks in the transverse plane crossing in x,y but 1 cm apart in z
+        TrackParsHelix h1 = helix(1, new Point3D(0.1, -0.2, 2), 0.6, 0.2, 0, 1);
+        Point3D common = h1.calcPoint(-0.05);
+        Point3D above  = new Point3D(common.x(), common.y(), common.z()+1);
+        TrackParsHelix h2 = helix(2, above, -0.3, 0.5, 0, 1);
+
+        Vertex v = new VertexFinder().FindVertex(pair(h1, h2));
+        assertNotNull(v);
+        assertTrue(v.isConverged());
+        assertEquals(1, v.getDoca(), TOLERANCE);
+        assertPoint(new Point3D(common.x(), common.y(), common.z()+0.5), v.get_Vertex());
+        assertPoint(common, v.getTrack1POCA());
+        assertPoint(above, v.getTrack2POCA());
+        assertEquals(1, v.get_HelixPair().get(0).getId());
+        assertEquals(2, v.get_HelixPair().get(1).getId());
+    }
+}